@@ -54,7 +54,7 @@ public class GBDaoGenerator {
 
 
     public static void main(String[] args) throws Exception {
-        final Schema schema = new Schema(96, MAIN_PACKAGE + ".entities");
+        final Schema schema = new Schema(98, MAIN_PACKAGE + ".entities");
 
         Entity userAttributes = addUserAttributes(schema);
         Entity user = addUserInfo(schema, userAttributes);
@@ -180,6 +180,7 @@ public class GBDaoGenerator {
 
         addActivitySummary(schema, user, device);
         addBatteryLevel(schema, device);
+        addDailyTotalsCache(schema, device);
         new DaoGenerator().generateAll(schema, "app/src/main/java");
     }
 
@@ -1068,9 +1069,11 @@ public class GBDaoGenerator {
                 "This class represents a sample specific to the device. Values like activity kind or\n" +
                         "intensity, are device specific. Normalized values can be retrieved through the\n" +
                         "corresponding {@link SampleProvider}.");
-        activitySample.addIntProperty("timestamp").notNull().codeBeforeGetterAndSetter(OVERRIDE).primaryKey();
+        // deviceId first: the primary key orders the WITHOUT ROWID table, so that the samples of
+        // a device are stored together, ordered by time
         Property deviceId = activitySample.addLongProperty("deviceId").primaryKey().notNull().codeBeforeGetterAndSetter(OVERRIDE).getProperty();
         activitySample.addToOne(device, deviceId);
+        activitySample.addIntProperty("timestamp").notNull().codeBeforeGetterAndSetter(OVERRIDE).primaryKey();
         Property userId = activitySample.addLongProperty("userId").notNull().codeBeforeGetterAndSetter(OVERRIDE).getProperty();
         activitySample.addToOne(user, userId);
     }
@@ -1081,9 +1084,10 @@ public class GBDaoGenerator {
         timeSample.setJavaDoc(
                 "This class represents a sample specific to the device. Values might be device specific, depending on the sample type.\n" +
                         "Normalized values can be retrieved through the corresponding {@link TimeSampleProvider}.");
-        timeSample.addLongProperty("timestamp").notNull().codeBeforeGetterAndSetter(OVERRIDE).primaryKey();
+        // deviceId first, see addCommonActivitySampleProperties
         Property deviceId = timeSample.addLongProperty("deviceId").primaryKey().notNull().codeBeforeGetterAndSetter(OVERRIDE).getProperty();
         timeSample.addToOne(device, deviceId);
+        timeSample.addLongProperty("timestamp").notNull().codeBeforeGetterAndSetter(OVERRIDE).primaryKey();
         Property userId = timeSample.addLongProperty("userId").notNull().codeBeforeGetterAndSetter(OVERRIDE).getProperty();
         timeSample.addToOne(user, userId);
     }
@@ -1266,6 +1270,26 @@ public class GBDaoGenerator {
         return batteryLevel;
     }
 
+    private static Entity addDailyTotalsCache(Schema schema, Entity device) {
+        Entity dailyTotals = addEntity(schema, "DailyTotalsCache");
+        dailyTotals.setJavaDoc(
+                "Pre-aggregated totals of a device for a single, already finished, day.\n" +
+                "Rows are derived from the activity samples and may be deleted at any time."
+        );
+        Property deviceId = dailyTotals.addLongProperty("deviceId").primaryKey().notNull().getProperty();
+        dailyTotals.addToOne(device, deviceId);
+        dailyTotals.addIntProperty("dayStart").notNull().primaryKey()
+                .javaDocGetterAndSetter("Start of the day in local time, in seconds since epoch.");
+        dailyTotals.addLongProperty("steps").notNull();
+        dailyTotals.addLongProperty("distance").notNull();
+        dailyTotals.addLongProperty("activeCalories").notNull();
+        dailyTotals.addLongProperty("lightSleep").notNull();
+        dailyTotals.addLongProperty("deepSleep").notNull();
+        dailyTotals.addLongProperty("remSleep").notNull();
+        dailyTotals.addLongProperty("awakeSleep").notNull();
+        return dailyTotals;
+    }
+
     private static Entity addFitProActivitySample(Schema schema, Entity user, Entity device) {
         Entity activitySample = addEntity(schema, "FitProActivitySample");
         activitySample.implementsSerializable();
@@ -202,6 +202,11 @@ public class ActivitySummariesChartFragment extends AbstractActivityChartFragmen
             super(task, context);
         }
 
+        @Override
+        protected boolean isReadOnly() {
+            return true;
+        }
+
         @Override
         protected void doInBackground(DBHandler handler) {
             final DefaultChartsData<?> dcd;
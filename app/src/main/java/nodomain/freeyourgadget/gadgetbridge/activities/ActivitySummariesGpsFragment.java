@@ -19,13 +19,16 @@ package nodomain.freeyourgadget.gadgetbridge.activities;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
+import android.graphics.Path;
 import android.os.Bundle;
+import android.util.LruCache;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 
 import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,7 +37,6 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -46,16 +48,28 @@ import nodomain.freeyourgadget.gadgetbridge.model.GPSCoordinate;
 import nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.fit.FitFile;
 import nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.fit.RecordData;
 import nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.fit.messages.FitRecord;
+import nodomain.freeyourgadget.gadgetbridge.util.GpsTrackThumbnail;
 import nodomain.freeyourgadget.gadgetbridge.util.gpx.GpxParseException;
 import nodomain.freeyourgadget.gadgetbridge.util.gpx.GpxParser;
 
-import static android.graphics.Bitmap.createBitmap;
-
 
 public class ActivitySummariesGpsFragment extends AbstractGBFragment {
     private static final Logger LOG = LoggerFactory.getLogger(ActivitySummariesGpsFragment.class);
+    private static final int CANVAS_SIZE = 360;
+    // points closer than this to the drawn line (in pixels) are not visible anyway
+    private static final float SIMPLIFY_TOLERANCE = 0.5f;
+    private static final float STROKE_WIDTH = 1.5f;
+    private static final String THUMBNAIL_CACHE_DIR = "gps_thumbnails";
+
+    // Rendered thumbnails, bounded by their size in bytes
+    private static final LruCache<String, Bitmap> BITMAP_CACHE = new LruCache<String, Bitmap>(4 * 1024 * 1024) {
+        @Override
+        protected int sizeOf(final String key, final Bitmap bitmap) {
+            return bitmap.getByteCount();
+        }
+    };
+
     private ImageView gpsView;
-    private final int CANVAS_SIZE = 360;
     private File inputFile;
 
     @Override
@@ -77,20 +91,72 @@ public class ActivitySummariesGpsFragment extends AbstractGBFragment {
     }
 
     private void processInBackgroundThread() {
-        final Canvas canvas = createCanvas(gpsView);
+        final File trackFile = inputFile;
+        final ImageView imageView = gpsView;
+        final int backgroundColor = Application.getWindowBackgroundColor(requireActivity());
+        final int lineColor = ContextCompat.getColor(requireContext(), R.color.chart_activity_light);
+        final String cacheKey = trackFile.getAbsolutePath() + ":" + trackFile.lastModified() + ":" +
+                trackFile.length() + ":" + backgroundColor + ":" + lineColor;
+
+        final Bitmap cached = BITMAP_CACHE.get(cacheKey);
+        if (cached != null) {
+            imageView.setImageBitmap(cached);
+            return;
+        }
+
+        imageView.setImageBitmap(null);
+        final File cacheDir = new File(requireContext().getCacheDir(), THUMBNAIL_CACHE_DIR);
         new Thread(() -> {
-            final List<GPSCoordinate> points = getActivityPoints(inputFile)
-                    .stream()
-                    .map(ActivityPoint::getLocation)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-
-            if (!points.isEmpty()) {
-                drawTrack(canvas, points);
+            final GpsTrackThumbnail thumbnail = getThumbnail(trackFile, cacheDir);
+            if (thumbnail == null) {
+                return;
             }
+            final Bitmap bitmap = drawTrack(thumbnail, backgroundColor, lineColor);
+            BITMAP_CACHE.put(cacheKey, bitmap);
+            imageView.post(() -> {
+                // the fragment may have been given another track meanwhile
+                if (trackFile.equals(inputFile)) {
+                    imageView.setImageBitmap(bitmap);
+                }
+            });
         }).start();
     }
 
+    /**
+     * Returns the thumbnail of the track, reading it from the cache directory if the track was
+     * already parsed before.
+     */
+    @Nullable
+    private static GpsTrackThumbnail getThumbnail(final File trackFile, final File cacheDir) {
+        final File thumbnailFile = new File(cacheDir, Integer.toHexString(trackFile.getAbsolutePath().hashCode()) + ".bin");
+        final GpsTrackThumbnail cached = GpsTrackThumbnail.read(thumbnailFile, trackFile, CANVAS_SIZE);
+        if (cached != null) {
+            return cached;
+        }
+
+        final long start = System.currentTimeMillis();
+        final List<GPSCoordinate> points = getActivityPoints(trackFile)
+                .stream()
+                .map(ActivityPoint::getLocation)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        if (points.isEmpty()) {
+            return null;
+        }
+
+        final GpsTrackThumbnail thumbnail = GpsTrackThumbnail.fromCoordinates(points, CANVAS_SIZE, SIMPLIFY_TOLERANCE);
+        LOG.debug("Simplified {} track points to {} in {}ms", points.size(), thumbnail.getPointCount(), System.currentTimeMillis() - start);
+
+        if (cacheDir.isDirectory() || cacheDir.mkdirs()) {
+            try {
+                thumbnail.write(thumbnailFile, trackFile);
+            } catch (final IOException e) {
+                LOG.warn("Failed to persist thumbnail of {}", trackFile, e);
+            }
+        }
+        return thumbnail;
+    }
+
     public static List<ActivityPoint> getActivityPoints(final File trackFile) {
         final List<ActivityPoint> points = new ArrayList<>();
         if (trackFile == null) {
@@ -125,52 +191,31 @@ public class ActivitySummariesGpsFragment extends AbstractGBFragment {
         return points;
     }
 
-    private void drawTrack(Canvas canvas, List<? extends GPSCoordinate> trackPoints) {
-        double maxLat = (Collections.max(trackPoints, new GPSCoordinate.compareLatitude())).getLatitude();
-        double minLat = (Collections.min(trackPoints, new GPSCoordinate.compareLatitude())).getLatitude();
-        double maxLon = (Collections.max(trackPoints, new GPSCoordinate.compareLongitude())).getLongitude();
-        double minLon = (Collections.min(trackPoints, new GPSCoordinate.compareLongitude())).getLongitude();
-        double maxAlt = (Collections.max(trackPoints, new GPSCoordinate.compareElevation())).getAltitude();
-        double minAlt = (Collections.min(trackPoints, new GPSCoordinate.compareElevation())).getAltitude();
-        float scale_factor_w = (float) ((maxLon - minLon) / (maxLat - minLat));
-        float scale_factor_h = (float) ((maxLat - minLat) / (maxLon - minLon));
-
-        if (scale_factor_h > scale_factor_w) { //scaling to draw proportionally
-            scale_factor_h = 1;
-        } else {
-            scale_factor_w = 1;
-        }
-
+    private static Bitmap drawTrack(final GpsTrackThumbnail thumbnail, final int backgroundColor, final int lineColor) {
+        // the background is opaque, so no alpha channel is needed
+        final Bitmap bitmap = Bitmap.createBitmap(CANVAS_SIZE, CANVAS_SIZE, Bitmap.Config.RGB_565);
+        final Canvas canvas = new Canvas(bitmap);
+        canvas.drawColor(backgroundColor);
 
-        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        paint.setStrokeWidth(1);
-        paint.setColor(getResources().getColor(R.color.chart_activity_light));
-
-        for (GPSCoordinate p : trackPoints) {
-            float lat = (float) ((p.getLatitude() - minLat) / (maxLat - minLat));
-            float lon = (float) ((p.getLongitude() - minLon) / (maxLon - minLon));
-            float alt = (float) ((p.getAltitude() - minAlt) / (maxAlt - minAlt));
-            paint.setStrokeWidth(1 + alt); //make thicker with higher altitude, we could do more here
-            canvas.drawPoint(CANVAS_SIZE * lon * scale_factor_w, CANVAS_SIZE * lat * scale_factor_h, paint);
-        }
-    }
-
-    private Canvas createCanvas(ImageView imageView) {
-        Bitmap bitmap = createBitmap(CANVAS_SIZE, CANVAS_SIZE, Bitmap.Config.ARGB_8888);
-        Canvas canvas = new Canvas(bitmap);
-        canvas.drawColor(Application.getWindowBackgroundColor(requireActivity()));
-        //frame around, but it doesn't look so nice
-        /*
-        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        paint.setStrokeWidth(0);
+        final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
         paint.setStyle(Paint.Style.STROKE);
-        paint.setColor(getResources().getColor(R.color.chart_activity_light));
-        canvas.drawRect(0,0,360,360,paint);
-         */
-        imageView.setImageBitmap(bitmap);
-        imageView.setScaleY(-1f); //flip the canvas
+        paint.setStrokeWidth(STROKE_WIDTH);
+        paint.setStrokeJoin(Paint.Join.ROUND);
+        paint.setStrokeCap(Paint.Cap.ROUND);
+        paint.setColor(lineColor);
+
+        if (thumbnail.getPointCount() == 1) {
+            canvas.drawPoint(thumbnail.getX(0), thumbnail.getY(0), paint);
+            return bitmap;
+        }
 
-        return canvas;
+        final Path path = new Path();
+        path.moveTo(thumbnail.getX(0), thumbnail.getY(0));
+        for (int i = 1; i < thumbnail.getPointCount(); i++) {
+            path.lineTo(thumbnail.getX(i), thumbnail.getY(i));
+        }
+        canvas.drawPath(path, paint);
+        return bitmap;
     }
 
     @Nullable
@@ -67,6 +67,7 @@ import nodomain.freeyourgadget.gadgetbridge.activities.dashboard.DashboardCalori
 import nodomain.freeyourgadget.gadgetbridge.activities.dashboard.DashboardActiveTimeWidget;
 import nodomain.freeyourgadget.gadgetbridge.activities.dashboard.DashboardBodyEnergyWidget;
 import nodomain.freeyourgadget.gadgetbridge.activities.dashboard.DashboardCalendarActivity;
+import nodomain.freeyourgadget.gadgetbridge.activities.dashboard.DashboardDaySnapshot;
 import nodomain.freeyourgadget.gadgetbridge.activities.dashboard.DashboardCaloriesTotalSegmentedWidget;
 import nodomain.freeyourgadget.gadgetbridge.activities.dashboard.DashboardDistanceWidget;
 import nodomain.freeyourgadget.gadgetbridge.activities.dashboard.DashboardGoalsWidget;
@@ -235,6 +236,8 @@ public class DashboardFragment extends Fragment implements MenuProvider {
         day.set(Calendar.SECOND, 59);
         dashboardData.clear();
         reloadPreferences();
+        // Start loading the totals of all devices in the background, the widgets share them
+        DashboardDaySnapshot.prefetch(DashboardUtils.getDevices(dashboardData), dashboardData.timeFrom, dashboardData.timeTo);
         draw();
     }
 
@@ -80,7 +80,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.Serializable;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -123,7 +128,9 @@ import nodomain.freeyourgadget.gadgetbridge.model.NotificationType;
 import nodomain.freeyourgadget.gadgetbridge.model.RecordedDataTypes;
 import nodomain.freeyourgadget.gadgetbridge.model.Weather;
 import nodomain.freeyourgadget.gadgetbridge.model.WeatherSpec;
+import nodomain.freeyourgadget.gadgetbridge.service.btle.BtLEMetrics;
 import nodomain.freeyourgadget.gadgetbridge.service.serial.GBDeviceProtocol;
+import nodomain.freeyourgadget.gadgetbridge.util.FileUtils;
 import nodomain.freeyourgadget.gadgetbridge.util.GB;
 import nodomain.freeyourgadget.gadgetbridge.util.PendingIntentUtils;
 import nodomain.freeyourgadget.gadgetbridge.util.Prefs;
@@ -508,6 +515,12 @@ public class DebugActivity extends AbstractActionBarActivity {
             }
         });
 
+        Button showBleMetricsButton = findViewById(R.id.showBleMetricsButton);
+        showBleMetricsButton.setOnClickListener(v -> showBleMetrics());
+
+        Button exportBleMetricsButton = findViewById(R.id.exportBleMetricsButton);
+        exportBleMetricsButton.setOnClickListener(v -> exportBleMetrics());
+
         Button showWidgetsButton = findViewById(R.id.showWidgetsButton);
         showWidgetsButton.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -998,6 +1011,50 @@ public class DebugActivity extends AbstractActionBarActivity {
         }
     }
 
+    private void showBleMetrics() {
+        final StringBuilder sb = new StringBuilder();
+        for (final BtLEMetrics metrics : BtLEMetrics.getAll()) {
+            sb.append(metrics).append('\n');
+        }
+        if (sb.length() == 0) {
+            sb.append("No BLE transactions recorded yet");
+        }
+
+        new AlertDialog.Builder(DebugActivity.this)
+                .setCancelable(true)
+                .setTitle("BLE Metrics")
+                .setMessage(sb.toString())
+                .setPositiveButton(R.string.ok, (dialog, which) -> {})
+                .setNeutralButton("Reset", (dialog, which) -> BtLEMetrics.resetAll())
+                .show();
+    }
+
+    private void exportBleMetrics() {
+        final File metricsFile;
+        try {
+            metricsFile = new File(FileUtils.getExternalFilesDir(), "ble_metrics.csv");
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(metricsFile), StandardCharsets.UTF_8)) {
+                writer.write(BtLEMetrics.toCsv());
+            }
+        } catch (final IOException e) {
+            GB.toast("Failed to export BLE metrics", Toast.LENGTH_LONG, GB.ERROR, e);
+            return;
+        }
+
+        final Uri providerUri = FileProvider.getUriForFile(
+                this,
+                getApplicationContext().getPackageName() + ".screenshot_provider",
+                metricsFile
+        );
+
+        Intent shareIntent = new Intent(android.content.Intent.ACTION_SEND);
+        shareIntent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        shareIntent.setType("text/csv");
+        shareIntent.putExtra(EXTRA_SUBJECT, "Gadgetbridge BLE metrics");
+        shareIntent.putExtra(Intent.EXTRA_STREAM, providerUri);
+        startActivity(Intent.createChooser(shareIntent, "Share File"));
+    }
+
     private void testNotification() {
         Intent notificationIntent = new Intent(getApplicationContext(), DebugActivity.class);
         notificationIntent.setPackage(BuildConfig.APPLICATION_ID);
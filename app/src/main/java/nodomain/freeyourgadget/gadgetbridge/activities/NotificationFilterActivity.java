@@ -42,6 +42,7 @@ import nodomain.freeyourgadget.gadgetbridge.entities.NotificationFilter;
 import nodomain.freeyourgadget.gadgetbridge.entities.NotificationFilterDao;
 import nodomain.freeyourgadget.gadgetbridge.entities.NotificationFilterEntry;
 import nodomain.freeyourgadget.gadgetbridge.entities.NotificationFilterEntryDao;
+import nodomain.freeyourgadget.gadgetbridge.externalevents.NotificationFilterIndex;
 import nodomain.freeyourgadget.gadgetbridge.util.GB;
 import xyz.tenseventyseven.fresh.common.AbstractActionBarActivity;
 
@@ -206,6 +207,8 @@ public class NotificationFilterActivity extends AbstractActionBarActivity {
                 }
             }
 
+            NotificationFilterIndex.rebuild(db.getDaoSession());
+
             Toast.makeText(NotificationFilterActivity.this, R.string.toast_notification_filter_saved_successfully, Toast.LENGTH_SHORT).show();
             NotificationFilterActivity.this.finish();
 
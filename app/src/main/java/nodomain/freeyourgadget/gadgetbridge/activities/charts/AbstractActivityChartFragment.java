@@ -46,6 +46,7 @@ import nodomain.freeyourgadget.gadgetbridge.entities.AbstractActivitySample;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityKind;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivitySample;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySampleSequence;
 import nodomain.freeyourgadget.gadgetbridge.util.Prefs;
 
 public abstract class AbstractActivityChartFragment<D extends ChartsData> extends AbstractChartFragment<D>  {
@@ -432,6 +433,47 @@ public abstract class AbstractActivityChartFragment<D extends ChartsData> extend
         return samples;
     }
 
+    /**
+     * Returns the analysis of all samples between tsFrom and tsTo, extended to that range like
+     * {@link #getSamples(DBHandler, GBDevice)}. In {@link ActivityChartsActivity}, the analysis is
+     * shared by the charts of the same range, so the samples are only loaded and analysed once.
+     */
+    protected CombinedAnalysis getAllSamplesAnalysis(DBHandler db, GBDevice device, int tsFrom, int tsTo) {
+        final CombinedAnalysis analysis = lookupAnalysis(tsFrom, tsTo);
+        if (analysis != null) {
+            return analysis;
+        }
+        final List<ActivitySample> samples = (List<ActivitySample>) getAllSamples(db, device, tsFrom, tsTo);
+        ensureStartAndEndSamples(samples, tsFrom, tsTo);
+        return getAllSamplesAnalysis(samples, tsFrom, tsTo);
+    }
+
+    /**
+     * Same as {@link #getAllSamplesAnalysis(DBHandler, GBDevice, int, int)}, for the samples that
+     * the chart loaded already, which must be the same.
+     */
+    protected CombinedAnalysis getAllSamplesAnalysis(List<? extends ActivitySample> samples, int tsFrom, int tsTo) {
+        CombinedAnalysis analysis = lookupAnalysis(tsFrom, tsTo);
+        if (analysis == null) {
+            analysis = new CombinedAnalysis().addAll(ActivitySampleSequence.of(samples));
+            if (getActivity() instanceof ActivityChartsActivity) {
+                ((ActivityChartsActivity) getActivity()).mAnalysisCache.add(getAnalysisKey(tsFrom, tsTo), analysis);
+            }
+        }
+        return analysis;
+    }
+
+    private CombinedAnalysis lookupAnalysis(int tsFrom, int tsTo) {
+        if (getActivity() instanceof ActivityChartsActivity) {
+            return ((ActivityChartsActivity) getActivity()).mAnalysisCache.lookup(getAnalysisKey(tsFrom, tsTo));
+        }
+        return null;
+    }
+
+    private static long getAnalysisKey(int tsFrom, int tsTo) {
+        return ((long) tsFrom << 32) | (tsTo & 0xffffffffL);
+    }
+
     protected void ensureStartAndEndSamples(List<ActivitySample> samples, int tsStart, int tsEnd) {
         if (samples == null || samples.isEmpty()) {
             return;
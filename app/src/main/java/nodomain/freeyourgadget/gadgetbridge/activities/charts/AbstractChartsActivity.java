@@ -110,12 +110,19 @@ public abstract class AbstractChartsActivity extends AbstractFragmentActivity im
             final boolean wasBusy = swipeLayout.isRefreshing();
             swipeLayout.setRefreshing(false);
             if (wasBusy) {
+                onDataFetched();
                 LocalBroadcastManager.getInstance(this).sendBroadcast(new Intent(REFRESH));
             }
         }
         enableSwipeRefresh(true);
     }
 
+    /**
+     * Called when the device is done fetching data, before the charts are refreshed.
+     */
+    protected void onDataFetched() {
+    }
+
     @Override
     protected void onCreate(final Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
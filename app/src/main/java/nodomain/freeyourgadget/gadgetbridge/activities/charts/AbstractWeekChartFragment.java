@@ -283,8 +283,7 @@ public abstract class AbstractWeekChartFragment extends AbstractActivityChartFra
         }
 
         if (amounts == null) {
-            ActivityAnalysis analysis = new ActivityAnalysis();
-            amounts = analysis.calculateActivityAmounts(getSamplesOfDay(db, day, mOffsetHours, device));
+            amounts = calculateActivityAmountsForDay(db, day, device);
             if (activityAmountCache != null) {
                 activityAmountCache.add(key, amounts);
             }
@@ -293,6 +292,11 @@ public abstract class AbstractWeekChartFragment extends AbstractActivityChartFra
         return amounts;
     }
 
+    protected ActivityAmounts calculateActivityAmountsForDay(DBHandler db, Calendar day, GBDevice device) {
+        ActivityAnalysis analysis = new ActivityAnalysis();
+        return analysis.calculateActivityAmounts(getSamplesOfDay(db, day, mOffsetHours, device));
+    }
+
     private int getRangeDays(){
         if (Application.getPrefs().getBoolean("charts_range", true)) {
             return 30;}
@@ -27,28 +27,69 @@ import nodomain.freeyourgadget.gadgetbridge.model.ActivityAmount;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityAmounts;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityKind;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivitySample;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySampleSequence;
 
 public class ActivityAnalysis {
     public static final Logger LOG = LoggerFactory.getLogger(ActivityAnalysis.class);
 
     // store raw steps and duration
     protected HashMap<Integer, Long> stats = new HashMap<Integer, Long>();
-    // max speed determined from samples
-    private int maxSpeed = 0;
 
     public ActivityAmounts calculateActivityAmounts(List<? extends ActivitySample> samples) {
-        ActivityAmount deepSleep = new ActivityAmount(ActivityKind.DEEP_SLEEP);
-        ActivityAmount lightSleep = new ActivityAmount(ActivityKind.LIGHT_SLEEP);
-        ActivityAmount remSleep = new ActivityAmount(ActivityKind.REM_SLEEP);
-        ActivityAmount awakeSleep = new ActivityAmount(ActivityKind.AWAKE_SLEEP);
-        ActivityAmount notWorn = new ActivityAmount(ActivityKind.NOT_WORN);
-        ActivityAmount activity = new ActivityAmount(ActivityKind.ACTIVITY);
-
-        ActivityAmount previousAmount = null;
-        ActivitySample previousSample = null;
+        return calculateActivityAmounts(ActivitySampleSequence.of(samples));
+    }
+
+    public ActivityAmounts calculateActivityAmounts(ActivitySampleSequence samples) {
+        Accumulator accumulator = new Accumulator(stats);
+        for (int i = 0; i < samples.size(); i++) {
+            accumulator.add(samples, i);
+        }
+        return accumulator.getActivityAmounts();
+    }
+
+    int calculateTotalSteps(List<? extends ActivitySample> samples) {
+        int totalSteps = 0;
         for (ActivitySample sample : samples) {
+            int steps = sample.getSteps();
+            if (steps > 0) {
+                totalSteps += steps;
+            }
+        }
+        return totalSteps;
+    }
+
+    /**
+     * Calculates the activity amounts of samples that are added one by one, so that more samples
+     * can be added after querying the amounts.
+     */
+    public static class Accumulator {
+        private final HashMap<Integer, Long> stats;
+
+        private final ActivityAmount deepSleep = new ActivityAmount(ActivityKind.DEEP_SLEEP);
+        private final ActivityAmount lightSleep = new ActivityAmount(ActivityKind.LIGHT_SLEEP);
+        private final ActivityAmount remSleep = new ActivityAmount(ActivityKind.REM_SLEEP);
+        private final ActivityAmount awakeSleep = new ActivityAmount(ActivityKind.AWAKE_SLEEP);
+        private final ActivityAmount notWorn = new ActivityAmount(ActivityKind.NOT_WORN);
+        private final ActivityAmount activity = new ActivityAmount(ActivityKind.ACTIVITY);
+
+        private ActivityAmount previousAmount = null;
+        private int previousTimestamp;
+        private int previousRawKind;
+
+        public Accumulator() {
+            this(new HashMap<>());
+        }
+
+        Accumulator(HashMap<Integer, Long> stats) {
+            this.stats = stats;
+        }
+
+        /**
+         * Adds the sample at the given index. Samples must be added in the order of the sequence.
+         */
+        public void add(ActivitySampleSequence samples, int i) {
             ActivityAmount amount;
-            switch (sample.getKind()) {
+            switch (samples.getKind(i)) {
                 case DEEP_SLEEP:
                     amount = deepSleep;
                     break;
@@ -70,24 +111,26 @@ public class ActivityAnalysis {
                     break;
             }
 
-            int steps = sample.getSteps();
+            int steps = samples.getSteps(i);
             if (steps > 0) {
                 amount.addSteps(steps);
             }
 
-            final int distance = sample.getDistanceCm();
+            final int distance = samples.getDistanceCm(i);
             if (distance >= 0) {
                 amount.addDistance(distance);
             }
 
-            final int activeCalories = sample.getActiveCalories();
+            final int activeCalories = samples.getActiveCalories(i);
             if (activeCalories > 0) {
                 amount.addActiveCalories(activeCalories);
             }
 
-            if (previousSample != null) {
-                long timeDifference = sample.getTimestamp() - previousSample.getTimestamp();
-                if (previousSample.getRawKind() == sample.getRawKind()) {
+            final int timestamp = samples.getTimestamp(i);
+            final int rawKind = samples.getRawKind(i);
+            if (previousAmount != null) {
+                long timeDifference = timestamp - previousTimestamp;
+                if (previousRawKind == rawKind) {
                     amount.addSeconds(timeDifference);
                 } else {
                     long sharedTimeDifference = (long) (timeDifference / 2.0f);
@@ -96,62 +139,57 @@ public class ActivityAnalysis {
                 }
 
                 // add time
-                if (steps > 0 && sample.getKind() == ActivityKind.ACTIVITY) {
-                    if (steps > maxSpeed) {
-                        maxSpeed = steps;
-                    }
-
-                    if (!stats.containsKey(steps)) {
-//                        LOG.debug("Adding: " + steps);
-                        stats.put(steps, timeDifference);
-                    } else {
-                        long time = stats.get(steps);
-//                        LOG.debug("Updating: " + steps + " " + timeDifference + time);
-                        stats.put(steps, timeDifference + time);
-                    }
+                if (steps > 0 && samples.getKind(i) == ActivityKind.ACTIVITY) {
+                    Long time = stats.get(steps);
+                    stats.put(steps, time == null ? timeDifference : timeDifference + time);
                 }
             }
 
-            amount.setStartDate(sample.getTimestamp());
-            amount.setEndDate(sample.getTimestamp());
+            amount.setStartDate(timestamp);
+            amount.setEndDate(timestamp);
 
             previousAmount = amount;
-            previousSample = sample;
+            previousTimestamp = timestamp;
+            previousRawKind = rawKind;
         }
 
-        ActivityAmounts result = new ActivityAmounts();
-        if (deepSleep.getTotalSeconds() > 0) {
-            result.addAmount(deepSleep);
-        }
-        if (lightSleep.getTotalSeconds() > 0) {
-            result.addAmount(lightSleep);
-        }
-        if (remSleep.getTotalSeconds() > 0) {
-            result.addAmount(remSleep);
-        }
-        if (awakeSleep.getTotalSeconds() > 0) {
-            result.addAmount(awakeSleep);
-        }
-        if (activity.getTotalSeconds() > 0) {
-            result.addAmount(activity);
-        }
-        if (notWorn.getTotalSeconds() > 0) {
-            result.addAmount(notWorn);
-        }
+        /**
+         * Returns the amounts of the samples added so far. They are not changed by samples
+         * added later.
+         */
+        public ActivityAmounts getActivityAmounts() {
+            ActivityAmounts result = new ActivityAmounts();
+            for (ActivityAmount amount : new ActivityAmount[]{deepSleep, lightSleep, remSleep, awakeSleep, activity, notWorn}) {
+                if (amount.getTotalSeconds() > 0) {
+                    result.addAmount(copy(amount));
+                }
+            }
 
-        result.calculatePercentages();
+            result.calculatePercentages();
 
-        return result;
-    }
+            return result;
+        }
 
-    int calculateTotalSteps(List<? extends ActivitySample> samples) {
-        int totalSteps = 0;
-        for (ActivitySample sample : samples) {
-            int steps = sample.getSteps();
-            if (steps > 0) {
-                totalSteps += steps;
+        /**
+         * Returns the total duration in seconds of the activity samples, by their steps.
+         */
+        public HashMap<Integer, Long> getStats() {
+            return new HashMap<>(stats);
+        }
+
+        private static ActivityAmount copy(ActivityAmount amount) {
+            ActivityAmount copy = new ActivityAmount(amount.getActivityKind());
+            copy.addSeconds(amount.getTotalSeconds());
+            copy.addSteps(amount.getTotalSteps());
+            copy.addDistance(amount.getTotalDistance());
+            copy.addActiveCalories(amount.getTotalActiveCalories());
+            if (amount.getStartDate() != null) {
+                copy.setStartDate((int) (amount.getStartDate().getTime() / 1000));
             }
+            if (amount.getEndDate() != null) {
+                copy.setEndDate((int) (amount.getEndDate().getTime() / 1000));
+            }
+            return copy;
         }
-        return totalSteps;
     }
 }
@@ -48,6 +48,13 @@ import nodomain.freeyourgadget.gadgetbridge.util.Prefs;
 
 public class ActivityChartsActivity extends AbstractChartsActivity {
     LimitedQueue<Integer, ActivityAmounts> mActivityAmountCache = new LimitedQueue<>(60);
+    // the analyses of all samples in a time range, shared by the charts of that range
+    final LimitedQueue<Long, CombinedAnalysis> mAnalysisCache = new LimitedQueue<>(8);
+
+    @Override
+    protected void onDataFetched() {
+        mAnalysisCache.clear();
+    }
 
     @Override
     protected AbstractFragmentPagerAdapter createFragmentPagerAdapter(final FragmentManager fragmentManager) {
@@ -306,6 +306,11 @@ public class ActivityListingDashboard extends MaterialDialogFragment {
             super(task, context);
         }
 
+        @Override
+        protected boolean isReadOnly() {
+            return true;
+        }
+
         @Override
         protected void doInBackground(DBHandler db) {
             stepSessionsSummary = get_data(gbDevice, db, timeFrom, timeTo);
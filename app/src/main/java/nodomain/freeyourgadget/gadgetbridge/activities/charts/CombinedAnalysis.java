@@ -0,0 +1,93 @@
+package nodomain.freeyourgadget.gadgetbridge.activities.charts;
+
+import java.util.HashMap;
+import java.util.List;
+
+import nodomain.freeyourgadget.gadgetbridge.activities.charts.SleepAnalysis.SleepSession;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivityAmounts;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySampleSequence;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySession;
+
+/**
+ * Calculates the results of {@link ActivityAnalysis}, {@link SleepAnalysis} and
+ * {@link StepAnalysis} in a single pass over the samples.
+ * <p>
+ * The results can be queried at any time, and are the same as those of the individual analyses
+ * over all samples added so far. More samples can be added afterwards, eg. for live updates,
+ * without going through the previous ones again.
+ */
+public class CombinedAnalysis {
+    private final ActivityAnalysis.Accumulator activityAmounts = new ActivityAnalysis.Accumulator();
+    private final SleepAnalysis.Accumulator sleepSessions = new SleepAnalysis.Accumulator();
+    private final StepAnalysis.Accumulator stepSessions = new StepAnalysis.Accumulator();
+
+    private int size = 0;
+
+    public CombinedAnalysis addAll(final ActivitySampleSequence samples) {
+        return addAll(samples, 0);
+    }
+
+    /**
+     * Adds the samples from the given index on, eg. those that were appended to a sequence whose
+     * previous samples were added already.
+     */
+    public CombinedAnalysis addAll(final ActivitySampleSequence samples, final int fromIndex) {
+        for (int i = fromIndex; i < samples.size(); i++) {
+            add(samples, i);
+        }
+        return this;
+    }
+
+    /**
+     * Adds the sample at the given index. Samples must be added in the order of the sequence.
+     */
+    public CombinedAnalysis add(final ActivitySampleSequence samples, final int i) {
+        activityAmounts.add(samples, i);
+        sleepSessions.add(samples, i);
+        stepSessions.add(samples, i);
+        size++;
+        return this;
+    }
+
+    /**
+     * The number of samples added so far.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Same as {@link ActivityAnalysis#calculateActivityAmounts(ActivitySampleSequence)}.
+     */
+    public ActivityAmounts getActivityAmounts() {
+        return activityAmounts.getActivityAmounts();
+    }
+
+    /**
+     * Same as the stats of {@link ActivityAnalysis} after calculating the activity amounts.
+     */
+    public HashMap<Integer, Long> getSpeedStats() {
+        return activityAmounts.getStats();
+    }
+
+    /**
+     * Same as {@link SleepAnalysis#calculateSleepSessions(ActivitySampleSequence)}.
+     */
+    public List<SleepSession> getSleepSessions() {
+        return sleepSessions.getSleepSessions();
+    }
+
+    /**
+     * Same as {@link StepAnalysis#calculateStepSessions(ActivitySampleSequence)}.
+     */
+    public List<ActivitySession> getStepSessions() {
+        return stepSessions.getStepSessions();
+    }
+
+    /**
+     * Same as {@link StepAnalysis#calculateSummary(List, boolean)} for the given step sessions.
+     */
+    public ActivitySession getStepSummary(final List<ActivitySession> sessions, final boolean empty) {
+        return StepAnalysis.calculateSummary(sessions, empty, stepSessions.getTotalSteps());
+    }
+}
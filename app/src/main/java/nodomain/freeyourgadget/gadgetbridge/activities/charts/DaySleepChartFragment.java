@@ -104,16 +104,20 @@ public class DaySleepChartFragment extends AbstractActivityChartFragment<DaySlee
     @Override
     protected MyChartsData refreshInBackground(ChartsHost chartsHost, DBHandler db, GBDevice device) {
         List<? extends ActivitySample> samples;
+        List<SleepSession> sleepSessions;
         if (CHARTS_SLEEP_RANGE_24H) {
             samples = getSamples(db, device);
+            // shared with the other charts of the day
+            sleepSessions = getAllSamplesAnalysis(samples, getTSStart(), getTSEnd()).getSleepSessions();
         } else {
             samples = getSamplesofSleep(db, device);
+            sleepSessions = new SleepAnalysis().calculateSleepSessions(samples);
         }
         List<? extends SleepScoreSample> sleepScoreSamples = new ArrayList<>();
         if (supportsSleepScore()) {
             sleepScoreSamples = getSleepScoreSamples(db, device, getTSStart(), getTSEnd());
         }
-        MySleepChartsData mySleepChartsData = refreshSleepAmounts(device, samples, sleepScoreSamples);
+        MySleepChartsData mySleepChartsData = refreshSleepAmounts(sleepSessions, sleepScoreSamples);
 
         if (!CHARTS_SLEEP_RANGE_24H) {
             if (mySleepChartsData.sleepSessions.size() > 0) {
@@ -136,10 +140,7 @@ public class DaySleepChartFragment extends AbstractActivityChartFragment<DaySlee
 
 
 
-    private MySleepChartsData refreshSleepAmounts(GBDevice mGBDevice, List<? extends ActivitySample> samples, List<? extends SleepScoreSample> sleepScoreSamples) {
-        SleepAnalysis sleepAnalysis = new SleepAnalysis();
-        List<SleepSession> sleepSessions = sleepAnalysis.calculateSleepSessions(samples);
-
+    private MySleepChartsData refreshSleepAmounts(List<SleepSession> sleepSessions, List<? extends SleepScoreSample> sleepScoreSamples) {
         final long lightSleepDuration = calculateLightSleepDuration(sleepSessions);
         final long deepSleepDuration = calculateDeepSleepDuration(sleepSessions);
         final long remSleepDuration = calculateRemSleepDuration(sleepSessions);
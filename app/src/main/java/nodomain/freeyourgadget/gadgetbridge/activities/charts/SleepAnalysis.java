@@ -22,6 +22,7 @@ import java.util.List;
 
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityKind;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivitySample;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySampleSequence;
 
 public class SleepAnalysis {
 
@@ -29,78 +30,115 @@ public class SleepAnalysis {
     public static final long MAX_WAKE_PHASE_LENGTH = 2 * 60 * 60;
 
     public List<SleepSession> calculateSleepSessions(List<? extends ActivitySample> samples) {
-        List<SleepSession> result = new ArrayList<>();
-
-        ActivitySample previousSample = null;
-        Date sleepStart = null;
-        Date sleepEnd = null;
-        long lightSleepDuration = 0;
-        long deepSleepDuration = 0;
-        long remSleepDuration = 0;
-        long awakeSleepDuration = 0;
-        long durationSinceLastSleep = 0;
-
-        for (ActivitySample sample : samples) {
-            if (isSleep(sample)) {
+        return calculateSleepSessions(ActivitySampleSequence.of(samples));
+    }
+
+    public List<SleepSession> calculateSleepSessions(ActivitySampleSequence samples) {
+        Accumulator accumulator = new Accumulator();
+        for (int i = 0; i < samples.size(); i++) {
+            accumulator.add(samples, i);
+        }
+        return accumulator.getSleepSessions();
+    }
+
+    private static boolean isSleep(ActivityKind kind) {
+        return kind == ActivityKind.DEEP_SLEEP ||
+                kind == ActivityKind.LIGHT_SLEEP ||
+                kind == ActivityKind.REM_SLEEP ||
+                kind == ActivityKind.AWAKE_SLEEP;
+    }
+
+    private static Date getDateFromSample(ActivitySampleSequence samples, int i) {
+        return new Date(samples.getTimestamp(i) * 1000L);
+    }
+
+    /**
+     * Calculates the sleep sessions of samples that are added one by one, so that more samples
+     * can be added after querying the sessions.
+     */
+    public static class Accumulator {
+        private final List<SleepSession> result = new ArrayList<>();
+
+        private boolean hasPrevious = false;
+        private int previousTimestamp;
+
+        private Date sleepStart = null;
+        private Date sleepEnd = null;
+        private long lightSleepDuration = 0;
+        private long deepSleepDuration = 0;
+        private long remSleepDuration = 0;
+        private long awakeSleepDuration = 0;
+        private long durationSinceLastSleep = 0;
+
+        /**
+         * Adds the sample at the given index. Samples must be added in the order of the sequence.
+         */
+        public void add(ActivitySampleSequence samples, int i) {
+            final ActivityKind kind = samples.getKind(i);
+            if (isSleep(kind)) {
                 if (sleepStart == null)
-                    sleepStart = getDateFromSample(sample);
-                sleepEnd = getDateFromSample(sample);
+                    sleepStart = getDateFromSample(samples, i);
+                sleepEnd = getDateFromSample(samples, i);
 
                 durationSinceLastSleep = 0;
             } else {
                 //exclude "not worn" times from sleep sessions as this makes a discrepancy with the charts
-                if (lightSleepDuration + deepSleepDuration + remSleepDuration + awakeSleepDuration > MIN_SESSION_LENGTH)
-                    result.add(new SleepSession(sleepStart, sleepEnd, lightSleepDuration, deepSleepDuration, remSleepDuration, awakeSleepDuration));
-                sleepStart = null;
-                sleepEnd = null;
-                lightSleepDuration = 0;
-                deepSleepDuration = 0;
-                remSleepDuration = 0;
-                awakeSleepDuration = 0;
+                endSession();
             }
 
-            if (previousSample != null) {
-                long durationSinceLastSample = sample.getTimestamp() - previousSample.getTimestamp();
-                if (sample.getKind() == ActivityKind.LIGHT_SLEEP) {
+            final int timestamp = samples.getTimestamp(i);
+            if (hasPrevious) {
+                long durationSinceLastSample = timestamp - previousTimestamp;
+                if (kind == ActivityKind.LIGHT_SLEEP) {
                     lightSleepDuration += durationSinceLastSample;
-                } else if (sample.getKind() == ActivityKind.DEEP_SLEEP) {
+                } else if (kind == ActivityKind.DEEP_SLEEP) {
                     deepSleepDuration += durationSinceLastSample;
-                } else if (sample.getKind() == ActivityKind.REM_SLEEP) {
+                } else if (kind == ActivityKind.REM_SLEEP) {
                     remSleepDuration += durationSinceLastSample;
-                } else if (sample.getKind() == ActivityKind.AWAKE_SLEEP) {
+                } else if (kind == ActivityKind.AWAKE_SLEEP) {
                     awakeSleepDuration += durationSinceLastSample;
                 } else {
                     durationSinceLastSleep += durationSinceLastSample;
                     if (sleepStart != null && durationSinceLastSleep > MAX_WAKE_PHASE_LENGTH) {
-                        if (lightSleepDuration + deepSleepDuration + remSleepDuration + awakeSleepDuration > MIN_SESSION_LENGTH)
-                            result.add(new SleepSession(sleepStart, sleepEnd, lightSleepDuration, deepSleepDuration, remSleepDuration, awakeSleepDuration));
-                        sleepStart = null;
-                        sleepEnd = null;
-                        lightSleepDuration = 0;
-                        deepSleepDuration = 0;
-                        remSleepDuration = 0;
-                        awakeSleepDuration = 0;
+                        endSession();
                     }
                 }
             }
 
-            previousSample = sample;
+            hasPrevious = true;
+            previousTimestamp = timestamp;
         }
-        if (lightSleepDuration + deepSleepDuration + remSleepDuration + awakeSleepDuration > MIN_SESSION_LENGTH) {
-            result.add(new SleepSession(sleepStart, sleepEnd, lightSleepDuration, deepSleepDuration, remSleepDuration, awakeSleepDuration));
+
+        /**
+         * Returns the sleep sessions of the samples added so far, including the last one if it
+         * is long enough, even though it may go on with the next samples.
+         */
+        public List<SleepSession> getSleepSessions() {
+            List<SleepSession> sessions = new ArrayList<>(result);
+            if (isSessionLongEnough()) {
+                sessions.add(currentSession());
+            }
+            return sessions;
         }
-        return result;
-    }
 
-    private boolean isSleep(ActivitySample sample) {
-        return sample.getKind() == ActivityKind.DEEP_SLEEP ||
-                sample.getKind() == ActivityKind.LIGHT_SLEEP ||
-                sample.getKind() == ActivityKind.REM_SLEEP ||
-                sample.getKind() == ActivityKind.AWAKE_SLEEP;
-    }
+        private boolean isSessionLongEnough() {
+            return lightSleepDuration + deepSleepDuration + remSleepDuration + awakeSleepDuration > MIN_SESSION_LENGTH;
+        }
+
+        private SleepSession currentSession() {
+            return new SleepSession(sleepStart, sleepEnd, lightSleepDuration, deepSleepDuration, remSleepDuration, awakeSleepDuration);
+        }
 
-    private Date getDateFromSample(ActivitySample sample) {
-        return new Date(sample.getTimestamp() * 1000L);
+        private void endSession() {
+            if (isSessionLongEnough())
+                result.add(currentSession());
+            sleepStart = null;
+            sleepEnd = null;
+            lightSleepDuration = 0;
+            deepSleepDuration = 0;
+            remSleepDuration = 0;
+            awakeSleepDuration = 0;
+        }
     }
 
 
@@ -51,16 +51,15 @@ public class SpeedZonesFragment extends AbstractActivityChartFragment<ChartsData
 
     @Override
     protected ChartsData refreshInBackground(ChartsHost chartsHost, DBHandler db, GBDevice device) {
-        List<? extends ActivitySample> samples = getSamples(db, device);
+        // shared with the other charts of the day, like the samples of getSamples()
+        CombinedAnalysis analysis = getAllSamplesAnalysis(db, device, getTSStart(), getTSEnd());
 
-        MySpeedZonesData mySpeedZonesData = refreshStats(samples);
+        MySpeedZonesData mySpeedZonesData = refreshStats(analysis);
 
         return new MyChartsData(mySpeedZonesData);
     }
 
-    private MySpeedZonesData refreshStats(List<? extends ActivitySample> samples) {
-        ActivityAnalysis analysis = new ActivityAnalysis();
-        analysis.calculateActivityAmounts(samples);
+    private MySpeedZonesData refreshStats(CombinedAnalysis analysis) {
         BarData data = new BarData();
         data.setValueTextColor(CHART_TEXT_COLOR);
         List<BarEntry> entries = new ArrayList<>();
@@ -73,7 +72,7 @@ public class SpeedZonesFragment extends AbstractActivityChartFragment<ChartsData
             distanceFactorCm = user.getHeightCm() * user.GENDER_FEMALE_DISTANCE_FACTOR / 1000;
         }*/
 
-        for (Map.Entry<Integer, Long> entry : analysis.stats.entrySet()) {
+        for (Map.Entry<Integer, Long> entry : analysis.getSpeedStats().entrySet()) {
             entries.add(new BarEntry(entry.getKey(), entry.getValue() / 60));
         }
 
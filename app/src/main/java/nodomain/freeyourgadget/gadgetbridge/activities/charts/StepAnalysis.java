@@ -27,6 +27,7 @@ import xyz.tenseventyseven.fresh.Application;
 import nodomain.freeyourgadget.gadgetbridge.activities.HeartRateUtils;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityKind;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivitySample;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySampleSequence;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivitySession;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityUser;
 
@@ -35,152 +36,28 @@ public class StepAnalysis {
     private int totalDailySteps = 0;
 
     public List<ActivitySession> calculateStepSessions(List<? extends ActivitySample> samples) {
-        LOG.debug("get all samples activity sessions: {}", samples.size());
-        List<ActivitySession> result = new ArrayList<>();
-        ActivityUser activityUser = new ActivityUser();
-        final int MIN_SESSION_LENGTH = 60 * Application.getPrefs().getInt("chart_list_min_session_length", 5);
-        final int MAX_IDLE_PHASE_LENGTH = 60 * Application.getPrefs().getInt("chart_list_max_idle_phase_length", 5);
-        final int MIN_STEPS_PER_MINUTE = Application.getPrefs().getInt("chart_list_min_steps_per_minute", 40);
-        int stepLengthCm = activityUser.getStepLengthCm();
-        final double STEP_LENGTH_M = stepLengthCm * 0.01;
-        final double MIN_SESSION_INTENSITY = Math.max(0, Math.min(1, MIN_STEPS_PER_MINUTE * 0.01));
-        totalDailySteps = 0;
-
-        ActivitySample previousSample = null;
-        Date sessionStart = null;
-        Date sessionEnd;
-        int activeSteps = 0; //steps that we count
-        int activeDistanceCm = 0;
-        int stepsBetweenActivePeriods = 0; //steps during time when we maybe take a rest but then restart
-        int distanceBetweenActivePeriods = 0;
-        int durationSinceLastActiveStep = 0;
-        ActivityKind activityKind;
-
-        List<Integer> heartRateSum = new ArrayList<>();
-        List<Integer> heartRateBetweenActivePeriodsSum = new ArrayList<>();
-
-        float activeIntensity = 0;
-        float intensityBetweenActivePeriods = 0;
-        HeartRateUtils heartRateUtilsInstance = HeartRateUtils.getInstance();
-
-        for (ActivitySample sample : samples) {
-            int steps = sample.getSteps();
-            if (steps > 0) {
-                totalDailySteps += steps;
-            }
-
-            /*
-             * FIXME This should only consider non-sleep samples. However, this always had the wrong
-             *  check for that, so it processed everything. In #3977, that was corrected, which
-             *  introduces a regression for some devices such as the Amazfit Bip. Processing everything
-             *  seems to work, but this logic needs to be reviewed.
-             */
-            if (!(sample instanceof TrailingActivitySample)) { //trailing samples have wrong date and make trailing activity have 0 duration
-
-                if (sessionStart == null) {
-                    sessionStart = getDateFromSample(sample);
-                    if (sample.getSteps() >= 0) {
-                        activeSteps = sample.getSteps();
-                    } else {
-                        activeSteps = 0;
-                    }
-                    if (sample.getDistanceCm() >= 0) {
-                        activeDistanceCm = sample.getDistanceCm();
-                    } else if (activeSteps > 0) {
-                        activeDistanceCm = activeSteps * stepLengthCm;
-                    } else {
-                        activeDistanceCm = 0;
-                    }
-                    activeIntensity = sample.getIntensity();
-                    heartRateSum = new ArrayList<>();
-                    if (heartRateUtilsInstance.isValidHeartRateValue(sample.getHeartRate())) {
-                        heartRateSum.add(sample.getHeartRate());
-                    }
-                    durationSinceLastActiveStep = 0;
-                    stepsBetweenActivePeriods = 0;
-                    distanceBetweenActivePeriods = 0;
-                    heartRateBetweenActivePeriodsSum = new ArrayList<>();
-                    previousSample = null;
-                }
-                if (previousSample != null) {
-                    int durationSinceLastSample = sample.getTimestamp() - previousSample.getTimestamp();
-
-                    if (sample.getSteps() > MIN_STEPS_PER_MINUTE || //either some steps
-                            (sample.getIntensity() > MIN_SESSION_INTENSITY && sample.getSteps() > 0)) { //or some intensity plus at least one step
-                        activeSteps += sample.getSteps() + stepsBetweenActivePeriods;
-                        if (sample.getDistanceCm() >= 0) {
-                            activeDistanceCm += sample.getDistanceCm() + distanceBetweenActivePeriods;
-                        } else {
-                            activeDistanceCm += sample.getSteps() * stepLengthCm + distanceBetweenActivePeriods;
-                        }
-                        activeIntensity += sample.getIntensity() + intensityBetweenActivePeriods;
-                        if (heartRateUtilsInstance.isValidHeartRateValue(sample.getHeartRate())) {
-                            heartRateSum.add(sample.getHeartRate());
-                        }
-                        heartRateSum.addAll(heartRateBetweenActivePeriodsSum);
-                        heartRateBetweenActivePeriodsSum = new ArrayList<>();
-                        stepsBetweenActivePeriods = 0;
-                        distanceBetweenActivePeriods = 0;
-                        intensityBetweenActivePeriods = 0;
-                        durationSinceLastActiveStep = 0;
-
-                    } else { //short break data to remember, we will add it to the rest later, if break not too long
-                        if (sample.getSteps() >= 0) {
-                            stepsBetweenActivePeriods += sample.getSteps();
-                        }
-                        if (sample.getDistanceCm() >= 0) {
-                            distanceBetweenActivePeriods += sample.getDistanceCm();
-                        } else if (sample.getSteps() > 0) {
-                            distanceBetweenActivePeriods += sample.getSteps() * stepLengthCm;
-                        }
-                        if (heartRateUtilsInstance.isValidHeartRateValue(sample.getHeartRate())) {
-                            heartRateBetweenActivePeriodsSum.add(sample.getHeartRate());
-                        }
-                        durationSinceLastActiveStep += durationSinceLastSample;
-                        intensityBetweenActivePeriods += sample.getIntensity();
-                    }
-                    if (durationSinceLastActiveStep >= MAX_IDLE_PHASE_LENGTH) { //break too long, we split here
-
-                        int current = sample.getTimestamp();
-                        int starting = (int) (sessionStart.getTime() / 1000);
-                        int session_length = current - starting - durationSinceLastActiveStep;
-
-                        if (session_length >= MIN_SESSION_LENGTH) { //valid activity session
-                            int heartRateAverage = heartRateSum.toArray().length > 0 ? calculateSumOfInts(heartRateSum) / heartRateSum.toArray().length : 0;
-                            float distance = activeDistanceCm * 0.01f;
-                            sessionEnd = new Date((sample.getTimestamp() - durationSinceLastActiveStep) * 1000L);
-                            activityKind = detect_activity_kind(session_length, activeSteps, heartRateAverage, activeIntensity);
-                            ActivitySession activitySession = new ActivitySession(sessionStart, sessionEnd, activeSteps, heartRateAverage, activeIntensity, distance, activityKind);
-                            //activitySession.setSessionType(ActivitySession.SESSION_ONGOING);
-                            result.add(activitySession);
-                        }
-                        sessionStart = null;
-                    }
-                }
-                previousSample = sample;
-            }
-        }
-        //trailing activity: make sure we show the last portion of the data as well in case no further activity is recorded yet
-
-        if (sessionStart != null) {
-            int current = previousSample.getTimestamp();
-            int starting = (int) (sessionStart.getTime() / 1000);
-            int session_length = current - starting - durationSinceLastActiveStep;
+        return calculateStepSessions(ActivitySampleSequence.of(samples));
+    }
 
-            if (session_length >= MIN_SESSION_LENGTH) {
-                int heartRateAverage = heartRateSum.toArray().length > 0 ? calculateSumOfInts(heartRateSum) / heartRateSum.toArray().length : 0;
-                float distance = activeDistanceCm * 0.01f;
-                sessionEnd = getDateFromSample(previousSample);
-                activityKind = detect_activity_kind(session_length, activeSteps, heartRateAverage, activeIntensity);
-                ActivitySession ongoingActivity = new ActivitySession(sessionStart, sessionEnd, activeSteps, heartRateAverage, activeIntensity, distance, activityKind);
-                ongoingActivity.setSessionType(ActivitySession.SESSION_ONGOING);
-                result.add(ongoingActivity);
-            }
+    public List<ActivitySession> calculateStepSessions(ActivitySampleSequence samples) {
+        LOG.debug("get all samples activity sessions: {}", samples.size());
+        Accumulator accumulator = new Accumulator();
+        for (int i = 0; i < samples.size(); i++) {
+            accumulator.add(samples, i);
         }
-        return result;
+        totalDailySteps = accumulator.getTotalSteps();
+        return accumulator.getStepSessions();
     }
 
     public ActivitySession calculateSummary(List<ActivitySession> sessions, boolean empty) {
+        return calculateSummary(sessions, empty, totalDailySteps);
+    }
+
+    /**
+     * Same as {@link #calculateSummary(List, boolean)}, for sessions that were calculated
+     * elsewhere, eg. by an {@link Accumulator}.
+     */
+    public static ActivitySession calculateSummary(List<ActivitySession> sessions, boolean empty, int totalDailySteps) {
 
         Date startTime = null;
         Date endTime = null;
@@ -231,7 +108,7 @@ public class StepAnalysis {
         return null;
     }
 
-    private int calculateSumOfInts(List<Integer> samples) {
+    private static int calculateSumOfInts(List<Integer> samples) {
         int result = 0;
         for (Integer sample : samples) {
             result += sample;
@@ -239,7 +116,7 @@ public class StepAnalysis {
         return result;
     }
 
-    private ActivityKind detect_activity_kind(int session_length, int activeSteps, int heartRateAverage, float intensity) {
+    private static ActivityKind detect_activity_kind(int session_length, int activeSteps, int heartRateAverage, float intensity) {
         final int MIN_STEPS_PER_MINUTE_FOR_RUN = Application.getPrefs().getInt("chart_list_min_steps_per_minute_for_run", 120);
         int spm = (int) (activeSteps / (session_length / 60));
         if (spm > MIN_STEPS_PER_MINUTE_FOR_RUN) {
@@ -254,7 +131,170 @@ public class StepAnalysis {
         return ActivityKind.ACTIVITY;
     }
 
-    private Date getDateFromSample(ActivitySample sample) {
-        return new Date(sample.getTimestamp() * 1000L);
+    private static Date getDateFromSample(ActivitySampleSequence samples, int i) {
+        return new Date(samples.getTimestamp(i) * 1000L);
+    }
+
+    /**
+     * Calculates the step sessions of samples that are added one by one, so that more samples
+     * can be added after querying the sessions.
+     */
+    public static class Accumulator {
+        private final int MIN_SESSION_LENGTH = 60 * Application.getPrefs().getInt("chart_list_min_session_length", 5);
+        private final int MAX_IDLE_PHASE_LENGTH = 60 * Application.getPrefs().getInt("chart_list_max_idle_phase_length", 5);
+        private final int MIN_STEPS_PER_MINUTE = Application.getPrefs().getInt("chart_list_min_steps_per_minute", 40);
+        private final int stepLengthCm = new ActivityUser().getStepLengthCm();
+        private final double MIN_SESSION_INTENSITY = Math.max(0, Math.min(1, MIN_STEPS_PER_MINUTE * 0.01));
+        private final HeartRateUtils heartRateUtilsInstance = HeartRateUtils.getInstance();
+
+        private final List<ActivitySession> result = new ArrayList<>();
+        private int totalDailySteps = 0;
+
+        private boolean hasPrevious = false;
+        private int previousTimestamp;
+        private Date sessionStart = null;
+        private int activeSteps = 0; //steps that we count
+        private int activeDistanceCm = 0;
+        private int stepsBetweenActivePeriods = 0; //steps during time when we maybe take a rest but then restart
+        private int distanceBetweenActivePeriods = 0;
+        private int durationSinceLastActiveStep = 0;
+
+        private List<Integer> heartRateSum = new ArrayList<>();
+        private List<Integer> heartRateBetweenActivePeriodsSum = new ArrayList<>();
+
+        private float activeIntensity = 0;
+        private float intensityBetweenActivePeriods = 0;
+
+        /**
+         * Adds the sample at the given index. Samples must be added in the order of the sequence.
+         */
+        public void add(ActivitySampleSequence samples, int i) {
+            int steps = samples.getSteps(i);
+            if (steps > 0) {
+                totalDailySteps += steps;
+            }
+
+            /*
+             * FIXME This should only consider non-sleep samples. However, this always had the wrong
+             *  check for that, so it processed everything. In #3977, that was corrected, which
+             *  introduces a regression for some devices such as the Amazfit Bip. Processing everything
+             *  seems to work, but this logic needs to be reviewed.
+             */
+            if (samples.isTrailing(i)) { //trailing samples have wrong date and make trailing activity have 0 duration
+                return;
+            }
+
+            if (sessionStart == null) {
+                sessionStart = getDateFromSample(samples, i);
+                if (samples.getSteps(i) >= 0) {
+                    activeSteps = samples.getSteps(i);
+                } else {
+                    activeSteps = 0;
+                }
+                if (samples.getDistanceCm(i) >= 0) {
+                    activeDistanceCm = samples.getDistanceCm(i);
+                } else if (activeSteps > 0) {
+                    activeDistanceCm = activeSteps * stepLengthCm;
+                } else {
+                    activeDistanceCm = 0;
+                }
+                activeIntensity = samples.getIntensity(i);
+                heartRateSum = new ArrayList<>();
+                if (heartRateUtilsInstance.isValidHeartRateValue(samples.getHeartRate(i))) {
+                    heartRateSum.add(samples.getHeartRate(i));
+                }
+                durationSinceLastActiveStep = 0;
+                stepsBetweenActivePeriods = 0;
+                distanceBetweenActivePeriods = 0;
+                heartRateBetweenActivePeriodsSum = new ArrayList<>();
+                hasPrevious = false;
+            }
+            if (hasPrevious) {
+                int durationSinceLastSample = samples.getTimestamp(i) - previousTimestamp;
+
+                if (samples.getSteps(i) > MIN_STEPS_PER_MINUTE || //either some steps
+                        (samples.getIntensity(i) > MIN_SESSION_INTENSITY && samples.getSteps(i) > 0)) { //or some intensity plus at least one step
+                    activeSteps += samples.getSteps(i) + stepsBetweenActivePeriods;
+                    if (samples.getDistanceCm(i) >= 0) {
+                        activeDistanceCm += samples.getDistanceCm(i) + distanceBetweenActivePeriods;
+                    } else {
+                        activeDistanceCm += samples.getSteps(i) * stepLengthCm + distanceBetweenActivePeriods;
+                    }
+                    activeIntensity += samples.getIntensity(i) + intensityBetweenActivePeriods;
+                    if (heartRateUtilsInstance.isValidHeartRateValue(samples.getHeartRate(i))) {
+                        heartRateSum.add(samples.getHeartRate(i));
+                    }
+                    heartRateSum.addAll(heartRateBetweenActivePeriodsSum);
+                    heartRateBetweenActivePeriodsSum = new ArrayList<>();
+                    stepsBetweenActivePeriods = 0;
+                    distanceBetweenActivePeriods = 0;
+                    intensityBetweenActivePeriods = 0;
+                    durationSinceLastActiveStep = 0;
+
+                } else { //short break data to remember, we will add it to the rest later, if break not too long
+                    if (samples.getSteps(i) >= 0) {
+                        stepsBetweenActivePeriods += samples.getSteps(i);
+                    }
+                    if (samples.getDistanceCm(i) >= 0) {
+                        distanceBetweenActivePeriods += samples.getDistanceCm(i);
+                    } else if (samples.getSteps(i) > 0) {
+                        distanceBetweenActivePeriods += samples.getSteps(i) * stepLengthCm;
+                    }
+                    if (heartRateUtilsInstance.isValidHeartRateValue(samples.getHeartRate(i))) {
+                        heartRateBetweenActivePeriodsSum.add(samples.getHeartRate(i));
+                    }
+                    durationSinceLastActiveStep += durationSinceLastSample;
+                    intensityBetweenActivePeriods += samples.getIntensity(i);
+                }
+                if (durationSinceLastActiveStep >= MAX_IDLE_PHASE_LENGTH) { //break too long, we split here
+                    ActivitySession activitySession = createSession(samples.getTimestamp(i), samples.getTimestamp(i) - durationSinceLastActiveStep);
+                    if (activitySession != null) { //valid activity session
+                        //activitySession.setSessionType(ActivitySession.SESSION_ONGOING);
+                        result.add(activitySession);
+                    }
+                    sessionStart = null;
+                }
+            }
+            hasPrevious = true;
+            previousTimestamp = samples.getTimestamp(i);
+        }
+
+        /**
+         * Returns the step sessions of the samples added so far. The last one is an ongoing
+         * session, if it is long enough, and may go on with the next samples.
+         */
+        public List<ActivitySession> getStepSessions() {
+            List<ActivitySession> sessions = new ArrayList<>(result);
+            //trailing activity: make sure we show the last portion of the data as well in case no further activity is recorded yet
+            if (sessionStart != null) {
+                ActivitySession ongoingActivity = createSession(previousTimestamp, previousTimestamp);
+                if (ongoingActivity != null) {
+                    ongoingActivity.setSessionType(ActivitySession.SESSION_ONGOING);
+                    sessions.add(ongoingActivity);
+                }
+            }
+            return sessions;
+        }
+
+        /**
+         * Returns the steps of all samples added so far, for {@link #calculateSummary(List, boolean, int)}.
+         */
+        public int getTotalSteps() {
+            return totalDailySteps;
+        }
+
+        private ActivitySession createSession(int current, int end) {
+            int starting = (int) (sessionStart.getTime() / 1000);
+            int session_length = current - starting - durationSinceLastActiveStep;
+            if (session_length < MIN_SESSION_LENGTH) {
+                return null;
+            }
+
+            int heartRateAverage = heartRateSum.toArray().length > 0 ? calculateSumOfInts(heartRateSum) / heartRateSum.toArray().length : 0;
+            float distance = activeDistanceCm * 0.01f;
+            Date sessionEnd = new Date(end * 1000L);
+            ActivityKind activityKind = detect_activity_kind(session_length, activeSteps, heartRateAverage, activeIntensity);
+            return new ActivitySession(sessionStart, sessionEnd, activeSteps, heartRateAverage, activeIntensity, distance, activityKind);
+        }
     }
 }
@@ -26,7 +26,6 @@ import android.os.Build;
 import android.os.Bundle;
 import android.os.Parcel;
 import android.os.Parcelable;
-import android.text.format.DateUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -47,6 +46,8 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.Date;
 
@@ -56,7 +57,9 @@ import nodomain.freeyourgadget.gadgetbridge.database.DBAccess;
 import nodomain.freeyourgadget.gadgetbridge.database.DBHandler;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivitySample;
+import nodomain.freeyourgadget.gadgetbridge.model.DailySteps;
 import nodomain.freeyourgadget.gadgetbridge.model.DailyTotals;
+import nodomain.freeyourgadget.gadgetbridge.model.StepStreaks;
 import nodomain.freeyourgadget.gadgetbridge.util.DateTimeUtils;
 import nodomain.freeyourgadget.gadgetbridge.util.FileUtils;
 import nodomain.freeyourgadget.gadgetbridge.util.GB;
@@ -71,9 +74,7 @@ public class StepStreaksDashboard extends MaterialDialogFragment {
     private StepsStreaks stepsStreaks = new StepsStreaks();
     private static final String GOAL = "goal";
     private static final String STREAKS = "streaks";
-    private static final String PERIOD_CURRENT = "current";
-    private static final String PERIOD_TOTALS = "totals";
-    private static final int MIN_YEAR = 2015; //we go back in time, this is minimal year boundary
+    private static final int MIN_YEAR = 2015; //minimal year boundary of the data
 
     public StepStreaksDashboard() {
 
@@ -142,8 +143,7 @@ public class StepStreaksDashboard extends MaterialDialogFragment {
                 populateData();
             }
         }
-        createTaskCalculateLatestStepsStreak("Visualizing data current", getActivity(), PERIOD_CURRENT).execute();
-        createTaskCalculateLatestStepsStreak("Visualizing data maximum", getActivity(), PERIOD_TOTALS).execute();
+        createTaskCalculateLatestStepsStreak("Visualizing data", getActivity()).execute();
     }
 
     void indicate_progress(boolean inProgress) {
@@ -234,29 +234,18 @@ public class StepStreaksDashboard extends MaterialDialogFragment {
         }
     }
 
-    protected TaskCalculateLatestStepsStreak createTaskCalculateLatestStepsStreak(String taskName, Context context, String period) {
-        return new TaskCalculateLatestStepsStreak(taskName, context, period);
+    protected TaskCalculateLatestStepsStreak createTaskCalculateLatestStepsStreak(String taskName, Context context) {
+        return new TaskCalculateLatestStepsStreak(taskName, context);
     }
 
     public class TaskCalculateLatestStepsStreak extends DBAccess {
-        String period;
-
-        public TaskCalculateLatestStepsStreak(String taskName, Context context, String period) {
+        public TaskCalculateLatestStepsStreak(String taskName, Context context) {
             super(taskName, context);
-            this.period = period;
         }
 
         @Override
         protected void doInBackground(DBHandler db) {
-            switch (period) {
-                case PERIOD_CURRENT:
-                    calculateStreakData(db, PERIOD_CURRENT, gbDevice, stepsGoal);
-
-                    break;
-                case PERIOD_TOTALS:
-                    calculateStreakData(db, PERIOD_TOTALS, gbDevice, stepsGoal);
-                    break;
-            }
+            calculateStreakData(db, gbDevice, stepsGoal);
         }
 
         @Override
@@ -269,10 +258,8 @@ public class StepStreaksDashboard extends MaterialDialogFragment {
             super.onPostExecute(o);
             FragmentActivity activity = getActivity();
             if (activity != null && !activity.isFinishing() && !activity.isDestroyed()) {
-                if (period.equals(PERIOD_TOTALS)) {
-                    backgroundTaskFinished = true;
-                    indicate_progress(false);
-                }
+                backgroundTaskFinished = true;
+                indicate_progress(false);
                 populateData();
             } else {
                 LOG.info("Not filling data because activity is not available anymore");
@@ -280,81 +267,41 @@ public class StepStreaksDashboard extends MaterialDialogFragment {
         }
     }
 
-    private void calculateStreakData(DBHandler db, String period, GBDevice device, int goal) {
-        Calendar day = Calendar.getInstance();
-        int streak_steps = 0;
-        int streak_days = 0;
-        int timestamp = 0;
-
-        int all_step_days = 0;
-        int all_streak_days = 0;
-        int all_steps = 0;
-        int firstDataTimestamp = 0;
+    private void calculateStreakData(DBHandler db, GBDevice device, int goal) {
+        if (cancelTasks) {
+            return;
+        }
 
         ActivitySample firstSample = DailyTotals.getFirstSample(db, device);
         if (firstSample == null) { //no data at all
             return;
         }
-        Calendar firstDate = Calendar.getInstance();
-        firstDate.setTime(DateTimeUtils.shiftByDays(new Date(firstSample.getTimestamp() * 1000L), -1));
-        //go one day back, to ensure we are before the first day, to calculate first day data as well
-
-        while (true) {
-            if (cancelTasks) {
-                GB.toast("Cancelling background jobs", Toast.LENGTH_SHORT, GB.INFO);
-                break;
-            }
-
-            DailyTotals daily_data = DailyTotals.getDailyTotalsForDevice(device, day, db);
-            int steps_this_day = (int) daily_data.getSteps();
 
-            if (steps_this_day > 0) {
-                all_step_days++;
-                all_steps += steps_this_day;
-                firstDataTimestamp = (int) (day.getTimeInMillis() / 1000);
-            }
+        // the steps of all days are summed up at once, instead of analyzing the samples day by day
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate today = LocalDate.now(zone);
+        //avoid going back too far, if the data has a timestamp too far into the past
+        //we could make this date configurable if needed for people who imported old data
+        int from = Math.max(firstSample.getTimestamp(), (int) LocalDate.of(MIN_YEAR, 1, 1).atStartOfDay(zone).toEpochSecond());
+        int to = (int) today.plusDays(1).atStartOfDay(zone).toEpochSecond() - 1;
+        DailySteps dailySteps = device.getDeviceCoordinator().getSampleProvider(device, db.getDaoSession()).getDailySteps(from, to, zone);
+        StepStreaks streaks = StepStreaks.calculate(dailySteps, goal, today);
+
+        setStreak(stepsStreaks.current, streaks.getCurrent(), zone);
+        setStreak(stepsStreaks.maximum, streaks.getLongest(), zone);
+        stepsStreaks.total.steps = (int) streaks.getTotalSteps();
+        stepsStreaks.total.days = streaks.getGoalDays();
+        stepsStreaks.total.total_days = streaks.getStepDays();
+        if (streaks.getFirstStepDay() != null) {
+            stepsStreaks.total.timestamp = (int) streaks.getFirstStepDay().atStartOfDay(zone).toEpochSecond();
+        }
+    }
 
-            if (steps_this_day >= goal) {
-                streak_steps += steps_this_day;
-                streak_days++;
-                all_streak_days++;
-                timestamp = (int) (day.getTimeInMillis() / 1000);
-                Date newDate = DateTimeUtils.shiftByDays(new Date(day.getTimeInMillis()), -1);
-                day.setTime(newDate);
-            } else if (DateUtils.isToday(day.getTimeInMillis())) {
-                //if goal is not reached today, we might still get our steps later
-                // so do not count this day but do not interrupt
-                Date newDate = DateTimeUtils.shiftByDays(new Date(day.getTimeInMillis()), -1);
-                day.setTime(newDate);
-            } else {
-                if (period.equals(PERIOD_CURRENT)) {
-                    stepsStreaks.current.days = streak_days;
-                    stepsStreaks.current.steps = streak_steps;
-                    stepsStreaks.current.timestamp = timestamp;
-                    return;
-                } else if (period.equals(PERIOD_TOTALS)) {
-                    //reset max
-                    if (streak_days > stepsStreaks.maximum.days) {
-                        stepsStreaks.maximum.steps = streak_steps;
-                        stepsStreaks.maximum.days = streak_days;
-                        stepsStreaks.maximum.timestamp = timestamp;
-                    }
-
-                    streak_days = 0;
-                    streak_steps = 0;
-                    Date newDate = DateTimeUtils.shiftByDays(new Date(day.getTimeInMillis()), -1);
-                    day.setTime(newDate);
-                    if (day.before(firstDate) || day.get(Calendar.YEAR) < MIN_YEAR) {
-                        //avoid rolling back too far, if the data has a timestamp too far into future
-                        //we could make this date configurable if needed for people who imported old data
-                        stepsStreaks.total.steps = all_steps;
-                        stepsStreaks.total.days = all_streak_days;
-                        stepsStreaks.total.total_days = all_step_days;
-                        stepsStreaks.total.timestamp = firstDataTimestamp;
-                        return;
-                    }
-                }
-            }
+    private static void setStreak(StepsStreak target, StepStreaks.Streak streak, ZoneId zone) {
+        target.days = streak.getDays();
+        target.steps = (int) streak.getSteps();
+        if (streak.getStart() != null) {
+            target.timestamp = (int) streak.getStart().atStartOfDay(zone).toEpochSecond();
         }
     }
 
@@ -1,7 +1,5 @@
 package nodomain.freeyourgadget.gadgetbridge.activities.charts;
 
-import android.app.Activity;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,11 +12,9 @@ import xyz.tenseventyseven.fresh.R;
 import nodomain.freeyourgadget.gadgetbridge.database.DBHandler;
 import nodomain.freeyourgadget.gadgetbridge.devices.SampleProvider;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
-import nodomain.freeyourgadget.gadgetbridge.model.ActivityAmount;
-import nodomain.freeyourgadget.gadgetbridge.model.ActivityAmounts;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivitySample;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityUser;
-import nodomain.freeyourgadget.gadgetbridge.util.LimitedQueue;
+import nodomain.freeyourgadget.gadgetbridge.model.DailyTotals;
 
 abstract class StepsFragment<T extends ChartsData> extends AbstractChartFragment<T> {
     protected static final Logger LOG = LoggerFactory.getLogger(StepsFragment.class);
@@ -50,17 +46,10 @@ abstract class StepsFragment<T extends ChartsData> extends AbstractChartFragment
 
         List<StepsDay> daysData = new ArrayList<>();;
         for (int counter = 0; counter < TOTAL_DAYS; counter++) {
-            long totalSteps = 0;
-            long totalDistance = 0;
-            ActivityAmounts amounts = getActivityAmountsForDay(db, day, device);
-            for (ActivityAmount amount : amounts.getAmounts()) {
-                if (amount.getTotalSteps() > 0) {
-                    totalSteps += amount.getTotalSteps();
-                }
-                if (amount.getTotalDistance() > 0) {
-                    totalDistance += amount.getTotalDistance();
-                }
-            }
+            // Totals of past days are persisted, so this does not need to go through the samples
+            final DailyTotals dailyTotals = DailyTotals.getDailyTotalsForDevice(device, day, db);
+            final long totalSteps = dailyTotals.getSteps();
+            final long totalDistance = dailyTotals.getDistance();
             double distance = totalDistance;
             if (totalDistance == 0 && totalSteps > 0) {
                 // For gadgets that do not report distance, compute it from the steps
@@ -75,28 +64,6 @@ abstract class StepsFragment<T extends ChartsData> extends AbstractChartFragment
         return daysData;
     }
 
-    protected ActivityAmounts getActivityAmountsForDay(DBHandler db, Calendar day, GBDevice device) {
-        LimitedQueue<Integer, ActivityAmounts> activityAmountCache = null;
-        ActivityAmounts amounts = null;
-
-        Activity activity = getActivity();
-        int key = (int) (day.getTimeInMillis() / 1000);
-        if (activity != null) {
-            activityAmountCache = ((ActivityChartsActivity) activity).mActivityAmountCache;
-            amounts = activityAmountCache.lookup(key);
-        }
-
-        if (amounts == null) {
-            ActivityAnalysis analysis = new ActivityAnalysis();
-            amounts = analysis.calculateActivityAmounts(getSamplesOfDay(db, day, 0, device));
-            if (activityAmountCache != null) {
-                activityAmountCache.add(key, amounts);
-            }
-        }
-
-        return amounts;
-    }
-
     protected List<? extends ActivitySample> getSamplesOfDay(DBHandler db, Calendar day, int offsetHours, GBDevice device) {
         int startTs;
         int endTs;
@@ -49,6 +49,7 @@ import nodomain.freeyourgadget.gadgetbridge.model.ActivityAmount;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityAmounts;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityKind;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityUser;
+import nodomain.freeyourgadget.gadgetbridge.model.DailyTotals;
 import nodomain.freeyourgadget.gadgetbridge.util.DateTimeUtils;
 
 public class WeekSleepChartFragment extends AbstractWeekChartFragment {
@@ -300,6 +301,27 @@ public class WeekSleepChartFragment extends AbstractWeekChartFragment {
         return -12;
     }
 
+    @Override
+    protected ActivityAmounts calculateActivityAmountsForDay(DBHandler db, Calendar day, GBDevice device) {
+        // The sleep totals are persisted by DailyTotals, no need to go through the samples of the day
+        final DailyTotals dailyTotals = DailyTotals.getDailyTotalsForDevice(device, day, db);
+        final ActivityAmounts amounts = new ActivityAmounts();
+        addSleepAmount(amounts, ActivityKind.DEEP_SLEEP, dailyTotals.getDeepSleep());
+        addSleepAmount(amounts, ActivityKind.LIGHT_SLEEP, dailyTotals.getLightSleep());
+        addSleepAmount(amounts, ActivityKind.REM_SLEEP, dailyTotals.getRemSleep());
+        addSleepAmount(amounts, ActivityKind.AWAKE_SLEEP, dailyTotals.getAwakeSleep());
+        amounts.calculatePercentages();
+        return amounts;
+    }
+
+    private static void addSleepAmount(ActivityAmounts amounts, ActivityKind kind, long minutes) {
+        if (minutes > 0) {
+            final ActivityAmount amount = new ActivityAmount(kind);
+            amount.addSeconds(minutes * 60);
+            amounts.addAmount(amount);
+        }
+    }
+
 
     @Override
     protected long calculateBalance(ActivityAmounts activityAmounts) {
@@ -0,0 +1,237 @@
+package nodomain.freeyourgadget.gadgetbridge.activities.dashboard;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import xyz.tenseventyseven.fresh.Application;
+import nodomain.freeyourgadget.gadgetbridge.database.DBHandler;
+import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
+import nodomain.freeyourgadget.gadgetbridge.model.DailyTotals;
+import nodomain.freeyourgadget.gadgetbridge.util.DashboardUtils;
+
+/**
+ * The totals of a device on a day, as shown by the dashboard. Each snapshot is computed only once
+ * and shared by all widgets, and the most recently used ones are kept in memory, so that switching
+ * back and forth between days does not load the samples again. The snapshots of multiple devices
+ * are computed in parallel, in the background.
+ * <p>
+ * All snapshots of a device are discarded when new activity data is signalled for it. The
+ * snapshot of the current day also expires after a minute, since realtime samples are not
+ * signalled.
+ */
+public class DashboardDaySnapshot {
+    private static final Logger LOG = LoggerFactory.getLogger(DashboardDaySnapshot.class);
+
+    private static final int MAX_CACHED_SNAPSHOTS = 64;
+    private static final long CURRENT_DAY_MAX_AGE_MILLIS = 60 * 1000L;
+
+    private static final Map<String, Integer> DATA_VERSIONS = new ConcurrentHashMap<>();
+
+    // Guarded by itself, in access order so that the least recently used snapshot is evicted
+    private static final Map<Key, Entry> CACHE = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, Entry> eldest) {
+            return size() > MAX_CACHED_SNAPSHOTS;
+        }
+    };
+
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private final GBDevice device;
+    private final int timeFrom;
+    private final int timeTo;
+    private final DailyTotals dailyTotals;
+    private Long activeMinutes;
+
+    private DashboardDaySnapshot(final GBDevice device, final int timeFrom, final int timeTo, final DailyTotals dailyTotals) {
+        this.device = device;
+        this.timeFrom = timeFrom;
+        this.timeTo = timeTo;
+        this.dailyTotals = dailyTotals;
+    }
+
+    public GBDevice getDevice() {
+        return device;
+    }
+
+    public DailyTotals getDailyTotals() {
+        return dailyTotals;
+    }
+
+    /**
+     * Returns the active minutes of the day. They are only needed by some widgets, so they are
+     * computed on first use, on the calling thread.
+     */
+    public synchronized long getActiveMinutes() {
+        if (activeMinutes == null) {
+            try (DBHandler dbHandler = Application.acquireDbReadOnly()) {
+                activeMinutes = DashboardUtils.getActiveMinutes(device, dbHandler, timeFrom, timeTo);
+            } catch (final Exception e) {
+                LOG.warn("Could not calculate active minutes for {}", device, e);
+                return 0;
+            }
+        }
+        return activeMinutes;
+    }
+
+    /**
+     * Returns the snapshots of the given devices for the day between timeFrom and timeTo, waiting
+     * for the ones that are not computed yet. Devices whose snapshot could not be computed are
+     * left out.
+     */
+    public static List<DashboardDaySnapshot> getAll(final List<GBDevice> devices, final int timeFrom, final int timeTo) {
+        final List<Future<DashboardDaySnapshot>> futures = new ArrayList<>(devices.size());
+        for (final GBDevice device : devices) {
+            futures.add(submit(device, timeFrom, timeTo));
+        }
+
+        final List<DashboardDaySnapshot> snapshots = new ArrayList<>(devices.size());
+        for (int i = 0; i < devices.size(); i++) {
+            try {
+                snapshots.add(futures.get(i).get());
+            } catch (final ExecutionException e) {
+                LOG.warn("Could not compute dashboard snapshot for {}", devices.get(i), e.getCause());
+            } catch (final InterruptedException e) {
+                LOG.warn("Interrupted while waiting for dashboard snapshots");
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Starts computing the snapshots of the given devices in the background, without waiting for
+     * them.
+     */
+    public static void prefetch(final List<GBDevice> devices, final int timeFrom, final int timeTo) {
+        for (final GBDevice device : devices) {
+            submit(device, timeFrom, timeTo);
+        }
+    }
+
+    /**
+     * Discards all snapshots of the device, because it has new data.
+     */
+    public static void invalidate(final GBDevice device) {
+        DATA_VERSIONS.merge(device.getAddress(), 1, Integer::sum);
+    }
+
+    private static Future<DashboardDaySnapshot> submit(final GBDevice device, final int timeFrom, final int timeTo) {
+        final Key key = new Key(device.getAddress(), timeFrom, timeTo, DATA_VERSIONS.getOrDefault(device.getAddress(), 0));
+        final FutureTask<DashboardDaySnapshot> task;
+        synchronized (CACHE) {
+            final Entry entry = CACHE.get(key);
+            if (entry != null && !entry.isExpired(timeTo)) {
+                return entry.task;
+            }
+            task = new FutureTask<>(() -> compute(device, timeFrom, timeTo));
+            CACHE.put(key, new Entry(task));
+        }
+        EXECUTOR.execute(() -> {
+            task.run();
+            if (isFailed(task)) {
+                // Do not keep failures, try again on the next request
+                synchronized (CACHE) {
+                    final Entry entry = CACHE.get(key);
+                    if (entry != null && entry.task == task) {
+                        CACHE.remove(key);
+                    }
+                }
+            }
+        });
+        return task;
+    }
+
+    private static DashboardDaySnapshot compute(final GBDevice device, final int timeFrom, final int timeTo) throws Exception {
+        final long start = System.currentTimeMillis();
+        try (DBHandler dbHandler = Application.acquireDbReadOnly()) {
+            final DailyTotals dailyTotals = DashboardUtils.getDailyTotals(device, dbHandler, timeTo);
+            LOG.debug("Computed dashboard snapshot for {} in {}ms", device.getAliasOrName(), System.currentTimeMillis() - start);
+            return new DashboardDaySnapshot(device, timeFrom, timeTo, dailyTotals);
+        }
+    }
+
+    private static boolean isFailed(final Future<?> future) {
+        try {
+            future.get();
+            return false;
+        } catch (final Exception e) {
+            return true;
+        }
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        final int threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                30,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, "dashboard-snapshot-" + threadNumber.incrementAndGet())
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static class Entry {
+        private final FutureTask<DashboardDaySnapshot> task;
+        private final long createdAt = System.currentTimeMillis();
+
+        private Entry(final FutureTask<DashboardDaySnapshot> task) {
+            this.task = task;
+        }
+
+        private boolean isExpired(final int timeTo) {
+            final long now = System.currentTimeMillis();
+            // Only the current day is still changing
+            return timeTo * 1000L >= now && now - createdAt > CURRENT_DAY_MAX_AGE_MILLIS;
+        }
+    }
+
+    private static class Key {
+        private final String address;
+        private final int timeFrom;
+        private final int timeTo;
+        private final int dataVersion;
+
+        private Key(final String address, final int timeFrom, final int timeTo, final int dataVersion) {
+            this.address = address;
+            this.timeFrom = timeFrom;
+            this.timeTo = timeTo;
+            this.dataVersion = dataVersion;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key key = (Key) o;
+            return timeFrom == key.timeFrom &&
+                    timeTo == key.timeTo &&
+                    dataVersion == key.dataVersion &&
+                    address.equals(key.address);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(address, timeFrom, timeTo, dataVersion);
+        }
+    }
+}
@@ -59,7 +59,7 @@ public class DashboardHrvWidget extends AbstractGaugeWidget {
 
         HrvSummarySample latestSummary = null;
 
-        try (DBHandler dbHandler = Application.acquireDB()) {
+        try (DBHandler dbHandler = Application.acquireDbReadOnly()) {
             for (GBDevice dev : devices) {
                 final List<? extends HrvSummarySample> deviceLatestSummaries = dev.getDeviceCoordinator().getHrvSummarySampleProvider(dev, dbHandler.getDaoSession())
                         .getAllSamples(dashboardData.timeFrom * 1000L, dashboardData.timeTo * 1000L);
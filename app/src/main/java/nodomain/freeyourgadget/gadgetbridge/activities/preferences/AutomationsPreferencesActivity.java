@@ -114,6 +114,17 @@ public class AutomationsPreferencesActivity extends AbstractSettingsActivityV2 {
                 autoExportEnabledPref.setOnPreferenceChangeListener((preference, autoExportEnabled) -> {
                     int autoExportInterval = Application.getPrefs().getInt(GBPrefs.AUTO_EXPORT_INTERVAL, 0);
                     PeriodicExporter.scheduleAlarm(requireContext().getApplicationContext(), autoExportInterval, (boolean) autoExportEnabled);
+                    final boolean autoExportIncremental = Application.getPrefs().getBoolean(GBPrefs.AUTO_EXPORT_INCREMENTAL, false);
+                    PeriodicExporter.disableIncrementalExportIfUnused(requireContext().getApplicationContext(), (boolean) autoExportEnabled, autoExportIncremental);
+                    return true;
+                });
+            }
+
+            final Preference autoExportIncrementalPref = findPreference(GBPrefs.AUTO_EXPORT_INCREMENTAL);
+            if (autoExportIncrementalPref != null) {
+                autoExportIncrementalPref.setOnPreferenceChangeListener((preference, autoExportIncremental) -> {
+                    final boolean autoExportEnabled = Application.getPrefs().getBoolean(GBPrefs.AUTO_EXPORT_ENABLED, false);
+                    PeriodicExporter.disableIncrementalExportIfUnused(requireContext().getApplicationContext(), autoExportEnabled, (boolean) autoExportIncremental);
                     return true;
                 });
             }
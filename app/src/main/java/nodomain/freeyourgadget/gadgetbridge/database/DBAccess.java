@@ -45,9 +45,17 @@ public abstract class DBAccess extends AsyncTask {
 
     protected abstract void doInBackground(DBHandler handler);
 
+    /**
+     * Whether this task only reads from the database, and can run concurrently
+     * to writers, see Application#acquireDbReadOnly().
+     */
+    protected boolean isReadOnly() {
+        return false;
+    }
+
     @Override
     protected Object doInBackground(Object[] params) {
-        try (DBHandler db = Application.acquireDB()) {
+        try (DBHandler db = isReadOnly() ? Application.acquireDbReadOnly() : Application.acquireDB()) {
             doInBackground(db);
         } catch (Exception e) {
             LOG.error("Error during DBAccess for {}", mTask, e);
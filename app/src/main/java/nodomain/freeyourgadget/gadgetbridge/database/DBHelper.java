@@ -35,6 +35,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
@@ -42,6 +43,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import de.greenrobot.dao.AbstractDao;
 import de.greenrobot.dao.Property;
@@ -71,6 +74,7 @@ import nodomain.freeyourgadget.gadgetbridge.entities.UserAttributes;
 import nodomain.freeyourgadget.gadgetbridge.entities.UserDao;
 import nodomain.freeyourgadget.gadgetbridge.entities.WorldClock;
 import nodomain.freeyourgadget.gadgetbridge.entities.WorldClockDao;
+import nodomain.freeyourgadget.gadgetbridge.externalevents.NotificationFilterIndex;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityUser;
 import nodomain.freeyourgadget.gadgetbridge.model.ValidByDate;
@@ -146,6 +150,23 @@ public class DBHelper {
         }
     }
 
+    /**
+     * Closes the database and passes its file to the given consumer, e.g. to stream it somewhere
+     * without an intermediate copy. The database is reopened afterwards.
+     */
+    public void exportDB(DBHandler dbHandler, DBFileConsumer consumer) throws IOException {
+        String dbPath = getClosedDBPath(dbHandler);
+        try {
+            consumer.accept(new File(dbPath));
+        } finally {
+            dbHandler.openDb();
+        }
+    }
+
+    public interface DBFileConsumer {
+        void accept(File dbFile) throws IOException;
+    }
+
     private String getDate() {
         return new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
     }
@@ -158,9 +179,23 @@ public class DBHelper {
         String dbPath = getClosedDBPath(dbHandler);
         try {
             File toFile = new File(dbPath);
+            // A stale write-ahead log would be replayed on top of the imported database
+            deleteJournalFiles(toFile);
             FileUtils.copyStreamToFile(inputStream, toFile);
         } finally {
             dbHandler.openDb();
+            // The previous exports do not match the imported database
+            IncrementalDatabaseExporter.reset(context);
+            NotificationFilterIndex.invalidate();
+        }
+    }
+
+    private static void deleteJournalFiles(File dbFile) {
+        for (String suffix : new String[]{"-wal", "-shm", "-journal"}) {
+            File journal = new File(dbFile.getPath() + suffix);
+            if (journal.exists() && !journal.delete()) {
+                LOG.warn("Unable to delete {}", journal);
+            }
         }
     }
 
@@ -198,6 +233,25 @@ public class DBHelper {
         return false;
     }
 
+    /**
+     * Returns the primary key columns of the table in the order of the key, or an empty list if
+     * the table has none or does not exist.
+     */
+    public static List<String> getPrimaryKeyColumns(String tableName, SQLiteDatabase db) {
+        final SortedMap<Integer, String> columns = new TreeMap<>();
+        try (Cursor res = db.rawQuery("PRAGMA table_info('" + tableName + "')", null)) {
+            final int nameIndex = res.getColumnIndexOrThrow("name");
+            final int pkIndex = res.getColumnIndexOrThrow("pk");
+            while (res.moveToNext()) {
+                final int position = res.getInt(pkIndex);
+                if (position > 0) {
+                    columns.put(position, res.getString(nameIndex));
+                }
+            }
+        }
+        return new ArrayList<>(columns.values());
+    }
+
     /**
      * Looks up the user entity in the database. If a user exists already, it will
      * be updated with the current preferences values. If no user exists yet, it will
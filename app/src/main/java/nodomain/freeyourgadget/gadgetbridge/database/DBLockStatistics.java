@@ -0,0 +1,70 @@
+package nodomain.freeyourgadget.gadgetbridge.database;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts how long callers waited for one of the database locks, to make contention visible.
+ * Thread-safe, and cheap enough to be updated on every acquisition.
+ */
+public class DBLockStatistics {
+    private final String name;
+
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+
+    public DBLockStatistics(final String name) {
+        this.name = name;
+    }
+
+    public void recordAcquired(final long waitMillis) {
+        acquisitions.incrementAndGet();
+        totalWaitMillis.addAndGet(waitMillis);
+
+        long max = maxWaitMillis.get();
+        while (waitMillis > max && !maxWaitMillis.compareAndSet(max, waitMillis)) {
+            max = maxWaitMillis.get();
+        }
+    }
+
+    public void recordTimeout(final long waitMillis) {
+        timeouts.incrementAndGet();
+        totalWaitMillis.addAndGet(waitMillis);
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.get();
+    }
+
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    public long getTotalWaitMillis() {
+        return totalWaitMillis.get();
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis.get();
+    }
+
+    public double getAverageWaitMillis() {
+        final long count = acquisitions.get() + timeouts.get();
+        return count == 0 ? 0 : (double) totalWaitMillis.get() / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                Locale.ROOT,
+                "%s: acquisitions=%d, timeouts=%d, avgWait=%.1fms, maxWait=%dms",
+                name,
+                getAcquisitions(),
+                getTimeouts(),
+                getAverageWaitMillis(),
+                getMaxWaitMillis()
+        );
+    }
+}
@@ -30,6 +30,8 @@ public class DBOpenHelper extends DaoMaster.OpenHelper {
         super(context, dbName, factory);
         updaterClassNamePrefix = dbName + "Update_";
         this.context = context;
+        // Readers use their own connections from the pool and no longer block behind the writer
+        setWriteAheadLoggingEnabled(true);
     }
 
     @Override
@@ -36,20 +36,32 @@ public class DatabaseExportWorker extends Worker {
     @NonNull
     @Override
     public Result doWork() {
-        try (DBHandler dbHandler = Application.acquireDB()) {
-            final DBHelper helper = new DBHelper(mContext);
-            final String dst = Application.getPrefs().getString(GBPrefs.AUTO_EXPORT_LOCATION, null);
-            if (dst == null) {
-                LOG.warn("Unable to export DB, export location not set");
-                broadcastSuccess(false);
-                return Result.failure();
-            }
-
-            final Uri dstUri = Uri.parse(dst);
-            try (OutputStream out = mContext.getContentResolver().openOutputStream(dstUri)) {
-                helper.exportDB(dbHandler, out);
-                Application.app().setLastAutoExportTimestamp(System.currentTimeMillis());
+        final String dst = Application.getPrefs().getString(GBPrefs.AUTO_EXPORT_LOCATION, null);
+        if (dst == null) {
+            LOG.warn("Unable to export DB, export location not set");
+            broadcastSuccess(false);
+            return Result.failure();
+        }
+        final Uri dstUri = Uri.parse(dst);
+
+        try {
+            if (Application.getPrefs().getBoolean(GBPrefs.AUTO_EXPORT_INCREMENTAL, false)) {
+                // Clears the change log, but does not need to close the database
+                try (DBHandler dbHandler = Application.acquireDB()) {
+                    new IncrementalDatabaseExporter(mContext).export(dbHandler.getDatabase(), dstUri);
+                }
+            } else {
+                try (DBHandler dbHandler = Application.acquireDB();
+                     OutputStream out = mContext.getContentResolver().openOutputStream(dstUri)) {
+                    // Do not copy the triggers of the incremental export along with the database
+                    IncrementalDatabaseExporter.stopTracking(dbHandler.getDatabase());
+                    final DBHelper helper = new DBHelper(mContext);
+                    helper.exportDB(dbHandler, out);
+                }
+                // The destination does not contain incremental chunks anymore
+                IncrementalDatabaseExporter.reset(mContext);
             }
+            Application.app().setLastAutoExportTimestamp(System.currentTimeMillis());
         } catch (final Exception e) {
             GB.updateExportFailedNotification(mContext.getString(R.string.notif_export_failed_title), mContext);
             LOG.error("Exception while exporting DB", e);
@@ -0,0 +1,535 @@
+package nodomain.freeyourgadget.gadgetbridge.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import nodomain.freeyourgadget.gadgetbridge.util.GB;
+import xyz.tenseventyseven.fresh.Application;
+
+/**
+ * Exports the database as SQL, writing only the rows that changed since the previous export.
+ * <p>
+ * The destination is a gzip file of SQL statements that recreate the database when replayed, e.g.
+ * with {@code zcat export.sql.gz | sqlite3 Gadgetbridge}. Each export appends a chunk as another
+ * gzip member, which gzip readers treat as a continuation of the same file:
+ * <ul>
+ *     <li>tables with a TIMESTAMP column and a primary key, i.e. the sample tables, only export the
+ *     rows that were inserted, replaced, updated or deleted since the previous export, no matter
+ *     how old the samples are. Triggers record the primary keys of these rows in a change log
+ *     while the incremental export is in use</li>
+ *     <li>all other tables are small, and are exported completely each time</li>
+ * </ul>
+ * Snapshots rewrite the whole file. They are written weekly, when the appended chunks outgrow the
+ * previous snapshot, and whenever the destination, the database schema or the change log changed.
+ */
+public class IncrementalDatabaseExporter {
+    private static final Logger LOG = LoggerFactory.getLogger(IncrementalDatabaseExporter.class);
+
+    static final String STATE_FILENAME = "incremental_export.properties";
+    private static final long SNAPSHOT_INTERVAL_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    private static final String KEY_DESTINATION = "destination";
+    private static final String KEY_SCHEMA_VERSION = "schemaVersion";
+    private static final String KEY_SNAPSHOT_TIME = "snapshotTime";
+    private static final String KEY_SNAPSHOT_BYTES = "snapshotBytes";
+    private static final String KEY_APPENDED_BYTES = "appendedBytes";
+    private static final String KEY_IN_PROGRESS = "inProgress";
+
+    private static final String SAMPLE_TIMESTAMP_COLUMN = "TIMESTAMP";
+    /**
+     * The primary keys of the changed sample rows, as SQL conditions. Only exists, together with
+     * the triggers filling it, while the incremental export is in use.
+     */
+    static final String CHANGE_LOG_TABLE = "EXPORT_CHANGE_LOG";
+    private static final String CHANGE_TRIGGER_PREFIX = "EXPORT_CHANGE_";
+
+    private final Context context;
+    private final File stateFile;
+
+    public IncrementalDatabaseExporter(final Context context) {
+        this.context = context;
+        this.stateFile = new File(context.getFilesDir(), STATE_FILENAME);
+    }
+
+    /**
+     * Forgets what was exported, so that the next export writes a snapshot. Needs to be called when
+     * the destination is overwritten by other means, or the database is replaced.
+     */
+    public static void reset(final Context context) {
+        final File stateFile = new File(context.getFilesDir(), STATE_FILENAME);
+        if (stateFile.exists() && !stateFile.delete()) {
+            LOG.warn("Failed to delete {}", stateFile);
+        }
+    }
+
+    /**
+     * Stops recording the changed samples, once the incremental export is not used anymore. Does
+     * nothing if it was not used.
+     */
+    public static void disable(final Context context) {
+        final File stateFile = new File(context.getFilesDir(), STATE_FILENAME);
+        if (!stateFile.exists()) {
+            return;
+        }
+        try (DBHandler dbHandler = Application.acquireDB()) {
+            stopTracking(dbHandler.getDatabase());
+            reset(context);
+        } catch (final Exception e) {
+            LOG.error("Failed to disable the incremental export", e);
+        }
+    }
+
+    /**
+     * Appends the rows that changed since the previous export to the destination, or writes a
+     * snapshot of the whole database if needed. All tables are read in a single transaction, so
+     * that each chunk is consistent. The database must be writable, since the change log is
+     * cleared with each export.
+     */
+    public void export(final SQLiteDatabase db, final Uri destination) throws IOException {
+        final Properties state = loadState();
+        final long now = System.currentTimeMillis();
+        boolean snapshot = needsSnapshot(state, db, destination, now);
+
+        // A failed export can leave an incomplete chunk behind, which only a snapshot fixes
+        state.setProperty(KEY_IN_PROGRESS, "true");
+        saveState(state);
+
+        OutputStream outputStream = null;
+        if (!snapshot) {
+            try {
+                outputStream = context.getContentResolver().openOutputStream(destination, "wa");
+            } catch (final Exception e) {
+                LOG.warn("Destination does not support appending, writing a snapshot", e);
+            }
+            snapshot = outputStream == null;
+        }
+        if (snapshot) {
+            outputStream = context.getContentResolver().openOutputStream(destination, "wt");
+            if (outputStream == null) {
+                throw new IOException("Failed to open " + destination);
+            }
+        }
+
+        final long bytes;
+        db.beginTransaction();
+        try (OutputStream out = outputStream) {
+            bytes = writeChunk(db, out, snapshot);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        final Properties newState = new Properties();
+        newState.setProperty(KEY_DESTINATION, destination.toString());
+        newState.setProperty(KEY_SCHEMA_VERSION, String.valueOf(db.getVersion()));
+        if (snapshot) {
+            newState.setProperty(KEY_SNAPSHOT_TIME, String.valueOf(now));
+            newState.setProperty(KEY_SNAPSHOT_BYTES, String.valueOf(bytes));
+            newState.setProperty(KEY_APPENDED_BYTES, "0");
+        } else {
+            newState.setProperty(KEY_SNAPSHOT_TIME, state.getProperty(KEY_SNAPSHOT_TIME));
+            newState.setProperty(KEY_SNAPSHOT_BYTES, state.getProperty(KEY_SNAPSHOT_BYTES));
+            newState.setProperty(KEY_APPENDED_BYTES, String.valueOf(getLong(state, KEY_APPENDED_BYTES) + bytes));
+        }
+        saveState(newState);
+
+        LOG.info("Exported {} of {} bytes", snapshot ? "snapshot" : "chunk", bytes);
+    }
+
+    private static boolean needsSnapshot(final Properties state,
+                                         final SQLiteDatabase db,
+                                         final Uri destination,
+                                         final long now) {
+        if (state.isEmpty() || state.containsKey(KEY_IN_PROGRESS)) {
+            return true;
+        }
+        if (!destination.toString().equals(state.getProperty(KEY_DESTINATION)) ||
+                db.getVersion() != getLong(state, KEY_SCHEMA_VERSION)) {
+            return true;
+        }
+        // changes were not recorded, e.g. because tables were recreated
+        if (!isTracking(db)) {
+            return true;
+        }
+        if (now - getLong(state, KEY_SNAPSHOT_TIME) > SNAPSHOT_INTERVAL_MILLIS) {
+            return true;
+        }
+        // compact once the chunks are larger than the snapshot they are based on
+        return getLong(state, KEY_APPENDED_BYTES) > getLong(state, KEY_SNAPSHOT_BYTES);
+    }
+
+    /**
+     * Writes a chunk of SQL statements as a gzip member, without closing the stream, and clears
+     * the change log. Should be called in a transaction.
+     *
+     * @param snapshot whether to export the schema and all rows, and start recording changes
+     * @return the number of bytes written
+     */
+    static long writeChunk(final SQLiteDatabase db,
+                           final OutputStream out,
+                           final boolean snapshot) throws IOException {
+        final CountingOutputStream countingOut = new CountingOutputStream(out);
+        final GZIPOutputStream gzipOut = new GZIPOutputStream(countingOut, 8192);
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(gzipOut, StandardCharsets.UTF_8), 8192);
+
+        writer.write("BEGIN TRANSACTION;\n");
+        if (snapshot) {
+            writer.write("PRAGMA user_version = " + db.getVersion() + ";\n");
+            writeSchema(db, writer);
+            startTracking(db);
+        }
+
+        final Map<String, Set<String>> changes = snapshot ? new HashMap<>() : getChanges(db);
+        for (final String table : getTables(db)) {
+            if (!snapshot && getSampleKey(db, table) != null) {
+                final Set<String> changedRows = changes.get(table);
+                if (changedRows != null) {
+                    writeChangedRows(db, writer, table, changedRows);
+                }
+            } else {
+                if (!snapshot) {
+                    writer.write("DELETE FROM " + quote(table) + ";\n");
+                }
+                writeRows(writer, table, db.rawQuery("SELECT * FROM " + quote(table), null));
+            }
+        }
+        db.delete(CHANGE_LOG_TABLE, null, null);
+        writer.write("COMMIT;\n");
+
+        writer.flush();
+        gzipOut.finish();
+        countingOut.flush();
+        return countingOut.count;
+    }
+
+    /**
+     * Creates the change log and the triggers filling it, if they do not exist yet.
+     */
+    static void startTracking(final SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + quote(CHANGE_LOG_TABLE) + " (" +
+                "\"SEQ\" INTEGER PRIMARY KEY, \"TABLE_NAME\" TEXT NOT NULL, \"ROW_KEY\" TEXT NOT NULL)");
+        for (final String table : getTables(db)) {
+            final List<String> key = getSampleKey(db, table);
+            if (key == null) {
+                continue;
+            }
+            final String logNew = "INSERT INTO " + quote(CHANGE_LOG_TABLE) + " (\"TABLE_NAME\", \"ROW_KEY\") VALUES (" +
+                    sqlString(table) + ", " + getKeyCondition(key, "NEW") + ");";
+            final String logOld = "INSERT INTO " + quote(CHANGE_LOG_TABLE) + " (\"TABLE_NAME\", \"ROW_KEY\") VALUES (" +
+                    sqlString(table) + ", " + getKeyCondition(key, "OLD") + ");";
+            // replacing a row only fires the insert trigger, with the same key
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS " + quote(getTriggerName(table, "INSERT")) +
+                    " AFTER INSERT ON " + quote(table) + " BEGIN " + logNew + " END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS " + quote(getTriggerName(table, "UPDATE")) +
+                    " AFTER UPDATE ON " + quote(table) + " BEGIN " + logOld + " " + logNew + " END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS " + quote(getTriggerName(table, "DELETE")) +
+                    " AFTER DELETE ON " + quote(table) + " BEGIN " + logOld + " END");
+        }
+    }
+
+    /**
+     * Drops the change log and its triggers, so that changes are not recorded anymore.
+     */
+    static void stopTracking(final SQLiteDatabase db) {
+        final List<String> triggers = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("SELECT name FROM sqlite_master WHERE type = 'trigger'", null)) {
+            while (cursor.moveToNext()) {
+                if (cursor.getString(0).startsWith(CHANGE_TRIGGER_PREFIX)) {
+                    triggers.add(cursor.getString(0));
+                }
+            }
+        }
+        for (final String trigger : triggers) {
+            db.execSQL("DROP TRIGGER IF EXISTS " + quote(trigger));
+        }
+        db.execSQL("DROP TABLE IF EXISTS " + quote(CHANGE_LOG_TABLE));
+    }
+
+    /**
+     * Whether the change log and the triggers of all sample tables exist.
+     */
+    static boolean isTracking(final SQLiteDatabase db) {
+        final Set<String> names = new HashSet<>();
+        try (Cursor cursor = db.rawQuery("SELECT name FROM sqlite_master WHERE type IN ('table', 'trigger')", null)) {
+            while (cursor.moveToNext()) {
+                names.add(cursor.getString(0));
+            }
+        }
+        if (!names.contains(CHANGE_LOG_TABLE)) {
+            return false;
+        }
+        for (final String table : getTables(db)) {
+            if (getSampleKey(db, table) == null) {
+                continue;
+            }
+            for (final String operation : new String[]{"INSERT", "UPDATE", "DELETE"}) {
+                if (!names.contains(getTriggerName(table, operation))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static String getTriggerName(final String table, final String operation) {
+        return CHANGE_TRIGGER_PREFIX + table + "_" + operation;
+    }
+
+    /**
+     * @return an SQL expression for the condition matching the primary key of a row, e.g.
+     * {@code "DEVICE_ID" = 1 AND "TIMESTAMP" = 100}
+     */
+    private static String getKeyCondition(final List<String> key, final String row) {
+        final StringBuilder condition = new StringBuilder();
+        for (int i = 0; i < key.size(); i++) {
+            if (i > 0) {
+                condition.append(" || ");
+            }
+            condition.append(sqlString((i > 0 ? " AND " : "") + quote(key.get(i)) + " = "))
+                    .append(" || quote(").append(row).append(".").append(quote(key.get(i))).append(")");
+        }
+        return condition.toString();
+    }
+
+    /**
+     * @return the changed rows of each table, by their key condition
+     */
+    private static Map<String, Set<String>> getChanges(final SQLiteDatabase db) {
+        final Map<String, Set<String>> changes = new HashMap<>();
+        try (Cursor cursor = db.rawQuery("SELECT \"TABLE_NAME\", \"ROW_KEY\" FROM " + quote(CHANGE_LOG_TABLE) + " ORDER BY \"SEQ\"", null)) {
+            while (cursor.moveToNext()) {
+                changes.computeIfAbsent(cursor.getString(0), k -> new LinkedHashSet<>()).add(cursor.getString(1));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Writes the current state of the changed rows, i.e. an insert if the row exists, or a delete
+     * otherwise.
+     */
+    private static void writeChangedRows(final SQLiteDatabase db,
+                                         final Writer writer,
+                                         final String table,
+                                         final Set<String> keyConditions) throws IOException {
+        for (final String keyCondition : keyConditions) {
+            final int written = writeRows(writer, table, db.rawQuery("SELECT * FROM " + quote(table) + " WHERE " + keyCondition, null));
+            if (written == 0) {
+                writer.write("DELETE FROM " + quote(table) + " WHERE " + keyCondition + ";\n");
+            }
+        }
+    }
+
+    private static void writeSchema(final SQLiteDatabase db, final Writer writer) throws IOException {
+        // tables first, so that the indexes can refer to them
+        try (Cursor cursor = db.rawQuery(
+                "SELECT name, sql FROM sqlite_master WHERE sql IS NOT NULL AND name NOT LIKE 'sqlite_%' AND name != 'android_metadata' ORDER BY type = 'table' DESC",
+                null)) {
+            while (cursor.moveToNext()) {
+                if (isChangeTracking(cursor.getString(0))) {
+                    continue;
+                }
+                writer.write(cursor.getString(1));
+                writer.write(";\n");
+            }
+        }
+    }
+
+    private static List<String> getTables(final SQLiteDatabase db) {
+        final List<String> tables = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery(
+                "SELECT name FROM sqlite_master WHERE type = 'table' AND name NOT LIKE 'sqlite_%' AND name != 'android_metadata' ORDER BY name",
+                null)) {
+            while (cursor.moveToNext()) {
+                if (!isChangeTracking(cursor.getString(0))) {
+                    tables.add(cursor.getString(0));
+                }
+            }
+        }
+        return tables;
+    }
+
+    private static boolean isChangeTracking(final String name) {
+        return name.equals(CHANGE_LOG_TABLE) || name.startsWith(CHANGE_TRIGGER_PREFIX);
+    }
+
+    /**
+     * @return the primary key columns of a sample table, i.e. one with a TIMESTAMP column, or null
+     * if the table is not a sample table
+     */
+    @Nullable
+    private static List<String> getSampleKey(final SQLiteDatabase db, final String table) {
+        final SortedMap<Integer, String> key = new TreeMap<>();
+        boolean hasTimestamp = false;
+        try (Cursor cursor = db.rawQuery("PRAGMA table_info(" + quote(table) + ")", null)) {
+            final int nameIndex = cursor.getColumnIndexOrThrow("name");
+            final int pkIndex = cursor.getColumnIndexOrThrow("pk");
+            while (cursor.moveToNext()) {
+                final String name = cursor.getString(nameIndex);
+                hasTimestamp |= SAMPLE_TIMESTAMP_COLUMN.equals(name.toUpperCase(Locale.ROOT));
+                if (cursor.getInt(pkIndex) > 0) {
+                    key.put(cursor.getInt(pkIndex), name);
+                }
+            }
+        }
+        return hasTimestamp && !key.isEmpty() ? new ArrayList<>(key.values()) : null;
+    }
+
+    /**
+     * Writes the rows of the cursor as inserts into the table, and closes the cursor.
+     *
+     * @return the number of rows written
+     */
+    private static int writeRows(final Writer writer,
+                                 final String table,
+                                 final Cursor rows) throws IOException {
+        int written = 0;
+        try (Cursor cursor = rows) {
+            final StringBuilder prefix = new StringBuilder("INSERT OR REPLACE INTO ").append(quote(table)).append(" (");
+            for (int i = 0; i < cursor.getColumnCount(); i++) {
+                if (i > 0) {
+                    prefix.append(", ");
+                }
+                prefix.append(quote(cursor.getColumnName(i)));
+            }
+            prefix.append(") VALUES (");
+            final String insertPrefix = prefix.toString();
+
+            while (cursor.moveToNext()) {
+                writer.write(insertPrefix);
+                for (int i = 0; i < cursor.getColumnCount(); i++) {
+                    if (i > 0) {
+                        writer.write(", ");
+                    }
+                    writeValue(writer, cursor, i);
+                }
+                writer.write(");\n");
+                written++;
+            }
+        }
+        return written;
+    }
+
+    private static void writeValue(final Writer writer, final Cursor cursor, final int column) throws IOException {
+        switch (cursor.getType(column)) {
+            case Cursor.FIELD_TYPE_INTEGER:
+                writer.write(Long.toString(cursor.getLong(column)));
+                break;
+            case Cursor.FIELD_TYPE_FLOAT:
+                final double value = cursor.getDouble(column);
+                if (Double.isInfinite(value)) {
+                    writer.write(value > 0 ? "9e999" : "-9e999");
+                } else {
+                    writer.write(Double.toString(value));
+                }
+                break;
+            case Cursor.FIELD_TYPE_STRING:
+                writer.write("'");
+                writer.write(cursor.getString(column).replace("'", "''"));
+                writer.write("'");
+                break;
+            case Cursor.FIELD_TYPE_BLOB:
+                writer.write("X'");
+                writer.write(GB.hexdump(cursor.getBlob(column)));
+                writer.write("'");
+                break;
+            case Cursor.FIELD_TYPE_NULL:
+            default:
+                writer.write("NULL");
+                break;
+        }
+    }
+
+    private static String quote(final String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String sqlString(final String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    private static long getLong(final Properties state, final String key) {
+        try {
+            return Long.parseLong(state.getProperty(key, "0"));
+        } catch (final NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @NonNull
+    private Properties loadState() {
+        final Properties state = new Properties();
+        if (stateFile.exists()) {
+            try (InputStream in = new FileInputStream(stateFile)) {
+                state.load(in);
+            } catch (final IOException e) {
+                LOG.warn("Failed to load {}, a snapshot will be exported", stateFile, e);
+                state.clear();
+            }
+        }
+        return state;
+    }
+
+    private void saveState(final Properties state) throws IOException {
+        final File tmpFile = new File(stateFile.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmpFile)) {
+            state.store(out, null);
+        }
+        if (!tmpFile.renameTo(stateFile)) {
+            throw new IOException("Failed to save " + stateFile);
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
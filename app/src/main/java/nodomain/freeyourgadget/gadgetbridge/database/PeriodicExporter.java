@@ -48,6 +48,19 @@ public class PeriodicExporter {
         final boolean autoExportEnabled = prefs.getBoolean(GBPrefs.AUTO_EXPORT_ENABLED, false);
         final int autoExportInterval = prefs.getInt(GBPrefs.AUTO_EXPORT_INTERVAL, 0);
         scheduleAlarm(context, autoExportInterval, autoExportEnabled && autoExportScheduled == 0);
+        disableIncrementalExportIfUnused(context, autoExportEnabled, prefs.getBoolean(GBPrefs.AUTO_EXPORT_INCREMENTAL, false));
+    }
+
+    /**
+     * Stops recording the changed samples if the export, or its incremental mode, is turned off.
+     * The preferences may not be saved yet when they are being changed, so their values are passed.
+     */
+    public static void disableIncrementalExportIfUnused(final Context context,
+                                                        final boolean autoExportEnabled,
+                                                        final boolean autoExportIncremental) {
+        if (!autoExportEnabled || !autoExportIncremental) {
+            IncrementalDatabaseExporter.disable(context);
+        }
     }
 
     public static void scheduleAlarm(final Context context,
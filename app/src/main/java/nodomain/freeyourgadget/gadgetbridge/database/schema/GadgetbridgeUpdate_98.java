@@ -0,0 +1,73 @@
+package nodomain.freeyourgadget.gadgetbridge.database.schema;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.greenrobot.dao.AbstractDao;
+import nodomain.freeyourgadget.gadgetbridge.database.DBHelper;
+import nodomain.freeyourgadget.gadgetbridge.database.DBUpdateScript;
+import nodomain.freeyourgadget.gadgetbridge.entities.DaoMaster;
+
+/**
+ * The primary key of the sample tables changed from (TIMESTAMP, DEVICE_ID) to
+ * (DEVICE_ID, TIMESTAMP), so that the samples of a device are stored together. SQLite can not
+ * change the primary key of a table, so the tables are recreated and the samples copied over.
+ */
+public class GadgetbridgeUpdate_98 implements DBUpdateScript {
+    private static final Logger LOG = LoggerFactory.getLogger(GadgetbridgeUpdate_98.class);
+
+    private static final List<String> DEVICE_TIMESTAMP_KEY = Arrays.asList("DEVICE_ID", "TIMESTAMP");
+
+    @Override
+    public void upgradeSchema(final SQLiteDatabase db) {
+        final List<AbstractDao<?, ?>> daos = new ArrayList<>();
+        for (final AbstractDao<?, ?> dao : new DaoMaster(db).newSession().getAllDaos()) {
+            final List<String> newKey = Arrays.asList(dao.getPkColumns());
+            if (newKey.size() < 2 || !newKey.subList(0, 2).equals(DEVICE_TIMESTAMP_KEY)) {
+                continue;
+            }
+            final List<String> oldKey = DBHelper.getPrimaryKeyColumns(dao.getTablename(), db);
+            if (!oldKey.isEmpty() && !oldKey.equals(newKey)) {
+                daos.add(dao);
+            }
+        }
+        if (daos.isEmpty()) {
+            return;
+        }
+
+        for (final AbstractDao<?, ?> dao : daos) {
+            LOG.info("Changing the primary key of {}", dao.getTablename());
+            db.execSQL("ALTER TABLE " + dao.getTablename() + " RENAME TO " + getTempTablename(dao) + ";");
+        }
+        DaoMaster.createAllTables(db, true);
+
+        for (final AbstractDao<?, ?> dao : daos) {
+            final List<String> columns = new ArrayList<>();
+            for (final String column : dao.getAllColumns()) {
+                if (DBHelper.existsColumn(getTempTablename(dao), column, db)) {
+                    columns.add("\"" + column + "\"");
+                }
+            }
+            final String columnList = String.join(",", columns);
+            db.execSQL("INSERT INTO " + dao.getTablename() + " (" + columnList + ") SELECT " + columnList + " FROM " + getTempTablename(dao) + ";");
+            DBHelper.dropTable(getTempTablename(dao), db);
+        }
+
+        // The indexes were dropped with the old tables
+        DaoMaster.createAllTables(db, true);
+    }
+
+    private static String getTempTablename(final AbstractDao<?, ?> dao) {
+        return dao.getTablename() + "_temp";
+    }
+
+    @Override
+    public void downgradeSchema(final SQLiteDatabase db) {
+    }
+}
@@ -27,6 +27,7 @@ import android.bluetooth.BluetoothDevice;
 import android.bluetooth.le.ScanFilter;
 import android.content.Context;
 import android.net.Uri;
+import android.os.ParcelUuid;
 
 import androidx.annotation.DrawableRes;
 import androidx.annotation.NonNull;
@@ -45,6 +46,7 @@ import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 import java.util.regex.Pattern;
 
 import de.greenrobot.dao.query.QueryBuilder;
@@ -61,6 +63,7 @@ import nodomain.freeyourgadget.gadgetbridge.database.DBHelper;
 import nodomain.freeyourgadget.gadgetbridge.entities.AlarmDao;
 import nodomain.freeyourgadget.gadgetbridge.entities.BatteryLevelDao;
 import nodomain.freeyourgadget.gadgetbridge.entities.CyclingSample;
+import nodomain.freeyourgadget.gadgetbridge.entities.DailyTotalsCacheDao;
 import nodomain.freeyourgadget.gadgetbridge.entities.DaoSession;
 import nodomain.freeyourgadget.gadgetbridge.entities.Device;
 import nodomain.freeyourgadget.gadgetbridge.entities.DeviceAttributesDao;
@@ -93,6 +96,7 @@ public abstract class AbstractDeviceCoordinator implements DeviceCoordinator {
     private static final Logger LOG = LoggerFactory.getLogger(AbstractDeviceCoordinator.class);
 
     private Pattern supportedDeviceName = null;
+    private Set<UUID> supportedServiceUuids = null;
 
     /**
      * This method should return a Regexp pattern that will matched against a found device
@@ -106,13 +110,36 @@ public abstract class AbstractDeviceCoordinator implements DeviceCoordinator {
         return null;
     }
 
+    /**
+     * This method may return the UUIDs of advertised services that identify a device supported
+     * by this coordinator, regardless of its name. Unlike checks in an overridden
+     * supports(GBDeviceCandidate), these can be looked up directly when resolving scan results.
+     *
+     * @return the service UUIDs, empty by default
+     */
+    protected Set<UUID> getSupportedServiceUuids() {
+        return Collections.emptySet();
+    }
+
     @Override
     public boolean supports(GBDeviceCandidate candidate) {
         if (supportedDeviceName == null) {
             supportedDeviceName = getSupportedDeviceName();
         }
+        if (supportedServiceUuids == null) {
+            supportedServiceUuids = getSupportedServiceUuids();
+        }
+        if (!supportedServiceUuids.isEmpty() && candidate.getServiceUuids() != null) {
+            for (final ParcelUuid uuid : candidate.getServiceUuids()) {
+                if (uuid != null && supportedServiceUuids.contains(uuid.getUuid())) {
+                    return true;
+                }
+            }
+        }
         if (supportedDeviceName == null) {
-            LOG.error("{} should either override getSupportedDeviceName or supports(GBDeviceCandidate)", getClass());
+            if (supportedServiceUuids.isEmpty()) {
+                LOG.error("{} should either override getSupportedDeviceName, getSupportedServiceUuids or supports(GBDeviceCandidate)", getClass());
+            }
             return false;
         }
 
@@ -174,6 +201,8 @@ public abstract class AbstractDeviceCoordinator implements DeviceCoordinator {
                 batteryLevelQueryBuilder.where(BatteryLevelDao.Properties.DeviceId.eq(device.getId())).buildDelete().executeDeleteWithoutDetachingEntities();
                 QueryBuilder<?> alarmDeviceQueryBuilder = session.getAlarmDao().queryBuilder();
                 alarmDeviceQueryBuilder.where(AlarmDao.Properties.DeviceId.eq(device.getId())).buildDelete().executeDeleteWithoutDetachingEntities();
+                QueryBuilder<?> dailyTotalsQueryBuilder = session.getDailyTotalsCacheDao().queryBuilder();
+                dailyTotalsQueryBuilder.where(DailyTotalsCacheDao.Properties.DeviceId.eq(device.getId())).buildDelete().executeDeleteWithoutDetachingEntities();
                 session.getDeviceDao().delete(device);
             } else {
                 LOG.info("device to delete not found in db: {}", gbDevice);
@@ -664,6 +693,11 @@ public abstract class AbstractDeviceCoordinator implements DeviceCoordinator {
         return 0;
     }
 
+    @Override
+    public int getNotificationPictureMaxWidth(final GBDevice device) {
+        return 0;
+    }
+
     @Override
     public boolean supportsRgbLedColor() {
         return false;
@@ -17,6 +17,8 @@
     along with this program.  If not, see <https://www.gnu.org/licenses/>. */
 package nodomain.freeyourgadget.gadgetbridge.devices;
 
+import android.database.Cursor;
+
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
@@ -25,12 +27,16 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Locale;
+import java.util.RandomAccess;
 import java.util.Set;
 
 import de.greenrobot.dao.AbstractDao;
@@ -44,6 +50,12 @@ import nodomain.freeyourgadget.gadgetbridge.entities.Device;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityKind;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivitySample;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySampleColumns;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySampleList;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySampleSequence;
+import nodomain.freeyourgadget.gadgetbridge.model.DailySteps;
+import nodomain.freeyourgadget.gadgetbridge.model.DailyTotals;
+import nodomain.freeyourgadget.gadgetbridge.model.MutableActivitySampleSequence;
 
 /**
  * Base class for all sample providers. A Sample provider is device specific and provides
@@ -54,6 +66,15 @@ public abstract class AbstractSampleProvider<T extends AbstractActivitySample> i
     private static final Logger LOG = LoggerFactory.getLogger(AbstractSampleProvider.class);
 
     private static final WhereCondition[] NO_CONDITIONS = new WhereCondition[0];
+    private static final Property[] NO_PROPERTIES = new Property[0];
+
+    private static final String SAMPLE_RAW_INTENSITY = "rawIntensity";
+    private static final String SAMPLE_STEPS = "steps";
+    private static final String SAMPLE_DISTANCE_CM = "distanceCm";
+    private static final String SAMPLE_ACTIVE_CALORIES = "activeCalories";
+    private static final String SAMPLE_HEART_RATE = "heartRate";
+    // the cursor column of the first extra sample column, after the common ones
+    private static final int FIRST_EXTRA_COLUMN = 7;
     private final DaoSession mSession;
     private final GBDevice mDevice;
 
@@ -87,6 +108,197 @@ public abstract class AbstractSampleProvider<T extends AbstractActivitySample> i
         return false;
     }
 
+    @NonNull
+    @Override
+    public ActivitySampleColumns getAllActivitySampleColumns(int timestamp_from, int timestamp_to, @Nullable ActivitySampleColumns columns) {
+        if (!supportsColumnarSamples()) {
+            return SampleProvider.super.getAllActivitySampleColumns(timestamp_from, timestamp_to, columns);
+        }
+
+        final ActivitySampleColumns result = columns != null ? columns : new ActivitySampleColumns();
+        result.clear();
+        result.setProvider(this);
+
+        final Device dbDevice = DBHelper.findDevice(getDevice(), getSession());
+        if (dbDevice == null) {
+            // no device, no samples
+            return result;
+        }
+
+        // Read the columns straight from the cursor, without creating an entity for each row.
+        // Columns that the sample does not have are not measured, just like in AbstractActivitySample.
+        final String timestampColumn = getTimestampSampleProperty().columnName;
+        final StringBuilder extraColumns = new StringBuilder();
+        for (final Property property : getExtraSampleColumnProperties()) {
+            extraColumns.append(", ").append(property.columnName);
+        }
+        final String sql = "SELECT " + timestampColumn + ", " +
+                sampleColumn(getRawKindSampleProperty()) + ", " +
+                sampleColumn(findSampleProperty(SAMPLE_RAW_INTENSITY)) + ", " +
+                sampleColumn(findSampleProperty(SAMPLE_STEPS)) + ", " +
+                sampleColumn(findSampleProperty(SAMPLE_DISTANCE_CM)) + ", " +
+                sampleColumn(findSampleProperty(SAMPLE_ACTIVE_CALORIES)) + ", " +
+                sampleColumn(findSampleProperty(SAMPLE_HEART_RATE)) +
+                extraColumns +
+                " FROM " + getSampleDao().getTablename() +
+                " WHERE " + getDeviceIdentifierSampleProperty().columnName + " = ?" +
+                " AND " + timestampColumn + " >= ? AND " + timestampColumn + " <= ?" +
+                " ORDER BY " + timestampColumn;
+        final String[] args = new String[]{
+                String.valueOf(dbDevice.getId()),
+                String.valueOf(timestamp_from),
+                String.valueOf(timestamp_to)
+        };
+
+        try (Cursor cursor = getSession().getDatabase().rawQuery(sql, args)) {
+            result.ensureCapacity(cursor.getCount());
+            int lastRawKind = Integer.MIN_VALUE;
+            ActivityKind lastKind = null;
+            while (cursor.moveToNext()) {
+                final int rawKind = cursor.getInt(1);
+                if (rawKind != lastRawKind) {
+                    lastRawKind = rawKind;
+                    lastKind = normalizeType(rawKind);
+                }
+                result.add(
+                        cursor.getInt(0),
+                        rawKind,
+                        lastKind,
+                        normalizeIntensity(cursor.getInt(2)),
+                        cursor.getInt(3),
+                        cursor.getInt(4),
+                        cursor.getInt(5),
+                        cursor.getInt(6)
+                );
+                postProcessSampleColumnsRow(result, result.size() - 1, cursor, FIRST_EXTRA_COLUMN);
+            }
+        }
+
+        postProcessSampleColumns(result, timestamp_from, timestamp_to);
+
+        return result;
+    }
+
+    /**
+     * Additional properties of the samples that {@link #postProcessSampleColumnsRow} needs, read
+     * by {@link #getAllActivitySampleColumns(int, int, ActivitySampleColumns)} after the common
+     * ones.
+     */
+    protected Property[] getExtraSampleColumnProperties() {
+        return NO_PROPERTIES;
+    }
+
+    /**
+     * Applies the post-processing of a single sample to a row right after it was read, while the
+     * cursor is still on it.
+     * @param columns the columns read so far
+     * @param index the index of the row
+     * @param cursor the cursor on the row
+     * @param firstExtraColumn the cursor column of the first of {@link #getExtraSampleColumnProperties()}
+     */
+    protected void postProcessSampleColumnsRow(final ActivitySampleColumns columns,
+                                               final int index,
+                                               final Cursor cursor,
+                                               final int firstExtraColumn) {
+    }
+
+    /**
+     * Applies the same post-processing to the columns read from the database that
+     * {@link #getGBActivitySamples(int, int)} applies to the samples.
+     */
+    protected void postProcessSampleColumns(final ActivitySampleColumns columns, final int timestamp_from, final int timestamp_to) {
+    }
+
+    @NonNull
+    @Override
+    public DailySteps getDailySteps(int timestamp_from, int timestamp_to, ZoneId zone) {
+        final Property stepsProperty = findSampleProperty(SAMPLE_STEPS);
+        if (!supportsDailyStepsQuery() || stepsProperty == null) {
+            return SampleProvider.super.getDailySteps(timestamp_from, timestamp_to, zone);
+        }
+
+        final DailySteps result = new DailySteps(zone);
+        final Device dbDevice = DBHelper.findDevice(getDevice(), getSession());
+        if (dbDevice == null) {
+            // no device, no samples
+            return result;
+        }
+
+        // Sum up the steps in the database instead of reading every sample. The UTC offset only
+        // changes at the transitions of the time zone, so the samples between two transitions
+        // are grouped into days with one query using a fixed offset.
+        final String timestampColumn = getTimestampSampleProperty().columnName;
+        final String stepsColumn = stepsProperty.columnName;
+        final String sqlFormat = "SELECT (" + timestampColumn + " + %d) / " + (24 * 60 * 60) + " AS DAY, SUM(" + stepsColumn + ")" +
+                " FROM " + getSampleDao().getTablename() +
+                " WHERE " + getDeviceIdentifierSampleProperty().columnName + " = ?" +
+                " AND " + timestampColumn + " >= ? AND " + timestampColumn + " <= ?" +
+                " AND " + stepsColumn + " > 0" +
+                " GROUP BY DAY ORDER BY DAY";
+
+        final ZoneRules rules = zone.getRules();
+        long from = timestamp_from;
+        while (from <= timestamp_to) {
+            final Instant instant = Instant.ofEpochSecond(from);
+            final int offset = rules.getOffset(instant).getTotalSeconds();
+            final ZoneOffsetTransition next = rules.nextTransition(instant);
+            final long to = next != null ? Math.min(timestamp_to, next.toEpochSecond() - 1) : timestamp_to;
+
+            final String[] args = new String[]{
+                    String.valueOf(dbDevice.getId()),
+                    String.valueOf(from),
+                    String.valueOf(to)
+            };
+            // timestamps before 1970 do not occur, so the integer division rounds down
+            try (Cursor cursor = getSession().getDatabase().rawQuery(String.format(Locale.ROOT, sqlFormat, offset), args)) {
+                while (cursor.moveToNext()) {
+                    result.addDay(cursor.getLong(0), cursor.getLong(1));
+                }
+            }
+            from = to + 1;
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean hasActivitySampleColumns() {
+        return supportsColumnarSamples();
+    }
+
+    /**
+     * Whether {@link #getAllActivitySampleColumns(int, int, ActivitySampleColumns)} can read the
+     * samples directly from the database. This is only the case if the getters of the samples
+     * return the value of the column with the same name, if any, and any post-processing of
+     * {@link #getGBActivitySamples(int, int)} is also done by {@link #postProcessSampleColumns}.
+     * Otherwise, the columns are filled from {@link #getAllActivitySamples(int, int)}.
+     */
+    protected boolean supportsColumnarSamples() {
+        return false;
+    }
+
+    /**
+     * Whether {@link #getDailySteps(int, int, ZoneId)} can sum up the steps in the database. This
+     * is only the case if the post-processing does not change the steps or their timestamps.
+     */
+    protected boolean supportsDailyStepsQuery() {
+        return supportsColumnarSamples();
+    }
+
+    @Nullable
+    private Property findSampleProperty(final String name) {
+        for (final Property property : getSampleDao().getProperties()) {
+            if (property.name.equals(name)) {
+                return property;
+            }
+        }
+        return null;
+    }
+
+    private static String sampleColumn(@Nullable final Property property) {
+        return property != null ? property.columnName : String.valueOf(ActivitySample.NOT_MEASURED);
+    }
+
     @NonNull
     @Override
     @Deprecated // use getAllActivitySamples
@@ -101,11 +313,30 @@ public abstract class AbstractSampleProvider<T extends AbstractActivitySample> i
     @Override
     public void addGBActivitySample(T activitySample) {
         getSampleDao().insertOrReplace(activitySample);
+        DailyTotals.invalidate(getSession(), getDevice(), activitySample.getTimestamp(), activitySample.getTimestamp());
     }
 
     @Override
     public void addGBActivitySamples(T[] activitySamples) {
         getSampleDao().insertOrReplaceInTx(activitySamples);
+        invalidateDailyTotals(activitySamples);
+    }
+
+    /**
+     * Invalidate the persisted daily totals of the days affected by the samples. Subclasses that
+     * override {@link #addGBActivitySamples(AbstractActivitySample[])} must call this.
+     */
+    protected void invalidateDailyTotals(final T[] activitySamples) {
+        if (activitySamples.length == 0) {
+            return;
+        }
+        int tsFrom = Integer.MAX_VALUE;
+        int tsTo = Integer.MIN_VALUE;
+        for (final T sample : activitySamples) {
+            tsFrom = Math.min(tsFrom, sample.getTimestamp());
+            tsTo = Math.max(tsTo, sample.getTimestamp());
+        }
+        DailyTotals.invalidate(getSession(), getDevice(), tsFrom, tsTo);
     }
 
     @Nullable
@@ -244,55 +475,57 @@ public abstract class AbstractSampleProvider<T extends AbstractActivitySample> i
     protected abstract Property getDeviceIdentifierSampleProperty();
 
     public void convertCumulativeSteps(final List<T> samples, final Property stepsSampleProperty) {
+        convertCumulativeSteps(asSequence(samples), stepsSampleProperty);
+    }
+
+    public void convertCumulativeSteps(final MutableActivitySampleSequence samples, final Property stepsSampleProperty) {
         // Fix over-counting at the turn of day
-        final T lastSample = getLastSampleWithStepsBefore(samples.get(0).getTimestamp(), stepsSampleProperty);
-        if (lastSample != null && sameDay(lastSample, samples.get(0))) {
-            if (samples.get(0).getSteps() > 0) {
-                samples.get(0).setSteps(samples.get(0).getSteps() - lastSample.getSteps());
+        final T lastSample = getLastSampleWithStepsBefore(samples.getTimestamp(0), stepsSampleProperty);
+        if (lastSample != null && sameDay(lastSample.getTimestamp(), samples.getTimestamp(0))) {
+            if (samples.getSteps(0) > 0) {
+                samples.setSteps(0, samples.getSteps(0) - lastSample.getSteps());
             }
 
-            if (samples.get(0).getDistanceCm() > 0) {
-                samples.get(0).setDistanceCm(samples.get(0).getDistanceCm() - lastSample.getDistanceCm());
+            if (samples.getDistanceCm(0) > 0) {
+                samples.setDistanceCm(0, samples.getDistanceCm(0) - lastSample.getDistanceCm());
             }
 
-            if (samples.get(0).getActiveCalories() > 0) {
-                samples.get(0).setActiveCalories(samples.get(0).getActiveCalories() - lastSample.getActiveCalories());
+            if (samples.getActiveCalories(0) > 0) {
+                samples.setActiveCalories(0, samples.getActiveCalories(0) - lastSample.getActiveCalories());
             }
         }
 
         // This slightly breaks activity recognition, because we don't have per-minute granularity...
-        int prevSteps = samples.get(0).getSteps();
-        int prevDistance = samples.get(0).getDistanceCm();
-        int prevActiveCalories = samples.get(0).getActiveCalories();
-        samples.get(0).setTimestamp((samples.get(0).getTimestamp() / 60) * 60);
+        int prevSteps = samples.getSteps(0);
+        int prevDistance = samples.getDistanceCm(0);
+        int prevActiveCalories = samples.getActiveCalories(0);
+        samples.setTimestamp(0, (samples.getTimestamp(0) / 60) * 60);
         int bak;
 
         for (int i = 1; i < samples.size(); i++) {
-            final T s1 = samples.get(i - 1);
-            final T s2 = samples.get(i);
-            s2.setTimestamp((s2.getTimestamp() / 60) * 60);
+            samples.setTimestamp(i, (samples.getTimestamp(i) / 60) * 60);
 
-            if (!sameDay(s1, s2)) {
+            if (!sameDay(samples.getTimestamp(i - 1), samples.getTimestamp(i))) {
                 // went past midnight - reset steps
-                prevSteps = s2.getSteps() > 0 ? s2.getSteps() : 0;
-                prevDistance = s2.getDistanceCm() > 0 ? s2.getDistanceCm() : 0;
-                prevActiveCalories = s2.getActiveCalories() > 0 ? s2.getActiveCalories() : 0;
+                prevSteps = samples.getSteps(i) > 0 ? samples.getSteps(i) : 0;
+                prevDistance = samples.getDistanceCm(i) > 0 ? samples.getDistanceCm(i) : 0;
+                prevActiveCalories = samples.getActiveCalories(i) > 0 ? samples.getActiveCalories(i) : 0;
             } else {
                 // New value for the current day - subtract the previous seen sample
 
-                if (s2.getSteps() > 0) {
-                    bak = s2.getSteps();
-                    s2.setSteps(s2.getSteps() - prevSteps);
+                if (samples.getSteps(i) > 0) {
+                    bak = samples.getSteps(i);
+                    samples.setSteps(i, samples.getSteps(i) - prevSteps);
                     prevSteps = bak;
                 }
-                if (s2.getDistanceCm() > 0) {
-                    bak = s2.getDistanceCm();
-                    s2.setDistanceCm(s2.getDistanceCm() - prevDistance);
+                if (samples.getDistanceCm(i) > 0) {
+                    bak = samples.getDistanceCm(i);
+                    samples.setDistanceCm(i, samples.getDistanceCm(i) - prevDistance);
                     prevDistance = bak;
                 }
-                if (s2.getActiveCalories() > 0) {
-                    bak = s2.getActiveCalories();
-                    s2.setActiveCalories(s2.getActiveCalories() - prevActiveCalories);
+                if (samples.getActiveCalories(i) > 0) {
+                    bak = samples.getActiveCalories(i);
+                    samples.setActiveCalories(i, samples.getActiveCalories(i) - prevActiveCalories);
                     prevActiveCalories = bak;
                 }
             }
@@ -320,12 +553,16 @@ public abstract class AbstractSampleProvider<T extends AbstractActivitySample> i
     }
 
     public boolean sameDay(final T s1, final T s2) {
+        return sameDay(s1.getTimestamp(), s2.getTimestamp());
+    }
+
+    private static boolean sameDay(final int timestamp1, final int timestamp2) {
         final Calendar cal = Calendar.getInstance();
 
-        cal.setTimeInMillis(s1.getTimestamp() * 1000L - 1000L);
+        cal.setTimeInMillis(timestamp1 * 1000L - 1000L);
         final LocalDate d1 = LocalDate.of(cal.get(Calendar.YEAR), cal.get(Calendar.MONTH) + 1, cal.get(Calendar.DAY_OF_MONTH));
 
-        cal.setTimeInMillis(s2.getTimestamp() * 1000L - 1000L);
+        cal.setTimeInMillis(timestamp2 * 1000L - 1000L);
         final LocalDate d2 = LocalDate.of(cal.get(Calendar.YEAR), cal.get(Calendar.MONTH) + 1, cal.get(Calendar.DAY_OF_MONTH));
 
         return d1.equals(d2);
@@ -338,50 +575,152 @@ public abstract class AbstractSampleProvider<T extends AbstractActivitySample> i
 
         final long nanoStart = System.nanoTime();
 
-        final List<T> ret = new LinkedList<>(samples);
+        final List<T> list = samples instanceof RandomAccess ? samples : new ArrayList<>(samples);
+        final GapPlan plan = planGaps(ActivitySampleSequence.of(list), timestamp_from, timestamp_to);
+        final List<T> ret = new ArrayList<>(plan.size);
+        for (int i = 0; i < plan.size; i++) {
+            final int entry = plan.order[i];
+            ret.add(entry >= 0 ? list.get(entry) : createDummySample(~entry));
+        }
+
+        final long nanoEnd = System.nanoTime();
+
+        final long executionTime = (nanoEnd - nanoStart) / 1000000;
+
+        final int dummyCount = ret.size() - samples.size();
+        LOG.trace("Filled gaps with {} samples in {}ms", dummyCount, executionTime);
+
+        return ret;
+    }
+
+    /**
+     * Same as {@link #fillGaps(List, int, int)}, for the columns.
+     */
+    protected void fillGaps(final ActivitySampleColumns columns, final int timestamp_from, final int timestamp_to) {
+        if (columns.isEmpty()) {
+            return;
+        }
+
+        final GapPlan plan = planGaps(columns, timestamp_from, timestamp_to);
+        LOG.trace("Filled gaps with {} samples", plan.size - columns.size());
+        columns.reorder(plan.order, plan.size, ActivityKind.UNKNOWN.getCode(), ActivitySample.NOT_MEASURED);
+    }
 
-        //ret.sort(Comparator.comparingLong(T::getTimestamp));
+    /**
+     * Determines where {@link #fillGaps} inserts dummy samples: at the start and end of the range,
+     * and after each sample that follows a gap.
+     */
+    private static GapPlan planGaps(final ActivitySampleSequence samples, final int timestamp_from, final int timestamp_to) {
+        final GapPlan plan = new GapPlan(samples.size());
 
-        final int firstTimestamp = ret.get(0).getTimestamp();
+        final int firstTimestamp = samples.getTimestamp(0);
         if (firstTimestamp - timestamp_from > 60) {
-            // Gap at the start
-            for (int ts = timestamp_from; ts <= firstTimestamp + 60; ts += 60) {
-                ret.add(0, createDummySample(ts));
+            // Gap at the start - each dummy sample is inserted at the start, so they end up in
+            // descending order
+            final int lastStartTimestamp = timestamp_from + ((firstTimestamp + 60 - timestamp_from) / 60) * 60;
+            for (int ts = lastStartTimestamp; ts >= timestamp_from; ts -= 60) {
+                plan.next(~ts, ts);
             }
         }
 
-        final int lastTimestamp = ret.get(ret.size() - 1).getTimestamp();
+        for (int i = 0; i < samples.size(); i++) {
+            plan.next(i, samples.getTimestamp(i));
+        }
+
+        final int lastTimestamp = samples.getTimestamp(samples.size() - 1);
         // Do not generate fake samples into the future
         final long minTo = Math.min(timestamp_to, System.currentTimeMillis() / 1000L);
         if (minTo - lastTimestamp > 60) {
             // Gap at the end
             for (int ts = lastTimestamp + 60; ts <= minTo; ts += 60) {
-                ret.add(createDummySample(ts));
+                plan.next(~ts, ts);
             }
         }
 
-        final ListIterator<T> it = ret.listIterator();
-        T previousSample = it.next();
+        return plan;
+    }
+
+    /**
+     * The order of the samples after filling the gaps: the index of an existing sample, or the
+     * bitwise complement ({@code ~timestamp}) of the timestamp of a dummy sample.
+     */
+    private static final class GapPlan {
+        private int[] order;
+        private int size = 0;
+        private int previousTimestamp;
 
-        while (it.hasNext()) {
-            final T sample = it.next();
-            if (sample.getTimestamp() - previousSample.getTimestamp() > 60) {
-                LOG.trace("Filling gap between {} and {}", Instant.ofEpochSecond(previousSample.getTimestamp() + 60), Instant.ofEpochSecond(sample.getTimestamp()));
-                for (int ts = previousSample.getTimestamp() + 60; ts < sample.getTimestamp(); ts += 60) {
-                    it.add(createDummySample(ts));
+        private GapPlan(final int capacity) {
+            order = new int[Math.max(capacity, 16)];
+        }
+
+        /**
+         * Adds a sample, followed by dummy samples for the gap since the previous one.
+         */
+        private void next(final int entry, final int timestamp) {
+            add(entry);
+            if (size > 1 && timestamp - previousTimestamp > 60) {
+                LOG.trace("Filling gap between {} and {}", Instant.ofEpochSecond(previousTimestamp + 60), Instant.ofEpochSecond(timestamp));
+                for (int ts = previousTimestamp + 60; ts < timestamp; ts += 60) {
+                    add(~ts);
                 }
             }
-            previousSample = sample;
+            previousTimestamp = timestamp;
         }
 
-        final long nanoEnd = System.nanoTime();
+        private void add(final int entry) {
+            if (size == order.length) {
+                order = Arrays.copyOf(order, size + (size >> 1));
+            }
+            order[size++] = entry;
+        }
+    }
 
-        final long executionTime = (nanoEnd - nanoStart) / 1000000;
+    /**
+     * Wraps the samples to post-process them with the same code as {@link ActivitySampleColumns}.
+     */
+    protected static <S extends AbstractActivitySample> MutableActivitySampleSequence asSequence(final List<S> samples) {
+        return new EntitySampleList<>(samples);
+    }
 
-        final int dummyCount = ret.size() - samples.size();
-        LOG.trace("Filled gaps with {} samples in {}ms", dummyCount, executionTime);
+    private static final class EntitySampleList<S extends AbstractActivitySample> extends ActivitySampleList<S> implements MutableActivitySampleSequence {
+        private EntitySampleList(final List<S> samples) {
+            super(samples);
+        }
 
-        return ret;
+        @Override
+        public void setTimestamp(final int i, final int timestamp) {
+            get(i).setTimestamp(timestamp);
+        }
+
+        @Override
+        public void setRawKind(final int i, final int rawKind) {
+            get(i).setRawKind(rawKind);
+        }
+
+        @Override
+        public void setRawIntensity(final int i, final int rawIntensity) {
+            get(i).setRawIntensity(rawIntensity);
+        }
+
+        @Override
+        public void setSteps(final int i, final int steps) {
+            get(i).setSteps(steps);
+        }
+
+        @Override
+        public void setDistanceCm(final int i, final int distanceCm) {
+            get(i).setDistanceCm(distanceCm);
+        }
+
+        @Override
+        public void setActiveCalories(final int i, final int activeCalories) {
+            get(i).setActiveCalories(activeCalories);
+        }
+
+        @Override
+        public void setHeartRate(final int i, final int heartRate) {
+            get(i).setHeartRate(heartRate);
+        }
     }
 
     private T createDummySample(final int ts) {
@@ -30,6 +30,7 @@ import nodomain.freeyourgadget.gadgetbridge.entities.AbstractTimeSample;
 import nodomain.freeyourgadget.gadgetbridge.entities.DaoSession;
 import nodomain.freeyourgadget.gadgetbridge.entities.Device;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
+import nodomain.freeyourgadget.gadgetbridge.model.DailyTotals;
 
 /**
  * Base class for all time sample providers. A Sample provider is device specific and provides
@@ -75,11 +76,34 @@ public abstract class AbstractTimeSampleProvider<T extends AbstractTimeSample> i
     @Override
     public void addSample(final T activitySample) {
         getSampleDao().insertOrReplace(activitySample);
+
+        if (affectsDailyTotals()) {
+            final int ts = (int) (activitySample.getTimestamp() / 1000L);
+            DailyTotals.invalidate(getSession(), getDevice(), ts, ts);
+        }
     }
 
     @Override
     public void addSamples(final List<T> activitySamples) {
         getSampleDao().insertOrReplaceInTx(activitySamples);
+
+        if (affectsDailyTotals() && !activitySamples.isEmpty()) {
+            long tsFrom = Long.MAX_VALUE;
+            long tsTo = Long.MIN_VALUE;
+            for (final T sample : activitySamples) {
+                tsFrom = Math.min(tsFrom, sample.getTimestamp());
+                tsTo = Math.max(tsTo, sample.getTimestamp());
+            }
+            DailyTotals.invalidate(getSession(), getDevice(), (int) (tsFrom / 1000L), (int) (tsTo / 1000L));
+        }
+    }
+
+    /**
+     * Whether the samples are overlaid on the activity samples in a way that changes the daily
+     * totals, e.g. sleep stages. The persisted totals are only invalidated when these are added.
+     */
+    protected boolean affectsDailyTotals() {
+        return false;
     }
 
     @Nullable
@@ -678,6 +678,12 @@ public interface DeviceCoordinator extends WearableDeviceCoordinator {
      */
     int getContactsSlotCount(GBDevice device);
 
+    /**
+     * Indicates the maximum width of the notification pictures displayed by the device, in pixels,
+     * or 0 if it does not display them. Larger pictures are scaled down before they are stored.
+     */
+    int getNotificationPictureMaxWidth(GBDevice device);
+
     /**
      * Indicates whether the device has an led which supports custom colors
      */
@@ -0,0 +1,319 @@
+package nodomain.freeyourgadget.gadgetbridge.devices;
+
+import android.os.ParcelUuid;
+
+import androidx.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import nodomain.freeyourgadget.gadgetbridge.impl.GBDeviceCandidate;
+import nodomain.freeyourgadget.gadgetbridge.model.DeviceType;
+
+/**
+ * Finds the device type of a device candidate without asking every coordinator whether it
+ * supports it. Coordinators that identify their devices by {@link AbstractDeviceCoordinator#getSupportedDeviceName()}
+ * are indexed by the literal prefixes of the pattern in a trie, and those that identify them by
+ * {@link AbstractDeviceCoordinator#getSupportedServiceUuids()} by service UUID. Only coordinators
+ * that override supports(GBDeviceCandidate), or whose pattern has no literal prefix, are asked
+ * for every candidate.
+ * <p>
+ * The index only narrows down the device types to ask, in their original order, so the resolved
+ * type is the same as when asking all coordinators.
+ */
+public class DeviceTypeIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(DeviceTypeIndex.class);
+
+    private static final int SUPPORTED_FLAGS = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE |
+            Pattern.LITERAL | Pattern.DOTALL | Pattern.UNICODE_CHARACTER_CLASS;
+    private static final String METACHARACTERS = ".[](){}*+?|^$";
+    // a literal followed by one of these is optional
+    private static final String OPTIONAL_QUANTIFIERS = "?*{";
+
+    private final DeviceType[] types;
+    private final BitSet alwaysChecked = new BitSet();
+    private final Node names = new Node();
+    private final Map<UUID, BitSet> services = new HashMap<>();
+
+    /**
+     * @param types the device types, in the order in which their coordinators should be asked
+     */
+    public DeviceTypeIndex(final DeviceType[] types) {
+        this.types = types;
+        for (int i = 0; i < types.length; i++) {
+            add(i, types[i].getDeviceCoordinator());
+        }
+        LOG.debug("Indexed {} device types, {} are checked for every candidate", types.length, alwaysChecked.cardinality());
+    }
+
+    private void add(final int index, final DeviceCoordinator coordinator) {
+        if (!(coordinator instanceof AbstractDeviceCoordinator) || overridesSupports(coordinator)) {
+            alwaysChecked.set(index);
+            return;
+        }
+
+        final AbstractDeviceCoordinator abstractCoordinator = (AbstractDeviceCoordinator) coordinator;
+        for (final UUID uuid : abstractCoordinator.getSupportedServiceUuids()) {
+            services.computeIfAbsent(uuid, k -> new BitSet()).set(index);
+        }
+
+        final Pattern pattern = abstractCoordinator.getSupportedDeviceName();
+        if (pattern == null) {
+            // supports nothing by name
+            return;
+        }
+        final List<String> prefixes = getLiteralPrefixes(pattern);
+        if (prefixes == null) {
+            alwaysChecked.set(index);
+            return;
+        }
+        for (final String prefix : prefixes) {
+            names.add(prefix, index);
+        }
+    }
+
+    private static boolean overridesSupports(final DeviceCoordinator coordinator) {
+        try {
+            return coordinator.getClass().getMethod("supports", GBDeviceCandidate.class).getDeclaringClass() != AbstractDeviceCoordinator.class;
+        } catch (final NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Returns the first device type, in the order given to the constructor, whose coordinator
+     * supports the candidate, or {@link DeviceType#UNKNOWN}.
+     */
+    public DeviceType resolve(final GBDeviceCandidate candidate) {
+        final BitSet candidateTypes = (BitSet) alwaysChecked.clone();
+        names.collect(candidate.getName(), candidateTypes);
+        final ParcelUuid[] serviceUuids = candidate.getServiceUuids();
+        if (!services.isEmpty() && serviceUuids != null) {
+            for (final ParcelUuid uuid : serviceUuids) {
+                final BitSet serviceTypes = uuid != null ? services.get(uuid.getUuid()) : null;
+                if (serviceTypes != null) {
+                    candidateTypes.or(serviceTypes);
+                }
+            }
+        }
+
+        for (int i = candidateTypes.nextSetBit(0); i >= 0; i = candidateTypes.nextSetBit(i + 1)) {
+            if (types[i].getDeviceCoordinator().supports(candidate)) {
+                return types[i];
+            }
+        }
+        return DeviceType.UNKNOWN;
+    }
+
+    /**
+     * Returns literal prefixes of which every string matching the pattern starts with one,
+     * ignoring case, or null if the pattern is too complex to tell or a match can start with
+     * anything.
+     */
+    @Nullable
+    static List<String> getLiteralPrefixes(final Pattern pattern) {
+        if ((pattern.flags() & ~SUPPORTED_FLAGS) != 0) {
+            return null;
+        }
+        final String regex = pattern.pattern();
+        if ((pattern.flags() & Pattern.LITERAL) != 0) {
+            return regex.isEmpty() ? null : Collections.singletonList(regex);
+        }
+        if (regex.contains("\\Q")) {
+            return null;
+        }
+
+        final List<String> prefixes = new ArrayList<>();
+        return addLiteralPrefixes(regex, prefixes) ? prefixes : null;
+    }
+
+    private static boolean addLiteralPrefixes(final String regex, final List<String> prefixes) {
+        final List<String> alternatives = splitAlternatives(regex);
+        if (alternatives == null) {
+            return false;
+        }
+
+        for (String alternative : alternatives) {
+            if (alternative.startsWith("^")) {
+                alternative = alternative.substring(1);
+            }
+            if (alternative.endsWith("$") && !alternative.endsWith("\\$")) {
+                alternative = alternative.substring(0, alternative.length() - 1);
+            }
+
+            // a group around the whole alternative, as in ^(A|B)$
+            if (alternative.startsWith("(") && !alternative.startsWith("(?") &&
+                    findClosingParenthesis(alternative) == alternative.length() - 1) {
+                if (!addLiteralPrefixes(alternative.substring(1, alternative.length() - 1), prefixes)) {
+                    return false;
+                }
+                continue;
+            }
+
+            final String prefix = getLiteralPrefix(alternative);
+            if (prefix.isEmpty()) {
+                return false;
+            }
+            prefixes.add(prefix);
+        }
+        return true;
+    }
+
+    private static String getLiteralPrefix(final String regex) {
+        final StringBuilder prefix = new StringBuilder();
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            final int next;
+            if (c == '\\') {
+                if (i + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                    // character classes, back references, ...
+                    break;
+                }
+                c = regex.charAt(i + 1);
+                next = i + 2;
+            } else if (METACHARACTERS.indexOf(c) >= 0) {
+                break;
+            } else {
+                next = i + 1;
+            }
+            if (next < regex.length() && OPTIONAL_QUANTIFIERS.indexOf(regex.charAt(next)) >= 0) {
+                break;
+            }
+            prefix.append(c);
+            i = next;
+        }
+        return prefix.toString();
+    }
+
+    /**
+     * Splits the regex at the alternations that are not nested in groups or character classes,
+     * or returns null if the groups are unbalanced.
+     */
+    @Nullable
+    private static List<String> splitAlternatives(final String regex) {
+        final List<String> alternatives = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            final char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                i = findClosingBracket(regex, i);
+                if (i < 0) {
+                    return null;
+                }
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                if (--depth < 0) {
+                    return null;
+                }
+            } else if (c == '|' && depth == 0) {
+                alternatives.add(regex.substring(start, i));
+                start = i + 1;
+            }
+        }
+        if (depth != 0) {
+            return null;
+        }
+        alternatives.add(regex.substring(start));
+        return alternatives;
+    }
+
+    /**
+     * Returns the index of the parenthesis closing the one at the start of the regex, or -1.
+     */
+    private static int findClosingParenthesis(final String regex) {
+        int depth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            final char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                i = findClosingBracket(regex, i);
+                if (i < 0) {
+                    return -1;
+                }
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the bracket closing the character class starting at the given index,
+     * or -1. Nested classes are not supported.
+     */
+    private static int findClosingBracket(final String regex, final int start) {
+        int i = start + 1;
+        if (i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+        }
+        if (i < regex.length() && regex.charAt(i) == ']') {
+            // a literal ] at the start of the class
+            i++;
+        }
+        for (; i < regex.length(); i++) {
+            final char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                return -1;
+            } else if (c == ']') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Folds the case of a character, the same way for the names and the prefixes.
+     */
+    private static char fold(final char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * A node of the trie of name prefixes, with the device types whose prefix ends here.
+     */
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private final BitSet types = new BitSet();
+
+        private void add(final String prefix, final int type) {
+            Node node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(fold(prefix.charAt(i)), k -> new Node());
+            }
+            node.types.set(type);
+        }
+
+        /**
+         * Adds the device types of all prefixes of the name to the result.
+         */
+        private void collect(final String name, final BitSet result) {
+            Node node = this;
+            for (int i = 0; i < name.length(); i++) {
+                node = node.children.get(fold(name.charAt(i)));
+                if (node == null) {
+                    return;
+                }
+                result.or(node.types);
+            }
+        }
+    }
+}
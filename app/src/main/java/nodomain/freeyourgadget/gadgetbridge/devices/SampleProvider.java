@@ -17,12 +17,15 @@
     along with this program.  If not, see <https://www.gnu.org/licenses/>. */
 package nodomain.freeyourgadget.gadgetbridge.devices;
 
+import java.time.ZoneId;
 import java.util.List;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import nodomain.freeyourgadget.gadgetbridge.entities.AbstractActivitySample;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityKind;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySampleColumns;
+import nodomain.freeyourgadget.gadgetbridge.model.DailySteps;
 
 /**
  * Interface to retrieve samples from the database, and also create and add samples to the database.
@@ -39,6 +42,9 @@ public interface SampleProvider<T extends AbstractActivitySample> {
     int PROVIDER_PEBBLE_MISFIT = 3;
     int PROVIDER_PEBBLE_HEALTH = 4;
 
+    // the samples of this many seconds are kept in memory by the default getDailySteps
+    int DAILY_STEPS_WINDOW = 30 * 24 * 60 * 60;
+
     ActivityKind normalizeType(int rawType);
 
     int toRawActivityKind(ActivityKind activityKind);
@@ -62,6 +68,53 @@ public interface SampleProvider<T extends AbstractActivitySample> {
      */
     List<T> getAllActivitySamplesHighRes(int timestamp_from, int timestamp_to);
 
+    /**
+     * Whether {@link #getAllActivitySampleColumns(int, int, ActivitySampleColumns)} reads the
+     * columns directly, without creating the samples. Otherwise, it only copies the samples of
+     * {@link #getAllActivitySamples(int, int)}, and callers should use these instead.
+     */
+    default boolean hasActivitySampleColumns() {
+        return false;
+    }
+
+    /**
+     * Same as {@link #getAllActivitySamples(int, int)}, but returns the normalized values in
+     * columns instead of one object per sample.
+     * @param timestamp_from the start timestamp
+     * @param timestamp_to the end timestamp
+     * @param columns columns to reuse, or null to allocate new ones
+     * @return the columns with the samples, which are the given columns if not null
+     */
+    @NonNull
+    default ActivitySampleColumns getAllActivitySampleColumns(int timestamp_from, int timestamp_to, @Nullable ActivitySampleColumns columns) {
+        final ActivitySampleColumns result = columns != null ? columns : new ActivitySampleColumns();
+        result.setProvider(this);
+        result.setSamples(getAllActivitySamples(timestamp_from, timestamp_to));
+        return result;
+    }
+
+    /**
+     * Returns the steps of each local day within the given time span, i.e. the sum of the
+     * positive steps of the samples of the day, like {@link nodomain.freeyourgadget.gadgetbridge.model.DailyTotals}.
+     * @param timestamp_from the start timestamp
+     * @param timestamp_to the end timestamp
+     * @param zone the time zone of the days
+     * @return the steps of the days with steps
+     */
+    @NonNull
+    default DailySteps getDailySteps(int timestamp_from, int timestamp_to, ZoneId zone) {
+        final DailySteps result = new DailySteps(zone);
+        final ActivitySampleColumns columns = new ActivitySampleColumns();
+        for (long from = timestamp_from; from <= timestamp_to; from += DAILY_STEPS_WINDOW) {
+            final int to = (int) Math.min(timestamp_to, from + DAILY_STEPS_WINDOW - 1);
+            getAllActivitySampleColumns((int) from, to, columns);
+            for (int i = 0; i < columns.size(); i++) {
+                result.addSample(columns.getTimestamp(i), columns.getSteps(i));
+            }
+        }
+        return result;
+    }
+
     /**
      * Specifies that the sample provider has higher resolution data. Set to true if the sample
      * provider can provide more than one sample a minute.
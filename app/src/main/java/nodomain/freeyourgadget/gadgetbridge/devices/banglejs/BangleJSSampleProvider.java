@@ -63,6 +63,11 @@ public class BangleJSSampleProvider extends AbstractSampleProvider<BangleJSActiv
         return BangleJSActivitySampleDao.Properties.DeviceId;
     }
 
+    @Override
+    protected boolean supportsColumnarSamples() {
+        return true;
+    }
+
     @Override
     public ActivityKind normalizeType(int rawType) {
         return ActivityKind.fromCode(rawType);
@@ -49,6 +49,11 @@ public class CmfSleepStageSampleProvider extends AbstractTimeSampleProvider<CmfS
         return CmfSleepStageSampleDao.Properties.DeviceId;
     }
 
+    @Override
+    protected boolean affectsDailyTotals() {
+        return true;
+    }
+
     @Override
     public CmfSleepStageSample createSample() {
         return new CmfSleepStageSample();
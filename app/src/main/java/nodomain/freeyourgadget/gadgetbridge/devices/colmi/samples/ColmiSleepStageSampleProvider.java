@@ -49,6 +49,11 @@ public class ColmiSleepStageSampleProvider extends AbstractTimeSampleProvider<Co
         return ColmiSleepStageSampleDao.Properties.DeviceId;
     }
 
+    @Override
+    protected boolean affectsDailyTotals() {
+        return true;
+    }
+
     @Override
     public ColmiSleepStageSample createSample() {
         return new ColmiSleepStageSample();
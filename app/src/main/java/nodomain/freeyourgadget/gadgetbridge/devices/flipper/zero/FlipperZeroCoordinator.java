@@ -23,6 +23,8 @@ import android.net.Uri;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.Collections;
+import java.util.Set;
 import java.util.UUID;
 
 import xyz.tenseventyseven.fresh.AppException;
@@ -33,7 +35,6 @@ import nodomain.freeyourgadget.gadgetbridge.devices.SampleProvider;
 import nodomain.freeyourgadget.gadgetbridge.entities.DaoSession;
 import nodomain.freeyourgadget.gadgetbridge.entities.Device;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
-import nodomain.freeyourgadget.gadgetbridge.impl.GBDeviceCandidate;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivitySample;
 import nodomain.freeyourgadget.gadgetbridge.service.DeviceSupport;
 import nodomain.freeyourgadget.gadgetbridge.service.devices.flipper.zero.support.FlipperZeroSupport;
@@ -44,13 +45,10 @@ public class FlipperZeroCoordinator extends AbstractBLEDeviceCoordinator {
 
     }
 
-    @NonNull
     @Override
-    public boolean supports(GBDeviceCandidate candidate) {
-        if(candidate.supportsService(UUID.fromString("00003082-0000-1000-8000-00805f9b34fb"))){
-            return true; // need to filter for flipper here
-        }
-        return false;
+    protected Set<UUID> getSupportedServiceUuids() {
+        // need to filter for flipper here
+        return Collections.singleton(UUID.fromString("00003082-0000-1000-8000-00805f9b34fb"));
     }
 
     @Nullable
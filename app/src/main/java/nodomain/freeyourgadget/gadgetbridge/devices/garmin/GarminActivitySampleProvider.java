@@ -35,6 +35,8 @@ import nodomain.freeyourgadget.gadgetbridge.entities.GarminSleepStageSample;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityKind;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivitySample;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySampleColumns;
+import nodomain.freeyourgadget.gadgetbridge.model.MutableActivitySampleSequence;
 import nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.fit.fieldDefinitions.FieldDefinitionSleepStage;
 import nodomain.freeyourgadget.gadgetbridge.util.RangeMap;
 
@@ -104,12 +106,7 @@ public class GarminActivitySampleProvider extends AbstractSampleProvider<GarminA
                 timestamp_to
         );
 
-        if (!samples.isEmpty()) {
-            convertCumulativeSteps(samples, GarminActivitySampleDao.Properties.Steps);
-        }
-
-        convertCalories(samples);
-        overlaySleep(samples, timestamp_from, timestamp_to);
+        postProcess(asSequence(samples), timestamp_from, timestamp_to);
 
         final long nanoEnd = System.nanoTime();
 
@@ -120,16 +117,42 @@ public class GarminActivitySampleProvider extends AbstractSampleProvider<GarminA
         return samples;
     }
 
+    @Override
+    protected boolean supportsColumnarSamples() {
+        return true;
+    }
+
+    @Override
+    protected boolean supportsDailyStepsQuery() {
+        // the steps are cumulative
+        return false;
+    }
+
+    @Override
+    protected void postProcessSampleColumns(final ActivitySampleColumns columns, final int timestamp_from, final int timestamp_to) {
+        fillGaps(columns, timestamp_from, timestamp_to);
+        postProcess(columns, timestamp_from, timestamp_to);
+    }
+
+    private void postProcess(final MutableActivitySampleSequence samples, final int timestamp_from, final int timestamp_to) {
+        if (!samples.isEmpty()) {
+            convertCumulativeSteps(samples, GarminActivitySampleDao.Properties.Steps);
+        }
+
+        convertCalories(samples);
+        overlaySleep(samples, timestamp_from, timestamp_to);
+    }
+
     /**
      * Converts the calories from kcal to cal
      */
-    private void convertCalories(List<GarminActivitySample> samples) {
-        for (GarminActivitySample sample : samples) {
-            sample.setActiveCalories(sample.getActiveCalories() * 1000);
+    private void convertCalories(final MutableActivitySampleSequence samples) {
+        for (int i = 0; i < samples.size(); i++) {
+            samples.setActiveCalories(i, samples.getActiveCalories(i) * 1000);
         }
     }
 
-    public void overlaySleep(final List<GarminActivitySample> samples, final int timestamp_from, final int timestamp_to) {
+    public void overlaySleep(final MutableActivitySampleSequence samples, final int timestamp_from, final int timestamp_to) {
         // The samples provided by Garmin are upper-bound timestamps of the sleep stage
         final RangeMap<Long, ActivityKind> stagesMap = new RangeMap<>(RangeMap.Mode.UPPER_BOUND);
 
@@ -183,14 +206,12 @@ public class GarminActivitySampleProvider extends AbstractSampleProvider<GarminA
         }
 
         if (!stagesMap.isEmpty()) {
-            for (final GarminActivitySample sample : samples) {
-                final long ts = sample.getTimestamp() * 1000L;
-                final ActivityKind sleepType = stagesMap.get(ts);
-                if (sleepType != null && !sleepType.equals(ActivityKind.UNKNOWN)) {
-                    sample.setRawKind(sleepType.getCode());
-                    sample.setRawIntensity(ActivitySample.NOT_MEASURED);
+            stagesMap.overlay(samples.size(), i -> samples.getTimestamp(i) * 1000L, (sleepType, i) -> {
+                if (!sleepType.equals(ActivityKind.UNKNOWN)) {
+                    samples.setRawKind(i, sleepType.getCode());
+                    samples.setRawIntensity(i, ActivitySample.NOT_MEASURED);
                 }
-            }
+            });
         }
     }
 
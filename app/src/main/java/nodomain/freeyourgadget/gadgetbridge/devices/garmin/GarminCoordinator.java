@@ -385,6 +385,12 @@ public abstract class GarminCoordinator extends AbstractBLEDeviceCoordinator {
         return true;
     }
 
+    @Override
+    public int getNotificationPictureMaxWidth(final GBDevice device) {
+        // the watch requests pictures at most as wide as its screen
+        return 480;
+    }
+
     @Override
     public int getCannedRepliesSlotCount(final GBDevice device) {
         if (getPrefs(device).getBoolean(GarminPreferences.PREF_FEAT_CANNED_MESSAGES, false)) {
@@ -55,6 +55,11 @@ public class GarminEventSampleProvider extends AbstractTimeSampleProvider<Garmin
         return GarminEventSampleDao.Properties.DeviceId;
     }
 
+    @Override
+    protected boolean affectsDailyTotals() {
+        return true;
+    }
+
     @Override
     public GarminEventSample createSample() {
         return new GarminEventSample();
@@ -49,6 +49,11 @@ public class GarminSleepStageSampleProvider extends AbstractTimeSampleProvider<G
         return GarminSleepStageSampleDao.Properties.DeviceId;
     }
 
+    @Override
+    protected boolean affectsDailyTotals() {
+        return true;
+    }
+
     @Override
     public GarminSleepStageSample createSample() {
         return new GarminSleepStageSample();
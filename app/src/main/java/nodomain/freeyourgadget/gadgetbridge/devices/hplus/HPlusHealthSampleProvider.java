@@ -221,8 +221,8 @@ public class HPlusHealthSampleProvider extends AbstractSampleProvider<HPlusHealt
 
     private void insertVirtualItem(List<HPlusHealthActivitySample> samples, int timestamp, long deviceId, long userId) {
         HPlusHealthActivitySample sample = new HPlusHealthActivitySample(
-                timestamp,            // ts
                 deviceId,
+                timestamp,            // ts
                 userId,          // User id
                 null,                         // Raw Data
                 ActivityKind.UNKNOWN.getCode(),
@@ -16,6 +16,8 @@
     along with this program.  If not, see <https://www.gnu.org/licenses/>. */
 package nodomain.freeyourgadget.gadgetbridge.devices.huami;
 
+import android.database.Cursor;
+
 import androidx.annotation.NonNull;
 
 import java.util.List;
@@ -28,6 +30,8 @@ import nodomain.freeyourgadget.gadgetbridge.entities.HuamiExtendedActivitySample
 import nodomain.freeyourgadget.gadgetbridge.entities.HuamiExtendedActivitySampleDao;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityKind;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySampleColumns;
+import nodomain.freeyourgadget.gadgetbridge.model.MutableActivitySampleSequence;
 
 public class HuamiExtendedSampleProvider extends AbstractSampleProvider<HuamiExtendedActivitySample> {
     public static final int TYPE_CUSTOM_UNSET = -1;
@@ -38,6 +42,12 @@ public class HuamiExtendedSampleProvider extends AbstractSampleProvider<HuamiExt
     public static final int TYPE_CUSTOM_DEEP_SLEEP = TYPE_SLEEP + 1;
     public static final int TYPE_CUSTOM_REM_SLEEP = TYPE_SLEEP + 2;
 
+    private static final Property[] SLEEP_PROPERTIES = new Property[]{
+            HuamiExtendedActivitySampleDao.Properties.Sleep,
+            HuamiExtendedActivitySampleDao.Properties.DeepSleep,
+            HuamiExtendedActivitySampleDao.Properties.RemSleep
+    };
+
     public HuamiExtendedSampleProvider(final GBDevice device, final DaoSession session) {
         super(device, session);
     }
@@ -81,32 +91,67 @@ public class HuamiExtendedSampleProvider extends AbstractSampleProvider<HuamiExt
         return samples;
     }
 
+    @Override
+    protected boolean supportsColumnarSamples() {
+        return true;
+    }
+
+    @Override
+    protected Property[] getExtraSampleColumnProperties() {
+        return SLEEP_PROPERTIES;
+    }
+
+    @Override
+    protected void postProcessSampleColumnsRow(final ActivitySampleColumns columns,
+                                               final int index,
+                                               final Cursor cursor,
+                                               final int firstExtraColumn) {
+        if (columns.getRawKind(index) == TYPE_SLEEP) {
+            setSleepType(
+                    columns,
+                    index,
+                    cursor.getInt(firstExtraColumn),
+                    cursor.getInt(firstExtraColumn + 1) & 127,
+                    cursor.getInt(firstExtraColumn + 2) & 127
+            );
+        }
+    }
+
     private void postProcess(final List<HuamiExtendedActivitySample> samples) {
         if (samples.isEmpty()) {
             return;
         }
 
-        for (final HuamiExtendedActivitySample sample : samples) {
+        final MutableActivitySampleSequence sequence = asSequence(samples);
+        for (int i = 0; i < samples.size(); i++) {
+            final HuamiExtendedActivitySample sample = samples.get(i);
             if (sample.getRawKind() == TYPE_SLEEP) {
-                // Band reports type sleep regardless of sleep type, so we map it to custom raw types
-                // These thresholds are arbitrary, but seem to somewhat match the data that's displayed on the band
-
                 sample.setDeepSleep(sample.getDeepSleep() & 127);
                 sample.setRemSleep(sample.getRemSleep() & 127);
 
-                if (sample.getRemSleep() > 55) {
-                    sample.setRawKind(TYPE_CUSTOM_REM_SLEEP);
-                    sample.setRawIntensity(sample.getRemSleep());
-                } else if (sample.getDeepSleep() > 42) {
-                    sample.setRawKind(TYPE_CUSTOM_DEEP_SLEEP);
-                    sample.setRawIntensity(sample.getDeepSleep());
-                } else {
-                    sample.setRawIntensity(sample.getSleep());
-                }
+                setSleepType(sequence, i, sample.getSleep(), sample.getDeepSleep(), sample.getRemSleep());
             }
         }
     }
 
+    private static void setSleepType(final MutableActivitySampleSequence samples,
+                                     final int i,
+                                     final int sleep,
+                                     final int deepSleep,
+                                     final int remSleep) {
+        // Band reports type sleep regardless of sleep type, so we map it to custom raw types
+        // These thresholds are arbitrary, but seem to somewhat match the data that's displayed on the band
+        if (remSleep > 55) {
+            samples.setRawKind(i, TYPE_CUSTOM_REM_SLEEP);
+            samples.setRawIntensity(i, remSleep);
+        } else if (deepSleep > 42) {
+            samples.setRawKind(i, TYPE_CUSTOM_DEEP_SLEEP);
+            samples.setRawIntensity(i, deepSleep);
+        } else {
+            samples.setRawIntensity(i, sleep);
+        }
+    }
+
     @Override
     public ActivityKind normalizeType(final int rawType) {
         switch (rawType) {
@@ -350,6 +350,12 @@ public abstract class ZeppOsCoordinator extends HuamiCoordinator {
         return getPrefs(device).getInt(ZeppOsContactsService.PREF_CONTACTS_SLOT_COUNT, 0);
     }
 
+    @Override
+    public int getNotificationPictureMaxWidth(final GBDevice device) {
+        // the band requests pictures as wide as its screen, plus 10 pixels
+        return 480;
+    }
+
     @Override
     public String[] getSupportedLanguageSettings(final GBDevice device) {
         // Return all known languages by default. Unsupported languages will be removed by Huami2021SettingsCustomizer
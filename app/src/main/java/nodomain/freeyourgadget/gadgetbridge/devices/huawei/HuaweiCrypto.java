@@ -22,16 +22,22 @@ import nodomain.freeyourgadget.gadgetbridge.util.GB;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.NoSuchAlgorithmException;
 import java.security.InvalidKeyException;
 import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
 import java.security.spec.InvalidKeySpecException;
 import java.util.Arrays;
 
 import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +51,79 @@ public class HuaweiCrypto {
         }
     }
 
+    /**
+     * Encrypts and decrypts the packets of one connection. Unlike {@link #encrypt} and
+     * {@link #decrypt}, the cipher instances and the expanded key are kept from one packet to
+     * the next, and decrypted data is written to a buffer that is reused for the next packet.
+     */
+    public static class PacketCipher {
+        private Cipher gcmCipher;
+        private Cipher cbcCipher;
+        private byte[] key;
+        private SecretKeySpec keySpec;
+        private byte[] buffer = new byte[256];
+
+        public synchronized byte[] encrypt(boolean useGCM, byte[] message, byte[] key, byte[] iv) throws CryptoException {
+            try {
+                return init(useGCM, Cipher.ENCRYPT_MODE, key, iv).doFinal(message);
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                throw new CryptoException(e);
+            }
+        }
+
+        /**
+         * Decrypts the message into the buffer returned by {@link #getBuffer()}, which is
+         * overwritten by the next call. Callers have to synchronize on this object until they
+         * are done with the buffer.
+         *
+         * @return the length of the decrypted data at the start of the buffer
+         */
+        public synchronized int decrypt(boolean useGCM, byte[] message, byte[] key, byte[] iv) throws CryptoException {
+            try {
+                final Cipher cipher = init(useGCM, Cipher.DECRYPT_MODE, key, iv);
+                final int outputSize = cipher.getOutputSize(message.length);
+                if (buffer.length < outputSize) {
+                    buffer = new byte[Math.max(outputSize, 2 * buffer.length)];
+                }
+                return cipher.doFinal(message, 0, message.length, buffer, 0);
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                throw new CryptoException(e);
+            }
+        }
+
+        public synchronized byte[] getBuffer() {
+            return buffer;
+        }
+
+        private Cipher init(boolean useGCM, int mode, byte[] key, byte[] iv) throws GeneralSecurityException {
+            if (keySpec == null || !Arrays.equals(this.key, key)) {
+                this.key = key.clone();
+                this.keySpec = new SecretKeySpec(key, "AES");
+            }
+            final AlgorithmParameterSpec paramSpec = useGCM ? new GCMParameterSpec(16 * 8, iv) : new IvParameterSpec(iv);
+
+            if (!useGCM) {
+                if (cbcCipher == null)
+                    cbcCipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+                cbcCipher.init(mode, keySpec, paramSpec);
+                return cbcCipher;
+            }
+
+            if (gcmCipher == null)
+                gcmCipher = Cipher.getInstance("AES/GCM/NoPadding");
+            try {
+                gcmCipher.init(mode, keySpec, paramSpec);
+            } catch (InvalidAlgorithmParameterException e) {
+                if (mode != Cipher.ENCRYPT_MODE)
+                    throw e;
+                // Some providers refuse to encrypt twice in a row with the same IV on one instance
+                gcmCipher = Cipher.getInstance("AES/GCM/NoPadding");
+                gcmCipher.init(mode, keySpec, paramSpec);
+            }
+            return gcmCipher;
+        }
+    }
+
     public static final byte[] SECRET_KEY_1_v1 = new byte[]{ 0x6F, 0x75, 0x6A, 0x79,
                                                             0x6D, 0x77, 0x71, 0x34,
                                                             0x63, 0x6C, 0x76, 0x39,
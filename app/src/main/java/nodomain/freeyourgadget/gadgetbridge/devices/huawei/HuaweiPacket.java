@@ -77,6 +77,7 @@ public class HuaweiPacket {
         protected byte encryptMethod;
         protected byte[] firstKey;
         protected  byte authMode;
+        protected final HuaweiCrypto.PacketCipher packetCipher = new HuaweiCrypto.PacketCipher();
 
         public void setAuthVersion(byte authVersion) {
             this.authVersion = authVersion;
@@ -184,6 +185,10 @@ public class HuaweiPacket {
         public byte[] getFirstKey() {
             return firstKey;
         }
+
+        public HuaweiCrypto.PacketCipher getPacketCipher() {
+            return packetCipher;
+        }
     }
 
     public static abstract class ParseException extends Exception {
@@ -373,15 +378,13 @@ public class HuaweiPacket {
             addLen++;
         }
 
-        byte[] newPayload = new byte[expectedSize - addLen];
-        buffer.get(newPayload, 0, expectedSize - addLen);
+        int payloadOffset = buffer.position();
+        int payloadLength = expectedSize - addLen;
+        buffer.position(payloadOffset + payloadLength);
         short expectedChecksum = buffer.getShort();
         this.left = buffer.remaining();
-        buffer.rewind();
 
-        byte[] dataNoCRC = new byte[expectedSize + 3];
-        buffer.get(dataNoCRC, 0, expectedSize + 3);
-        short actualChecksum = (short) CheckSums.getCRC16(dataNoCRC, 0x0000);
+        short actualChecksum = (short) CheckSums.getCRC16(data, 0, expectedSize + 3, 0x0000);
         if (actualChecksum != expectedChecksum) {
             throw new ChecksumIncorrectException("Checksum mismatch : "
                     + String.valueOf(actualChecksum)
@@ -390,12 +393,12 @@ public class HuaweiPacket {
         }
 
         if (isSliced == 1 || isSliced == 2 || isSliced == 3) {
+            byte[] newPayload;
             if (payload != null) {
-                int newCapacity = payload.length + newPayload.length;
-                newPayload = ByteBuffer.allocate(newCapacity)
-                        .put(payload)
-                        .put(newPayload)
-                        .array();
+                newPayload = Arrays.copyOf(payload, payload.length + payloadLength);
+                System.arraycopy(data, payloadOffset, newPayload, payload.length, payloadLength);
+            } else {
+                newPayload = Arrays.copyOfRange(data, payloadOffset, payloadOffset + payloadLength);
             }
 
             if (isSliced != 3) {
@@ -403,10 +406,19 @@ public class HuaweiPacket {
                 this.payload = newPayload;
                 return;
             }
+
+            data = newPayload;
+            payloadOffset = 0;
+            payloadLength = newPayload.length;
         }
 
-        this.serviceId = newPayload[0];
-        this.commandId = newPayload[1];
+        if (payloadLength < 2) {
+            throw new LengthMismatchException("Payload length mismatch : " + payloadLength + " < 2");
+        }
+
+        // The payload is parsed directly from the received data, without copying it first
+        this.serviceId = data[payloadOffset];
+        this.commandId = data[payloadOffset + 1];
         this.complete = true;
 
         if (
@@ -416,12 +428,12 @@ public class HuaweiPacket {
                 (serviceId == 0x1c && commandId == 0x05)
         ) {
             // TODO: this doesn't seem to be TLV
-            this.payload = newPayload;
+            this.payload = Arrays.copyOfRange(data, payloadOffset, payloadOffset + payloadLength);
             return;
         }
 
         this.tlv = new HuaweiTLV();
-        this.tlv.parse(newPayload, 2, newPayload.length - 2);
+        this.tlv.parse(data, payloadOffset + 2, payloadLength - 2);
     }
 
     public HuaweiPacket parse(byte[] data) throws ParseException {
@@ -869,9 +881,8 @@ public class HuaweiPacket {
                 contentSize -= 2; // To prevent taking too much data
             }
 
-            byte[] packetContent = new byte[contentSize];
-            buffer.get(packetContent);
-            packet.put(packetContent);                              // Packet data
+            packet.put(serializedTLV, buffer.position(), contentSize); // Packet data
+            buffer.position(buffer.position() + contentSize);
 
             int length = packet.position() - start;
             if (length != packetSize - footerLength) {
@@ -879,10 +890,7 @@ public class HuaweiPacket {
                 LOG.error(String.format(Application.getLanguage(), "Packet lengths don't match! %d != %d", length, packetSize + headerLength));
             }
 
-            byte[] complete = new byte[length];
-            packet.position(start);
-            packet.get(complete, 0, length);
-            int crc16 = CheckSums.getCRC16(complete, 0x0000);
+            int crc16 = CheckSums.getCRC16(packet.array(), start, length, 0x0000);
 
             packet.putShort((short) crc16);                         // CRC16
 
@@ -897,18 +905,16 @@ public class HuaweiPacket {
         int bodyHeaderLength = 2; // sID + cID
         int footerLength = 2; //CRC16
         int bodyLength = bodyHeaderLength + serializedTLV.length;
-        ByteBuffer buffer = ByteBuffer.allocate(headerLength + bodyLength);
+        ByteBuffer buffer = ByteBuffer.allocate(headerLength + bodyLength + footerLength);
         buffer.put((byte) 0x5A);
         buffer.putShort((short)(bodyLength + 1));
         buffer.put((byte) 0x00);
         buffer.put(this.serviceId);
         buffer.put(this.commandId);
         buffer.put(serializedTLV);
-        int crc16 = CheckSums.getCRC16(buffer.array(), 0x0000);
-        ByteBuffer finalBuffer = ByteBuffer.allocate(buffer.capacity() + footerLength);
-        finalBuffer.put(buffer.array());
-        finalBuffer.putShort((short)crc16);
-        retv.add(finalBuffer.array());
+        int crc16 = CheckSums.getCRC16(buffer.array(), 0, headerLength + bodyLength, 0x0000);
+        buffer.putShort((short)crc16);
+        retv.add(buffer.array());
         return retv;
     }
 
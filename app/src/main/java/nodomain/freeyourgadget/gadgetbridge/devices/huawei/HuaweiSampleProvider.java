@@ -16,6 +16,8 @@
     along with this program.  If not, see <https://www.gnu.org/licenses/>. */
 package nodomain.freeyourgadget.gadgetbridge.devices.huawei;
 
+import android.database.Cursor;
+
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
@@ -40,6 +42,8 @@ import nodomain.freeyourgadget.gadgetbridge.entities.HuaweiWorkoutSummarySampleD
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityKind;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivitySample;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySampleColumns;
+import nodomain.freeyourgadget.gadgetbridge.model.DailyTotals;
 
 public class HuaweiSampleProvider extends AbstractSampleProvider<HuaweiActivitySample> {
     /*
@@ -191,8 +195,8 @@ public class HuaweiSampleProvider extends AbstractSampleProvider<HuaweiActivityS
      */
     private HuaweiActivitySample copySample(HuaweiActivitySample sample) {
         HuaweiActivitySample sampleCopy = new HuaweiActivitySample(
-                sample.getTimestamp(),
                 sample.getDeviceId(),
+                sample.getTimestamp(),
                 sample.getUserId(),
                 sample.getOtherTimestamp(),
                 sample.getSource(),
@@ -222,6 +226,9 @@ public class HuaweiSampleProvider extends AbstractSampleProvider<HuaweiActivityS
 
         getSampleDao().insertOrReplace(start);
         getSampleDao().insertOrReplace(end);
+        DailyTotals.invalidate(getSession(), getDevice(),
+                Math.min(start.getTimestamp(), end.getTimestamp()),
+                Math.max(start.getTimestamp(), end.getTimestamp()));
     }
 
     @Override
@@ -242,6 +249,7 @@ public class HuaweiSampleProvider extends AbstractSampleProvider<HuaweiActivityS
             newSamples.add(end);
         }
         getSampleDao().insertOrReplaceInTx(newSamples);
+        invalidateDailyTotals(activitySamples);
     }
 
     /**
@@ -306,12 +314,57 @@ public class HuaweiSampleProvider extends AbstractSampleProvider<HuaweiActivityS
             processedSamples.add(createDummySample(timestamp));
         }
 
-        overlayActivitySamples(processedSamples, timestamp_from, timestamp_to);
-        overlayWorkoutSamples(processedSamples, timestamp_from, timestamp_to);
+        MinuteSamples minuteSamples = new EntityMinuteSamples(processedSamples);
+        overlayActivitySamples(minuteSamples, timestamp_from, timestamp_to);
+        overlayWorkoutSamples(minuteSamples, timestamp_from, timestamp_to);
 
         return processedSamples;
     }
 
+    @Override
+    protected boolean supportsColumnarSamples() {
+        return true;
+    }
+
+    @Override
+    protected boolean supportsDailyStepsQuery() {
+        // The steps are overlaid on generated samples
+        return false;
+    }
+
+    /*
+     * Same as getGBActivitySamples, but generates the samples in the columns.
+     */
+    @NonNull
+    @Override
+    public ActivitySampleColumns getAllActivitySampleColumns(int timestamp_from, int timestamp_to, @Nullable ActivitySampleColumns columns) {
+        ActivitySampleColumns result = columns != null ? columns : new ActivitySampleColumns();
+        result.clear();
+        result.setProvider(this);
+
+        // Same values as createDummySample
+        ActivityKind kind = normalizeType(RawTypes.NOT_MEASURED);
+        float intensity = normalizeIntensity(0);
+        for (int timestamp = timestamp_from; timestamp <= timestamp_to; timestamp += 60) {
+            result.add(
+                    timestamp,
+                    RawTypes.NOT_MEASURED,
+                    kind,
+                    intensity,
+                    ActivitySample.NOT_MEASURED,
+                    ActivitySample.NOT_MEASURED,
+                    ActivitySample.NOT_MEASURED,
+                    ActivitySample.NOT_MEASURED
+            );
+        }
+
+        MinuteSamples minuteSamples = new ColumnMinuteSamples(result);
+        overlayActivitySamples(minuteSamples, timestamp_from, timestamp_to);
+        overlayWorkoutSamples(minuteSamples, timestamp_from, timestamp_to);
+
+        return result;
+    }
+
     @Override
     protected List<HuaweiActivitySample> getGBActivitySamplesHighRes(int timestamp_from, int timestamp_to) {
         List<HuaweiActivitySample> processedSamples = getRawOrderedActivitySamples(timestamp_from, timestamp_to);
@@ -327,8 +380,8 @@ public class HuaweiSampleProvider extends AbstractSampleProvider<HuaweiActivityS
 
     private HuaweiActivitySample createDummySample(int timestamp) {
         HuaweiActivitySample activitySample = new HuaweiActivitySample(
-                timestamp,
                 -1,
+                timestamp,
                 -1,
                 timestamp + 60, // Make sure the duration is 60
                 (byte) 0x00,
@@ -347,9 +400,33 @@ public class HuaweiSampleProvider extends AbstractSampleProvider<HuaweiActivityS
      * For every activity sample, it adds the data into the following processed sample.
      * If there are multiple activity samples, the steps, calories, and distance is added together.
      * For the SpO and HR only the last value is used.
+     * The activity samples are read directly from the database, as they are only needed here.
      */
-    private void overlayActivitySamples(List<HuaweiActivitySample> processedSamples, int timestamp_from, int timestamp_to) {
-        List<HuaweiActivitySample> activitySamples = getRawOrderedActivitySamples(timestamp_from, timestamp_to);
+    private void overlayActivitySamples(MinuteSamples processedSamples, int timestamp_from, int timestamp_to) {
+        Device dbDevice = DBHelper.findDevice(getDevice(), getSession());
+        if (dbDevice == null) {
+            // no device, no samples
+            return;
+        }
+
+        String sql = "SELECT " + HuaweiActivitySampleDao.Properties.Timestamp.columnName +
+                ", " + HuaweiActivitySampleDao.Properties.OtherTimestamp.columnName +
+                ", " + HuaweiActivitySampleDao.Properties.Steps.columnName +
+                ", " + HuaweiActivitySampleDao.Properties.Calories.columnName +
+                ", " + HuaweiActivitySampleDao.Properties.Distance.columnName +
+                ", " + HuaweiActivitySampleDao.Properties.Spo.columnName +
+                ", " + HuaweiActivitySampleDao.Properties.HeartRate.columnName +
+                ", " + HuaweiActivitySampleDao.Properties.RawKind.columnName +
+                " FROM " + getSampleDao().getTablename() +
+                " WHERE " + HuaweiActivitySampleDao.Properties.DeviceId.columnName + " = ?" +
+                " AND " + HuaweiActivitySampleDao.Properties.OtherTimestamp.columnName + " >= ?" +
+                " AND " + HuaweiActivitySampleDao.Properties.Timestamp.columnName + " <= ?" +
+                " ORDER BY " + HuaweiActivitySampleDao.Properties.Timestamp.columnName;
+        String[] args = new String[]{
+                String.valueOf(dbDevice.getId()),
+                String.valueOf(timestamp_from),
+                String.valueOf(timestamp_to)
+        };
 
         int currentIndex = 0;
 
@@ -364,71 +441,82 @@ public class HuaweiSampleProvider extends AbstractSampleProvider<HuaweiActivityS
 
         int stateModifier = ActivitySample.NOT_MEASURED;
 
-        for (HuaweiActivitySample activitySample : activitySamples) {
-            // Ignore the end markers
-            if (activitySample.getTimestamp() > activitySample.getOtherTimestamp())
-                continue;
-
-            // Skip the processed samples that are before this activity sample
-            while (activitySample.getTimestamp() > processedSamples.get(currentIndex).getTimestamp()) {
-                // Add data to current index sample
-                if (hasData || stateModifier != ActivitySample.NOT_MEASURED)
-                    processedSamples.get(currentIndex).setRawIntensity(1);
-                processedSamples.get(currentIndex).setSteps(stepCount);
-                processedSamples.get(currentIndex).setCalories(calorieCount);
-                processedSamples.get(currentIndex).setDistance(distanceCount);
-                processedSamples.get(currentIndex).setSpo(lastSpo);
-                processedSamples.get(currentIndex).setHeartRate(lastHr);
-                processedSamples.get(currentIndex).setRawKind(stateModifier);
-
-                // Reset counters
-                hasData = false;
-                stepCount = ActivitySample.NOT_MEASURED;
-                calorieCount = ActivitySample.NOT_MEASURED;
-                distanceCount = ActivitySample.NOT_MEASURED;
-                lastSpo = ActivitySample.NOT_MEASURED;
-                lastHr = ActivitySample.NOT_MEASURED;
-
-                currentIndex += 1;
-                if (currentIndex >= processedSamples.size())
-                    return; // We cannot add the data to any samples, so we might as well return
-            }
+        try (Cursor cursor = getSession().getDatabase().rawQuery(sql, args)) {
+            while (cursor.moveToNext()) {
+                int timestamp = cursor.getInt(0);
+                int otherTimestamp = cursor.getInt(1);
+                int steps = cursor.getInt(2);
+                int calories = cursor.getInt(3);
+                int distance = cursor.getInt(4);
+                int spo = cursor.getInt(5);
+                int heartRate = cursor.getInt(6);
+                int rawKind = cursor.getInt(7);
+
+                // Ignore the end markers
+                if (timestamp > otherTimestamp)
+                    continue;
+
+                // Skip the processed samples that are before this activity sample
+                while (timestamp > processedSamples.getTimestamp(currentIndex)) {
+                    // Add data to current index sample
+                    if (hasData || stateModifier != ActivitySample.NOT_MEASURED)
+                        processedSamples.setRawIntensity(currentIndex, 1);
+                    processedSamples.setSteps(currentIndex, stepCount);
+                    processedSamples.setCalories(currentIndex, calorieCount);
+                    processedSamples.setDistance(currentIndex, distanceCount);
+                    processedSamples.setSpo(currentIndex, lastSpo);
+                    processedSamples.setHeartRate(currentIndex, lastHr);
+                    processedSamples.setRawKind(currentIndex, stateModifier);
+
+                    // Reset counters
+                    hasData = false;
+                    stepCount = ActivitySample.NOT_MEASURED;
+                    calorieCount = ActivitySample.NOT_MEASURED;
+                    distanceCount = ActivitySample.NOT_MEASURED;
+                    lastSpo = ActivitySample.NOT_MEASURED;
+                    lastHr = ActivitySample.NOT_MEASURED;
+
+                    currentIndex += 1;
+                    if (currentIndex >= processedSamples.size())
+                        return; // We cannot add the data to any samples, so we might as well return
+                }
 
-            // Update data
-            if (activitySample.getSteps() != ActivitySample.NOT_MEASURED) {
-                if (stepCount == ActivitySample.NOT_MEASURED)
-                    stepCount = 0;
-                stepCount += activitySample.getSteps();
-                hasData = true;
-            }
-            if (activitySample.getCalories() != ActivitySample.NOT_MEASURED) {
-                if (calorieCount == ActivitySample.NOT_MEASURED)
-                    calorieCount = 0;
-                calorieCount += activitySample.getCalories();
-                hasData = true;
-            }
-            if (activitySample.getDistance() != ActivitySample.NOT_MEASURED) {
-                if (distanceCount == ActivitySample.NOT_MEASURED)
-                    distanceCount = 0;
-                distanceCount += activitySample.getDistance();
-                hasData = true;
-            }
-            if (activitySample.getSpo() != ActivitySample.NOT_MEASURED) {
-                lastSpo = activitySample.getSpo();
-                hasData = true;
-            }
-            if (activitySample.getHeartRate() != ActivitySample.NOT_MEASURED) {
-                lastHr = activitySample.getHeartRate();
-                hasData = true;
-            }
-            if (activitySample.getRawKind() != ActivitySample.NOT_MEASURED) {
-                if (activitySample.getTimestamp() < activitySample.getOtherTimestamp()) {
-                    // Starting of modifier
-                    stateModifier = activitySample.getRawKind();
-                } else {
-                    // End of modifier, remove it if it was for the same state
-                    if (activitySample.getRawKind() == stateModifier)
-                        stateModifier = ActivitySample.NOT_MEASURED;
+                // Update data
+                if (steps != ActivitySample.NOT_MEASURED) {
+                    if (stepCount == ActivitySample.NOT_MEASURED)
+                        stepCount = 0;
+                    stepCount += steps;
+                    hasData = true;
+                }
+                if (calories != ActivitySample.NOT_MEASURED) {
+                    if (calorieCount == ActivitySample.NOT_MEASURED)
+                        calorieCount = 0;
+                    calorieCount += calories;
+                    hasData = true;
+                }
+                if (distance != ActivitySample.NOT_MEASURED) {
+                    if (distanceCount == ActivitySample.NOT_MEASURED)
+                        distanceCount = 0;
+                    distanceCount += distance;
+                    hasData = true;
+                }
+                if (spo != ActivitySample.NOT_MEASURED) {
+                    lastSpo = spo;
+                    hasData = true;
+                }
+                if (heartRate != ActivitySample.NOT_MEASURED) {
+                    lastHr = heartRate;
+                    hasData = true;
+                }
+                if (rawKind != ActivitySample.NOT_MEASURED) {
+                    if (timestamp < otherTimestamp) {
+                        // Starting of modifier
+                        stateModifier = rawKind;
+                    } else {
+                        // End of modifier, remove it if it was for the same state
+                        if (rawKind == stateModifier)
+                            stateModifier = ActivitySample.NOT_MEASURED;
+                    }
                 }
             }
         }
@@ -438,13 +526,13 @@ public class HuaweiSampleProvider extends AbstractSampleProvider<HuaweiActivityS
         if (currentIndex >= processedSamples.size())
             return;
         if (hasData || stateModifier != ActivitySample.NOT_MEASURED)
-            processedSamples.get(currentIndex).setRawIntensity(10);
-        processedSamples.get(currentIndex).setSteps(stepCount);
-        processedSamples.get(currentIndex).setCalories(calorieCount);
-        processedSamples.get(currentIndex).setDistance(distanceCount);
-        processedSamples.get(currentIndex).setSpo(lastSpo);
-        processedSamples.get(currentIndex).setHeartRate(lastHr);
-        processedSamples.get(currentIndex).setRawKind(stateModifier);
+            processedSamples.setRawIntensity(currentIndex, 10);
+        processedSamples.setSteps(currentIndex, stepCount);
+        processedSamples.setCalories(currentIndex, calorieCount);
+        processedSamples.setDistance(currentIndex, distanceCount);
+        processedSamples.setSpo(currentIndex, lastSpo);
+        processedSamples.setHeartRate(currentIndex, lastHr);
+        processedSamples.setRawKind(currentIndex, stateModifier);
     }
 
     /*
@@ -454,7 +542,7 @@ public class HuaweiSampleProvider extends AbstractSampleProvider<HuaweiActivityS
      * NOTE: Huawei devices tend to generate a lot more data - mine up to every 5 seconds. Most of
      * this is lost in the conversion to data by the minute. It only shows the most recent value.
      */
-    private void overlayWorkoutSamples(List<HuaweiActivitySample> processedSamples, int timestamp_from, int timestamp_to) {
+    private void overlayWorkoutSamples(MinuteSamples processedSamples, int timestamp_from, int timestamp_to) {
         int currentIndex = 0;
 
         int lastHr = ActivitySample.NOT_MEASURED;
@@ -466,10 +554,10 @@ public class HuaweiSampleProvider extends AbstractSampleProvider<HuaweiActivityS
             boolean inWorkout = i != 0 && workoutSamples.get(i).getWorkoutId() == workoutSamples.get(i - 1).getWorkoutId();
 
             // Skip the processed sample that are before this workout sample
-            while (workoutSamples.get(i).getTimestamp() > processedSamples.get(currentIndex).getTimestamp()) {
+            while (workoutSamples.get(i).getTimestamp() > processedSamples.getTimestamp(currentIndex)) {
                 if (inWorkout) {
-                    processedSamples.get(currentIndex).setHeartRate(lastHr);
-                    processedSamples.get(currentIndex).setRawIntensity(0);
+                    processedSamples.setHeartRate(currentIndex, lastHr);
+                    processedSamples.setRawIntensity(currentIndex, 0);
                 }
 
                 // Reset
@@ -490,8 +578,8 @@ public class HuaweiSampleProvider extends AbstractSampleProvider<HuaweiActivityS
         if (currentIndex >= processedSamples.size())
             return;
         if (lastHr != ActivitySample.NOT_MEASURED) {
-            processedSamples.get(currentIndex).setHeartRate(lastHr);
-            processedSamples.get(currentIndex).setRawIntensity(0);
+            processedSamples.setHeartRate(currentIndex, lastHr);
+            processedSamples.setRawIntensity(currentIndex, 0);
         }
     }
 
@@ -527,8 +615,8 @@ public class HuaweiSampleProvider extends AbstractSampleProvider<HuaweiActivityS
     private HuaweiActivitySample convertWorkoutSampleToActivitySample(HuaweiWorkoutDataSample workoutSample, int nextTimestamp) {
         int hr = workoutSample.getHeartRate() & 0xFF;
         HuaweiActivitySample newSample = new HuaweiActivitySample(
-                workoutSample.getTimestamp(),
                 -1,
+                workoutSample.getTimestamp(),
                 -1,
                 nextTimestamp - 1, // Just to prevent overlap causing issues
                 (byte) 0x00,
@@ -543,4 +631,137 @@ public class HuaweiSampleProvider extends AbstractSampleProvider<HuaweiActivityS
         newSample.setProvider(this);
         return newSample;
     }
+
+    /*
+     * The generated samples that the activity and workout samples are overlaid on, so that this
+     * works the same for the entities and the columns.
+     */
+    private interface MinuteSamples {
+        int size();
+
+        int getTimestamp(int i);
+
+        void setRawKind(int i, int rawKind);
+
+        void setRawIntensity(int i, int rawIntensity);
+
+        void setSteps(int i, int steps);
+
+        void setCalories(int i, int calories);
+
+        void setDistance(int i, int distance);
+
+        void setSpo(int i, int spo);
+
+        void setHeartRate(int i, int heartRate);
+    }
+
+    private static class EntityMinuteSamples implements MinuteSamples {
+        private final List<HuaweiActivitySample> samples;
+
+        private EntityMinuteSamples(List<HuaweiActivitySample> samples) {
+            this.samples = samples;
+        }
+
+        @Override
+        public int size() {
+            return samples.size();
+        }
+
+        @Override
+        public int getTimestamp(int i) {
+            return samples.get(i).getTimestamp();
+        }
+
+        @Override
+        public void setRawKind(int i, int rawKind) {
+            samples.get(i).setRawKind(rawKind);
+        }
+
+        @Override
+        public void setRawIntensity(int i, int rawIntensity) {
+            samples.get(i).setRawIntensity(rawIntensity);
+        }
+
+        @Override
+        public void setSteps(int i, int steps) {
+            samples.get(i).setSteps(steps);
+        }
+
+        @Override
+        public void setCalories(int i, int calories) {
+            samples.get(i).setCalories(calories);
+        }
+
+        @Override
+        public void setDistance(int i, int distance) {
+            samples.get(i).setDistance(distance);
+        }
+
+        @Override
+        public void setSpo(int i, int spo) {
+            samples.get(i).setSpo(spo);
+        }
+
+        @Override
+        public void setHeartRate(int i, int heartRate) {
+            samples.get(i).setHeartRate(heartRate);
+        }
+    }
+
+    /*
+     * Stores the values like the getters of HuaweiActivitySample return them. The SpO is not
+     * part of the columns.
+     */
+    private static class ColumnMinuteSamples implements MinuteSamples {
+        private final ActivitySampleColumns columns;
+
+        private ColumnMinuteSamples(ActivitySampleColumns columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public int size() {
+            return columns.size();
+        }
+
+        @Override
+        public int getTimestamp(int i) {
+            return columns.getTimestamp(i);
+        }
+
+        @Override
+        public void setRawKind(int i, int rawKind) {
+            columns.setRawKind(i, rawKind);
+        }
+
+        @Override
+        public void setRawIntensity(int i, int rawIntensity) {
+            columns.setRawIntensity(i, rawIntensity);
+        }
+
+        @Override
+        public void setSteps(int i, int steps) {
+            columns.setSteps(i, steps);
+        }
+
+        @Override
+        public void setCalories(int i, int calories) {
+            columns.setActiveCalories(i, calories);
+        }
+
+        @Override
+        public void setDistance(int i, int distance) {
+            columns.setDistanceCm(i, distance == ActivitySample.NOT_MEASURED ? ActivitySample.NOT_MEASURED : distance * 100);
+        }
+
+        @Override
+        public void setSpo(int i, int spo) {
+        }
+
+        @Override
+        public void setHeartRate(int i, int heartRate) {
+            columns.setHeartRate(i, heartRate);
+        }
+    }
 }
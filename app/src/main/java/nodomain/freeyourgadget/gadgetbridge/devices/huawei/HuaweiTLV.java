@@ -137,7 +137,7 @@ public class HuaweiTLV {
             put(tag, value);
             parsed += size;
         }
-        LOG.debug("Parsed TLV: " + this);
+        LOG.debug("Parsed TLV: {}", this);
         return this;
     }
 
@@ -155,7 +155,7 @@ public class HuaweiTLV {
         ByteBuffer buffer = ByteBuffer.allocate(length);
         for (TLV entry : valueMap)
             buffer.put(entry.serialize());
-        LOG.debug("Serialized TLV: " + this);
+        LOG.debug("Serialized TLV: {}", this);
         return buffer.array();
     }
 
@@ -365,7 +365,7 @@ public class HuaweiTLV {
     public static HuaweiTLV encryptRaw(ParamsProvider paramsProvider, byte[] data) throws CryptoException {
         byte[] key = paramsProvider.getSecretKey();
         byte[] nonce = paramsProvider.getIv();
-        byte[] encryptedTLV = HuaweiCrypto.encrypt(
+        byte[] encryptedTLV = paramsProvider.getPacketCipher().encrypt(
                 paramsProvider.getEncryptMethod() == 0x01 || paramsProvider.getDeviceSupportType() == 0x04,
                 data,
                 key,
@@ -382,19 +382,31 @@ public class HuaweiTLV {
     }
 
     public byte[] decryptRaw(ParamsProvider paramsProvider) throws CryptoException, HuaweiPacket.MissingTagException {
+        final HuaweiCrypto.PacketCipher cipher = paramsProvider.getPacketCipher();
+        synchronized (cipher) {
+            int length = decryptToBuffer(paramsProvider);
+            return Arrays.copyOf(cipher.getBuffer(), length);
+        }
+    }
+
+    public void decrypt(ParamsProvider paramsProvider) throws CryptoException, HuaweiPacket.MissingTagException {
+        final HuaweiCrypto.PacketCipher cipher = paramsProvider.getPacketCipher();
+        synchronized (cipher) {
+            int length = decryptToBuffer(paramsProvider);
+            this.valueMap = new ArrayList<>();
+            // The values are copied out of the buffer before it is reused
+            parse(cipher.getBuffer(), 0, length);
+        }
+    }
+
+    private int decryptToBuffer(ParamsProvider paramsProvider) throws CryptoException, HuaweiPacket.MissingTagException {
         byte[] key = paramsProvider.getSecretKey();
-        return HuaweiCrypto.decrypt(
+        return paramsProvider.getPacketCipher().decrypt(
                 paramsProvider.getEncryptMethod() == 0x01 || paramsProvider.getDeviceSupportType() == 0x04,
                 getBytes(CryptoTags.cipherText),
                 key,
                 getBytes(CryptoTags.initVector));
     }
-
-    public void decrypt(ParamsProvider paramsProvider) throws CryptoException, HuaweiPacket.MissingTagException {
-        byte[] decryptedTLV = decryptRaw(paramsProvider);
-        this.valueMap = new ArrayList<>();
-        parse(decryptedTLV);
-    }
 }
 
 final class VarInt {
@@ -25,6 +25,8 @@ import android.os.ParcelUuid;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -36,7 +38,6 @@ import nodomain.freeyourgadget.gadgetbridge.devices.SampleProvider;
 import nodomain.freeyourgadget.gadgetbridge.entities.DaoSession;
 import nodomain.freeyourgadget.gadgetbridge.entities.Device;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
-import nodomain.freeyourgadget.gadgetbridge.impl.GBDeviceCandidate;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivitySample;
 import nodomain.freeyourgadget.gadgetbridge.service.DeviceSupport;
 import nodomain.freeyourgadget.gadgetbridge.service.devices.id115.ID115Support;
@@ -54,13 +55,9 @@ public class ID115Coordinator extends AbstractBLEDeviceCoordinator {
     protected void deleteDevice(@NonNull GBDevice gbDevice, @NonNull Device device, @NonNull DaoSession session) throws AppException {
     }
 
-    @NonNull
     @Override
-    public boolean supports(GBDeviceCandidate candidate) {
-        if (candidate.supportsService(ID115Constants.UUID_SERVICE_ID115)) {
-            return true;
-        }
-        return false;
+    protected Set<UUID> getSupportedServiceUuids() {
+        return Collections.singleton(ID115Constants.UUID_SERVICE_ID115);
     }
 
     @Override
@@ -59,6 +59,11 @@ public class LefunSampleProvider extends AbstractSampleProvider<LefunActivitySam
         return LefunActivitySampleDao.Properties.DeviceId;
     }
 
+    @Override
+    protected boolean supportsColumnarSamples() {
+        return true;
+    }
+
     @Override
     public ActivityKind normalizeType(int rawType) {
         switch (rawType) {
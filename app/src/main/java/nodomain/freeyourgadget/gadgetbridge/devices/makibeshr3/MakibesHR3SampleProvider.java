@@ -75,4 +75,9 @@ public class MakibesHR3SampleProvider extends AbstractSampleProvider<MakibesHR3A
     protected Property getDeviceIdentifierSampleProperty() {
         return MakibesHR3ActivitySampleDao.Properties.DeviceId;
     }
+
+    @Override
+    protected boolean supportsColumnarSamples() {
+        return true;
+    }
 }
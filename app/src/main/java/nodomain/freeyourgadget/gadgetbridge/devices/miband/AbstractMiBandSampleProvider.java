@@ -66,6 +66,11 @@ public abstract class AbstractMiBandSampleProvider extends AbstractSampleProvide
         return MiBandActivitySampleDao.Properties.RawKind;
     }
 
+    @Override
+    protected boolean supportsColumnarSamples() {
+        return true;
+    }
+
     @Override
     public MiBandActivitySample createActivitySample() {
         return new MiBandActivitySample();
@@ -20,12 +20,16 @@ package nodomain.freeyourgadget.gadgetbridge.devices.miband;
 import java.util.List;
 
 import de.greenrobot.dao.query.QueryBuilder;
+import nodomain.freeyourgadget.gadgetbridge.database.DBHelper;
 import nodomain.freeyourgadget.gadgetbridge.devices.huami.HuamiConst;
 import nodomain.freeyourgadget.gadgetbridge.entities.DaoSession;
+import nodomain.freeyourgadget.gadgetbridge.entities.Device;
 import nodomain.freeyourgadget.gadgetbridge.entities.MiBandActivitySample;
 import nodomain.freeyourgadget.gadgetbridge.entities.MiBandActivitySampleDao;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityKind;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySampleColumns;
+import nodomain.freeyourgadget.gadgetbridge.model.MutableActivitySampleSequence;
 
 import static nodomain.freeyourgadget.gadgetbridge.devices.huami.HuamiConst.TYPE_IGNORE;
 import static nodomain.freeyourgadget.gadgetbridge.devices.huami.HuamiConst.TYPE_NO_CHANGE;
@@ -40,31 +44,36 @@ public class MiBand2SampleProvider extends AbstractMiBandSampleProvider {
     @Override
     protected List<MiBandActivitySample> getGBActivitySamples(int timestamp_from, int timestamp_to) {
         List<MiBandActivitySample> samples = super.getGBActivitySamples(timestamp_from, timestamp_to);
-        postprocess(samples);
+        postprocess(asSequence(samples));
         return samples;
     }
 
+    @Override
+    protected void postProcessSampleColumns(ActivitySampleColumns columns, int timestamp_from, int timestamp_to) {
+        postprocess(columns);
+    }
+
     /**
      * "Temporary" runtime post processing of activity kinds.
      */
-    private void postprocess(List<MiBandActivitySample> samples) {
+    private void postprocess(MutableActivitySampleSequence samples) {
         if (samples.isEmpty()) {
             return;
         }
 
-        int lastValidKind = determinePreviousValidActivityType(samples.get(0));
-        for (MiBandActivitySample sample : samples) {
-            int rawKind = sample.getRawKind();
+        int lastValidKind = determinePreviousValidActivityType(samples.getTimestamp(0));
+        for (int i = 0; i < samples.size(); i++) {
+            int rawKind = samples.getRawKind(i);
             if (rawKind != TYPE_UNSET) {
                 rawKind &= 0xf;
-                sample.setRawKind(rawKind);
+                samples.setRawKind(i, rawKind);
             }
 
             switch (rawKind) {
                 case TYPE_IGNORE:
                 case TYPE_NO_CHANGE:
                     if (lastValidKind != TYPE_UNSET) {
-                        sample.setRawKind(lastValidKind);
+                        samples.setRawKind(i, lastValidKind);
                     }
                     break;
                 default:
@@ -74,11 +83,14 @@ public class MiBand2SampleProvider extends AbstractMiBandSampleProvider {
         }
     }
 
-    private int determinePreviousValidActivityType(MiBandActivitySample sample) {
+    private int determinePreviousValidActivityType(int timestamp) {
+        Device dbDevice = DBHelper.findDevice(getDevice(), getSession());
+        if (dbDevice == null) {
+            return TYPE_UNSET;
+        }
         QueryBuilder<MiBandActivitySample> qb = getSampleDao().queryBuilder();
-        qb.where(MiBandActivitySampleDao.Properties.DeviceId.eq(sample.getDeviceId()),
-                MiBandActivitySampleDao.Properties.UserId.eq(sample.getUserId()),
-                MiBandActivitySampleDao.Properties.Timestamp.lt(sample.getTimestamp()),
+        qb.where(MiBandActivitySampleDao.Properties.DeviceId.eq(dbDevice.getId()),
+                MiBandActivitySampleDao.Properties.Timestamp.lt(timestamp),
                 MiBandActivitySampleDao.Properties.RawKind.notIn(TYPE_NO_CHANGE, TYPE_IGNORE, TYPE_UNSET, 16, 80, 96, 112)); // all I ever had that are 0 when doing &=0xf
         qb.orderDesc(MiBandActivitySampleDao.Properties.Timestamp);
         qb.limit(1);
@@ -59,6 +59,11 @@ public class PineTimeActivitySampleProvider extends AbstractSampleProvider<PineT
         return PineTimeActivitySampleDao.Properties.DeviceId;
     }
 
+    @Override
+    protected boolean supportsColumnarSamples() {
+        return true;
+    }
+
     @Override
     public ActivityKind normalizeType(int rawType) {
         return ActivityKind.fromCode(rawType);
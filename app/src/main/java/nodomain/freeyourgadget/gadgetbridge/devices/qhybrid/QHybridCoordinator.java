@@ -34,6 +34,8 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 import xyz.tenseventyseven.fresh.Application;
 import xyz.tenseventyseven.fresh.AppException;
@@ -49,7 +51,6 @@ import nodomain.freeyourgadget.gadgetbridge.devices.TimeSampleProvider;
 import nodomain.freeyourgadget.gadgetbridge.entities.DaoSession;
 import nodomain.freeyourgadget.gadgetbridge.entities.Device;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
-import nodomain.freeyourgadget.gadgetbridge.impl.GBDeviceCandidate;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivitySample;
 import nodomain.freeyourgadget.gadgetbridge.model.Spo2Sample;
 import nodomain.freeyourgadget.gadgetbridge.model.BatteryConfig;
@@ -62,15 +63,9 @@ import nodomain.freeyourgadget.gadgetbridge.util.Version;
 public class QHybridCoordinator extends AbstractBLEDeviceCoordinator {
     private static final Logger LOG = LoggerFactory.getLogger(QHybridCoordinator.class);
 
-    @NonNull
     @Override
-    public boolean supports(GBDeviceCandidate candidate) {
-        for(ParcelUuid uuid : candidate.getServiceUuids()){
-            if(uuid.getUuid().toString().equals("3dda0001-957f-7d4a-34a6-74696673696d")){
-                return true;
-            }
-        }
-        return false;
+    protected Set<UUID> getSupportedServiceUuids() {
+        return Collections.singleton(UUID.fromString("3dda0001-957f-7d4a-34a6-74696673696d"));
     }
 
     @NonNull
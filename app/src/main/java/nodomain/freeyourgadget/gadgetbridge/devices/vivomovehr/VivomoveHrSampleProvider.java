@@ -177,6 +177,11 @@ public class VivomoveHrSampleProvider extends AbstractSampleProvider<VivomoveHrA
         return VivomoveHrActivitySampleDao.Properties.DeviceId;
     }
 
+    @Override
+    protected boolean supportsColumnarSamples() {
+        return true;
+    }
+
     public static String rawKindToString(int rawType) {
         if (rawType == RAW_NOT_WORN) {
             return "not worn";
@@ -56,6 +56,11 @@ public class WithingsSteelHRSampleProvider extends AbstractSampleProvider<Within
         return WithingsSteelHRActivitySampleDao.Properties.DeviceId;
     }
 
+    @Override
+    protected boolean supportsColumnarSamples() {
+        return true;
+    }
+
     @Override
     public ActivityKind normalizeType(int rawType) {
         switch (rawType) {
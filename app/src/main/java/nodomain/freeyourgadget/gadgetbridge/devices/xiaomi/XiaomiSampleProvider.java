@@ -35,6 +35,8 @@ import nodomain.freeyourgadget.gadgetbridge.entities.XiaomiSleepTimeSample;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityKind;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivitySample;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySampleColumns;
+import nodomain.freeyourgadget.gadgetbridge.model.MutableActivitySampleSequence;
 import nodomain.freeyourgadget.gadgetbridge.util.RangeMap;
 
 public class XiaomiSampleProvider extends AbstractSampleProvider<XiaomiActivitySample> {
@@ -93,11 +95,21 @@ public class XiaomiSampleProvider extends AbstractSampleProvider<XiaomiActivityS
     protected List<XiaomiActivitySample> getGBActivitySamples(final int timestamp_from, final int timestamp_to) {
         final List<XiaomiActivitySample> samples = super.getGBActivitySamples(timestamp_from, timestamp_to);
 
-        overlaySleep(samples, timestamp_from, timestamp_to);
+        overlaySleep(asSequence(samples), timestamp_from, timestamp_to);
 
         return samples;
     }
 
+    @Override
+    protected boolean supportsColumnarSamples() {
+        return true;
+    }
+
+    @Override
+    protected void postProcessSampleColumns(final ActivitySampleColumns columns, final int timestamp_from, final int timestamp_to) {
+        overlaySleep(columns, timestamp_from, timestamp_to);
+    }
+
     /**
      * See {@link nodomain.freeyourgadget.gadgetbridge.service.devices.xiaomi.activity.impl.SleepDetailsParser}
      */
@@ -122,7 +134,7 @@ public class XiaomiSampleProvider extends AbstractSampleProvider<XiaomiActivityS
      * sleep time sample before the given range will be queried and included in the results if
      * found.
      */
-    public void overlaySleep(final List<XiaomiActivitySample> samples, final int timestamp_from, final int timestamp_to) {
+    public void overlaySleep(final MutableActivitySampleSequence samples, final int timestamp_from, final int timestamp_to) {
         final RangeMap<Long, ActivityKind> stagesMap = new RangeMap<>(RangeMap.Mode.LOWER_BOUND);
 
         final XiaomiSleepTimeSampleProvider sleepTimeSampleProvider = new XiaomiSleepTimeSampleProvider(getDevice(), getSession());
@@ -198,14 +210,12 @@ public class XiaomiSampleProvider extends AbstractSampleProvider<XiaomiActivityS
             //       activity files, the stages will not get overlayed/inserted and the sleep charts
             //       will stay empty.
 
-            for (final XiaomiActivitySample sample : samples) {
-                final long ts = sample.getTimestamp() * 1000L;
-                final ActivityKind sleepType = stagesMap.get(ts);
-                if (sleepType != null && !sleepType.equals(ActivityKind.UNKNOWN)) {
-                    sample.setRawKind(sleepType.getCode());
-                    sample.setRawIntensity(ActivitySample.NOT_MEASURED);
+            stagesMap.overlay(samples.size(), i -> samples.getTimestamp(i) * 1000L, (sleepType, i) -> {
+                if (!sleepType.equals(ActivityKind.UNKNOWN)) {
+                    samples.setRawKind(i, sleepType.getCode());
+                    samples.setRawIntensity(i, ActivitySample.NOT_MEASURED);
                 }
-            }
+            });
         }
     }
 }
@@ -49,6 +49,11 @@ public class XiaomiSleepStageSampleProvider extends AbstractTimeSampleProvider<X
         return XiaomiSleepStageSampleDao.Properties.DeviceId;
     }
 
+    @Override
+    protected boolean affectsDailyTotals() {
+        return true;
+    }
+
     @Override
     public XiaomiSleepStageSample createSample() {
         return new XiaomiSleepStageSample();
@@ -49,6 +49,11 @@ public class XiaomiSleepTimeSampleProvider extends AbstractTimeSampleProvider<Xi
         return XiaomiSleepTimeSampleDao.Properties.DeviceId;
     }
 
+    @Override
+    protected boolean affectsDailyTotals() {
+        return true;
+    }
+
     @Override
     public XiaomiSleepTimeSample createSample() {
         return new XiaomiSleepTimeSample();
@@ -29,7 +29,10 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 
@@ -57,6 +60,22 @@ public class GPXExporter implements ActivityTrackExporter {
 
     @Override
     public void performExport(ActivityTrack track, File targetFile) throws IOException, GPXTrackEmptyException {
+        final List<Iterator<ActivityPoint>> segments = new ArrayList<>(track.getSegments().size());
+        for (final List<ActivityPoint> segment : track.getSegments()) {
+            segments.add(segment.iterator());
+        }
+        exportDocument(track.getName(), track.getUser(), segments.iterator(), targetFile);
+    }
+
+    /**
+     * Exports the points as a single track segment, without the need to keep all of them in
+     * memory. The points must be sorted by time, oldest first.
+     */
+    public void performExport(@Nullable String name, @Nullable User user, Iterator<ActivityPoint> points, File targetFile) throws IOException, GPXTrackEmptyException {
+        exportDocument(name, user, Collections.singletonList(points).iterator(), targetFile);
+    }
+
+    private void exportDocument(@Nullable String name, @Nullable User user, Iterator<Iterator<ActivityPoint>> segments, File targetFile) throws IOException, GPXTrackEmptyException {
         String encoding = StandardCharsets.UTF_8.name();
         XmlSerializer ser = Xml.newSerializer();
         try (FileOutputStream outputStream = new FileOutputStream(targetFile)) {
@@ -76,8 +95,8 @@ public class GPXExporter implements ActivityTrackExporter {
             }
             ser.attribute(NS_XSI_URI, "schemaLocation",NS_GPX_URI + " " + TOPOGRAFIX_NAMESPACE_XSD);
 
-            exportMetadata(ser, track);
-            exportTrack(ser, track);
+            exportMetadata(ser, name, user);
+            exportTrack(ser, segments);
 
             ser.endTag(NS_GPX_URI, "gpx");
             ser.endDocument();
@@ -85,13 +104,12 @@ public class GPXExporter implements ActivityTrackExporter {
         }
     }
 
-    private void exportMetadata(XmlSerializer ser, ActivityTrack track) throws IOException {
+    private void exportMetadata(XmlSerializer ser, @Nullable String name, @Nullable User user) throws IOException {
         ser.startTag(NS_GPX_URI, "metadata");
-        if (track.getName() != null) {
-            ser.startTag(NS_GPX_URI, "name").text(track.getName()).endTag(NS_GPX_URI, "name");
+        if (name != null) {
+            ser.startTag(NS_GPX_URI, "name").text(name).endTag(NS_GPX_URI, "name");
         }
 
-        final User user = track.getUser();
         if (user != null) {
             ser.startTag(NS_GPX_URI, "author");
             ser.startTag(NS_GPX_URI, "name").text(user.getName()).endTag(NS_GPX_URI, "name");
@@ -107,24 +125,28 @@ public class GPXExporter implements ActivityTrackExporter {
         return DateTimeUtils.formatIso8601(date);
     }
 
-    private void exportTrack(XmlSerializer ser, ActivityTrack track) throws IOException, GPXTrackEmptyException {
+    private void exportTrack(XmlSerializer ser, Iterator<Iterator<ActivityPoint>> segments) throws IOException, GPXTrackEmptyException {
         String uuid = UUID.randomUUID().toString();
         ser.startTag(NS_GPX_URI, "trk");
         ser.startTag(NS_GPX_URI, "extensions");
         ser.startTag(NS_GPX_URI, OPENTRACKS_PREFIX + ":trackid").text(uuid).endTag(NS_GPX_URI, OPENTRACKS_PREFIX + ":trackid");
         ser.endTag(NS_GPX_URI, "extensions");
 
-        List<List<ActivityPoint>> segments = track.getSegments();
         boolean atLeastOnePointExported = false;
-        for (List<ActivityPoint> segment : segments) {
-            if (segment.isEmpty()) {
+        while (segments.hasNext()) {
+            final Iterator<ActivityPoint> segment = segments.next();
+            if (!segment.hasNext()) {
                 // Skip empty segments
                 continue;
             }
 
+            // heart rates are only taken from earlier points of the same segment
+            final PreviousHeartRate previousHeartRate = new PreviousHeartRate();
             ser.startTag(NS_GPX_URI, "trkseg");
-            for (ActivityPoint point : segment) {
-                atLeastOnePointExported |= exportTrackPoint(ser, point, segment);
+            while (segment.hasNext()) {
+                final ActivityPoint point = segment.next();
+                atLeastOnePointExported |= exportTrackPoint(ser, point, previousHeartRate);
+                previousHeartRate.add(point);
             }
             ser.endTag(NS_GPX_URI, "trkseg");
         }
@@ -136,7 +158,7 @@ public class GPXExporter implements ActivityTrackExporter {
         ser.endTag(NS_GPX_URI, "trk");
     }
 
-    private boolean exportTrackPoint(XmlSerializer ser, ActivityPoint point, List<ActivityPoint> trackPoints) throws IOException {
+    private boolean exportTrackPoint(XmlSerializer ser, ActivityPoint point, PreviousHeartRate previousHeartRate) throws IOException {
         GPSCoordinate location = point.getLocation();
         if (location == null) {
             return false; // skip invalid points, that just contain hr data, for example
@@ -164,14 +186,14 @@ public class GPXExporter implements ActivityTrackExporter {
             ser.startTag(NS_GPX_URI, "pdop").text(formatDouble(location.getPdop())).endTag(NS_GPX_URI, "pdop");
         }
 
-        exportTrackpointExtensions(ser, point, trackPoints);
+        exportTrackpointExtensions(ser, point, previousHeartRate);
 
         ser.endTag(NS_GPX_URI, "trkpt");
 
         return true;
     }
 
-    private void exportTrackpointExtensions(XmlSerializer ser, ActivityPoint point, List<ActivityPoint> trackPoints) throws IOException {
+    private void exportTrackpointExtensions(XmlSerializer ser, ActivityPoint point, PreviousHeartRate previousHeartRate) throws IOException {
         if (!includeHeartRate) {
             return;
         }
@@ -181,7 +203,7 @@ public class GPXExporter implements ActivityTrackExporter {
         int hr = point.getHeartRate();
         if (!HeartRateUtils.getInstance().isValidHeartRateValue(hr) && includeHeartRateOfNearestSample) {
 
-            ActivityPoint closestPointItem = findClosestSensibleActivityPoint(point.getTime(), trackPoints);
+            ActivityPoint closestPointItem = previousHeartRate.getClosestBefore(point.getTime());
             if (closestPointItem != null) {
                 hr = closestPointItem.getHeartRate();
             }
@@ -211,28 +233,6 @@ public class GPXExporter implements ActivityTrackExporter {
         ser.endTag(NS_GPX_URI, "extensions");
     }
 
-    private @Nullable ActivityPoint findClosestSensibleActivityPoint(Date time, List<ActivityPoint> trackPoints) {
-        ActivityPoint closestPointItem = null;
-        HeartRateUtils heartRateUtilsInstance = HeartRateUtils.getInstance();
-
-        long lowestDifference = 60 * 2 * 1000; // minimum distance is 2min
-        for (ActivityPoint pointItem : trackPoints) {
-            int hrItem = pointItem.getHeartRate();
-            if (heartRateUtilsInstance.isValidHeartRateValue(hrItem)) {
-                Date timeItem = pointItem.getTime();
-                if (timeItem.after(time) || timeItem.equals(time)) {
-                    break; // we assume that the given trackPoints are sorted in time ascending order (oldest first)
-                }
-                long difference = time.getTime() - timeItem.getTime();
-                if (difference < lowestDifference) {
-                    lowestDifference = difference;
-                    closestPointItem = pointItem;
-                }
-            }
-        }
-        return closestPointItem;
-    }
-
     private String formatDouble(double value) {
         return new BigDecimal(value).setScale(GPSCoordinate.GPS_DECIMAL_DEGREES_SCALE, RoundingMode.HALF_UP).toPlainString();
     }
@@ -252,4 +252,40 @@ public class GPXExporter implements ActivityTrackExporter {
     public boolean isIncludeHeartRate() {
         return includeHeartRate;
     }
+
+    /**
+     * Keeps track of the points with a valid heart rate that were exported so far, to find the
+     * closest one before a point without heart rate. Since points are sorted in time ascending
+     * order, this only needs to remember the latest ones, instead of searching all points again.
+     */
+    private static class PreviousHeartRate {
+        private static final long MAX_DIFFERENCE_MILLIS = 60 * 2 * 1000; // minimum distance is 2min
+
+        // the first point with a heart rate at the latest time
+        private ActivityPoint latest;
+        // the first point with a heart rate at the time before that
+        private ActivityPoint latestBefore;
+
+        private void add(final ActivityPoint point) {
+            if (!HeartRateUtils.getInstance().isValidHeartRateValue(point.getHeartRate())) {
+                return;
+            }
+            if (latest == null || latest.getTime().getTime() < point.getTime().getTime()) {
+                latestBefore = latest;
+                latest = point;
+            }
+        }
+
+        @Nullable
+        private ActivityPoint getClosestBefore(final Date time) {
+            ActivityPoint closest = latest;
+            if (closest != null && closest.getTime().getTime() >= time.getTime()) {
+                closest = latestBefore;
+            }
+            if (closest == null || time.getTime() - closest.getTime().getTime() >= MAX_DIFFERENCE_MILLIS) {
+                return null;
+            }
+            return closest;
+        }
+    }
 }
@@ -0,0 +1,244 @@
+package nodomain.freeyourgadget.gadgetbridge.externalevents;
+
+import static nodomain.freeyourgadget.gadgetbridge.activities.NotificationFilterActivity.NOTIFICATION_FILTER_MODE_BLACKLIST;
+import static nodomain.freeyourgadget.gadgetbridge.activities.NotificationFilterActivity.NOTIFICATION_FILTER_MODE_NONE;
+import static nodomain.freeyourgadget.gadgetbridge.activities.NotificationFilterActivity.NOTIFICATION_FILTER_MODE_WHITELIST;
+import static nodomain.freeyourgadget.gadgetbridge.activities.NotificationFilterActivity.NOTIFICATION_FILTER_SUBMODE_ALL;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.ahocorasick.trie.Emit;
+import org.ahocorasick.trie.Trie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import nodomain.freeyourgadget.gadgetbridge.database.DBHandler;
+import nodomain.freeyourgadget.gadgetbridge.entities.DaoSession;
+import nodomain.freeyourgadget.gadgetbridge.entities.NotificationFilter;
+import nodomain.freeyourgadget.gadgetbridge.entities.NotificationFilterEntry;
+import xyz.tenseventyseven.fresh.Application;
+
+/**
+ * The notification filters of all apps, compiled so that notifications are filtered without
+ * accessing the database. The words of a filter are found in a single pass over the notification
+ * text, no matter how many there are. The index is immutable, and replaced by
+ * {@link #rebuild(DaoSession)} whenever the filters change.
+ */
+public class NotificationFilterIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationFilterIndex.class);
+
+    private static volatile NotificationFilterIndex instance;
+    // changed whenever the index is replaced or discarded, so that an index loaded in the
+    // meantime by get() does not replace a newer one
+    private static int generation;
+
+    private final Map<String, Filter> filters;
+
+    public NotificationFilterIndex(final Collection<NotificationFilter> notificationFilters,
+                                   final Collection<NotificationFilterEntry> entries) {
+        final Map<Long, List<String>> wordsByFilter = new HashMap<>();
+        for (final NotificationFilterEntry entry : entries) {
+            wordsByFilter.computeIfAbsent(entry.getNotificationFilterId(), k -> new ArrayList<>())
+                    .add(entry.getNotificationFilterContent());
+        }
+
+        final Map<String, Filter> filterMap = new HashMap<>();
+        for (final NotificationFilter notificationFilter : notificationFilters) {
+            if (notificationFilter.getNotificationFilterMode() == NOTIFICATION_FILTER_MODE_NONE) {
+                // lets every notification through, like no filter
+                continue;
+            }
+            final List<String> words = wordsByFilter.get(notificationFilter.getId());
+            filterMap.put(
+                    notificationFilter.getAppIdentifier().toLowerCase(Locale.ROOT),
+                    new Filter(notificationFilter, words != null ? words : Collections.emptyList())
+            );
+        }
+        this.filters = Collections.unmodifiableMap(filterMap);
+    }
+
+    /**
+     * @return the filter of the given app, or null if its notifications are not filtered
+     */
+    @Nullable
+    public Filter getFilter(final String packageName) {
+        return filters.get(packageName.toLowerCase(Locale.ROOT));
+    }
+
+    public int size() {
+        return filters.size();
+    }
+
+    /**
+     * Returns the current index, loading it from the database the first time.
+     */
+    @NonNull
+    public static NotificationFilterIndex get() {
+        final NotificationFilterIndex index = instance;
+        if (index != null) {
+            return index;
+        }
+        final int loadGeneration;
+        synchronized (NotificationFilterIndex.class) {
+            if (instance != null) {
+                return instance;
+            }
+            loadGeneration = generation;
+        }
+        // loaded without holding the monitor, like in rebuild(), as the database might be locked
+        // by a writer that calls rebuild()
+        final NotificationFilterIndex loaded;
+        try (DBHandler db = Application.acquireDbReadOnly()) {
+            loaded = load(db.getDaoSession());
+        } catch (final Exception e) {
+            LOG.error("Could not load the notification filters", e);
+            // filter nothing, and try again with the next notification
+            return new NotificationFilterIndex(Collections.emptyList(), Collections.emptyList());
+        }
+        synchronized (NotificationFilterIndex.class) {
+            if (instance == null && generation == loadGeneration) {
+                instance = loaded;
+            }
+            return instance != null ? instance : loaded;
+        }
+    }
+
+    /**
+     * Replaces the current index by one with the filters in the database. Must be called after
+     * the filters were changed.
+     */
+    public static void rebuild(final DaoSession session) {
+        final NotificationFilterIndex index = load(session);
+        synchronized (NotificationFilterIndex.class) {
+            instance = index;
+            generation++;
+        }
+    }
+
+    /**
+     * Discards the current index, so that it is loaded again when needed, e.g. after the whole
+     * database was replaced.
+     */
+    public static void invalidate() {
+        synchronized (NotificationFilterIndex.class) {
+            instance = null;
+            generation++;
+        }
+    }
+
+    private static NotificationFilterIndex load(final DaoSession session) {
+        final long start = System.currentTimeMillis();
+        final NotificationFilterIndex index = new NotificationFilterIndex(
+                session.getNotificationFilterDao().loadAll(),
+                session.getNotificationFilterEntryDao().loadAll()
+        );
+        LOG.debug("Loaded {} notification filters in {} ms", index.size(), System.currentTimeMillis() - start);
+        return index;
+    }
+
+    public static class Filter {
+        private final int mode;
+        private final int subMode;
+        private final boolean allMode;
+        private final Set<String> words;
+        // the empty word is in every text, but can not be added to the trie
+        private final boolean hasEmptyWord;
+        private final Trie trie;
+
+        public Filter(final NotificationFilter notificationFilter, final Collection<String> wordsList) {
+            this.mode = notificationFilter.getNotificationFilterMode();
+            this.subMode = notificationFilter.getNotificationFilterSubMode();
+            this.allMode = subMode == NOTIFICATION_FILTER_SUBMODE_ALL;
+
+            final Set<String> distinctWords = new LinkedHashSet<>(wordsList);
+            this.hasEmptyWord = distinctWords.remove("");
+            this.words = Collections.unmodifiableSet(distinctWords);
+
+            final Trie.TrieBuilder builder = Trie.builder();
+            for (final String word : words) {
+                builder.addKeyword(word);
+            }
+            this.trie = builder.build();
+        }
+
+        /**
+         * Whether a notification with the given text should be processed, or is filtered out.
+         */
+        public boolean shouldContinue(final String text) {
+            LOG.debug("Mode: '{}' Submode: '{}' Words: '{}'", mode, subMode, words);
+
+            switch (mode) {
+                case NOTIFICATION_FILTER_MODE_BLACKLIST:
+                    if (allMode) {
+                        if (!containsAll(text)) {
+                            LOG.info("Not every word was found, blacklist has no effect, processing continues.");
+                            return true;
+                        }
+                        LOG.info("Every word was found, blacklist has effect, processing stops.");
+                        return false;
+                    } else {
+                        final boolean containsAny = containsAny(text);
+                        if (!containsAny) {
+                            LOG.info("No matching word was found, blacklist has no effect, processing continues.");
+                        } else {
+                            LOG.info("At least one matching word was found, blacklist has effect, processing stops.");
+                        }
+                        return !containsAny;
+                    }
+
+                case NOTIFICATION_FILTER_MODE_WHITELIST:
+                    if (allMode) {
+                        if (!containsAll(text)) {
+                            LOG.info("Not every word was found, whitelist has no effect, processing stops.");
+                            return false;
+                        }
+                        LOG.info("Every word was found, whitelist has effect, processing continues.");
+                        return true;
+                    } else {
+                        final boolean containsAny = containsAny(text);
+                        if (containsAny) {
+                            LOG.info("At least one matching word was found, whitelist has effect, processing continues.");
+                        } else {
+                            LOG.info("No matching word was found, whitelist has no effect, processing stops.");
+                        }
+                        return containsAny;
+                    }
+
+                default:
+                    return true;
+            }
+        }
+
+        boolean containsAny(final String text) {
+            if (text.isEmpty()) {
+                return false;
+            }
+            return hasEmptyWord || trie.containsMatch(text);
+        }
+
+        boolean containsAll(final String text) {
+            if (words.isEmpty()) {
+                return true;
+            }
+            final Set<String> found = new HashSet<>();
+            for (final Emit emit : trie.parseText(text)) {
+                if (found.add(emit.getKeyword()) && found.size() == words.size()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
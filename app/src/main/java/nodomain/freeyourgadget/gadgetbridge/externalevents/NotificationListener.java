@@ -60,8 +60,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -69,19 +67,17 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
-import de.greenrobot.dao.query.Query;
-import xyz.tenseventyseven.fresh.BuildConfig;
 import xyz.tenseventyseven.fresh.Application;
 import xyz.tenseventyseven.fresh.R;
-import nodomain.freeyourgadget.gadgetbridge.database.DBHandler;
 import nodomain.freeyourgadget.gadgetbridge.devices.pebble.PebbleColor;
 import nodomain.freeyourgadget.gadgetbridge.entities.NotificationFilter;
-import nodomain.freeyourgadget.gadgetbridge.entities.NotificationFilterDao;
-import nodomain.freeyourgadget.gadgetbridge.entities.NotificationFilterEntry;
-import nodomain.freeyourgadget.gadgetbridge.entities.NotificationFilterEntryDao;
 import nodomain.freeyourgadget.gadgetbridge.externalevents.notifications.GoogleMapsNotificationHandler;
+import nodomain.freeyourgadget.gadgetbridge.externalevents.notifications.NotificationPictureStore;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
 import nodomain.freeyourgadget.gadgetbridge.model.AppNotificationType;
 import nodomain.freeyourgadget.gadgetbridge.model.CallSpec;
@@ -98,9 +94,6 @@ import nodomain.freeyourgadget.gadgetbridge.util.NotificationUtils;
 import nodomain.freeyourgadget.gadgetbridge.util.PebbleUtils;
 import nodomain.freeyourgadget.gadgetbridge.util.Prefs;
 
-import static nodomain.freeyourgadget.gadgetbridge.activities.NotificationFilterActivity.NOTIFICATION_FILTER_MODE_BLACKLIST;
-import static nodomain.freeyourgadget.gadgetbridge.activities.NotificationFilterActivity.NOTIFICATION_FILTER_MODE_WHITELIST;
-import static nodomain.freeyourgadget.gadgetbridge.activities.NotificationFilterActivity.NOTIFICATION_FILTER_SUBMODE_ALL;
 import static nodomain.freeyourgadget.gadgetbridge.util.StringUtils.ensureNotNull;
 
 public class NotificationListener extends NotificationListenerService {
@@ -152,7 +145,14 @@ public class NotificationListener extends NotificationListenerService {
         add("image/webp");
     }};
 
+    // the notification pictures may take this many bytes
+    private static final long NOTIFICATION_PICTURE_CACHE_BYTES = 16 * 1024 * 1024;
+
     private File notificationPictureCacheDirectory;
+    private NotificationPictureStore notificationPictureStore;
+    private ExecutorService notificationPictureExecutor;
+    // notifications that are sent once their picture is stored, unless removed before
+    private final Set<Integer> notificationsAwaitingPicture = ConcurrentHashMap.newKeySet();
 
     private long activeCallPostTime;
     private int mLastCallCommand = CallSpec.CALL_UNDEFINED;
@@ -288,7 +288,9 @@ public class NotificationListener extends NotificationListenerService {
         filterLocal.addAction(ACTION_REPLY);
         LocalBroadcastManager.getInstance(this).registerReceiver(mReceiver, filterLocal);
         createNotificationPictureCacheDirectory();
-        cleanUpNotificationPictureProvider();
+        notificationPictureStore = new NotificationPictureStore(notificationPictureCacheDirectory, NOTIFICATION_PICTURE_CACHE_BYTES);
+        notificationPictureStore.clear();
+        notificationPictureExecutor = Executors.newSingleThreadExecutor();
     }
 
     @Override
@@ -296,7 +298,9 @@ public class NotificationListener extends NotificationListenerService {
         LocalBroadcastManager.getInstance(this).unregisterReceiver(mReceiver);
         notificationStack.clear();
         notificationsActive.clear();
-        cleanUpNotificationPictureProvider();
+        notificationsAwaitingPicture.clear();
+        notificationPictureExecutor.shutdownNow();
+        notificationPictureStore.clear();
         super.onDestroy();
     }
 
@@ -550,11 +554,61 @@ public class NotificationListener extends NotificationListenerService {
             notificationOldRepeatPrevention.put(source, notification.when);
         }
         notificationsActive.add(notificationSpec.getId());
+
+        final Bitmap picture = getNotificationPicture(notification);
+        if (picture != null) {
+            final int pictureMaxWidth = getNotificationPictureMaxWidth();
+            if (pictureMaxWidth > 0) {
+                // store the picture in the background, and send the notification once it is stored
+                notificationsAwaitingPicture.add(notificationSpec.getId());
+                notificationPictureExecutor.execute(() -> sendNotificationWithPicture(notificationSpec, picture, pictureMaxWidth));
+                return;
+            }
+            picture.recycle();
+        }
+
         // NOTE for future developers: this call goes to implementations of DeviceService.onNotification(NotificationSpec), like in GBDeviceService
         // this does NOT directly go to implementations of DeviceSupport.onNotification(NotificationSpec)!
         Application.deviceService().onNotification(notificationSpec);
     }
 
+    @Nullable
+    private static Bitmap getNotificationPicture(Notification notification) {
+        if (!notification.extras.containsKey(NotificationCompat.EXTRA_PICTURE)) {
+            return null;
+        }
+        return (Bitmap) notification.extras.get(NotificationCompat.EXTRA_PICTURE);
+    }
+
+    /**
+     * @return the width of the widest notification picture displayed by the selected devices,
+     * 0 if none of them displays notification pictures
+     */
+    private static int getNotificationPictureMaxWidth() {
+        int maxWidth = 0;
+        for (GBDevice device : Application.app().getDeviceManager().getSelectedDevices()) {
+            maxWidth = Math.max(maxWidth, device.getDeviceCoordinator().getNotificationPictureMaxWidth(device));
+        }
+        return maxWidth;
+    }
+
+    private void sendNotificationWithPicture(NotificationSpec notificationSpec, Bitmap picture, int maxWidth) {
+        try {
+            notificationSpec.picturePath = notificationPictureStore.add(notificationSpec.getId(), picture, maxWidth);
+        } catch (Exception e) {
+            LOG.error("Failed to store the picture of notification {}", notificationSpec.getId(), e);
+        } finally {
+            picture.recycle();
+        }
+
+        if (!notificationsAwaitingPicture.remove(notificationSpec.getId())) {
+            LOG.debug("Notification {} was removed before its picture was stored", notificationSpec.getId());
+            notificationPictureStore.remove(notificationSpec.getId());
+            return;
+        }
+        Application.deviceService().onNotification(notificationSpec);
+    }
+
     static boolean isOutsideNotificationTimes(final LocalTime now, final LocalTime start, final LocalTime end) {
         if (start.isBefore(end)) {
             // eg. 06:00 -> 22:00
@@ -583,46 +637,15 @@ public class NotificationListener extends NotificationListenerService {
     }
 
     private boolean checkNotificationContentForWhiteAndBlackList(String packageName, String body) {
-        long start = System.currentTimeMillis();
-
-        List<String> wordsList = new ArrayList<>();
-        NotificationFilter notificationFilter;
-
-        try (DBHandler db = Application.acquireDB()) {
-
-            NotificationFilterDao notificationFilterDao = db.getDaoSession().getNotificationFilterDao();
-            NotificationFilterEntryDao notificationFilterEntryDao = db.getDaoSession().getNotificationFilterEntryDao();
-
-            Query<NotificationFilter> query = notificationFilterDao.queryBuilder().where(NotificationFilterDao.Properties.AppIdentifier.eq(packageName.toLowerCase())).build();
-            notificationFilter = query.unique();
-
-            if (notificationFilter == null) {
-                LOG.debug("No Notification Filter found");
-                return true;
-            }
-
-            LOG.debug("Loaded notification filter for '{}'", packageName);
-            Query<NotificationFilterEntry> queryEntries = notificationFilterEntryDao.queryBuilder().where(NotificationFilterEntryDao.Properties.NotificationFilterId.eq(notificationFilter.getId())).build();
-
-            List<NotificationFilterEntry> filterEntries = queryEntries.list();
-
-            if (BuildConfig.DEBUG) {
-                LOG.info("Database lookup took '{}' ms", System.currentTimeMillis() - start);
-            }
-
-            if (!filterEntries.isEmpty()) {
-                for (NotificationFilterEntry temp : filterEntries) {
-                    wordsList.add(temp.getNotificationFilterContent());
-                    LOG.debug("Loaded filter word: " + temp.getNotificationFilterContent());
-                }
-            }
-
-        } catch (Exception e) {
-            LOG.error("Could not acquire DB.", e);
+        // the filters are kept in memory, so that notifications never wait for the database
+        NotificationFilterIndex.Filter filter = NotificationFilterIndex.get().getFilter(packageName);
+        if (filter == null) {
+            LOG.debug("No Notification Filter found");
             return true;
         }
 
-        return shouldContinueAfterFilter(body, wordsList, notificationFilter);
+        LOG.debug("Loaded notification filter for '{}'", packageName);
+        return filter.shouldContinue(body);
     }
 
     private void handleCallNotification(StatusBarNotification sbn) {
@@ -680,54 +703,7 @@ public class NotificationListener extends NotificationListenerService {
     }
 
     boolean shouldContinueAfterFilter(String body, @NonNull List<String> wordsList, @NonNull NotificationFilter notificationFilter) {
-        LOG.debug("Mode: '{}' Submode: '{}' WordsList: '{}'", notificationFilter.getNotificationFilterMode(), notificationFilter.getNotificationFilterSubMode(), wordsList);
-
-        boolean allMode = notificationFilter.getNotificationFilterSubMode() == NOTIFICATION_FILTER_SUBMODE_ALL;
-
-        switch (notificationFilter.getNotificationFilterMode()) {
-            case NOTIFICATION_FILTER_MODE_BLACKLIST:
-                if (allMode) {
-                    for (String word : wordsList) {
-                        if (!body.contains(word)) {
-                            LOG.info("Not every word was found, blacklist has no effect, processing continues.");
-                            return true;
-                        }
-                    }
-                    LOG.info("Every word was found, blacklist has effect, processing stops.");
-                    return false;
-                } else {
-                    boolean containsAny = StringUtils.containsAny(body, wordsList.toArray(new CharSequence[0]));
-                    if (!containsAny) {
-                        LOG.info("No matching word was found, blacklist has no effect, processing continues.");
-                    } else {
-                        LOG.info("At least one matching word was found, blacklist has effect, processing stops.");
-                    }
-                    return !containsAny;
-                }
-
-            case NOTIFICATION_FILTER_MODE_WHITELIST:
-                if (allMode) {
-                    for (String word : wordsList) {
-                        if (!body.contains(word)) {
-                            LOG.info("Not every word was found, whitelist has no effect, processing stops.");
-                            return false;
-                        }
-                    }
-                    LOG.info("Every word was found, whitelist has effect, processing continues.");
-                    return true;
-                } else {
-                    boolean containsAny = StringUtils.containsAny(body, wordsList.toArray(new CharSequence[0]));
-                    if (containsAny) {
-                        LOG.info("At least one matching word was found, whitelist has effect, processing continues.");
-                    } else {
-                        LOG.info("No matching word was found, whitelist has no effect, processing stops.");
-                    }
-                    return containsAny;
-                }
-
-            default:
-                return true;
-        }
+        return new NotificationFilterIndex.Filter(notificationFilter, wordsList).shouldContinue(body);
     }
 
     // Strip Unicode control sequences: some apps like Telegram add a lot of them for unknown reasons.
@@ -783,20 +759,6 @@ public class NotificationListener extends NotificationListenerService {
             }
         }
 
-        if (extras.containsKey(NotificationCompat.EXTRA_PICTURE)) {
-            final Bitmap bmp = (Bitmap) extras.get(NotificationCompat.EXTRA_PICTURE);
-            File pictureFile = new File(this.notificationPictureCacheDirectory, String.valueOf(notificationSpec.getId()));
-
-            try (FileOutputStream fos = new FileOutputStream(pictureFile)) {
-                bmp.compress(Bitmap.CompressFormat.PNG, 100, fos);
-                notificationSpec.picturePath = pictureFile.getAbsolutePath();
-            } catch (IOException e) {
-                LOG.error("Failed to save picture to notification cache: {}", e.getMessage());
-            } finally {
-                bmp.recycle();
-            }
-        }
-
         if (notificationSpec.type == NotificationType.COL_REMINDER
                 && notificationSpec.body == null
                 && notificationSpec.title != null) {
@@ -917,7 +879,8 @@ public class NotificationListener extends NotificationListenerService {
         for (int notificationId : notificationsActive) {
             if (!activeNotificationsIds.contains(notificationId)) {
                 notificationsToRemove.add(notificationId);
-                deleteNotificationPicture(notificationId);
+                notificationsAwaitingPicture.remove(notificationId);
+                notificationPictureStore.remove(notificationId);
             }
         }
 
@@ -941,22 +904,6 @@ public class NotificationListener extends NotificationListenerService {
         }
     }
 
-    private void deleteNotificationPicture(int notificationId) {
-        File pictureFile = new File(this.notificationPictureCacheDirectory, String.valueOf(notificationId));
-        if (pictureFile.exists())
-            pictureFile.delete();
-    }
-
-    private void cleanUpNotificationPictureProvider() {
-        File[] pictureFiles = this.notificationPictureCacheDirectory.listFiles();
-        if (pictureFiles == null)
-            return;
-
-        for (File pictureFile : pictureFiles) {
-            pictureFile.delete();
-        }
-    }
-
     private void createNotificationPictureCacheDirectory() {
         final File cacheDir = getApplicationContext().getExternalCacheDir();
         this.notificationPictureCacheDirectory = new File(cacheDir, "notification-pictures");
@@ -0,0 +1,185 @@
+package nodomain.freeyourgadget.gadgetbridge.externalevents.notifications;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import nodomain.freeyourgadget.gadgetbridge.util.GB;
+
+/**
+ * Stores the pictures of notifications as files, for the devices to fetch them later. Pictures are
+ * scaled down to the width the devices display, and stored once per content, no matter how many
+ * notifications show them. The files take at most a given number of bytes, the least recently
+ * used ones are deleted first.
+ * <p>
+ * {@link #add(int, Bitmap, int)} is expensive and should not be called on the main thread.
+ */
+public class NotificationPictureStore {
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationPictureStore.class);
+
+    private final File directory;
+    private final long maxBytes;
+
+    // file sizes by content hash, least recently used first
+    private final LinkedHashMap<String, Long> files = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Integer, String> notificationPictures = new HashMap<>();
+    private long totalBytes = 0;
+
+    public NotificationPictureStore(final File directory, final long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Stores the picture of a notification, unless the same picture was stored before.
+     *
+     * @param maxWidth the width to scale larger pictures down to
+     * @return the path of the picture file, or null if it could not be stored
+     */
+    @Nullable
+    public String add(final int notificationId, final Bitmap picture, final int maxWidth) {
+        final Bitmap scaled = scaleToWidth(picture, maxWidth);
+        final String hash;
+        final File file;
+        final File tempFile;
+        try {
+            hash = hash(scaled);
+            file = new File(directory, hash + ".png");
+
+            synchronized (this) {
+                if (files.get(hash) != null) {
+                    LOG.debug("Picture of notification {} is already stored as {}", notificationId, hash);
+                    notificationPictures.put(notificationId, hash);
+                    return file.getAbsolutePath();
+                }
+            }
+
+            // lossless, since the devices convert the picture to their own format anyway
+            tempFile = new File(directory, hash + ".tmp");
+            try (FileOutputStream fos = new FileOutputStream(tempFile)) {
+                scaled.compress(Bitmap.CompressFormat.PNG, 100, fos);
+            } catch (final IOException e) {
+                LOG.error("Failed to save picture to notification cache: {}", e.getMessage());
+                tempFile.delete();
+                return null;
+            }
+        } finally {
+            if (scaled != picture) {
+                scaled.recycle();
+            }
+        }
+
+        synchronized (this) {
+            if (!tempFile.renameTo(file)) {
+                LOG.error("Failed to rename {} to {}", tempFile, file);
+                tempFile.delete();
+                return null;
+            }
+            files.put(hash, file.length());
+            totalBytes += file.length();
+            notificationPictures.put(notificationId, hash);
+            evict(hash);
+        }
+        LOG.debug("Stored picture of notification {} as {}, {} bytes", notificationId, hash, file.length());
+        return file.getAbsolutePath();
+    }
+
+    /**
+     * Deletes the picture of a removed notification, unless other notifications show it.
+     */
+    public synchronized void remove(final int notificationId) {
+        final String hash = notificationPictures.remove(notificationId);
+        if (hash == null || notificationPictures.containsValue(hash)) {
+            return;
+        }
+        final Long size = files.remove(hash);
+        if (size != null) {
+            totalBytes -= size;
+            deleteFile(hash);
+        }
+    }
+
+    /**
+     * Deletes all pictures, including those of previous runs.
+     */
+    public synchronized void clear() {
+        files.clear();
+        notificationPictures.clear();
+        totalBytes = 0;
+
+        final File[] pictureFiles = directory.listFiles();
+        if (pictureFiles == null) {
+            return;
+        }
+        for (final File pictureFile : pictureFiles) {
+            pictureFile.delete();
+        }
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private void evict(final String keep) {
+        final Iterator<Map.Entry<String, Long>> it = files.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            final Map.Entry<String, Long> entry = it.next();
+            if (entry.getKey().equals(keep)) {
+                continue;
+            }
+            it.remove();
+            totalBytes -= entry.getValue();
+            deleteFile(entry.getKey());
+            notificationPictures.values().removeIf(entry.getKey()::equals);
+            LOG.debug("Evicted notification picture {}", entry.getKey());
+        }
+    }
+
+    private void deleteFile(final String hash) {
+        final File file = new File(directory, hash + ".png");
+        if (!file.delete()) {
+            LOG.warn("Failed to delete {}", file);
+        }
+    }
+
+    /**
+     * @return the picture scaled down to the given width, or the picture itself if it is not wider
+     */
+    static Bitmap scaleToWidth(final Bitmap picture, final int maxWidth) {
+        if (picture.getWidth() <= maxWidth) {
+            return picture;
+        }
+        final int height = Math.max(1, Math.round(picture.getHeight() * ((float) maxWidth / picture.getWidth())));
+        return Bitmap.createScaledBitmap(picture, maxWidth, height, true);
+    }
+
+    static String hash(final Bitmap bitmap) {
+        final ByteBuffer pixels = ByteBuffer.allocate(bitmap.getByteCount());
+        bitmap.copyPixelsToBuffer(pixels);
+        pixels.rewind();
+
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        digest.update(ByteBuffer.allocate(8).putInt(bitmap.getWidth()).putInt(bitmap.getHeight()).array());
+        digest.update(pixels);
+        return GB.hexdump(digest.digest());
+    }
+}
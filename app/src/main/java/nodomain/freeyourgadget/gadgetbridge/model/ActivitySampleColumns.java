@@ -0,0 +1,268 @@
+package nodomain.freeyourgadget.gadgetbridge.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+import nodomain.freeyourgadget.gadgetbridge.activities.charts.TrailingActivitySample;
+import nodomain.freeyourgadget.gadgetbridge.devices.SampleProvider;
+
+/**
+ * A range of activity samples, stored column by column in primitive arrays instead of one object
+ * per sample. All values are already normalized by the sample provider, and sorted by timestamp.
+ * <p>
+ * Instances can be reused for several queries - the arrays only grow, so after the first few
+ * queries no more memory is allocated.
+ * <p>
+ * Changing a raw kind or intensity normalizes it with the provider of the samples, which must
+ * have been set before.
+ */
+public class ActivitySampleColumns implements MutableActivitySampleSequence {
+    private static final int INITIAL_CAPACITY = 24 * 60;
+
+    private int size = 0;
+    private SampleProvider<?> provider;
+
+    private int[] timestamp;
+    private int[] rawKind;
+    private ActivityKind[] kind;
+    private float[] intensity;
+    private int[] steps;
+    private int[] distanceCm;
+    private int[] activeCalories;
+    private short[] heartRate;
+    private boolean[] trailing;
+
+    public ActivitySampleColumns() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public ActivitySampleColumns(final int capacity) {
+        timestamp = new int[capacity];
+        rawKind = new int[capacity];
+        kind = new ActivityKind[capacity];
+        intensity = new float[capacity];
+        steps = new int[capacity];
+        distanceCm = new int[capacity];
+        activeCalories = new int[capacity];
+        heartRate = new short[capacity];
+        trailing = new boolean[capacity];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public SampleProvider<?> getProvider() {
+        return provider;
+    }
+
+    public void setProvider(final SampleProvider<?> provider) {
+        this.provider = provider;
+    }
+
+    public void setSamples(final List<? extends ActivitySample> samples) {
+        clear();
+        ensureCapacity(samples.size());
+        for (final ActivitySample sample : samples) {
+            add(
+                    sample.getTimestamp(),
+                    sample.getRawKind(),
+                    sample.getKind(),
+                    sample.getIntensity(),
+                    sample.getSteps(),
+                    sample.getDistanceCm(),
+                    sample.getActiveCalories(),
+                    sample.getHeartRate()
+            );
+            // trailing samples only extend the range of the charts, they are not real data
+            trailing[size - 1] = sample instanceof TrailingActivitySample;
+        }
+    }
+
+    public void add(final int timestamp,
+                    final int rawKind,
+                    final ActivityKind kind,
+                    final float intensity,
+                    final int steps,
+                    final int distanceCm,
+                    final int activeCalories,
+                    final int heartRate) {
+        ensureCapacity(size + 1);
+        this.timestamp[size] = timestamp;
+        this.rawKind[size] = rawKind;
+        this.kind[size] = kind;
+        this.intensity[size] = intensity;
+        this.steps[size] = steps;
+        this.distanceCm[size] = distanceCm;
+        this.activeCalories[size] = activeCalories;
+        this.heartRate[size] = (short) heartRate;
+        this.trailing[size] = false;
+        size++;
+    }
+
+    public void ensureCapacity(final int capacity) {
+        if (capacity <= timestamp.length) {
+            return;
+        }
+        final int newCapacity = Math.max(capacity, timestamp.length + (timestamp.length >> 1));
+        timestamp = Arrays.copyOf(timestamp, newCapacity);
+        rawKind = Arrays.copyOf(rawKind, newCapacity);
+        kind = Arrays.copyOf(kind, newCapacity);
+        intensity = Arrays.copyOf(intensity, newCapacity);
+        steps = Arrays.copyOf(steps, newCapacity);
+        distanceCm = Arrays.copyOf(distanceCm, newCapacity);
+        activeCalories = Arrays.copyOf(activeCalories, newCapacity);
+        heartRate = Arrays.copyOf(heartRate, newCapacity);
+        trailing = Arrays.copyOf(trailing, newCapacity);
+    }
+
+    /**
+     * Rearranges the rows and inserts rows without data in between.
+     * @param order the new rows: the index of an existing row, or the bitwise complement
+     *              ({@code ~timestamp}) of the timestamp of a new row
+     * @param count the number of new rows in the order
+     * @param dummyRawKind the raw kind of the new rows
+     * @param dummyRawIntensity the raw intensity of the new rows
+     */
+    public void reorder(final int[] order, final int count, final int dummyRawKind, final int dummyRawIntensity) {
+        final int[] oldTimestamp = timestamp;
+        final int[] oldRawKind = rawKind;
+        final ActivityKind[] oldKind = kind;
+        final float[] oldIntensity = intensity;
+        final int[] oldSteps = steps;
+        final int[] oldDistanceCm = distanceCm;
+        final int[] oldActiveCalories = activeCalories;
+        final short[] oldHeartRate = heartRate;
+        final boolean[] oldTrailing = trailing;
+
+        final int capacity = Math.max(count, timestamp.length);
+        timestamp = new int[capacity];
+        rawKind = new int[capacity];
+        kind = new ActivityKind[capacity];
+        intensity = new float[capacity];
+        steps = new int[capacity];
+        distanceCm = new int[capacity];
+        activeCalories = new int[capacity];
+        heartRate = new short[capacity];
+        trailing = new boolean[capacity];
+
+        final ActivityKind dummyKind = provider.normalizeType(dummyRawKind);
+        final float dummyIntensity = provider.normalizeIntensity(dummyRawIntensity);
+        for (int i = 0; i < count; i++) {
+            final int row = order[i];
+            if (row >= 0) {
+                timestamp[i] = oldTimestamp[row];
+                rawKind[i] = oldRawKind[row];
+                kind[i] = oldKind[row];
+                intensity[i] = oldIntensity[row];
+                steps[i] = oldSteps[row];
+                distanceCm[i] = oldDistanceCm[row];
+                activeCalories[i] = oldActiveCalories[row];
+                heartRate[i] = oldHeartRate[row];
+                trailing[i] = oldTrailing[row];
+            } else {
+                timestamp[i] = ~row;
+                rawKind[i] = dummyRawKind;
+                kind[i] = dummyKind;
+                intensity[i] = dummyIntensity;
+                steps[i] = ActivitySample.NOT_MEASURED;
+                distanceCm[i] = ActivitySample.NOT_MEASURED;
+                activeCalories[i] = ActivitySample.NOT_MEASURED;
+                heartRate[i] = ActivitySample.NOT_MEASURED;
+                trailing[i] = false;
+            }
+        }
+        size = count;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int getTimestamp(final int i) {
+        return timestamp[i];
+    }
+
+    @Override
+    public int getRawKind(final int i) {
+        return rawKind[i];
+    }
+
+    @Override
+    public ActivityKind getKind(final int i) {
+        return kind[i];
+    }
+
+    @Override
+    public float getIntensity(final int i) {
+        return intensity[i];
+    }
+
+    @Override
+    public int getSteps(final int i) {
+        return steps[i];
+    }
+
+    @Override
+    public int getDistanceCm(final int i) {
+        return distanceCm[i];
+    }
+
+    @Override
+    public int getActiveCalories(final int i) {
+        return activeCalories[i];
+    }
+
+    @Override
+    public int getHeartRate(final int i) {
+        return heartRate[i];
+    }
+
+    @Override
+    public boolean isTrailing(final int i) {
+        return trailing[i];
+    }
+
+    @Override
+    public void setTimestamp(final int i, final int timestamp) {
+        this.timestamp[i] = timestamp;
+    }
+
+    @Override
+    public void setRawKind(final int i, final int rawKind) {
+        this.rawKind[i] = rawKind;
+        this.kind[i] = provider.normalizeType(rawKind);
+    }
+
+    @Override
+    public void setRawIntensity(final int i, final int rawIntensity) {
+        this.intensity[i] = provider.normalizeIntensity(rawIntensity);
+    }
+
+    @Override
+    public void setSteps(final int i, final int steps) {
+        this.steps[i] = steps;
+    }
+
+    @Override
+    public void setDistanceCm(final int i, final int distanceCm) {
+        this.distanceCm[i] = distanceCm;
+    }
+
+    @Override
+    public void setActiveCalories(final int i, final int activeCalories) {
+        this.activeCalories[i] = activeCalories;
+    }
+
+    @Override
+    public void setHeartRate(final int i, final int heartRate) {
+        this.heartRate[i] = (short) heartRate;
+    }
+}
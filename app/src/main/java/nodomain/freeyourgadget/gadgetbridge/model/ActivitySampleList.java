@@ -0,0 +1,76 @@
+package nodomain.freeyourgadget.gadgetbridge.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import nodomain.freeyourgadget.gadgetbridge.activities.charts.TrailingActivitySample;
+
+/**
+ * An {@link ActivitySampleSequence} backed by a list of samples.
+ */
+public class ActivitySampleList<S extends ActivitySample> implements ActivitySampleSequence {
+    private final List<? extends S> samples;
+
+    /**
+     * @param samples the samples, which are only copied if the list does not support fast random
+     *                access
+     */
+    public ActivitySampleList(final List<? extends S> samples) {
+        this.samples = samples instanceof RandomAccess ? samples : new ArrayList<>(samples);
+    }
+
+    protected S get(final int i) {
+        return samples.get(i);
+    }
+
+    @Override
+    public int size() {
+        return samples.size();
+    }
+
+    @Override
+    public int getTimestamp(final int i) {
+        return get(i).getTimestamp();
+    }
+
+    @Override
+    public int getRawKind(final int i) {
+        return get(i).getRawKind();
+    }
+
+    @Override
+    public ActivityKind getKind(final int i) {
+        return get(i).getKind();
+    }
+
+    @Override
+    public float getIntensity(final int i) {
+        return get(i).getIntensity();
+    }
+
+    @Override
+    public int getSteps(final int i) {
+        return get(i).getSteps();
+    }
+
+    @Override
+    public int getDistanceCm(final int i) {
+        return get(i).getDistanceCm();
+    }
+
+    @Override
+    public int getActiveCalories(final int i) {
+        return get(i).getActiveCalories();
+    }
+
+    @Override
+    public int getHeartRate(final int i) {
+        return get(i).getHeartRate();
+    }
+
+    @Override
+    public boolean isTrailing(final int i) {
+        return get(i) instanceof TrailingActivitySample;
+    }
+}
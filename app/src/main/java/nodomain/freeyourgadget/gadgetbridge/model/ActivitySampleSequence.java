@@ -0,0 +1,47 @@
+package nodomain.freeyourgadget.gadgetbridge.model;
+
+import java.util.List;
+
+import nodomain.freeyourgadget.gadgetbridge.activities.charts.TrailingActivitySample;
+
+/**
+ * Read access to the normalized values of a range of activity samples by index, sorted by
+ * timestamp. This lets the analyses go through samples in entities and in
+ * {@link ActivitySampleColumns} with the same code.
+ */
+public interface ActivitySampleSequence {
+    int size();
+
+    int getTimestamp(int i);
+
+    int getRawKind(int i);
+
+    ActivityKind getKind(int i);
+
+    float getIntensity(int i);
+
+    int getSteps(int i);
+
+    int getDistanceCm(int i);
+
+    int getActiveCalories(int i);
+
+    int getHeartRate(int i);
+
+    /**
+     * Whether the sample was only added to extend a chart to the requested range (see
+     * {@link TrailingActivitySample}), and has a meaningless timestamp.
+     */
+    boolean isTrailing(int i);
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Wraps a list of samples, without copying it unless it does not support fast random access.
+     */
+    static ActivitySampleSequence of(final List<? extends ActivitySample> samples) {
+        return new ActivitySampleList<>(samples);
+    }
+}
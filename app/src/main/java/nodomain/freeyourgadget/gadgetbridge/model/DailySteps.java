@@ -0,0 +1,141 @@
+package nodomain.freeyourgadget.gadgetbridge.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+
+/**
+ * The steps of each local day in a time zone, ordered by day. Days without steps are not stored.
+ * The days are bucketed with the UTC offset in effect at each sample, so days around daylight
+ * saving changes are 23 or 25 hours long, like the days of {@link DailyTotals}.
+ */
+public class DailySteps {
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final ZoneId zone;
+    private final ZoneRules rules;
+
+    private int size = 0;
+    private long[] epochDays = new long[INITIAL_CAPACITY];
+    private long[] steps = new long[INITIAL_CAPACITY];
+
+    // the UTC offset of the last sample, and the instants until which it is valid
+    private long offsetValidFrom = Long.MAX_VALUE;
+    private long offsetValidUntil = Long.MIN_VALUE;
+    private int offsetSeconds;
+
+    public DailySteps(final ZoneId zone) {
+        this.zone = zone;
+        this.rules = zone.getRules();
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Adds the steps of a sample to the local day of its timestamp.
+     */
+    public void addSample(final int timestamp, final long sampleSteps) {
+        if (sampleSteps <= 0) {
+            return;
+        }
+        if (timestamp < offsetValidFrom || timestamp >= offsetValidUntil) {
+            updateOffset(timestamp);
+        }
+        addDay(Math.floorDiv(timestamp + offsetSeconds, SECONDS_PER_DAY), sampleSteps);
+    }
+
+    /**
+     * Adds steps to the given day, counted in days since 1970-01-01 like
+     * {@link LocalDate#toEpochDay()}.
+     */
+    public void addDay(final long epochDay, final long daySteps) {
+        if (daySteps <= 0) {
+            return;
+        }
+        if (size > 0 && epochDays[size - 1] == epochDay) {
+            steps[size - 1] += daySteps;
+            return;
+        }
+        if (size == 0 || epochDays[size - 1] < epochDay) {
+            ensureCapacity(size + 1);
+            epochDays[size] = epochDay;
+            steps[size] = daySteps;
+            size++;
+            return;
+        }
+
+        // out of order, e.g. a time zone that moves the clock back over midnight
+        final int i = Arrays.binarySearch(epochDays, 0, size, epochDay);
+        if (i >= 0) {
+            steps[i] += daySteps;
+            return;
+        }
+        final int insertAt = -i - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(epochDays, insertAt, epochDays, insertAt + 1, size - insertAt);
+        System.arraycopy(steps, insertAt, steps, insertAt + 1, size - insertAt);
+        epochDays[insertAt] = epochDay;
+        steps[insertAt] = daySteps;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getEpochDay(final int i) {
+        return epochDays[i];
+    }
+
+    public LocalDate getDate(final int i) {
+        return LocalDate.ofEpochDay(epochDays[i]);
+    }
+
+    public long getSteps(final int i) {
+        return steps[i];
+    }
+
+    /**
+     * @return the steps of the given day, 0 if there are none
+     */
+    public long getSteps(final LocalDate date) {
+        final int i = Arrays.binarySearch(epochDays, 0, size, date.toEpochDay());
+        return i >= 0 ? steps[i] : 0;
+    }
+
+    public long getTotalSteps() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += steps[i];
+        }
+        return total;
+    }
+
+    private void updateOffset(final long timestamp) {
+        final Instant instant = Instant.ofEpochSecond(timestamp);
+        offsetSeconds = rules.getOffset(instant).getTotalSeconds();
+        final ZoneOffsetTransition previous = rules.previousTransition(instant.plusSeconds(1));
+        final ZoneOffsetTransition next = rules.nextTransition(instant);
+        offsetValidFrom = previous != null ? previous.toEpochSecond() : Long.MIN_VALUE;
+        offsetValidUntil = next != null ? next.toEpochSecond() : Long.MAX_VALUE;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity <= epochDays.length) {
+            return;
+        }
+        final int newCapacity = Math.max(capacity, epochDays.length * 2);
+        epochDays = Arrays.copyOf(epochDays, newCapacity);
+        steps = Arrays.copyOf(steps, newCapacity);
+    }
+}
@@ -21,23 +21,35 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import xyz.tenseventyseven.fresh.Application;
 import nodomain.freeyourgadget.gadgetbridge.activities.charts.ActivityAnalysis;
 import nodomain.freeyourgadget.gadgetbridge.database.DBHandler;
+import nodomain.freeyourgadget.gadgetbridge.database.DBHelper;
 import nodomain.freeyourgadget.gadgetbridge.devices.AbstractTimeSampleProvider;
 import nodomain.freeyourgadget.gadgetbridge.devices.DefaultRestingMetabolicRateProvider;
 import nodomain.freeyourgadget.gadgetbridge.devices.DeviceCoordinator;
 import nodomain.freeyourgadget.gadgetbridge.devices.SampleProvider;
 import nodomain.freeyourgadget.gadgetbridge.entities.AbstractActivitySample;
+import nodomain.freeyourgadget.gadgetbridge.entities.DailyTotalsCache;
+import nodomain.freeyourgadget.gadgetbridge.entities.DailyTotalsCacheDao;
+import nodomain.freeyourgadget.gadgetbridge.entities.DaoSession;
+import nodomain.freeyourgadget.gadgetbridge.entities.Device;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
 
 
 public class DailyTotals implements Serializable {
     private static final Logger LOG = LoggerFactory.getLogger(DailyTotals.class);
 
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+    // The sleep of a day is taken from the 12 hours before it
+    private static final int SLEEP_OFFSET_HOURS = -12;
+
     private final long steps;
     private final long distance;
     private final long activeCalories;
@@ -77,6 +89,22 @@ public class DailyTotals implements Serializable {
         return sleep[0] + sleep[1] + sleep[2];
     }
 
+    public long getLightSleep() {
+        return sleep[0];
+    }
+
+    public long getDeepSleep() {
+        return sleep[1];
+    }
+
+    public long getRemSleep() {
+        return sleep[2];
+    }
+
+    public long getAwakeSleep() {
+        return sleep[3];
+    }
+
     public static DailyTotals getDailyTotalsForDevice(GBDevice device, Calendar day) {
 
         try (DBHandler handler = Application.acquireDB()) {
@@ -87,29 +115,171 @@ public class DailyTotals implements Serializable {
         }
     }
 
+    /**
+     * Get the totals of a day. Totals of finished days are read from the ones persisted in the
+     * background (see {@link DailyTotalsWorker}), and only computed from the samples if there are
+     * none. Does not write to the database.
+     */
     public static DailyTotals getDailyTotalsForDevice(GBDevice device, Calendar day, DBHandler handler) {
+        final DaoSession session = handler.getDaoSession();
+        final long totalRestingCalories = getRestingCaloriesOfDay(handler, day, device);
+
+        DailyTotalsCache totals = null;
+        final Device dbDevice = DBHelper.findDevice(device, session);
+        if (dbDevice != null) {
+            totals = session.getDailyTotalsCacheDao().queryBuilder()
+                    .where(
+                            DailyTotalsCacheDao.Properties.DeviceId.eq(dbDevice.getId()),
+                            DailyTotalsCacheDao.Properties.DayStart.eq(getStartOfDay(day))
+                    ).unique();
+        }
+        if (totals == null) {
+            totals = computeTotals(session, device, day);
+        }
+
+        // Purposely not including awake sleep
+        final long[] sleep = new long[]{totals.getLightSleep(), totals.getDeepSleep(), totals.getRemSleep(), totals.getAwakeSleep()};
+        return new DailyTotals(totals.getSteps(), totals.getDistance(), sleep, totals.getActiveCalories(), totalRestingCalories);
+    }
+
+    /**
+     * Invalidate the persisted totals of all finished days whose totals may include samples in the
+     * given range, and schedule {@link DailyTotalsWorker} to compute them again. Must be called by
+     * the sample providers after writing samples that the totals depend on, in the session of the
+     * write.
+     *
+     * @param tsFrom start of the range, in seconds since epoch
+     * @param tsTo   end of the range, in seconds since epoch
+     */
+    public static void invalidate(final DaoSession session, final GBDevice device, final int tsFrom, final int tsTo) {
+        final long now = System.currentTimeMillis() / 1000L;
+        final Calendar day = Calendar.getInstance();
+        day.setTimeInMillis(tsFrom * 1000L);
+        final int firstDayStart = getStartOfDay(day);
+        // A sample affects the day it is in, and the following one if it is in the sleep window
+        final int lastDayStart = tsTo - SLEEP_OFFSET_HOURS * 3600;
+
+        if (firstDayStart + SECONDS_PER_DAY > now) {
+            // Only finished days are persisted, nothing to invalidate - avoid the query for live samples
+            return;
+        }
+
+        final Device dbDevice = DBHelper.findDevice(device, session);
+        if (dbDevice == null) {
+            return;
+        }
+
+        session.getDailyTotalsCacheDao().queryBuilder()
+                .where(
+                        DailyTotalsCacheDao.Properties.DeviceId.eq(dbDevice.getId()),
+                        DailyTotalsCacheDao.Properties.DayStart.between(firstDayStart, lastDayStart)
+                ).buildDelete().executeDeleteWithoutDetachingEntities();
+
+        DailyTotalsWorker.schedule(Application.getContext());
+    }
+
+    /**
+     * Get the finished days of the device without persisted totals, from the day of its first
+     * sample on. These are the days whose samples changed, and the days before the totals were
+     * persisted at all.
+     *
+     * @return the start of each day, in seconds since epoch
+     */
+    public static List<Integer> getDaysWithoutTotals(final DaoSession session, final GBDevice device) {
+        final List<Integer> days = new ArrayList<>();
+        final Device dbDevice = DBHelper.findDevice(device, session);
+        if (dbDevice == null) {
+            return days;
+        }
+        final SampleProvider<? extends AbstractActivitySample> provider = device.getDeviceCoordinator().getSampleProvider(device, session);
+        final AbstractActivitySample firstSample = provider.getFirstActivitySample();
+        if (firstSample == null) {
+            return days;
+        }
+
+        final Set<Integer> persistedDays = new HashSet<>();
+        final List<DailyTotalsCache> persistedTotals = session.getDailyTotalsCacheDao().queryBuilder()
+                .where(DailyTotalsCacheDao.Properties.DeviceId.eq(dbDevice.getId()))
+                .list();
+        for (final DailyTotalsCache totals : persistedTotals) {
+            persistedDays.add(totals.getDayStart());
+        }
+
+        final long now = System.currentTimeMillis() / 1000L;
+        final Calendar day = Calendar.getInstance();
+        day.setTimeInMillis(firstSample.getTimestamp() * 1000L);
+        for (int dayStart = getStartOfDay(day); dayStart + SECONDS_PER_DAY <= now; dayStart = getStartOfDay(day)) {
+            if (!persistedDays.contains(dayStart)) {
+                days.add(dayStart);
+            }
+            day.add(Calendar.DATE, 1);
+        }
+        return days;
+    }
+
+    /**
+     * Compute and persist the totals of a finished day.
+     *
+     * @param dayStart start of the day, in seconds since epoch
+     */
+    public static void update(final DaoSession session, final GBDevice device, final int dayStart) {
+        final Device dbDevice = DBHelper.findDevice(device, session);
+        if (dbDevice == null) {
+            return;
+        }
+        final Calendar day = Calendar.getInstance();
+        day.setTimeInMillis(dayStart * 1000L);
+        final DailyTotalsCache totals = computeTotals(session, device, day);
+        totals.setDeviceId(dbDevice.getId());
+        totals.setDayStart(dayStart);
+        session.getDailyTotalsCacheDao().insertOrReplace(totals);
+    }
+
+    private static DailyTotalsCache computeTotals(final DaoSession session, final GBDevice device, final Calendar day) {
         ActivityAnalysis analysis = new ActivityAnalysis();
         ActivityAmounts totalAmounts;
         ActivityAmounts amountsSleep;
 
-        totalAmounts = analysis.calculateActivityAmounts(getSamplesOfDay(handler, day, 0, device));
-        amountsSleep = analysis.calculateActivityAmounts(getSamplesOfDay(handler, day, -12, device));
+        final SampleProvider<? extends AbstractActivitySample> provider = device.getDeviceCoordinator().getSampleProvider(device, session);
+        if (provider.hasActivitySampleColumns()) {
+            // Both ranges are analysed one after the other, so the same columns can be reused
+            final ActivitySampleColumns columns = new ActivitySampleColumns();
+            totalAmounts = analysis.calculateActivityAmounts(getSampleColumnsOfDay(provider, day, 0, columns));
+            amountsSleep = analysis.calculateActivityAmounts(getSampleColumnsOfDay(provider, day, SLEEP_OFFSET_HOURS, columns));
+        } else {
+            totalAmounts = analysis.calculateActivityAmounts(getSamplesOfDay(provider, day, 0));
+            amountsSleep = analysis.calculateActivityAmounts(getSamplesOfDay(provider, day, SLEEP_OFFSET_HOURS));
+        }
 
         long[] sleep = getTotalsSleepForActivityAmounts(amountsSleep);
 
         long totalSteps = 0;
         long totalDistance = 0;
         long totalActiveCalories = 0;
-        long totalRestingCalories = 0;
         for (ActivityAmount amount : totalAmounts.getAmounts()) {
             totalSteps += amount.getTotalSteps();
             totalDistance += amount.getTotalDistance();
             totalActiveCalories += amount.getTotalActiveCalories();
         }
-        totalRestingCalories = getRestingCaloriesOfDay(handler, day, device);
 
-        // Purposely not including awake sleep
-        return new DailyTotals(totalSteps, totalDistance, sleep, totalActiveCalories, totalRestingCalories);
+        final DailyTotalsCache totals = new DailyTotalsCache();
+        totals.setSteps(totalSteps);
+        totals.setDistance(totalDistance);
+        totals.setActiveCalories(totalActiveCalories);
+        totals.setLightSleep(sleep[0]);
+        totals.setDeepSleep(sleep[1]);
+        totals.setRemSleep(sleep[2]);
+        totals.setAwakeSleep(sleep[3]);
+        return totals;
+    }
+
+    private static int getStartOfDay(Calendar day) {
+        day = (Calendar) day.clone(); // do not modify the caller's argument
+        day.set(Calendar.HOUR_OF_DAY, 0);
+        day.set(Calendar.MINUTE, 0);
+        day.set(Calendar.SECOND, 0);
+        day.set(Calendar.MILLISECOND, 0);
+        return (int) (day.getTimeInMillis() / 1000);
     }
 
     private static long[] getTotalsSleepForActivityAmounts(ActivityAmounts activityAmounts) {
@@ -135,20 +305,23 @@ public class DailyTotals implements Serializable {
         return new long[]{totalMinutesLightSleep, totalMinutesDeepSleep, totalMinutesRemSleep, totalMinutesAwakeSleep};
     }
 
-    private static List<? extends ActivitySample> getSamplesOfDay(DBHandler db, Calendar day, int offsetHours, GBDevice device) {
-        int startTs;
-        int endTs;
+    private static List<? extends ActivitySample> getSamplesOfDay(SampleProvider<? extends AbstractActivitySample> provider, Calendar day, int offsetHours) {
+        final int startTs = getStartOfRange(day, offsetHours);
+        return provider.getAllActivitySamples(startTs, startTs + 24 * 60 * 60 - 1);
+    }
+
+    private static ActivitySampleColumns getSampleColumnsOfDay(SampleProvider<? extends AbstractActivitySample> provider, Calendar day, int offsetHours, ActivitySampleColumns columns) {
+        final int startTs = getStartOfRange(day, offsetHours);
+        return provider.getAllActivitySampleColumns(startTs, startTs + 24 * 60 * 60 - 1, columns);
+    }
 
+    private static int getStartOfRange(Calendar day, int offsetHours) {
         day = (Calendar) day.clone(); // do not modify the caller's argument
         day.set(Calendar.HOUR_OF_DAY, 0);
         day.set(Calendar.MINUTE, 0);
         day.set(Calendar.SECOND, 0);
         day.add(Calendar.HOUR, offsetHours);
-
-        startTs = (int) (day.getTimeInMillis() / 1000);
-        endTs = startTs + 24 * 60 * 60 - 1;
-
-        return getSamples(db, device, startTs, endTs);
+        return (int) (day.getTimeInMillis() / 1000);
     }
 
     private static int getRestingCaloriesOfDay(DBHandler db, Calendar day, GBDevice device) {
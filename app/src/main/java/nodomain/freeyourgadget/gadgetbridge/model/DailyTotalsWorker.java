@@ -0,0 +1,83 @@
+package nodomain.freeyourgadget.gadgetbridge.model;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import nodomain.freeyourgadget.gadgetbridge.database.DBHandler;
+import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
+import xyz.tenseventyseven.fresh.Application;
+
+/**
+ * Computes and persists the {@link DailyTotals} of the finished days that have none, i.e. the days
+ * whose samples changed and the days from before the totals were persisted.
+ * <p>
+ * Each day is computed with its own database lock, so that the writers are not blocked for long.
+ */
+public class DailyTotalsWorker extends Worker {
+    private static final Logger LOG = LoggerFactory.getLogger(DailyTotalsWorker.class);
+
+    private static final String WORK_NAME = "daily_totals";
+    // Samples arrive in many small batches during a fetch, compute the totals once it is done
+    private static final long DELAY_SECONDS = 60;
+
+    public DailyTotalsWorker(@NonNull final Context context,
+                             @NonNull final WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    /**
+     * Schedules the computation, or postpones it if it is already scheduled.
+     */
+    public static void schedule(final Context context) {
+        final OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(DailyTotalsWorker.class)
+                .setInitialDelay(DELAY_SECONDS, TimeUnit.SECONDS)
+                .build();
+        // Replacing also stops a running worker, which would miss days invalidated behind it
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.REPLACE, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        for (final GBDevice device : Application.app().getDeviceManager().getDevices()) {
+            if (!device.getDeviceCoordinator().supportsActivityTracking()) {
+                continue;
+            }
+
+            final List<Integer> days;
+            try (DBHandler handler = Application.acquireDB()) {
+                days = DailyTotals.getDaysWithoutTotals(handler.getDaoSession(), device);
+            } catch (final Exception e) {
+                LOG.error("Failed to get the days without totals of {}", device, e);
+                return Result.failure();
+            }
+
+            LOG.debug("Computing the totals of {} days of {}", days.size(), device);
+
+            for (final int dayStart : days) {
+                if (isStopped()) {
+                    return Result.success();
+                }
+                try (DBHandler handler = Application.acquireDB()) {
+                    DailyTotals.update(handler.getDaoSession(), device, dayStart);
+                } catch (final Exception e) {
+                    LOG.error("Failed to compute the totals of {} for {}", device, dayStart, e);
+                }
+            }
+        }
+
+        return Result.success();
+    }
+}
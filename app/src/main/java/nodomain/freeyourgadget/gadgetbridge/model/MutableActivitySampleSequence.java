@@ -0,0 +1,22 @@
+package nodomain.freeyourgadget.gadgetbridge.model;
+
+/**
+ * An {@link ActivitySampleSequence} whose raw values can be changed, so that sample providers
+ * can post-process entities and {@link ActivitySampleColumns} with the same code. Changing a
+ * raw value also changes the normalized one.
+ */
+public interface MutableActivitySampleSequence extends ActivitySampleSequence {
+    void setTimestamp(int i, int timestamp);
+
+    void setRawKind(int i, int rawKind);
+
+    void setRawIntensity(int i, int rawIntensity);
+
+    void setSteps(int i, int steps);
+
+    void setDistanceCm(int i, int distanceCm);
+
+    void setActiveCalories(int i, int activeCalories);
+
+    void setHeartRate(int i, int heartRate);
+}
@@ -0,0 +1,147 @@
+package nodomain.freeyourgadget.gadgetbridge.model;
+
+import androidx.annotation.Nullable;
+
+import java.time.LocalDate;
+
+/**
+ * The streaks of consecutive days that reached a step goal, and the totals of all days, computed
+ * in a single pass over {@link DailySteps}. A day reaches the goal if it has steps, and at least
+ * as many as the goal. Today not reaching the goal does not end a streak, since the steps may
+ * still come later in the day.
+ */
+public class StepStreaks {
+    public static class Streak {
+        private LocalDate start;
+        private int days;
+        private long steps;
+
+        /**
+         * @return the first day of the streak, null if there is no streak
+         */
+        @Nullable
+        public LocalDate getStart() {
+            return start;
+        }
+
+        public int getDays() {
+            return days;
+        }
+
+        public long getSteps() {
+            return steps;
+        }
+
+        private void set(final Streak other) {
+            start = other.start;
+            days = other.days;
+            steps = other.steps;
+        }
+    }
+
+    private final Streak current = new Streak();
+    private final Streak longest = new Streak();
+    private long totalSteps;
+    private int stepDays;
+    private int goalDays;
+    private LocalDate firstStepDay;
+
+    private StepStreaks() {
+    }
+
+    /**
+     * @param days  the steps of each day
+     * @param goal  the steps a day needs to be part of a streak
+     * @param today the last day to consider, later days are ignored
+     */
+    public static StepStreaks calculate(final DailySteps days, final long goal, final LocalDate today) {
+        final StepStreaks result = new StepStreaks();
+        final long todayEpochDay = today.toEpochDay();
+        final long dayGoal = Math.max(goal, 1);
+
+        final Streak run = new Streak();
+        long lastGoalDay = Long.MIN_VALUE;
+        for (int i = 0; i < days.size(); i++) {
+            final long epochDay = days.getEpochDay(i);
+            if (epochDay > todayEpochDay) {
+                break;
+            }
+            final long steps = days.getSteps(i);
+
+            result.totalSteps += steps;
+            result.stepDays++;
+            if (result.firstStepDay == null) {
+                result.firstStepDay = LocalDate.ofEpochDay(epochDay);
+            }
+
+            if (steps >= dayGoal) {
+                result.goalDays++;
+                if (run.days > 0 && epochDay != lastGoalDay + 1) {
+                    // a day without steps in between
+                    result.endRun(run);
+                }
+                if (run.days == 0) {
+                    run.start = LocalDate.ofEpochDay(epochDay);
+                }
+                run.days++;
+                run.steps += steps;
+                lastGoalDay = epochDay;
+            } else if (epochDay != todayEpochDay) {
+                result.endRun(run);
+            }
+        }
+
+        if (run.days > 0 && lastGoalDay >= todayEpochDay - 1) {
+            result.current.set(run);
+        }
+        result.endRun(run);
+        return result;
+    }
+
+    private void endRun(final Streak run) {
+        // among streaks of the same length, the most recent one is the longest
+        if (run.days > 0 && run.days >= longest.days) {
+            longest.set(run);
+        }
+        run.start = null;
+        run.days = 0;
+        run.steps = 0;
+    }
+
+    /**
+     * @return the streak that ends today or yesterday, empty if there is none
+     */
+    public Streak getCurrent() {
+        return current;
+    }
+
+    public Streak getLongest() {
+        return longest;
+    }
+
+    public long getTotalSteps() {
+        return totalSteps;
+    }
+
+    /**
+     * @return the number of days with steps
+     */
+    public int getStepDays() {
+        return stepDays;
+    }
+
+    /**
+     * @return the number of days that reached the goal
+     */
+    public int getGoalDays() {
+        return goalDays;
+    }
+
+    /**
+     * @return the first day with steps, null if there are none
+     */
+    @Nullable
+    public LocalDate getFirstStepDay() {
+        return firstStepDay;
+    }
+}
@@ -0,0 +1,293 @@
+package nodomain.freeyourgadget.gadgetbridge.service.btle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
+import nodomain.freeyourgadget.gadgetbridge.util.LatencyHistogram;
+
+/**
+ * Metrics of the BLE transactions of a device, recorded by its {@link BtLEQueue}: how long
+ * transactions wait in the queue, how long each kind of action takes, failures and retries, and
+ * the write throughput per characteristic.
+ * <p>
+ * The metrics are kept per device address for the lifetime of the process, so that they survive
+ * reconnections. All latencies are in microseconds. Memory use is fixed per device, action type
+ * and characteristic.
+ */
+public class BtLEMetrics {
+    private static final Map<String, BtLEMetrics> METRICS_BY_ADDRESS = new ConcurrentHashMap<>();
+
+    private static final String CSV_HEADER = "device,address,metric,count,min_us,mean_us,p50_us,p90_us,p99_us,max_us,bytes,bytes_per_second";
+
+    private final String address;
+    private volatile String deviceName;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong transactions = new AtomicLong();
+    private final AtomicLong abortedTransactions = new AtomicLong();
+    private final AtomicLong failedActions = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram transactionDuration = new LatencyHistogram();
+    private final Map<String, LatencyHistogram> actionLatency = new ConcurrentHashMap<>();
+    private final Map<UUID, WriteThroughputCounter> writeThroughput = new ConcurrentHashMap<>();
+
+    private final WriteThroughputCounter serializedWrites = new WriteThroughputCounter("serialized writes");
+    private final WriteThroughputCounter pipelinedWrites = new WriteThroughputCounter("pipelined writes");
+
+    private BtLEMetrics(final String address, final String deviceName) {
+        this.address = address;
+        this.deviceName = deviceName;
+    }
+
+    public static BtLEMetrics forDevice(final GBDevice device) {
+        final BtLEMetrics metrics = METRICS_BY_ADDRESS.computeIfAbsent(
+                device.getAddress(),
+                address -> new BtLEMetrics(address, device.getAliasOrName())
+        );
+        metrics.deviceName = device.getAliasOrName();
+        return metrics;
+    }
+
+    public static Collection<BtLEMetrics> getAll() {
+        return new ArrayList<>(METRICS_BY_ADDRESS.values());
+    }
+
+    public static void resetAll() {
+        for (final BtLEMetrics metrics : METRICS_BY_ADDRESS.values()) {
+            metrics.reset();
+        }
+    }
+
+    /**
+     * Returns the metrics of all devices as CSV, one line per metric.
+     */
+    public static String toCsv() {
+        final StringBuilder sb = new StringBuilder(CSV_HEADER).append('\n');
+        for (final BtLEMetrics metrics : getAll()) {
+            metrics.appendCsv(sb);
+        }
+        return sb.toString();
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    void recordQueueDepth(final int depth) {
+        queueDepth.set(depth);
+        int max = maxQueueDepth.get();
+        while (depth > max && !maxQueueDepth.compareAndSet(max, depth)) {
+            max = maxQueueDepth.get();
+        }
+    }
+
+    void recordQueueWait(final long nanos) {
+        queueWait.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    void recordTransaction(final long nanos, final boolean aborted) {
+        transactions.incrementAndGet();
+        if (aborted) {
+            abortedTransactions.incrementAndGet();
+        }
+        transactionDuration.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    void recordAction(final BtLEAction action, final long nanos, final boolean success) {
+        if (!success) {
+            failedActions.incrementAndGet();
+        }
+        LatencyHistogram histogram = actionLatency.get(getActionName(action));
+        if (histogram == null) {
+            histogram = actionLatency.computeIfAbsent(getActionName(action), name -> new LatencyHistogram());
+        }
+        histogram.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    void recordWrite(final UUID characteristic, final long bytes, final long packets, final long nanos) {
+        WriteThroughputCounter counter = writeThroughput.get(characteristic);
+        if (counter == null) {
+            counter = writeThroughput.computeIfAbsent(characteristic, uuid -> new WriteThroughputCounter(uuid.toString()));
+        }
+        counter.record(bytes, packets, nanos);
+    }
+
+    void recordRetry() {
+        retries.incrementAndGet();
+    }
+
+    public WriteThroughputCounter getSerializedWrites() {
+        return serializedWrites;
+    }
+
+    public WriteThroughputCounter getPipelinedWrites() {
+        return pipelinedWrites;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public long getTransactions() {
+        return transactions.get();
+    }
+
+    public long getAbortedTransactions() {
+        return abortedTransactions.get();
+    }
+
+    public long getFailedActions() {
+        return failedActions.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    public LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    public LatencyHistogram getTransactionDuration() {
+        return transactionDuration;
+    }
+
+    public Map<String, LatencyHistogram> getActionLatency() {
+        return new TreeMap<>(actionLatency);
+    }
+
+    public void reset() {
+        maxQueueDepth.set(queueDepth.get());
+        transactions.set(0);
+        abortedTransactions.set(0);
+        failedActions.set(0);
+        retries.set(0);
+        queueWait.reset();
+        transactionDuration.reset();
+        actionLatency.clear();
+        writeThroughput.clear();
+        serializedWrites.reset();
+        pipelinedWrites.reset();
+    }
+
+    private static String getActionName(final BtLEAction action) {
+        final String name = action.getClass().getSimpleName();
+        // anonymous actions have no simple name
+        return name.isEmpty() ? action.getClass().getName() : name;
+    }
+
+    private void appendCsv(final StringBuilder sb) {
+        appendCsvCounter(sb, "queue_depth", getQueueDepth());
+        appendCsvCounter(sb, "max_queue_depth", getMaxQueueDepth());
+        appendCsvCounter(sb, "transactions", getTransactions());
+        appendCsvCounter(sb, "aborted_transactions", getAbortedTransactions());
+        appendCsvCounter(sb, "failed_actions", getFailedActions());
+        appendCsvCounter(sb, "retries", getRetries());
+        appendCsvHistogram(sb, "queue_wait", queueWait);
+        appendCsvHistogram(sb, "transaction", transactionDuration);
+        for (final Map.Entry<String, LatencyHistogram> e : getActionLatency().entrySet()) {
+            appendCsvHistogram(sb, "action:" + e.getKey(), e.getValue());
+        }
+        appendCsvThroughput(sb, "writes:serialized", serializedWrites);
+        appendCsvThroughput(sb, "writes:pipelined", pipelinedWrites);
+        for (final Map.Entry<UUID, WriteThroughputCounter> e : new TreeMap<>(writeThroughput).entrySet()) {
+            appendCsvThroughput(sb, "writes:" + e.getKey(), e.getValue());
+        }
+    }
+
+    private void appendCsvPrefix(final StringBuilder sb, final String metric) {
+        sb.append(csvEscape(deviceName)).append(',')
+                .append(address).append(',')
+                .append(metric).append(',');
+    }
+
+    private void appendCsvCounter(final StringBuilder sb, final String metric, final long value) {
+        appendCsvPrefix(sb, metric);
+        sb.append(value).append(",,,,,,,,\n");
+    }
+
+    private void appendCsvHistogram(final StringBuilder sb, final String metric, final LatencyHistogram histogram) {
+        appendCsvPrefix(sb, metric);
+        sb.append(String.format(
+                Locale.ROOT,
+                "%d,%d,%.1f,%d,%d,%d,%d,,\n",
+                histogram.getCount(),
+                histogram.getMin(),
+                histogram.getMean(),
+                histogram.getValueAtPercentile(50),
+                histogram.getValueAtPercentile(90),
+                histogram.getValueAtPercentile(99),
+                histogram.getMax()
+        ));
+    }
+
+    private void appendCsvThroughput(final StringBuilder sb, final String metric, final WriteThroughputCounter counter) {
+        appendCsvPrefix(sb, metric);
+        sb.append(String.format(
+                Locale.ROOT,
+                "%d,,,,,,,%d,%.1f\n",
+                counter.getPackets(),
+                counter.getBytes(),
+                counter.getBytesPerSecond()
+        ));
+    }
+
+    private static String csvEscape(final String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(deviceName).append(" (").append(address).append(")\n");
+        sb.append(String.format(
+                Locale.ROOT,
+                "queue depth %d (max %d), %d transactions, %d aborted, %d failed actions, %d retries\n",
+                getQueueDepth(),
+                getMaxQueueDepth(),
+                getTransactions(),
+                getAbortedTransactions(),
+                getFailedActions(),
+                getRetries()
+        ));
+        sb.append("queue wait (us): ").append(queueWait).append('\n');
+        sb.append("transaction (us): ").append(transactionDuration).append('\n');
+        for (final Map.Entry<String, LatencyHistogram> e : getActionLatency().entrySet()) {
+            sb.append(e.getKey()).append(" (us): ").append(e.getValue()).append('\n');
+        }
+        sb.append(serializedWrites).append('\n');
+        sb.append(pipelinedWrites).append('\n');
+        final List<WriteThroughputCounter> counters = new ArrayList<>(new TreeMap<>(writeThroughput).values());
+        for (final WriteThroughputCounter counter : counters) {
+            sb.append(counter).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -46,12 +46,14 @@ import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import xyz.tenseventyseven.fresh.Application;
 import xyz.tenseventyseven.fresh.Logging;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice.State;
 import nodomain.freeyourgadget.gadgetbridge.service.DeviceSupport;
+import nodomain.freeyourgadget.gadgetbridge.service.btle.actions.PipelinedWriteAction;
 import nodomain.freeyourgadget.gadgetbridge.service.btle.actions.WriteAction;
 
 /**
@@ -61,6 +63,17 @@ import nodomain.freeyourgadget.gadgetbridge.service.btle.actions.WriteAction;
 public final class BtLEQueue {
     private static final Logger LOG = LoggerFactory.getLogger(BtLEQueue.class);
 
+    private static final int DEFAULT_MTU = 23;
+    /**
+     * BluetoothGatt rejects a write while the previous one on the connection was not reported by
+     * onCharacteristicWrite yet, so there is one write credit. For writes without response, the
+     * stack reports them as soon as it buffered the packet, not when the device received it.
+     */
+    private static final int PIPELINED_WRITE_CREDITS = 1;
+    private static final long PIPELINED_WRITE_CREDIT_TIMEOUT_MILLIS = 5000;
+    private static final int PIPELINED_WRITE_BUSY_RETRIES = 50;
+    private static final long PIPELINED_WRITE_BUSY_RETRY_MILLIS = 5;
+
     private final Object mGattMonitor = new Object();
     private final GBDevice mGbDevice;
     private final BluetoothAdapter mBluetoothAdapter;
@@ -86,6 +99,11 @@ public final class BtLEQueue {
     private boolean scanReconnect;
     private boolean mImplicitGattCallbackModify = true;
     private boolean mSendWriteRequestResponse = false;
+    private volatile int mMtu = DEFAULT_MTU;
+
+    private final WriteCredits mWriteCredits = new WriteCredits(PIPELINED_WRITE_CREDITS);
+    private volatile PipelinedWriteAction mPipelinedWrite;
+    private final BtLEMetrics mMetrics;
 
     private Thread dispatchThread = new Thread("Gadgetbridge GATT Dispatcher") {
 
@@ -96,6 +114,7 @@ public final class BtLEQueue {
             while (!mDisposed && !mCrashed) {
                 try {
                     AbstractTransaction qTransaction = mTransactions.take();
+                    mMetrics.recordQueueDepth(mTransactions.size());
 
                     if (!isConnected()) {
                         LOG.debug("not connected, waiting for connection...");
@@ -149,20 +168,18 @@ public final class BtLEQueue {
                             internalGattCallback.setTransactionGattCallback(transaction.getGattCallback());
                         }
                         mAbortTransaction = false;
+                        final long transactionStart = System.nanoTime();
+                        mMetrics.recordQueueWait(transactionStart - transaction.getEnqueuedNanos());
+                        boolean aborted = false;
                         // Run all actions of the transaction until one doesn't succeed
                         for (BtLEAction action : transaction.getActions()) {
                             if (mAbortTransaction) { // got disconnected
                                 LOG.info("Aborting running transaction");
+                                aborted = true;
                                 break;
                             }
-                            while ((action instanceof WriteAction) && mPauseTransaction && !mAbortTransaction) {
-                              LOG.info("Pausing WriteAction");
-                              try {
-                                  Thread.sleep(100);
-                              } catch (Exception e) {
-                                  LOG.info("Exception during pause: {}", e);
-                                  break;
-                              }
+                            if (action instanceof WriteAction || action instanceof PipelinedWriteAction) {
+                                waitWhilePaused();
                             }
                             mWaitCharacteristic = action.getCharacteristic();
                             mWaitForActionResultLatch = new CountDownLatch(1);
@@ -174,21 +191,43 @@ public final class BtLEQueue {
                                 // always be the last action in the transaction
                                 internalGattCallback.setTransactionGattCallback(((GattListenerAction) action).getGattCallback());
                             }
+                            final long actionStart = System.nanoTime();
                             if (action.run(mBluetoothGatt)) {
+                                if (action instanceof PipelinedWriteAction) {
+                                    final boolean success = runPipelinedWrite((PipelinedWriteAction) action, mBluetoothGatt);
+                                    mMetrics.recordAction(action, System.nanoTime() - actionStart, success);
+                                    if (!success) {
+                                        LOG.error("Pipelined write failed: {}", action);
+                                        aborted = true;
+                                        break; // abort the transaction
+                                    }
+                                    continue;
+                                }
                                 // check again, maybe due to some condition, action did not need to write, so we can't wait
                                 boolean waitForResult = action.expectsResult();
                                 if (waitForResult) {
                                     mWaitForActionResultLatch.await();
                                     mWaitForActionResultLatch = null;
-                                    if (mAbortTransaction) {
-                                        break;
-                                    }
+                                }
+                                final long actionDuration = System.nanoTime() - actionStart;
+                                mMetrics.recordAction(action, actionDuration, !mAbortTransaction);
+                                if (waitForResult && action instanceof WriteAction) {
+                                    final int length = ((WriteAction) action).getValue().length;
+                                    mMetrics.getSerializedWrites().record(length, 1, actionDuration);
+                                    mMetrics.recordWrite(action.getCharacteristic().getUuid(), length, 1, actionDuration);
+                                }
+                                if (waitForResult && mAbortTransaction) {
+                                    aborted = true;
+                                    break;
                                 }
                             } else {
+                                mMetrics.recordAction(action, System.nanoTime() - actionStart, false);
                                 LOG.error("Action returned false: {}", action);
+                                aborted = true;
                                 break; // abort the transaction
                             }
                         }
+                        mMetrics.recordTransaction(System.nanoTime() - transactionStart, aborted);
                     }
                 } catch (InterruptedException ignored) {
                     mConnectionLatch = null;
@@ -206,6 +245,104 @@ public final class BtLEQueue {
         }
     };
 
+    private void waitWhilePaused() {
+        while (mPauseTransaction && !mAbortTransaction) {
+            LOG.info("Pausing WriteAction");
+            try {
+                Thread.sleep(100);
+            } catch (Exception e) {
+                LOG.info("Exception during pause: {}", e);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Writes all packets of the given action, each one as soon as the stack returned the write
+     * credit of the previous one, instead of going through the dispatch loop for every packet.
+     *
+     * @return true if all packets were written
+     */
+    boolean runPipelinedWrite(final PipelinedWriteAction action, final BluetoothGatt gatt) throws InterruptedException {
+        if (gatt == null) {
+            return false;
+        }
+        final long start = System.nanoTime();
+        mWaitCharacteristic = null;
+        mWriteCredits.reset();
+        mPipelinedWrite = action;
+        try {
+            int busyRetries = 0;
+            while (!action.isDone()) {
+                waitWhilePaused();
+                if (!mWriteCredits.acquire(PIPELINED_WRITE_CREDIT_TIMEOUT_MILLIS)) {
+                    LOG.error("No write credit after {} of {} bytes, aborted: {}", action.getBytesWritten(), action.getLength(), mAbortTransaction);
+                    return false;
+                }
+                if (mAbortTransaction) {
+                    return false;
+                }
+                if (action.writeNextChunk(gatt, mMtu - 3) < 0) {
+                    // The stack is still busy, eg. with a write of another app - there will be no
+                    // callback for this packet, so return its credit and try again shortly
+                    mWriteCredits.release();
+                    mMetrics.recordRetry();
+                    if (++busyRetries > PIPELINED_WRITE_BUSY_RETRIES) {
+                        LOG.error("Stack did not accept packet after {} retries", busyRetries);
+                        return false;
+                    }
+                    Thread.sleep(PIPELINED_WRITE_BUSY_RETRY_MILLIS);
+                } else {
+                    busyRetries = 0;
+                }
+            }
+
+            // Wait for the last packets, so that the next action does not find the stack busy
+            if (!mWriteCredits.awaitAll(PIPELINED_WRITE_CREDIT_TIMEOUT_MILLIS)) {
+                LOG.error("Last packets were not written, aborted: {}", mAbortTransaction);
+                return false;
+            }
+            return !mAbortTransaction;
+        } finally {
+            mPipelinedWrite = null;
+            action.finish();
+            final long elapsed = System.nanoTime() - start;
+            mMetrics.getPipelinedWrites().record(action.getBytesWritten(), action.getPacketCount(), elapsed);
+            mMetrics.recordWrite(action.getCharacteristic().getUuid(), action.getBytesWritten(), action.getPacketCount(), elapsed);
+            LOG.debug(
+                    "Pipelined {} bytes in {} packets in {}ms",
+                    action.getBytesWritten(),
+                    action.getPacketCount(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsed)
+            );
+        }
+    }
+
+    /**
+     * Returns the write credit of a packet of the running pipelined write.
+     *
+     * @return false if the write was not for the running pipelined write
+     */
+    boolean handlePipelinedWriteResult(final BluetoothGattCharacteristic characteristic, final int status) {
+        final PipelinedWriteAction pipelinedWrite = mPipelinedWrite;
+        if (pipelinedWrite == null || !characteristic.getUuid().equals(pipelinedWrite.getCharacteristic().getUuid())) {
+            return false;
+        }
+        if (status != BluetoothGatt.GATT_SUCCESS) {
+            LOG.debug("failed pipelined write, aborting transaction: {} (failed: {})", characteristic.getUuid(), status);
+            mAbortTransaction = true;
+            mWriteCredits.abort();
+        }
+        if (!mWriteCredits.release()) {
+            LOG.warn("Write of {} reported without a packet in flight", characteristic.getUuid());
+        }
+        return true;
+    }
+
+    WriteCredits getWriteCredits() {
+        return mWriteCredits;
+    }
+
     public BtLEQueue(BluetoothAdapter bluetoothAdapter, GBDevice gbDevice, GattCallback externalGattCallback, GattServerCallback externalGattServerCallback, Context context, Set<BluetoothGattService> supportedServerServices) {
         mBluetoothAdapter = bluetoothAdapter;
         mGbDevice = gbDevice;
@@ -213,6 +350,7 @@ public final class BtLEQueue {
         internalGattServerCallback = new InternalGattServerCallback(externalGattServerCallback);
         mContext = context;
         mSupportedServerServices = supportedServerServices;
+        mMetrics = BtLEMetrics.forDevice(gbDevice);
 
         dispatchThread.start();
     }
@@ -233,6 +371,20 @@ public final class BtLEQueue {
         mSendWriteRequestResponse = enable;
     }
 
+    /**
+     * Returns the MTU negotiated for the current connection.
+     */
+    public int getMtu() {
+        return mMtu;
+    }
+
+    /**
+     * Returns the metrics of the transactions of this device, which outlive the queue.
+     */
+    public BtLEMetrics getMetrics() {
+        return mMetrics;
+    }
+
     private boolean isConnected() {
         if (mGbDevice.isConnected()) {
             return true;
@@ -312,6 +464,8 @@ public final class BtLEQueue {
             if (gatt != null) {
                 mBluetoothGatt = null;
                 LOG.info("Disconnecting BtLEQueue from GATT device");
+                // The closed connection does not report the packets in flight anymore
+                mWriteCredits.abort();
                 gatt.disconnect();
                 gatt.close();
                 setDeviceConnectionState(State.NOT_CONNECTED);
@@ -333,9 +487,11 @@ public final class BtLEQueue {
         mPauseTransaction = false;
         mAbortTransaction = true;
         mAbortServerTransaction = true;
+        mMtu = DEFAULT_MTU;
         if (mWaitForActionResultLatch != null) {
             mWaitForActionResultLatch.countDown();
         }
+        mWriteCredits.abort();
         if (mWaitForServerActionResultLatch != null) {
             mWaitForServerActionResultLatch.countDown();
         }
@@ -406,7 +562,9 @@ public final class BtLEQueue {
     public void add(Transaction transaction) {
         LOG.debug("about to add: {}", transaction);
         if (!transaction.isEmpty()) {
+            transaction.markEnqueued();
             mTransactions.add(transaction);
+            mMetrics.recordQueueDepth(mTransactions.size());
         }
     }
 
@@ -418,6 +576,7 @@ public final class BtLEQueue {
         if (mWaitForActionResultLatch != null) {
             mWaitForActionResultLatch.countDown();
         }
+        mWriteCredits.abort();
     }
 
     /**
@@ -428,7 +587,9 @@ public final class BtLEQueue {
     public void add(ServerTransaction transaction) {
         LOG.debug("about to add: {}", transaction);
         if(!transaction.isEmpty()) {
+            transaction.markEnqueued();
             mTransactions.add(transaction);
+            mMetrics.recordQueueDepth(mTransactions.size());
         }
     }
 
@@ -444,8 +605,10 @@ public final class BtLEQueue {
             //mTransactions.drainTo(tail);
             tail.addAll(mTransactions);
             mTransactions.clear();
+            transaction.markEnqueued();
             mTransactions.add(transaction);
             mTransactions.addAll(tail);
+            mMetrics.recordQueueDepth(mTransactions.size());
         }
     }
 
@@ -589,6 +752,9 @@ public final class BtLEQueue {
             if (getCallbackToUse() != null) {
                 getCallbackToUse().onCharacteristicWrite(gatt, characteristic, status);
             }
+            if (handlePipelinedWriteResult(characteristic, status)) {
+                return;
+            }
             checkWaitingCharacteristic(characteristic, status);
         }
 
@@ -600,6 +766,10 @@ public final class BtLEQueue {
 
             LOG.debug("mtu changed to {}{}", mtu, getStatusString(status));
 
+            if (status == BluetoothGatt.GATT_SUCCESS) {
+                mMtu = mtu;
+            }
+
             if(getCallbackToUse() != null){
                 getCallbackToUse().onMtuChanged(gatt, mtu, status);
             }
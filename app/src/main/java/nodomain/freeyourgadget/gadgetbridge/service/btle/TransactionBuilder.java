@@ -32,6 +32,7 @@ import java.util.Arrays;
 import nodomain.freeyourgadget.gadgetbridge.service.btle.actions.BondAction;
 import nodomain.freeyourgadget.gadgetbridge.service.btle.actions.FunctionAction;
 import nodomain.freeyourgadget.gadgetbridge.service.btle.actions.NotifyAction;
+import nodomain.freeyourgadget.gadgetbridge.service.btle.actions.PipelinedWriteAction;
 import nodomain.freeyourgadget.gadgetbridge.service.btle.actions.ReadAction;
 import nodomain.freeyourgadget.gadgetbridge.service.btle.actions.RequestConnectionPriorityAction;
 import nodomain.freeyourgadget.gadgetbridge.service.btle.actions.RequestMtuAction;
@@ -77,6 +78,21 @@ public class TransactionBuilder {
         return this;
     }
 
+    /**
+     * Writes the data as a run of write-without-response packets, each as large as the negotiated
+     * MTU allows, but at most maxChunkSize bytes. The packets are sent as fast as the Bluetooth
+     * stack accepts them instead of one action at a time, see {@link PipelinedWriteAction}.
+     *
+     * @param maxChunkSize the maximum size of each packet, or 0 to only limit it by the MTU
+     */
+    public TransactionBuilder writePipelined(BluetoothGattCharacteristic characteristic, byte[] data, int maxChunkSize) {
+        if (characteristic == null) {
+            LOG.warn("Unable to write characteristic: null");
+            return this;
+        }
+        return add(new PipelinedWriteAction(characteristic, data, maxChunkSize));
+    }
+
     public TransactionBuilder requestMtu(int mtu){
         return add(
                 new RequestMtuAction(mtu)
@@ -0,0 +1,96 @@
+package nodomain.freeyourgadget.gadgetbridge.service.btle;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the packets of a pipelined write that the Bluetooth stack has not reported as written
+ * yet. A credit is taken before each packet and returned exactly once, either by the write
+ * callback of the packet or when the stack did not accept it, so the packets in flight never
+ * exceed the capacity. Aborting wakes up the writer instead of returning credits.
+ */
+final class WriteCredits {
+    private final int capacity;
+    private int inFlight;
+    private boolean aborted;
+
+    WriteCredits(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Forgets the packets in flight and a previous abort, before the next pipelined write.
+     */
+    synchronized void reset() {
+        inFlight = 0;
+        aborted = false;
+    }
+
+    /**
+     * Takes a credit for the next packet, waiting for the write callback of a previous one if
+     * there is none left.
+     *
+     * @return false if no credit was returned in time, or the write was aborted
+     */
+    synchronized boolean acquire(final long timeoutMillis) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (inFlight >= capacity && !aborted) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        if (aborted) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Returns the credit of a packet that was written, or that the stack did not accept.
+     *
+     * @return false if there was no packet in flight, ie. the callback was not for one of ours
+     */
+    synchronized boolean release() {
+        if (inFlight == 0) {
+            return false;
+        }
+        inFlight--;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Waits until all packets in flight were reported as written.
+     *
+     * @return false if they were not in time, or the write was aborted
+     */
+    synchronized boolean awaitAll(final long timeoutMillis) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (inFlight > 0 && !aborted) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return !aborted;
+    }
+
+    /**
+     * Makes the writer stop waiting, eg. on disconnection.
+     */
+    synchronized void abort() {
+        aborted = true;
+        notifyAll();
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,62 @@
+package nodomain.freeyourgadget.gadgetbridge.service.btle;
+
+import java.util.Locale;
+
+/**
+ * Counts the bytes and packets written to a device, and the time spent waiting for the writes
+ * to complete, so that different write modes can be compared. Thread-safe.
+ */
+public class WriteThroughputCounter {
+    private final String name;
+
+    private long bytes;
+    private long packets;
+    private long nanos;
+
+    public WriteThroughputCounter(final String name) {
+        this.name = name;
+    }
+
+    public synchronized void record(final long bytes, final long packets, final long nanos) {
+        this.bytes += bytes;
+        this.packets += packets;
+        this.nanos += nanos;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized long getPackets() {
+        return packets;
+    }
+
+    public synchronized long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Returns the average throughput while writing, in bytes per second.
+     */
+    public synchronized double getBytesPerSecond() {
+        return nanos == 0 ? 0 : bytes * 1_000_000_000.0 / nanos;
+    }
+
+    public synchronized void reset() {
+        bytes = 0;
+        packets = 0;
+        nanos = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(
+                Locale.ROOT,
+                "%s: %d bytes in %d packets, %.1f kB/s",
+                name,
+                bytes,
+                packets,
+                getBytesPerSecond() / 1024
+        );
+    }
+}
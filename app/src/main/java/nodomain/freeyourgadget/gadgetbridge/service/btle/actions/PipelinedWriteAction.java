@@ -0,0 +1,130 @@
+package nodomain.freeyourgadget.gadgetbridge.service.btle.actions;
+
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCharacteristic;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import nodomain.freeyourgadget.gadgetbridge.service.btle.BtLEAction;
+import nodomain.freeyourgadget.gadgetbridge.service.btle.BtLEQueue;
+
+/**
+ * Writes a (usually large) block of data to a characteristic as a run of write-without-response
+ * packets. Unlike a series of {@link WriteAction}s, the packets are not dispatched one action
+ * at a time: {@link BtLEQueue} pumps them as fast as the Bluetooth stack hands out write
+ * credits, see {@link #writeNextChunk(BluetoothGatt, int)}.
+ * <p>
+ * The packets are at most as large as the negotiated MTU allows, and never larger than the
+ * given maximum chunk size. This is opt-in, since not all devices cope with data arriving
+ * this quickly.
+ */
+public class PipelinedWriteAction extends BtLEAction {
+    private static final Logger LOG = LoggerFactory.getLogger(PipelinedWriteAction.class);
+
+    private final byte[] data;
+    private final int maxChunkSize;
+
+    private int offset;
+    private int packets;
+    private int originalWriteType;
+
+    /**
+     * @param maxChunkSize the maximum size of each packet, or 0 to only limit it by the MTU
+     */
+    public PipelinedWriteAction(final BluetoothGattCharacteristic characteristic, final byte[] data, final int maxChunkSize) {
+        super(characteristic);
+        this.data = data;
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    /**
+     * Prepares the characteristic for the packets, which are then written by
+     * {@link #writeNextChunk(BluetoothGatt, int)}.
+     */
+    @Override
+    public boolean run(final BluetoothGatt gatt) {
+        final BluetoothGattCharacteristic characteristic = getCharacteristic();
+        final int properties = characteristic.getProperties();
+        if ((properties & BluetoothGattCharacteristic.PROPERTY_WRITE_NO_RESPONSE) == 0) {
+            if ((properties & BluetoothGattCharacteristic.PROPERTY_WRITE) == 0) {
+                return false;
+            }
+            LOG.warn("{} does not support write without response, packets will be acknowledged", characteristic.getUuid());
+        }
+
+        offset = 0;
+        packets = 0;
+        originalWriteType = characteristic.getWriteType();
+        if ((properties & BluetoothGattCharacteristic.PROPERTY_WRITE_NO_RESPONSE) != 0) {
+            characteristic.setWriteType(BluetoothGattCharacteristic.WRITE_TYPE_NO_RESPONSE);
+        }
+        return true;
+    }
+
+    /**
+     * Writes the next packet.
+     *
+     * @param maxPayload the maximum payload the negotiated MTU allows
+     * @return the number of bytes written, 0 when done, or -1 if the stack did not accept the
+     * packet - it can be retried with the same arguments
+     */
+    public int writeNextChunk(final BluetoothGatt gatt, final int maxPayload) {
+        if (offset >= data.length) {
+            return 0;
+        }
+
+        int length = Math.min(data.length - offset, maxPayload);
+        if (maxChunkSize > 0) {
+            length = Math.min(length, maxChunkSize);
+        }
+
+        final byte[] chunk = new byte[length];
+        System.arraycopy(data, offset, chunk, 0, length);
+
+        final BluetoothGattCharacteristic characteristic = getCharacteristic();
+        if (!characteristic.setValue(chunk) || !gatt.writeCharacteristic(characteristic)) {
+            return -1;
+        }
+
+        offset += length;
+        packets++;
+        return length;
+    }
+
+    /**
+     * Restores the write type of the characteristic, for the actions that follow.
+     */
+    public void finish() {
+        getCharacteristic().setWriteType(originalWriteType);
+    }
+
+    public boolean isDone() {
+        return offset >= data.length;
+    }
+
+    public int getPacketCount() {
+        return packets;
+    }
+
+    public int getBytesWritten() {
+        return offset;
+    }
+
+    public int getLength() {
+        return data.length;
+    }
+
+    /**
+     * The packets are paced by the queue, which waits for the write credits itself.
+     */
+    @Override
+    public boolean expectsResult() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + ", " + data.length + " bytes pipelined";
+    }
+}
@@ -10,6 +10,8 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.widget.Toast;
 
+import androidx.annotation.Nullable;
+
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -86,17 +88,24 @@ class BangleJSActivityTrack {
 
     private static int lastPacketCount = -1;
     static JSONObject handleActTrk(JSONObject json, GBDevice device, Context context) throws JSONException {
+        return handleActTrk(
+                json.has("cnt") ? json.getInt("cnt") : 0,
+                json.getString("log"),
+                json.has("lines") ? json.getString("lines") : null,
+                device,
+                context
+        );
+    }
+
+    /**
+     * @param lines the lines of the csv, or null if the whole recorder log has been transmitted
+     */
+    static JSONObject handleActTrk(int currPacketCount, String log, @Nullable String lines, GBDevice device, Context context) throws JSONException {
         stopAndRestartTimeout(device, context);
 
         JSONObject returnObj;
 
         JSONObject stopObj = new JSONObject().put("t","fetchRec").put("id","stop");
-        int currPacketCount;
-        if (!json.has("cnt")) {
-            currPacketCount = 0;
-        } else {
-            currPacketCount = json.getInt("cnt");
-        }
         if (currPacketCount != lastPacketCount+1) {
             LOG.error("Activity Track Packets came out of order - aborting.");
             LOG.debug("packetCount Aborting: " + lastPacketCount);
@@ -107,7 +116,6 @@ class BangleJSActivityTrack {
 
         LOG.debug("actTrk says hi!");
         //GB.toast(context, "actTrk says hi!", Toast.LENGTH_LONG, GB.INFO);
-        String log = json.getString("log");
         LOG.debug(log);
         String filename = "recorder.log" + log + ".csv";
         File dir;
@@ -124,7 +132,7 @@ class BangleJSActivityTrack {
             return null;
         }
 
-        if (!json.has("lines")) { // if no lines were sent with this json object, it signifies that the whole recorder log has been transmitted.
+        if (lines == null) { // if no lines were sent with this json object, it signifies that the whole recorder log has been transmitted.
             setLatestFetchedRecorderLog(log, device);
             parseFetchedRecorderCSV(dir, filename, log, device, context); // I tried refactoring to parse all fetched logs in one go at the end instead. But that only gave me more troubles. This seems like a more stable approach at least in the Bangle.js case.
             if (tracksList.length()==0) {
@@ -140,7 +148,6 @@ class BangleJSActivityTrack {
             }
         } else { // We received a lines of the csv, now we append it to the file in storage.
 
-            String lines = json.getString("lines");
             LOG.debug(lines);
 
             writeToRecorderCSV(lines, dir, filename);
@@ -62,6 +62,8 @@ import com.android.volley.Response;
 import com.android.volley.VolleyError;
 import com.android.volley.toolbox.StringRequest;
 import com.android.volley.toolbox.Volley;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -72,9 +74,11 @@ import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
 
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.StringReader;
 import java.lang.reflect.Field;
 import java.nio.charset.StandardCharsets;
@@ -162,8 +166,8 @@ public class BangleJSDeviceSupport extends AbstractBTLEDeviceSupport {
     private int mtuSize = 20;
     int bangleCommandSeq = 0; // to attempt to stop duplicate packets when sending Local Intents
 
-    /// Current line of data received from Bangle.js
-    private String receivedLine = "";
+    /// Splits the data received from Bangle.js into lines
+    private final BangleJSLineFramer lineFramer = new BangleJSLineFramer();
     /// All characters received from Bangle.js for debug purposes (limited to MAX_RECEIVE_HISTORY_CHARS). Can be dumped with 'Fetch Device Debug Logs' from Debug menu
     private String receiveHistory = "";
     private boolean realtimeHRM = false;
@@ -337,6 +341,7 @@ public class BangleJSDeviceSupport extends AbstractBTLEDeviceSupport {
 
         gbDevice.setState(GBDevice.State.INITIALIZING);
         gbDevice.sendDeviceUpdateIntent(getContext());
+        lineFramer.reset();
 
         rxCharacteristic = getCharacteristic(BangleJSConstants.UUID_CHARACTERISTIC_NORDIC_UART_RX);
         txCharacteristic = getCharacteristic(BangleJSConstants.UUID_CHARACTERISTIC_NORDIC_UART_TX);
@@ -508,6 +513,92 @@ public class BangleJSDeviceSupport extends AbstractBTLEDeviceSupport {
 
 
 
+    private void handleUartRxLine(final byte[] buffer, final int offset, final int length) {
+        if (length > 0 && buffer[offset] == '{') {
+            try {
+                if (handleUartRxStreamedJSON(buffer, offset, length)) {
+                    return;
+                }
+            } catch (final JSONException e) {
+                LOG.error("UART RX JSON handling failure: " + e.getLocalizedMessage());
+                return;
+            }
+        }
+        handleUartRxLine(new String(buffer, offset, length, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Handles the "file" and "actTrk" packets, which can be large, with a streaming parser
+     * directly from the received bytes instead of building a string and a JSONObject of the line.
+     *
+     * @return false if the line is no such packet, or not one this parser understands, and needs
+     * to be handled by {@link #handleUartRxLine(String)}
+     */
+    private boolean handleUartRxStreamedJSON(final byte[] buffer, final int offset, final int length) throws JSONException {
+        String packetType = null;
+        String name = null, mode = null, content = null;
+        String log = null, lines = null;
+        int count = 0;
+        try (JsonReader reader = new JsonReader(new InputStreamReader(
+                new ByteArrayInputStream(buffer, offset, length), StandardCharsets.ISO_8859_1))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                final String key = reader.nextName();
+                final JsonToken token = reader.peek();
+                if (token != JsonToken.STRING && token != JsonToken.NUMBER) {
+                    return false;
+                }
+                switch (key) {
+                    case "t":
+                        packetType = reader.nextString();
+                        if (!packetType.equals("file") && !packetType.equals("actTrk")) {
+                            return false;
+                        }
+                        break;
+                    case "n":
+                        name = reader.nextString();
+                        break;
+                    case "m":
+                        mode = reader.nextString();
+                        break;
+                    case "c":
+                        content = reader.nextString();
+                        break;
+                    case "log":
+                        log = reader.nextString();
+                        break;
+                    case "lines":
+                        lines = reader.nextString();
+                        break;
+                    case "cnt":
+                        count = reader.nextInt();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                return false;
+            }
+        } catch (final IOException | IllegalStateException | NumberFormatException e) {
+            return false;
+        }
+
+        if ("file".equals(packetType) && name != null && mode != null && content != null) {
+            LOG.info("UART RX file packet of {} bytes", length);
+            handleFile(name, mode, content);
+            return true;
+        }
+        if ("actTrk".equals(packetType) && log != null) {
+            LOG.info("UART RX actTrk packet of {} bytes", length);
+            JSONObject requestTrackObj = BangleJSActivityTrack.handleActTrk(count, log, lines, getDevice(), getContext());
+            if (requestTrackObj!=null) uartTxJSON("requestActivityTrackLog", requestTrackObj);
+            return true;
+        }
+        return false;
+    }
+
     private void handleUartRxLine(String line) {
         LOG.info("UART RX LINE: " + line);
         if (line.length()==0) return;
@@ -1138,6 +1229,10 @@ public class BangleJSDeviceSupport extends AbstractBTLEDeviceSupport {
     }
 
     private void handleFile(JSONObject json) throws JSONException {
+        handleFile(json.getString("n"), json.getString("m"), json.getString("c"));
+    }
+
+    private void handleFile(final String filename, final String fileMode, final String content) {
 
         File dir;
         try {
@@ -1151,17 +1246,16 @@ public class BangleJSDeviceSupport extends AbstractBTLEDeviceSupport {
             LOG.error("Could not get directory to write to with error: " + e);
             return;
         }
-        String filename = json.getString("n");
         String filenameThatCantEscapeDir = filename.replaceAll("/","");
 
         LOG.debug("Compare filename and filenameThatCantEscapeDir:\n" + filename + "\n" + filenameThatCantEscapeDir);
         File outputFile = new File(dir, filenameThatCantEscapeDir);
         String mode = "append";
-        if (json.getString("m").equals("w")) {
+        if (fileMode.equals("w")) {
             mode = "write";
         }
         try {
-            FileUtils.copyStringToFile(json.getString("c"), outputFile, mode);
+            FileUtils.copyStringToFile(content, outputFile, mode);
             LOG.info("Writing to "+outputFile);
         } catch (IOException e) {
             LOG.warn("Could not write to " + outputFile + "with error: " + e);
@@ -1217,13 +1311,7 @@ public class BangleJSDeviceSupport extends AbstractBTLEDeviceSupport {
             // logging
             addReceiveHistory(packetStr);
             // split into input lines
-            receivedLine += packetStr;
-            while (receivedLine.contains("\n")) {
-                int p = receivedLine.indexOf("\n");
-                String line = receivedLine.substring(0,(p>0) ? (p-1) : 0);
-                receivedLine = receivedLine.substring(p+1);
-                handleUartRxLine(line);
-            }
+            lineFramer.receive(chars, this::handleUartRxLine);
             // Send an intent with new data
             Intent intent = new Intent(BangleJSDeviceSupport.BANGLEJS_COMMAND_RX);
             intent.putExtra("DATA", packetStr);
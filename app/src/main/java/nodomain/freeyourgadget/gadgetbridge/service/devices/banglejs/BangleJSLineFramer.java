@@ -0,0 +1,82 @@
+package nodomain.freeyourgadget.gadgetbridge.service.devices.banglejs;
+
+/**
+ * Splits the bytes received from the Bangle.js UART into lines. Incomplete lines are kept in a
+ * buffer that is reused for the next lines and only grows for longer ones, so every received byte
+ * is copied at most once no matter how many packets a line spans.
+ */
+public class BangleJSLineFramer {
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    public interface LineConsumer {
+        /**
+         * Called for every complete line, without the line ending. The bytes are only valid
+         * until the method returns.
+         */
+        void onLine(byte[] buffer, int offset, int length);
+    }
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    // bytes of the incomplete line at the start of the buffer
+    private int pending;
+
+    public void receive(final byte[] bytes, final LineConsumer consumer) {
+        receive(bytes, 0, bytes.length, consumer);
+    }
+
+    public void receive(final byte[] bytes, final int offset, final int length, final LineConsumer consumer) {
+        final int end = offset + length;
+        int lineStart = offset;
+        for (int i = offset; i < end; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            if (pending == 0) {
+                // the whole line is in this packet, no need to copy it
+                emit(bytes, lineStart, i - lineStart, consumer);
+            } else {
+                append(bytes, lineStart, i - lineStart);
+                final int lineLength = pending;
+                pending = 0;
+                emit(buffer, 0, lineLength, consumer);
+            }
+            lineStart = i + 1;
+        }
+        append(bytes, lineStart, end - lineStart);
+    }
+
+    /**
+     * Discards the incomplete line, and the memory of longer lines received before.
+     */
+    public void reset() {
+        pending = 0;
+        if (buffer.length > INITIAL_BUFFER_SIZE) {
+            buffer = new byte[INITIAL_BUFFER_SIZE];
+        }
+    }
+
+    private void append(final byte[] bytes, final int offset, final int length) {
+        if (length == 0) {
+            return;
+        }
+        if (pending + length > buffer.length) {
+            int newSize = buffer.length;
+            while (newSize < pending + length) {
+                newSize *= 2;
+            }
+            final byte[] newBuffer = new byte[newSize];
+            System.arraycopy(buffer, 0, newBuffer, 0, pending);
+            buffer = newBuffer;
+        }
+        System.arraycopy(bytes, offset, buffer, pending, length);
+        pending += length;
+    }
+
+    private static void emit(final byte[] bytes, final int offset, int length, final LineConsumer consumer) {
+        // Bangle.js ends lines with \r\n
+        if (length > 0 && bytes[offset + length - 1] == '\r') {
+            length--;
+        }
+        consumer.onLine(bytes, offset, length);
+    }
+}
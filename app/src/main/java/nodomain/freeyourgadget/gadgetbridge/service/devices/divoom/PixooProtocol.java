@@ -60,6 +60,7 @@ import nodomain.freeyourgadget.gadgetbridge.service.btle.BLETypeConversions;
 import nodomain.freeyourgadget.gadgetbridge.service.serial.GBDeviceProtocol;
 import nodomain.freeyourgadget.gadgetbridge.util.BitmapUtil;
 import nodomain.freeyourgadget.gadgetbridge.util.NotificationUtils;
+import nodomain.freeyourgadget.gadgetbridge.util.PixelConverter;
 import nodomain.freeyourgadget.gadgetbridge.util.StringUtils;
 
 public class PixooProtocol extends GBDeviceProtocol {
@@ -367,15 +368,13 @@ public class PixooProtocol extends GBDeviceProtocol {
         final Canvas canvas = new Canvas(bmpResized);
         final Rect rect = new Rect(0, 0, 16, 16);
         canvas.drawBitmap(bitmap, null, rect, null);
+        final int[] bmpPixels = PixelConverter.getPixels(bmpResized);
 
 
         // construct palette with unique colors
         HashSet<Integer> palette = new HashSet<>();
-        for (int y = 0; y < 16; y++) {
-            for (int x = 0; x < 16; x++) {
-                int pixel = bmpResized.getPixel(x, y);
-                palette.add(pixel);
-            }
+        for (int pixel : bmpPixels) {
+            palette.add(pixel);
         }
         // convert to lookup of index
         HashMap<Integer, Integer> paletteLookup = new HashMap<>();
@@ -401,20 +400,17 @@ public class PixooProtocol extends GBDeviceProtocol {
             buf.put((byte) (color & 0xff));
         }
         int bitposition = 0;
-        for (int y = 0; y < 16; y++) {
-            for (int x = 0; x < 16; x++) {
-                int pixel = bmpResized.getPixel(x, y);
-                index = paletteLookup.get(pixel);
-                int pos = bitposition / 8;
-                int shift = bitposition % 8;
-                pixels[pos] = (byte) (pixels[pos] | (byte) (index << shift));
-                if (shift + bpp > 8) {
-                    shift = -shift + 8;
-                    pos++;
-                    pixels[pos] = (byte) (pixels[pos] | (byte) (index >> shift));
-                }
-                bitposition += bpp;
+        for (int pixel : bmpPixels) {
+            index = paletteLookup.get(pixel);
+            int pos = bitposition / 8;
+            int shift = bitposition % 8;
+            pixels[pos] = (byte) (pixels[pos] | (byte) (index << shift));
+            if (shift + bpp > 8) {
+                shift = -shift + 8;
+                pos++;
+                pixels[pos] = (byte) (pixels[pos] | (byte) (index >> shift));
             }
+            bitposition += bpp;
         }
         buf.put(pixels);
 
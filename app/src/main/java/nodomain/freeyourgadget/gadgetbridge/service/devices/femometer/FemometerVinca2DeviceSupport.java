@@ -290,7 +290,7 @@ public class FemometerVinca2DeviceSupport extends AbstractBTLEDeviceSupport {
             long time = timestamp.getTime();
 
             FemometerVinca2SampleProvider sampleProvider = new FemometerVinca2SampleProvider(getDevice(), db.getDaoSession());
-            FemometerVinca2TemperatureSample temperatureSample = new FemometerVinca2TemperatureSample(time, deviceId, userId, temperature, temperatureType);
+            FemometerVinca2TemperatureSample temperatureSample = new FemometerVinca2TemperatureSample(deviceId, time, userId, temperature, temperatureType);
             sampleProvider.addSample(temperatureSample);
         } catch (Exception e) {
             LOG.error("Error acquiring database", e);
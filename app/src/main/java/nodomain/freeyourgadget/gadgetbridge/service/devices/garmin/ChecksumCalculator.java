@@ -38,6 +38,20 @@ public final class ChecksumCalculator {
         return computeCrc(0, data, offset, length);
     }
 
+    /**
+     * Computes the CRC over a range of the buffer using absolute reads, without copying it or
+     * touching its position. Suitable for memory-mapped files.
+     */
+    public static int computeCrcInPlace(ByteBuffer byteBuffer, int offset, int length) {
+        int crc = 0;
+        for (int i = offset; i < offset + length; ++i) {
+            int b = byteBuffer.get(i);
+            crc = (((crc >> 4) & 4095) ^ CONSTANTS[crc & 15]) ^ CONSTANTS[b & 15];
+            crc = (((crc >> 4) & 4095) ^ CONSTANTS[crc & 15]) ^ CONSTANTS[(b >> 4) & 15];
+        }
+        return crc;
+    }
+
     public static int computeCrc(int initialCrc, byte[] data, int offset, int length) {
         int crc = initialCrc;
         for (int i = offset; i < offset + length; ++i) {
@@ -11,6 +11,10 @@ public class GarminByteBufferReader {
         this.byteBuffer = ByteBuffer.wrap(data);
     }
 
+    public GarminByteBufferReader(ByteBuffer byteBuffer) {
+        this.byteBuffer = byteBuffer;
+    }
+
     public int remaining() {
         return byteBuffer.remaining();
     }
@@ -31,6 +35,10 @@ public class GarminByteBufferReader {
         return byteBuffer.position();
     }
 
+    public int getLimit() {
+        return byteBuffer.limit();
+    }
+
     public int readShort() {
         return Short.toUnsignedInt(byteBuffer.getShort());
     }
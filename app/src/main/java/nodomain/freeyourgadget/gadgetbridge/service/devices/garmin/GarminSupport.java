@@ -20,8 +20,10 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -107,6 +109,7 @@ public class GarminSupport extends AbstractBTLEDeviceSupport implements ICommuni
     private MediaManager mediaManager;
     private boolean mFirstConnect = false;
     private boolean isBusyFetching;
+    private final Set<FitAsyncProcessor> fitAsyncProcessors = Collections.synchronizedSet(new HashSet<>());
 
     final Map<UUID, GdiInstalledAppsService.InstalledAppsService.InstalledApp> installedApps = new HashMap<>();
 
@@ -135,6 +138,17 @@ public class GarminSupport extends AbstractBTLEDeviceSupport implements ICommuni
     public void dispose() {
         LOG.info("Garmin dispose()");
         GBLocationService.stop(getContext(), getDevice());
+        // Files that were not persisted yet stay pending for the next connection
+        synchronized (fitAsyncProcessors) {
+            if (!fitAsyncProcessors.isEmpty()) {
+                // Cancelled processors do not call onFinish, which would remove the notification
+                GB.updateTransferNotification(null, "", false, 100, getContext());
+            }
+            for (final FitAsyncProcessor fitAsyncProcessor : fitAsyncProcessors) {
+                fitAsyncProcessor.cancel();
+            }
+            fitAsyncProcessors.clear();
+        }
         super.dispose();
     }
 
@@ -664,6 +678,7 @@ public class GarminSupport extends AbstractBTLEDeviceSupport implements ICommuni
             isBusyFetching = false;
 
             final FitAsyncProcessor fitAsyncProcessor = new FitAsyncProcessor(getContext(), getDevice());
+            fitAsyncProcessors.add(fitAsyncProcessor);
             final long[] lastNotificationUpdateTs = new long[]{System.currentTimeMillis()};
             fitAsyncProcessor.process(filesToProcess, new FitAsyncProcessor.Callback() {
                 @Override
@@ -681,6 +696,7 @@ public class GarminSupport extends AbstractBTLEDeviceSupport implements ICommuni
 
                 @Override
                 public void onFinish() {
+                    fitAsyncProcessors.remove(fitAsyncProcessor);
                     getDevice().unsetBusyTask();
                     GB.signalActivityDataFinish(getDevice());
                     GB.updateTransferNotification(null, "", false, 100, getContext());
@@ -1036,6 +1052,7 @@ public class GarminSupport extends AbstractBTLEDeviceSupport implements ICommuni
 
         final long[] lastNotificationUpdateTs = new long[]{System.currentTimeMillis()};
         final FitAsyncProcessor fitAsyncProcessor = new FitAsyncProcessor(getContext(), getDevice());
+        fitAsyncProcessors.add(fitAsyncProcessor);
         fitAsyncProcessor.process(Arrays.asList(fitFiles), new FitAsyncProcessor.Callback() {
             @Override
             public void onProgress(final int i) {
@@ -1052,6 +1069,7 @@ public class GarminSupport extends AbstractBTLEDeviceSupport implements ICommuni
 
             @Override
             public void onFinish() {
+                fitAsyncProcessors.remove(fitAsyncProcessor);
                 parsingFitFilesFromStorage = false;
                 GB.updateTransferNotification("", "", false, 100, getContext());
                 GB.signalActivityDataFinish(getDevice());
@@ -1,128 +1,219 @@
 package nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.communicator;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.function.Consumer;
 
 public class CobsCoDec {
+    private static final Logger LOG = LoggerFactory.getLogger(CobsCoDec.class);
+
     private static final long BUFFER_TIMEOUT = 1500L; // turn this value up while debugging
-    private final ByteBuffer byteBuffer = ByteBuffer.allocate(10_000);
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+    private static final int MAX_BUFFER_SIZE = 1 << 20;
+
+    // received bytes that were not decoded yet are between start and end
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int start;
+    private int end;
+    // the bytes between start and scanned are known not to contain the end of a message
+    private int scanned;
     private long lastUpdate;
-    private byte[] cobsDecodedMessage;
+    private final Queue<byte[]> decodedMessages = new ArrayDeque<>();
 
     /**
      * Accumulates received bytes in a local buffer, clearing it after a timeout, and attempts to
-     * parse it.
+     * parse it. Decoded messages can be retrieved with {@link #retrieveMessage()}.
      *
      * @param bytes
      */
     public void receivedBytes(byte[] bytes) {
+        receivedBytes(ByteBuffer.wrap(bytes), decodedMessages::add);
+    }
+
+    /**
+     * Accumulates the remaining received bytes in a local buffer, clearing it after a timeout, and
+     * passes all messages that are complete to the consumer, in order. A notification can contain
+     * any number of messages, and messages can span any number of notifications.
+     */
+    public void receivedBytes(final ByteBuffer bytes, final Consumer<byte[]> messageConsumer) {
         final long now = System.currentTimeMillis();
         if ((now - lastUpdate) > BUFFER_TIMEOUT) {
             reset();
         }
         lastUpdate = now;
 
-        byteBuffer.put(bytes);
-        decode();
+        final int length = bytes.remaining();
+        if (!ensureCapacity(length)) {
+            LOG.error("Dropping {} undecoded bytes, no message end found", end - start + length);
+            reset();
+            return;
+        }
+        bytes.get(buffer, end, length);
+        end += length;
+
+        decode(messageConsumer);
     }
 
     private void reset() {
-        cobsDecodedMessage = null;
-        byteBuffer.clear();
+        decodedMessages.clear();
+        start = 0;
+        end = 0;
+        scanned = 0;
     }
 
     public byte[] retrieveMessage() {
-        final byte[] resultPacket = cobsDecodedMessage;
-        cobsDecodedMessage = null;
-        return resultPacket;
+        return decodedMessages.poll();
     }
 
     /**
-     * COBS decoding algorithm variant, which relies on a leading and a trailing 0 byte (the former
-     * is not part of default implementations).
-     * This function removes the complete message from the internal buffer, if it could be decoded.
+     * Makes room for the given number of bytes after the end of the buffer, by moving the
+     * undecoded bytes to the front or growing the buffer.
+     *
+     * @return false if the undecoded bytes would exceed the maximum buffer size
      */
-    private void decode() {
-        if (cobsDecodedMessage != null) {
-            // packet is waiting, unable to parse more
-            return;
+    private boolean ensureCapacity(final int length) {
+        if (end + length <= buffer.length) {
+            return true;
         }
-        if (byteBuffer.position() < 4) {
-            // minimal payload length including the padding
-            return;
+        final int pending = end - start;
+        if (pending + length > MAX_BUFFER_SIZE) {
+            return false;
         }
-        if (0 != byteBuffer.get(byteBuffer.position() - 1))
-            return; //no 0x00 at the end, hence no full packet
-        byteBuffer.position(byteBuffer.position() - 1); //don't process the trailing 0
-        byteBuffer.flip();
-        if (0 != byteBuffer.get())
-            return; //no 0x00 at the start
-        ByteBuffer decodedBytesBuffer = ByteBuffer.allocate(byteBuffer.limit()); //leading and trailing 0x00 bytes
-        while (byteBuffer.hasRemaining()) {
-            byte code = byteBuffer.get();
-            if (code == 0) {
-                break;
-            }
-            int codeValue = code & 0xFF;
-            int payloadSize = codeValue - 1;
-            for (int i = 0; i < payloadSize; i++) {
-                decodedBytesBuffer.put(byteBuffer.get());
-            }
-            if (codeValue != 0xFF && byteBuffer.hasRemaining()) {
-                decodedBytesBuffer.put((byte) 0); // Append a zero byte after the payload
+        if (pending + length > buffer.length) {
+            int newSize = buffer.length;
+            while (newSize < pending + length) {
+                newSize *= 2;
             }
+            final byte[] newBuffer = new byte[Math.min(newSize, MAX_BUFFER_SIZE)];
+            System.arraycopy(buffer, start, newBuffer, 0, pending);
+            buffer = newBuffer;
+        } else {
+            System.arraycopy(buffer, start, buffer, 0, pending);
         }
-
-        decodedBytesBuffer.flip();
-        cobsDecodedMessage = new byte[decodedBytesBuffer.remaining()];
-        decodedBytesBuffer.get(cobsDecodedMessage);
-        byteBuffer.compact();
+        scanned -= start;
+        start = 0;
+        end = pending;
+        return true;
     }
 
-    // this implementation of COBS relies on a leading and a trailing 0 byte (the former is not part of default implementations)
-    public byte[] encode(byte[] data) {
-        ByteBuffer encodedBytesBuffer = ByteBuffer.allocate((data.length * 2) + 1); // Maximum expansion
-
-        encodedBytesBuffer.put((byte) 0);// Garmin initial padding
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-
-        while (buffer.position() < buffer.limit()) {
-            int startPos = buffer.position();
-            int zeroIndex = buffer.position();
-
-            while (buffer.hasRemaining() && buffer.get() != 0) {
-                zeroIndex++;
+    /**
+     * COBS decoding algorithm variant, which relies on a leading and a trailing 0 byte (the former
+     * is not part of default implementations).
+     * This function removes all complete messages from the internal buffer. The trailing 0 of a
+     * message is kept, as devices may or may not send another 0 before the next message.
+     */
+    private void decode(final Consumer<byte[]> messageConsumer) {
+        while (start < end) {
+            if (buffer[start] != 0) {
+                // not the start of a message, skip to the next 0
+                final int next = indexOfZero(start + 1);
+                LOG.warn("Discarding {} bytes without leading 0", (next < 0 ? end : next) - start);
+                start = next < 0 ? end : next;
+                scanned = start;
+                continue;
             }
 
-            int payloadSize = zeroIndex - startPos;
+            final int messageEnd = indexOfZero(Math.max(start + 1, scanned));
+            if (messageEnd < 0) {
+                //no 0x00 at the end, hence no full packet
+                scanned = end;
+                return;
+            }
 
-            while (payloadSize >= 0xFE) {
-                encodedBytesBuffer.put((byte) 0xFF); // Maximum payload size indicator
-                encodedBytesBuffer.put(data, startPos, 0xFE);
-                payloadSize -= 0xFE;
-                startPos += 0xFE;
+            if (messageEnd - start > 1) {
+                final byte[] message = decodeMessage(start + 1, messageEnd);
+                if (message != null && message.length > 0) {
+                    messageConsumer.accept(message);
+                }
             }
+            start = messageEnd;
+            scanned = start;
+        }
 
-            encodedBytesBuffer.put((byte) (payloadSize + 1));
-            encodedBytesBuffer.put(data, startPos, payloadSize);
+        start = 0;
+        end = 0;
+        scanned = 0;
+    }
 
-            if (buffer.hasRemaining()) {
-                zeroIndex++; // Include the zero byte in the next block
+    private int indexOfZero(final int from) {
+        for (int i = from; i < end; i++) {
+            if (buffer[i] == 0) {
+                return i;
             }
+        }
+        return -1;
+    }
 
-            if (!buffer.hasRemaining() && payloadSize == 0) {
-                break;
+    /**
+     * Decodes the COBS encoded bytes between from and to, which contain no 0. The decoded length
+     * is computed from the block headers first, so that the blocks can be copied directly into
+     * the resulting array.
+     */
+    private byte[] decodeMessage(final int from, final int to) {
+        int length = 0;
+        int pos = from;
+        while (pos < to) {
+            final int codeValue = buffer[pos] & 0xFF;
+            length += codeValue - 1;
+            pos += codeValue;
+            if (codeValue != 0xFF && pos < to) {
+                length++; // a zero byte after the payload
             }
-
-            buffer.position(zeroIndex);
+        }
+        if (pos > to) {
+            LOG.warn("Discarding malformed message of {} bytes", to - from);
+            return null;
         }
 
-        encodedBytesBuffer.put((byte) 0); // Append a zero byte to indicate end of encoding
-        encodedBytesBuffer.flip();
+        final byte[] message = new byte[length];
+        int offset = 0;
+        pos = from;
+        while (pos < to) {
+            final int codeValue = buffer[pos] & 0xFF;
+            System.arraycopy(buffer, pos + 1, message, offset, codeValue - 1);
+            offset += codeValue - 1;
+            pos += codeValue;
+            if (codeValue != 0xFF && pos < to) {
+                offset++; // a zero byte after the payload, the array is already zeroed
+            }
+        }
+        return message;
+    }
 
-        byte[] encodedBytes = new byte[encodedBytesBuffer.remaining()];
-        encodedBytesBuffer.get(encodedBytes);
+    // this implementation of COBS relies on a leading and a trailing 0 byte (the former is not part of default implementations)
+    public byte[] encode(byte[] data) {
+        // one code byte per 254 bytes at most, plus the leading and trailing 0 and the last code byte
+        final byte[] encoded = new byte[data.length + data.length / 0xFE + 3];
+
+        encoded[0] = 0; // Garmin initial padding
+        int codeIndex = 1;
+        int position = 2;
+        int code = 1;
+        for (final byte b : data) {
+            if (b == 0) {
+                encoded[codeIndex] = (byte) code;
+                codeIndex = position++;
+                code = 1;
+            } else {
+                encoded[position++] = b;
+                code++;
+                if (code == 0xFF) {
+                    // Maximum payload size, continue in a new block without a zero
+                    encoded[codeIndex] = (byte) code;
+                    codeIndex = position++;
+                    code = 1;
+                }
+            }
+        }
+        encoded[codeIndex] = (byte) code;
+        encoded[position++] = 0; // Append a zero byte to indicate end of encoding
 
-        return encodedBytes;
+        return position == encoded.length ? encoded : Arrays.copyOf(encoded, position);
     }
 
 }
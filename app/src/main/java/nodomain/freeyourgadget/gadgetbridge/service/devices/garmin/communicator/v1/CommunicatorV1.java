@@ -6,6 +6,7 @@ import android.bluetooth.BluetoothGattCharacteristic;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.UUID;
 
@@ -93,8 +94,7 @@ public class CommunicatorV1 implements ICommunicator {
     @Override
     public boolean onCharacteristicChanged(final BluetoothGatt gatt, final BluetoothGattCharacteristic characteristic) {
         if (characteristic.getUuid().equals(characteristicReceive.getUuid())) {
-            this.cobsCoDec.receivedBytes(characteristic.getValue());
-            this.mSupport.onMessage(this.cobsCoDec.retrieveMessage());
+            this.cobsCoDec.receivedBytes(ByteBuffer.wrap(characteristic.getValue()), this.mSupport::onMessage);
 
             return true;
         }
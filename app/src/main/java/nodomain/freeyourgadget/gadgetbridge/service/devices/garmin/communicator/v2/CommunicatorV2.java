@@ -314,11 +314,8 @@ public class CommunicatorV2 implements ICommunicator {
     }
 
     private void processGfdi(final ByteBuffer message) {
-        final byte[] partial = new byte[message.remaining()];
-        message.get(partial);
-        this.cobsCoDec.receivedBytes(partial);
-
-        this.mSupport.onMessage(this.cobsCoDec.retrieveMessage());
+        // A notification may contain multiple messages with a large MTU
+        this.cobsCoDec.receivedBytes(message, this.mSupport::onMessage);
     }
 
     private void processRealtimeHeartRate(final ByteBuffer buf) {
@@ -70,6 +70,14 @@ public class FieldDefinition implements FieldInterface {
         return name;
     }
 
+    public int getScale() {
+        return scale;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
     public void generateOutgoingPayload(MessageWriter writer) {
         writer.writeByte(number);
         writer.writeByte(size);
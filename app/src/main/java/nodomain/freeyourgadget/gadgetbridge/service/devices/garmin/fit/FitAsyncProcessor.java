@@ -7,7 +7,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import xyz.tenseventyseven.fresh.Application;
 import nodomain.freeyourgadget.gadgetbridge.database.DBHandler;
@@ -15,59 +22,194 @@ import nodomain.freeyourgadget.gadgetbridge.devices.PendingFileProvider;
 import nodomain.freeyourgadget.gadgetbridge.entities.DaoSession;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
 
+/**
+ * Imports fit files in a pipeline: files are decoded in parallel on a small thread pool, and a
+ * single writer persists the decoded files in batches, one transaction per batch. At most
+ * {@link #maxInFlight} decoded files are kept in memory at any time.
+ */
 public class FitAsyncProcessor {
     private static final Logger LOG = LoggerFactory.getLogger(FitAsyncProcessor.class);
 
+    // Number of decoded files persisted in a single transaction
+    private static final int BATCH_SIZE = 8;
+
     private final Context context;
     private final GBDevice gbDevice;
     private final Handler handler;
+    private final int decoderThreads;
+    private final int maxInFlight;
+
+    private volatile boolean cancelled = false;
 
     public FitAsyncProcessor(final Context context, final GBDevice gbDevice) {
         this.context = context;
         this.gbDevice = gbDevice;
         this.handler = new Handler(context.getMainLooper());
+        // Leave one core for the writer and the rest of the app
+        this.decoderThreads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, 4));
+        this.maxInFlight = Math.max(BATCH_SIZE, decoderThreads * 2);
     }
 
     /**
      * Process a list of files asynchronously. Callback is executed on the UI thread.
      */
     public void process(final List<File> files, final Callback callback) {
-        LOG.debug("Starting processor for {} files", files.size());
+        LOG.debug("Starting processor for {} files with {} decoder threads", files.size(), decoderThreads);
 
         new Thread(() -> {
+            final ExecutorService decoder = Executors.newFixedThreadPool(decoderThreads);
             try {
-                int i = 0;
-                for (final File file : files) {
-                    i++;
-                    LOG.debug("Parsing {}", file);
+                runPipeline(files, decoder, callback);
+            } catch (final InterruptedException e) {
+                LOG.warn("Fit file processing interrupted");
+                Thread.currentThread().interrupt();
+            } catch (final Exception e) {
+                LOG.error("Failed to parse from storage", e);
+            } finally {
+                decoder.shutdownNow();
+            }
 
-                    final int finalI = i;
-                    FitAsyncProcessor.this.handler.post(() -> callback.onProgress(finalI));
+            // A cancelled processor belongs to a disposed device, which must not be updated anymore
+            postUnlessCancelled(callback::onFinish);
+        }, "FitAsyncProcessor").start();
+    }
 
-                    try {
-                        final FitImporter fitImporter = new FitImporter(context, gbDevice);
-                        fitImporter.importFile(file);
-                    } catch (final Exception ex) {
-                        LOG.error("Exception while importing {}", file, ex);
-                        continue; // do not remove from pending files
-                    }
+    /**
+     * Stop processing after the batch currently being persisted. Files that were not persisted
+     * remain pending, and the callback is not called anymore.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private void runPipeline(final List<File> files,
+                             final ExecutorService decoder,
+                             final Callback callback) throws InterruptedException {
+        // Decoded files are consumed in submission order, so files are persisted in the same order
+        // as before, even though they are decoded in parallel
+        final Deque<Future<DecodedFile>> inFlight = new ArrayDeque<>();
+        int nextFile = 0;
+        int processed = 0;
+
+        while (!cancelled && (nextFile < files.size() || !inFlight.isEmpty())) {
+            while (nextFile < files.size() && inFlight.size() < maxInFlight) {
+                final File file = files.get(nextFile++);
+                inFlight.add(decoder.submit(() -> decode(file)));
+            }
+
+            // Wait for the next file in order, then take whatever else is ready, up to a batch
+            final List<DecodedFile> batch = new ArrayList<>(BATCH_SIZE);
+            do {
+                batch.add(awaitDecoded(inFlight.poll()));
+            } while (batch.size() < BATCH_SIZE && !inFlight.isEmpty() && inFlight.peek().isDone());
+
+            persistBatch(batch);
+
+            for (final DecodedFile decodedFile : batch) {
+                processed++;
+                final int finalProcessed = processed;
+                postUnlessCancelled(() -> callback.onProgress(finalProcessed));
+            }
+        }
+
+        if (cancelled) {
+            LOG.info("Fit file processing cancelled after {} of {} files", processed, files.size());
+            for (final Future<DecodedFile> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private void postUnlessCancelled(final Runnable runnable) {
+        FitAsyncProcessor.this.handler.post(() -> {
+            if (!cancelled) {
+                runnable.run();
+            }
+        });
+    }
+
+    private DecodedFile decode(final File file) {
+        LOG.debug("Parsing {}", file);
 
-                    try (DBHandler handler = Application.acquireDB()) {
-                        final DaoSession session = handler.getDaoSession();
+        try {
+            final FitImporter fitImporter = new FitImporter(context, gbDevice);
+            if (fitImporter.decodeFile(file)) {
+                return new DecodedFile(file, fitImporter, true);
+            }
+            // Nothing to persist, but the file was parsed
+            return new DecodedFile(file, null, true);
+        } catch (final Exception ex) {
+            LOG.error("Exception while importing {}", file, ex);
+            return new DecodedFile(file, null, false); // do not remove from pending files
+        }
+    }
 
-                        final PendingFileProvider pendingFileProvider = new PendingFileProvider(gbDevice, session);
+    private static DecodedFile awaitDecoded(final Future<DecodedFile> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (final ExecutionException e) {
+            // decode catches everything, this should not happen
+            throw new IllegalStateException("Failed to decode fit file", e.getCause());
+        }
+    }
 
-                        pendingFileProvider.removePendingFile(file.getPath());
+    private void persistBatch(final List<DecodedFile> batch) {
+        try (DBHandler dbHandler = Application.acquireDB()) {
+            final DaoSession session = dbHandler.getDaoSession();
+
+            boolean batchPersisted;
+            try {
+                batchPersisted = session.callInTx(() -> {
+                    boolean success = true;
+                    for (final DecodedFile decodedFile : batch) {
+                        if (decodedFile.importer != null) {
+                            // the errors are reported when the files are retried
+                            success &= decodedFile.importer.persist(session, false);
+                        }
+                    }
+                    return success;
+                });
+            } catch (final Exception e) {
+                LOG.error("Exception while persisting batch of {} files", batch.size(), e);
+                batchPersisted = false;
+            }
+
+            if (!batchPersisted) {
+                // A failure in any of the files rolls back the whole transaction - persist them one
+                // by one, so that a single bad file does not lose the samples of the others
+                LOG.warn("Failed to persist batch of {} files, retrying individually", batch.size());
+                for (final DecodedFile decodedFile : batch) {
+                    if (decodedFile.importer != null) {
+                        decodedFile.importer.persist(session);
+                    }
+                }
+            }
+
+            final PendingFileProvider pendingFileProvider = new PendingFileProvider(gbDevice, session);
+            for (final DecodedFile decodedFile : batch) {
+                if (decodedFile.parsed) {
+                    try {
+                        pendingFileProvider.removePendingFile(decodedFile.file.getPath());
                     } catch (final Exception e) {
-                        LOG.error("Exception while removing pending file {}", file, e);
+                        LOG.error("Exception while removing pending file {}", decodedFile.file, e);
                     }
                 }
-            } catch (final Exception e) {
-                LOG.error("Failed to parse from storage", e);
             }
+        } catch (final Exception e) {
+            LOG.error("Exception while persisting batch of {} files", batch.size(), e);
+        }
+    }
+
+    private static class DecodedFile {
+        private final File file;
+        private final FitImporter importer;
+        private final boolean parsed;
 
-            FitAsyncProcessor.this.handler.post(callback::onFinish);
-        }).start();
+        private DecodedFile(final File file, final FitImporter importer, final boolean parsed) {
+            this.file = file;
+            this.importer = importer;
+            this.parsed = parsed;
+        }
     }
 
     public interface Callback {
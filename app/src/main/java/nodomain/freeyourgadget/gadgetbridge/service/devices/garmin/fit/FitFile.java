@@ -5,12 +5,12 @@ import androidx.annotation.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -39,32 +39,39 @@ public class FitFile {
         this.canGenerateOutput = true;
     }
 
-    private static byte[] readFileToByteArray(File file) throws IOException {
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream(); InputStream inputStream = new FileInputStream(file)) {
-            byte[] buffer = new byte[1024];
-            int length;
-            while ((length = inputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, length);
-            }
-            return outputStream.toByteArray();
-        }
-    }
-
     public static FitFile parseIncoming(File file) throws IOException {
-        return parseIncoming(readFileToByteArray(file));
+        final List<RecordData> dataRecords = new ArrayList<>();
+        final Header header = parseIncoming(file, dataRecords::add);
+        return new FitFile(header, dataRecords);
     }
 
-    //TODO: process file in chunks??
     public static FitFile parseIncoming(byte[] fileContents) {
+        final List<RecordData> dataRecords = new ArrayList<>();
+        final Header header = parseIncoming(new GarminByteBufferReader(fileContents), dataRecords::add);
+        return new FitFile(header, dataRecords);
+    }
+
+    /**
+     * Parse a FIT file without loading it into memory. The file is memory-mapped and each record
+     * is handed to the visitor as soon as it is decoded, so that callers that do not need to keep
+     * all records around can process arbitrarily large files.
+     */
+    public static Header parseIncoming(File file, RecordVisitor visitor) throws IOException {
+        try (FileInputStream inputStream = new FileInputStream(file); FileChannel channel = inputStream.getChannel()) {
+            final MappedByteBuffer mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return parseIncoming(new GarminByteBufferReader(mappedBuffer), visitor);
+        }
+    }
 
-        final GarminByteBufferReader garminByteBufferReader = new GarminByteBufferReader(fileContents);
+    public static Header parseIncoming(final GarminByteBufferReader garminByteBufferReader, final RecordVisitor visitor) {
         garminByteBufferReader.setByteOrder(ByteOrder.LITTLE_ENDIAN);
 
         final Header header = Header.parseIncomingHeader(garminByteBufferReader);
 
         // needed because the headers can be redefined in the file. The last header for a local message number wins
         Map<Integer, RecordDefinition> recordDefinitionMap = new HashMap<>();
-        List<RecordData> dataRecords = new ArrayList<>();
+        // only the field descriptions need to be kept, to resolve developer fields in later definitions
+        Map<Integer, RecordData> fieldDescriptions = new HashMap<>();
         Long referenceTimestamp = null;
 
         while (garminByteBufferReader.getPosition() < header.getHeaderSize() + header.getDataSize()) {
@@ -86,29 +93,40 @@ public class FitFile {
                 final RecordDefinition recordDefinition = RecordDefinition.parseIncoming(garminByteBufferReader, recordHeader);
                 if (recordDefinition != null) {
                     if (recordHeader.isDeveloperData())
-                        for (RecordData rd : dataRecords) {
-                            if (GlobalFITMessage.FIELD_DESCRIPTION.equals(rd.getGlobalFITMessage()))
-                                recordDefinition.populateDevFields(rd);
-                        }
+                        recordDefinition.populateDevFields(fieldDescriptions);
                     recordDefinitionMap.put(recordHeader.getLocalMessageType(), recordDefinition);
                 }
             } else {
                 final RecordDefinition referenceRecordDefinition = recordDefinitionMap.get(recordHeader.getLocalMessageType());
                 if (referenceRecordDefinition != null) {
                     final RecordData runningData = FitRecordDataFactory.create(referenceRecordDefinition, recordHeader);
-                    dataRecords.add(runningData);
                     Long newTimestamp = runningData.parseDataMessage(garminByteBufferReader, referenceTimestamp);
                     if (newTimestamp != null)
                         referenceTimestamp = newTimestamp;
+                    if (GlobalFITMessage.FIELD_DESCRIPTION.equals(runningData.getGlobalFITMessage()))
+                        indexFieldDescription(fieldDescriptions, runningData);
+                    visitor.onRecord(runningData);
                 }
             }
         }
         garminByteBufferReader.setByteOrder(ByteOrder.LITTLE_ENDIAN);
         int fileCrc = garminByteBufferReader.readShort();
-        if (fileCrc != ChecksumCalculator.computeCrc(fileContents, header.getHeaderSize(), fileContents.length - header.getHeaderSize() - 2)) {
+        final int crcLength = garminByteBufferReader.getLimit() - header.getHeaderSize() - 2;
+        if (fileCrc != ChecksumCalculator.computeCrcInPlace(garminByteBufferReader.asReadOnlyBuffer(), header.getHeaderSize(), crcLength)) {
             throw new IllegalArgumentException("Wrong CRC for FIT file");
         }
-        return new FitFile(header, dataRecords);
+        return header;
+    }
+
+    private static void indexFieldDescription(final Map<Integer, RecordData> fieldDescriptions, final RecordData fieldDescription) {
+        final Object developerDataIndex = fieldDescription.getFieldByName("developer_data_index");
+        final Object fieldDefinitionNumber = fieldDescription.getFieldByName("field_definition_number");
+        if (!(developerDataIndex instanceof Integer) || !(fieldDefinitionNumber instanceof Integer)) {
+            LOG.warn("Ignoring incomplete field description {}", fieldDescription);
+            return;
+        }
+        // a later description for the same field replaces the previous one
+        fieldDescriptions.put(RecordDefinition.devFieldKey((Integer) developerDataIndex, (Integer) fieldDefinitionNumber), fieldDescription);
     }
 
     public List<RecordData> getRecordsByGlobalMessage(GlobalFITMessage globalFITMessage) {
@@ -175,6 +193,10 @@ public class FitFile {
         return dataRecords.toString();
     }
 
+    public interface RecordVisitor {
+        void onRecord(RecordData record);
+    }
+
     public static class Header {
         public static final int MAGIC = 0x5449462E;
 
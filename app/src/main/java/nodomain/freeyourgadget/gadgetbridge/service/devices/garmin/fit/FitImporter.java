@@ -10,6 +10,7 @@ import java.io.File;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -90,7 +91,7 @@ public class FitImporter {
     private final Context context;
     private final GBDevice gbDevice;
 
-    private final SortedMap<Long, List<FitMonitoring>> activitySamplesPerTimestamp = new TreeMap<>();
+    private final SortedMap<Long, MonitoringSample> activitySamplesPerTimestamp = new TreeMap<>();
     private final List<GarminStressSample> stressSamples = new ArrayList<>();
     private final List<GarminBodyEnergySample> bodyEnergySamples = new ArrayList<>();
     private final List<GarminSpo2Sample> spo2samples = new ArrayList<>();
@@ -106,6 +107,10 @@ public class FitImporter {
     private FitSleepDataInfo fitSleepDataInfo = null;
     private final List<FitSleepDataRaw> fitSleepDataRawSamples = new ArrayList<>();
     private FitFileId fileId = null;
+    private Long lastMonitoringTimestamp = null;
+    private File exportFile = null;
+    private boolean persistFailed = false;
+    private boolean notifyErrors = true;
 
     private final GarminWorkoutParser workoutParser;
 
@@ -115,226 +120,44 @@ public class FitImporter {
         this.workoutParser = new GarminWorkoutParser(context);
     }
 
-    /**
-     * @noinspection StatementWithEmptyBody
-     */
     public void importFile(final File file) throws IOException {
-        reset();
-
-        final FitFile fitFile = FitFile.parseIncoming(file);
-
-        Long lastMonitoringTimestamp = null;
-
-        for (final RecordData record : fitFile.getRecords()) {
-            if (fileId != null && fileId.getType() == FileType.FILETYPE.ACTIVITY) {
-                if (workoutParser.handleRecord(record)) {
-                    continue;
-                }
-            }
-
-            final Long ts = record.getComputedTimestamp();
+        if (!decodeFile(file)) {
+            return;
+        }
 
-            if (record instanceof FitFileId) {
-                final FitFileId newFileId = (FitFileId) record;
-                LOG.debug("File ID: {}", newFileId);
-                if (fileId != null) {
-                    // Should not happen
-                    LOG.warn("Already had a file ID: {}", fileId);
-                }
-                fileId = newFileId;
-            } else if (record instanceof FitStressLevel) {
-                final FitStressLevel stressRecord = (FitStressLevel) record;
-                final Integer stress = stressRecord.getStressLevelValue();
-                if (stress != null && stress >= 0) {
-                    LOG.trace("Stress at {}: {}", ts, stress);
-                    final GarminStressSample sample = new GarminStressSample();
-                    sample.setTimestamp(ts * 1000L);
-                    sample.setStress(stress);
-                    stressSamples.add(sample);
-                }
+        try (DBHandler handler = Application.acquireDB()) {
+            persist(handler.getDaoSession());
+        } catch (final Exception e) {
+            GB.toast(context, "Error saving samples", Toast.LENGTH_LONG, GB.ERROR, e);
+        }
+    }
 
-                final Integer energy = stressRecord.getBodyEnergy();
-                if (energy != null) {
-                    LOG.trace("Body energy at {}: {}", ts, energy);
-                    final GarminBodyEnergySample sample = new GarminBodyEnergySample();
-                    sample.setTimestamp(ts * 1000L);
-                    sample.setEnergy(energy);
-                    bodyEnergySamples.add(sample);
-                }
-            } else if (record instanceof FitSleepDataInfo) {
-                final FitSleepDataInfo newFitSleepDataInfo = (FitSleepDataInfo) record;
-                LOG.debug("Sleep Data Info: {}", newFitSleepDataInfo);
-                if (fitSleepDataInfo != null) {
-                    // Should not happen
-                    LOG.warn("Already had sleep data info: {}", fitSleepDataInfo);
-                }
-                fitSleepDataInfo = newFitSleepDataInfo;
-            } else if (record instanceof FitSleepDataRaw) {
-                final FitSleepDataRaw fitSleepDataRaw = (FitSleepDataRaw) record;
-                //LOG.debug("Sleep Data Raw: {}", fitSleepDataRaw);
-                fitSleepDataRawSamples.add(fitSleepDataRaw);
-            } else if (record instanceof FitSleepStats) {
-                final Integer score = ((FitSleepStats) record).getOverallSleepScore();
-                if (score == null) {
-                    continue;
-                }
-                LOG.trace("Sleep stats at {}: {}", ts, record);
-                final GarminSleepStatsSample sample = new GarminSleepStatsSample();
-                sample.setTimestamp(ts * 1000L);
-                sample.setSleepScore(score);
-                sleepStatsSamples.add(sample);
-            } else if (record instanceof FitSleepStage) {
-                final FieldDefinitionSleepStage.SleepStage stage = ((FitSleepStage) record).getSleepStage();
-                if (stage == null) {
-                    continue;
-                }
-                LOG.trace("Sleep stage at {}: {}", ts, record);
-                final GarminSleepStageSample sample = new GarminSleepStageSample();
-                sample.setTimestamp(ts * 1000L);
-                sample.setStage(stage.getId());
-                sleepStageSamples.add(sample);
-            } else if (record instanceof FitMonitoring) {
-                LOG.trace("Monitoring at {}: {}", ts, record);
-                final FitMonitoring monitoringRecord = (FitMonitoring) record;
-                final Long currentMonitoringTimestamp = monitoringRecord.computeTimestamp(lastMonitoringTimestamp);
-                if (!activitySamplesPerTimestamp.containsKey(currentMonitoringTimestamp)) {
-                    activitySamplesPerTimestamp.put(currentMonitoringTimestamp, new ArrayList<>());
-                }
-                Objects.requireNonNull(activitySamplesPerTimestamp.get(currentMonitoringTimestamp)).add(monitoringRecord);
-                lastMonitoringTimestamp = currentMonitoringTimestamp;
-            } else if (record instanceof FitSpo2) {
-                final Integer spo2 = ((FitSpo2) record).getReadingSpo2();
-                if (spo2 == null || spo2 <= 0) {
-                    continue;
-                }
-                LOG.trace("SpO2 at {}: {}", ts, spo2);
-                final GarminSpo2Sample sample = new GarminSpo2Sample();
-                sample.setTimestamp(ts * 1000L);
-                sample.setSpo2(spo2);
-                spo2samples.add(sample);
-            } else if (record instanceof FitRespirationRate) {
-                final Float respiratoryRate = ((FitRespirationRate) record).getRespirationRate();
-                if (respiratoryRate == null || respiratoryRate <= 0) {
-                    continue;
-                }
-                LOG.trace("Respiratory rate at {}: {}", ts, respiratoryRate);
-                final GarminRespiratoryRateSample sample = new GarminRespiratoryRateSample();
-                sample.setTimestamp(ts * 1000L);
-                sample.setRespiratoryRate(respiratoryRate);
-                respiratoryRateSamples.add(sample);
-            } else if (record instanceof FitEvent) {
-                final FitEvent event = (FitEvent) record;
-                if (event.getEvent() == null) {
-                    LOG.warn("Event in {} is null", event);
-                    continue;
-                }
+    /**
+     * Parse the file and collect its samples, without touching the database. Can run in parallel
+     * with other importers.
+     *
+     * @return whether the file can be persisted
+     */
+    public boolean decodeFile(final File file) throws IOException {
+        reset();
 
-                LOG.trace("Event at {}: {}", ts, event);
+        FitFile.parseIncoming(file, this::handleRecord);
 
-                final GarminEventSample sample = new GarminEventSample();
-                sample.setTimestamp(ts * 1000L);
-                sample.setEvent(event.getEvent());
-                if (event.getEventType() != null) {
-                    sample.setEventType(event.getEventType());
-                }
-                if (event.getData() != null) {
-                    sample.setData(event.getData());
-                }
-                events.add(sample);
-            } else if (record instanceof FitRecord) {
-                // handled in workout parser
-            } else if (record instanceof FitSession) {
-                // handled in workout parser
-            } else if (record instanceof FitPhysiologicalMetrics) {
-                // handled in workout parser
-            } else if (record instanceof FitSport) {
-                // handled in workout parser
-            } else if (record instanceof FitTimeInZone) {
-                // handled in workout parser
-            } else if (record instanceof FitHrvSummary) {
-                final FitHrvSummary hrvSummary = (FitHrvSummary) record;
-                LOG.trace("HRV summary at {}: {}", ts, record);
-                final GarminHrvSummarySample sample = new GarminHrvSummarySample();
-                sample.setTimestamp(ts * 1000L);
-                if (hrvSummary.getWeeklyAverage() != null) {
-                    sample.setWeeklyAverage(Math.round(hrvSummary.getWeeklyAverage()));
-                }
-                if (hrvSummary.getLastNightAverage() != null) {
-                    sample.setLastNightAverage(Math.round(hrvSummary.getLastNightAverage()));
-                }
-                if (hrvSummary.getLastNight5MinHigh() != null) {
-                    sample.setLastNight5MinHigh(Math.round(hrvSummary.getLastNight5MinHigh()));
-                }
-                if (hrvSummary.getBaselineLowUpper() != null) {
-                    sample.setBaselineLowUpper(Math.round(hrvSummary.getBaselineLowUpper()));
-                }
-                if (hrvSummary.getBaselineBalancedLower() != null) {
-                    sample.setBaselineBalancedLower(Math.round(hrvSummary.getBaselineBalancedLower()));
-                }
-                if (hrvSummary.getBaselineBalancedUpper() != null) {
-                    sample.setBaselineBalancedUpper(Math.round(hrvSummary.getBaselineBalancedUpper()));
-                }
-                final FieldDefinitionHrvStatus.HrvStatus status = hrvSummary.getStatus();
-                if (status != null) {
-                    sample.setStatusNum(status.getId());
-                }
-                hrvSummarySamples.add(sample);
-            } else if (record instanceof FitHrvValue) {
-                final FitHrvValue hrvValue = (FitHrvValue) record;
-                if (hrvValue.getValue() == null) {
-                    LOG.warn("HRV value at {} is null", ts);
-                    continue;
-                }
-                LOG.trace("HRV value at {}: {}", ts, hrvValue.getValue());
-                final GarminHrvValueSample sample = new GarminHrvValueSample();
-                sample.setTimestamp(ts * 1000L);
-                sample.setValue(Math.round(hrvValue.getValue()));
-                hrvValueSamples.add(sample);
-            } else if (record instanceof FitMonitoringInfo) {
-                final FitMonitoringInfo monitoringInfo = (FitMonitoringInfo) record;
-                if (monitoringInfo.getRestingMetabolicRate() == null) {
-                    continue;
-                }
-                LOG.trace("Monitoring info at {}: {}", ts, record);
-                final GarminRestingMetabolicRateSample sample = new GarminRestingMetabolicRateSample();
-                sample.setTimestamp(ts * 1000L);
-                sample.setRestingMetabolicRate(monitoringInfo.getRestingMetabolicRate());
-                restingMetabolicRateSamples.add(sample);
-            } else if (record instanceof FitMonitoringHrData) {
-                final FitMonitoringHrData monitoringHrData = (FitMonitoringHrData) record;
-                if (monitoringHrData.getRestingHeartRate() == null) {
-                    LOG.warn("Resting HR at {} is null", ts);
-                    continue;
-                }
-                LOG.trace("Resting HR at {}: {}", ts, monitoringHrData.getRestingHeartRate());
-                final GarminHeartRateRestingSample sample = new GarminHeartRateRestingSample();
-                sample.setTimestamp(ts * 1000L);
-                sample.setHeartRate(monitoringHrData.getRestingHeartRate());
-                restingHrSamples.add(sample);
-            } else {
-                LOG.trace("Unknown record: {}", record);
-
-                if (!unknownRecords.containsKey(record.getGlobalFITMessage().getNumber())) {
-                    unknownRecords.put(record.getGlobalFITMessage().getNumber(), 0);
-                }
-                unknownRecords.put(
-                        record.getGlobalFITMessage().getNumber(),
-                        Objects.requireNonNull(unknownRecords.get(record.getGlobalFITMessage().getNumber())) + 1
-                );
-            }
+        for (final Map.Entry<Integer, Integer> e : unknownRecords.entrySet()) {
+            LOG.warn("Unknown record of global number {} seen {} times", e.getKey(), e.getValue());
         }
 
         if (fileId == null) {
             LOG.error("Got no file ID");
-            return;
+            return false;
         }
         if (fileId.getType() == null) {
             LOG.error("File has no type");
-            return;
+            return false;
         }
 
         // If the file is not yet on the export directory (eg. we're importing from phone storage), copy it
-        File finalExportFile = file;
+        exportFile = file;
         try {
             final File exportDirectory = gbDevice.getDeviceCoordinator().getWritableExportDirectory(gbDevice);
             if (!file.getAbsolutePath().startsWith(exportDirectory.getAbsolutePath())) {
@@ -345,66 +168,282 @@ public class FitImporter {
                 }
                 sb.append(".fit");
 
-                final File exportFile = new File(exportDirectory, sb.toString());
-                if (exportFile.isFile()) {
+                final File targetFile = new File(exportDirectory, sb.toString());
+                if (targetFile.isFile()) {
                     // Prevent overwrite
-                    LOG.warn("Fit file {} already exists as {}", file, exportFile);
+                    LOG.warn("Fit file {} already exists as {}", file, targetFile);
                 } else {
-                    LOG.debug("Copying {} to {}", file, exportFile);
+                    LOG.debug("Copying {} to {}", file, targetFile);
 
-                    FileUtils.copyFile(file, exportFile);
-                    exportFile.setLastModified(file.lastModified());
+                    FileUtils.copyFile(file, targetFile);
+                    targetFile.setLastModified(file.lastModified());
                 }
 
-                finalExportFile = exportFile;
+                exportFile = targetFile;
             }
         } catch (final Exception e) {
             LOG.error("Failed to copy file to export directory", e);
         }
 
-        try (DBHandler handler = Application.acquireDB()) {
-            final DaoSession session = handler.getDaoSession();
-
-            switch (fileId.getType()) {
-                case ACTIVITY:
-                    persistWorkout(finalExportFile, session);
-                    break;
-                case MONITOR:
-                    persistActivitySamples(session);
-                    persistAbstractSamples(spo2samples, new GarminSpo2SampleProvider(gbDevice, session));
-                    persistAbstractSamples(respiratoryRateSamples, new GarminRespiratoryRateSampleProvider(gbDevice, session));
-                    persistAbstractSamples(restingHrSamples, new GarminHeartRateRestingSampleProvider(gbDevice, session));
-                    persistAbstractSamples(stressSamples, new GarminStressSampleProvider(gbDevice, session));
-                    persistAbstractSamples(bodyEnergySamples, new GarminBodyEnergySampleProvider(gbDevice, session));
-                    persistAbstractSamples(restingMetabolicRateSamples, new GarminRestingMetabolicRateSampleProvider(gbDevice, session));
-                    break;
-                case SLEEP:
-                    persistAbstractSamples(events, new GarminEventSampleProvider(gbDevice, session));
-                    persistAbstractSamples(sleepStatsSamples, new GarminSleepStatsSampleProvider(gbDevice, session));
-
-                    // We may have samples, but not sleep samples - #4048
-                    // 0 unmeasurable, 1 awake
-                    final boolean anySleepSample = sleepStageSamples.stream()
-                            .anyMatch(s -> s.getStage() != 0 && s.getStage() != 1);
-                    if (anySleepSample) {
-                        persistAbstractSamples(sleepStageSamples, new GarminSleepStageSampleProvider(gbDevice, session));
-                    }
-
-                    processRawSleepSamples(session);
-                    break;
-                case HRV_STATUS:
-                    persistAbstractSamples(hrvSummarySamples, new GarminHrvSummarySampleProvider(gbDevice, session));
-                    persistAbstractSamples(hrvValueSamples, new GarminHrvValueSampleProvider(gbDevice, session));
-                    break;
-                default:
-                    LOG.warn("Unable to handle fit file of type {}", fileId.getType());
+        return true;
+    }
+
+    /**
+     * Persist the samples collected by {@link #decodeFile(File)}. The caller must hold the database.
+     *
+     * @return false if persisting any of the samples failed
+     */
+    public boolean persist(final DaoSession session) {
+        return persist(session, true);
+    }
+
+    /**
+     * Like {@link #persist(DaoSession)}, but only logs the errors if notifyErrors is false, eg. when
+     * the caller will persist the file again if it fails.
+     */
+    public boolean persist(final DaoSession session, final boolean notifyErrors) {
+        persistFailed = false;
+        this.notifyErrors = notifyErrors;
+
+        switch (fileId.getType()) {
+            case ACTIVITY:
+                persistWorkout(exportFile, session);
+                break;
+            case MONITOR:
+                persistActivitySamples(session);
+                persistAbstractSamples(spo2samples, new GarminSpo2SampleProvider(gbDevice, session));
+                persistAbstractSamples(respiratoryRateSamples, new GarminRespiratoryRateSampleProvider(gbDevice, session));
+                persistAbstractSamples(restingHrSamples, new GarminHeartRateRestingSampleProvider(gbDevice, session));
+                persistAbstractSamples(stressSamples, new GarminStressSampleProvider(gbDevice, session));
+                persistAbstractSamples(bodyEnergySamples, new GarminBodyEnergySampleProvider(gbDevice, session));
+                persistAbstractSamples(restingMetabolicRateSamples, new GarminRestingMetabolicRateSampleProvider(gbDevice, session));
+                break;
+            case SLEEP:
+                persistAbstractSamples(events, new GarminEventSampleProvider(gbDevice, session));
+                persistAbstractSamples(sleepStatsSamples, new GarminSleepStatsSampleProvider(gbDevice, session));
+
+                // We may have samples, but not sleep samples - #4048
+                // 0 unmeasurable, 1 awake
+                final boolean anySleepSample = sleepStageSamples.stream()
+                        .anyMatch(s -> s.getStage() != 0 && s.getStage() != 1);
+                if (anySleepSample) {
+                    persistAbstractSamples(sleepStageSamples, new GarminSleepStageSampleProvider(gbDevice, session));
+                }
+
+                processRawSleepSamples(session);
+                break;
+            case HRV_STATUS:
+                persistAbstractSamples(hrvSummarySamples, new GarminHrvSummarySampleProvider(gbDevice, session));
+                persistAbstractSamples(hrvValueSamples, new GarminHrvValueSampleProvider(gbDevice, session));
+                break;
+            default:
+                LOG.warn("Unable to handle fit file of type {}", fileId.getType());
+        }
+
+        return !persistFailed;
+    }
+
+    /**
+     * @noinspection StatementWithEmptyBody
+     */
+    private void handleRecord(final RecordData record) {
+        if (fileId != null && fileId.getType() == FileType.FILETYPE.ACTIVITY) {
+            if (workoutParser.handleRecord(record)) {
+                return;
             }
-        } catch (final Exception e) {
-            GB.toast(context, "Error saving samples", Toast.LENGTH_LONG, GB.ERROR, e);
         }
 
-        for (final Map.Entry<Integer, Integer> e : unknownRecords.entrySet()) {
-            LOG.warn("Unknown record of global number {} seen {} times", e.getKey(), e.getValue());
+        final Long ts = record.getComputedTimestamp();
+
+        if (record instanceof FitFileId) {
+            final FitFileId newFileId = (FitFileId) record;
+            LOG.debug("File ID: {}", newFileId);
+            if (fileId != null) {
+                // Should not happen
+                LOG.warn("Already had a file ID: {}", fileId);
+            }
+            fileId = newFileId;
+        } else if (record instanceof FitStressLevel) {
+            final FitStressLevel stressRecord = (FitStressLevel) record;
+            final Integer stress = stressRecord.getStressLevelValue();
+            if (stress != null && stress >= 0) {
+                LOG.trace("Stress at {}: {}", ts, stress);
+                final GarminStressSample sample = new GarminStressSample();
+                sample.setTimestamp(ts * 1000L);
+                sample.setStress(stress);
+                stressSamples.add(sample);
+            }
+
+            final Integer energy = stressRecord.getBodyEnergy();
+            if (energy != null) {
+                LOG.trace("Body energy at {}: {}", ts, energy);
+                final GarminBodyEnergySample sample = new GarminBodyEnergySample();
+                sample.setTimestamp(ts * 1000L);
+                sample.setEnergy(energy);
+                bodyEnergySamples.add(sample);
+            }
+        } else if (record instanceof FitSleepDataInfo) {
+            final FitSleepDataInfo newFitSleepDataInfo = (FitSleepDataInfo) record;
+            LOG.debug("Sleep Data Info: {}", newFitSleepDataInfo);
+            if (fitSleepDataInfo != null) {
+                // Should not happen
+                LOG.warn("Already had sleep data info: {}", fitSleepDataInfo);
+            }
+            fitSleepDataInfo = newFitSleepDataInfo;
+        } else if (record instanceof FitSleepDataRaw) {
+            final FitSleepDataRaw fitSleepDataRaw = (FitSleepDataRaw) record;
+            //LOG.debug("Sleep Data Raw: {}", fitSleepDataRaw);
+            fitSleepDataRawSamples.add(fitSleepDataRaw);
+        } else if (record instanceof FitSleepStats) {
+            final Integer score = ((FitSleepStats) record).getOverallSleepScore();
+            if (score == null) {
+                return;
+            }
+            LOG.trace("Sleep stats at {}: {}", ts, record);
+            final GarminSleepStatsSample sample = new GarminSleepStatsSample();
+            sample.setTimestamp(ts * 1000L);
+            sample.setSleepScore(score);
+            sleepStatsSamples.add(sample);
+        } else if (record instanceof FitSleepStage) {
+            final FieldDefinitionSleepStage.SleepStage stage = ((FitSleepStage) record).getSleepStage();
+            if (stage == null) {
+                return;
+            }
+            LOG.trace("Sleep stage at {}: {}", ts, record);
+            final GarminSleepStageSample sample = new GarminSleepStageSample();
+            sample.setTimestamp(ts * 1000L);
+            sample.setStage(stage.getId());
+            sleepStageSamples.add(sample);
+        } else if (record instanceof FitMonitoring) {
+            LOG.trace("Monitoring at {}: {}", ts, record);
+            final FitMonitoring monitoringRecord = (FitMonitoring) record;
+            final Long currentMonitoringTimestamp = monitoringRecord.computeTimestamp(lastMonitoringTimestamp);
+            MonitoringSample monitoringSample = activitySamplesPerTimestamp.get(currentMonitoringTimestamp);
+            if (monitoringSample == null) {
+                monitoringSample = new MonitoringSample();
+                activitySamplesPerTimestamp.put(currentMonitoringTimestamp, monitoringSample);
+            }
+            monitoringSample.add(monitoringRecord);
+            lastMonitoringTimestamp = currentMonitoringTimestamp;
+        } else if (record instanceof FitSpo2) {
+            final Integer spo2 = ((FitSpo2) record).getReadingSpo2();
+            if (spo2 == null || spo2 <= 0) {
+                return;
+            }
+            LOG.trace("SpO2 at {}: {}", ts, spo2);
+            final GarminSpo2Sample sample = new GarminSpo2Sample();
+            sample.setTimestamp(ts * 1000L);
+            sample.setSpo2(spo2);
+            spo2samples.add(sample);
+        } else if (record instanceof FitRespirationRate) {
+            final Float respiratoryRate = ((FitRespirationRate) record).getRespirationRate();
+            if (respiratoryRate == null || respiratoryRate <= 0) {
+                return;
+            }
+            LOG.trace("Respiratory rate at {}: {}", ts, respiratoryRate);
+            final GarminRespiratoryRateSample sample = new GarminRespiratoryRateSample();
+            sample.setTimestamp(ts * 1000L);
+            sample.setRespiratoryRate(respiratoryRate);
+            respiratoryRateSamples.add(sample);
+        } else if (record instanceof FitEvent) {
+            final FitEvent event = (FitEvent) record;
+            if (event.getEvent() == null) {
+                LOG.warn("Event in {} is null", event);
+                return;
+            }
+
+            LOG.trace("Event at {}: {}", ts, event);
+
+            final GarminEventSample sample = new GarminEventSample();
+            sample.setTimestamp(ts * 1000L);
+            sample.setEvent(event.getEvent());
+            if (event.getEventType() != null) {
+                sample.setEventType(event.getEventType());
+            }
+            if (event.getData() != null) {
+                sample.setData(event.getData());
+            }
+            events.add(sample);
+        } else if (record instanceof FitRecord) {
+            // handled in workout parser
+        } else if (record instanceof FitSession) {
+            // handled in workout parser
+        } else if (record instanceof FitPhysiologicalMetrics) {
+            // handled in workout parser
+        } else if (record instanceof FitSport) {
+            // handled in workout parser
+        } else if (record instanceof FitTimeInZone) {
+            // handled in workout parser
+        } else if (record instanceof FitHrvSummary) {
+            final FitHrvSummary hrvSummary = (FitHrvSummary) record;
+            LOG.trace("HRV summary at {}: {}", ts, record);
+            final GarminHrvSummarySample sample = new GarminHrvSummarySample();
+            sample.setTimestamp(ts * 1000L);
+            if (hrvSummary.getWeeklyAverage() != null) {
+                sample.setWeeklyAverage(Math.round(hrvSummary.getWeeklyAverage()));
+            }
+            if (hrvSummary.getLastNightAverage() != null) {
+                sample.setLastNightAverage(Math.round(hrvSummary.getLastNightAverage()));
+            }
+            if (hrvSummary.getLastNight5MinHigh() != null) {
+                sample.setLastNight5MinHigh(Math.round(hrvSummary.getLastNight5MinHigh()));
+            }
+            if (hrvSummary.getBaselineLowUpper() != null) {
+                sample.setBaselineLowUpper(Math.round(hrvSummary.getBaselineLowUpper()));
+            }
+            if (hrvSummary.getBaselineBalancedLower() != null) {
+                sample.setBaselineBalancedLower(Math.round(hrvSummary.getBaselineBalancedLower()));
+            }
+            if (hrvSummary.getBaselineBalancedUpper() != null) {
+                sample.setBaselineBalancedUpper(Math.round(hrvSummary.getBaselineBalancedUpper()));
+            }
+            final FieldDefinitionHrvStatus.HrvStatus status = hrvSummary.getStatus();
+            if (status != null) {
+                sample.setStatusNum(status.getId());
+            }
+            hrvSummarySamples.add(sample);
+        } else if (record instanceof FitHrvValue) {
+            final FitHrvValue hrvValue = (FitHrvValue) record;
+            if (hrvValue.getValue() == null) {
+                LOG.warn("HRV value at {} is null", ts);
+                return;
+            }
+            LOG.trace("HRV value at {}: {}", ts, hrvValue.getValue());
+            final GarminHrvValueSample sample = new GarminHrvValueSample();
+            sample.setTimestamp(ts * 1000L);
+            sample.setValue(Math.round(hrvValue.getValue()));
+            hrvValueSamples.add(sample);
+        } else if (record instanceof FitMonitoringInfo) {
+            final FitMonitoringInfo monitoringInfo = (FitMonitoringInfo) record;
+            if (monitoringInfo.getRestingMetabolicRate() == null) {
+                return;
+            }
+            LOG.trace("Monitoring info at {}: {}", ts, record);
+            final GarminRestingMetabolicRateSample sample = new GarminRestingMetabolicRateSample();
+            sample.setTimestamp(ts * 1000L);
+            sample.setRestingMetabolicRate(monitoringInfo.getRestingMetabolicRate());
+            restingMetabolicRateSamples.add(sample);
+        } else if (record instanceof FitMonitoringHrData) {
+            final FitMonitoringHrData monitoringHrData = (FitMonitoringHrData) record;
+            if (monitoringHrData.getRestingHeartRate() == null) {
+                LOG.warn("Resting HR at {} is null", ts);
+                return;
+            }
+            LOG.trace("Resting HR at {}: {}", ts, monitoringHrData.getRestingHeartRate());
+            final GarminHeartRateRestingSample sample = new GarminHeartRateRestingSample();
+            sample.setTimestamp(ts * 1000L);
+            sample.setHeartRate(monitoringHrData.getRestingHeartRate());
+            restingHrSamples.add(sample);
+        } else {
+            LOG.trace("Unknown record: {}", record);
+
+            if (!unknownRecords.containsKey(record.getGlobalFITMessage().getNumber())) {
+                unknownRecords.put(record.getGlobalFITMessage().getNumber(), 0);
+            }
+            unknownRecords.put(
+                    record.getGlobalFITMessage().getNumber(),
+                    Objects.requireNonNull(unknownRecords.get(record.getGlobalFITMessage().getNumber())) + 1
+            );
         }
     }
 
@@ -421,7 +460,7 @@ public class FitImporter {
                     Objects.requireNonNull(fileId.getTimeCreated()).intValue()
             );
         } catch (final Exception e) {
-            GB.toast(context, "Error finding base summary", Toast.LENGTH_LONG, GB.ERROR, e);
+            onPersistFailed("Error finding base summary", e);
             return;
         }
 
@@ -438,7 +477,7 @@ public class FitImporter {
 
             session.getBaseActivitySummaryDao().insertOrReplace(summary);
         } catch (final Exception e) {
-            GB.toast(context, "Error saving workout", Toast.LENGTH_LONG, GB.ERROR, e);
+            onPersistFailed("Error saving workout", e);
         }
     }
 
@@ -459,6 +498,8 @@ public class FitImporter {
         fitSleepDataInfo = null;
         fitSleepDataRawSamples.clear();
         fileId = null;
+        lastMonitoringTimestamp = null;
+        exportFile = null;
         workoutParser.reset();
     }
 
@@ -497,56 +538,30 @@ public class FitImporter {
                 }
             }
 
-            final List<FitMonitoring> records = activitySamplesPerTimestamp.get(ts);
+            final MonitoringSample monitoringSample = Objects.requireNonNull(activitySamplesPerTimestamp.get(ts));
 
             final GarminActivitySample sample = new GarminActivitySample();
             sample.setTimestamp((int) ts);
             sample.setRawKind(ActivityKind.ACTIVITY.getCode());
-            sample.setRawIntensity(ActivitySample.NOT_MEASURED);
+            sample.setRawIntensity(monitoringSample.intensity);
             sample.setSteps(ActivitySample.NOT_MEASURED);
-            sample.setHeartRate(ActivitySample.NOT_MEASURED);
+            sample.setHeartRate(monitoringSample.heartRate);
             sample.setDistanceCm(ActivitySample.NOT_MEASURED);
             sample.setActiveCalories(ActivitySample.NOT_MEASURED);
 
-            int minutesModerate = 0;
-            int minutesVigorous = 0;
-
-            for (final FitMonitoring record : Objects.requireNonNull(records)) {
-                final Integer activityType = record.getComputedActivityType().orElse(ActivitySample.NOT_MEASURED);
+            final int minutesModerate = monitoringSample.minutesModerate;
+            final int minutesVigorous = monitoringSample.minutesVigorous;
 
-                final Integer hr = record.getHeartRate();
-                if (hr != null) {
-                    sample.setHeartRate(hr);
+            for (int i = 0; i < monitoringSample.activityCount; i++) {
+                final int activityType = monitoringSample.activityTypes[i];
+                if (monitoringSample.steps[i] != RecordData.INVALID_LONG) {
+                    stepsPerActivity.put(activityType, monitoringSample.steps[i]);
                 }
-
-                final Long steps = record.getCycles();
-                if (steps != null) {
-                    stepsPerActivity.put(activityType, steps);
-                }
-
-                final Long distance = record.getDistance();
-                if (distance != null) {
-                    distancePerActivity.put(activityType, distance);
+                if (monitoringSample.distances[i] != RecordData.INVALID_LONG) {
+                    distancePerActivity.put(activityType, monitoringSample.distances[i]);
                 }
-
-                final Integer calories = record.getActiveCalories();
-                if (calories != null) {
-                    caloriesPerActivity.put(activityType, calories);
-                }
-
-                final Integer intensity = record.getComputedIntensity();
-                if (intensity != null) {
-                    sample.setRawIntensity(intensity);
-                }
-
-                final Integer recordMinutesModerate = record.getModerateActivityMinutes();
-                if (recordMinutesModerate != null) {
-                    minutesModerate += recordMinutesModerate;
-                }
-
-                final Integer recordMinutesVigorous = record.getVigorousActivityMinutes();
-                if (recordMinutesVigorous != null) {
-                    minutesVigorous += recordMinutesVigorous;
+                if (monitoringSample.calories[i] != RecordData.INVALID_INT) {
+                    caloriesPerActivity.put(activityType, monitoringSample.calories[i]);
                 }
             }
             if (!stepsPerActivity.isEmpty()) {
@@ -600,13 +615,13 @@ public class FitImporter {
 
             sampleProvider.addGBActivitySamples(activitySamples.toArray(new GarminActivitySample[0]));
         } catch (final Exception e) {
-            GB.toast(context, "Error saving activity samples", Toast.LENGTH_LONG, GB.ERROR, e);
+            onPersistFailed("Error saving activity samples", e);
         }
 
         try {
             persistAbstractSamples(intensityMinutesSamples, new GarminIntensityMinutesSampleProvider(gbDevice, session));
         } catch (final Exception e) {
-            GB.toast(context, "Error saving intensity minutes samples", Toast.LENGTH_LONG, GB.ERROR, e);
+            onPersistFailed("Error saving intensity minutes samples", e);
         }
     }
 
@@ -659,7 +674,16 @@ public class FitImporter {
             sampleProvider.addSample(sampleFallAsleep);
             sampleProvider.addSample(sampleWakeUp);
         } catch (final Exception e) {
-            GB.toast(context, "Error faking event samples", Toast.LENGTH_LONG, GB.ERROR, e);
+            onPersistFailed("Error faking event samples", e);
+        }
+    }
+
+    private void onPersistFailed(final String message, final Exception e) {
+        persistFailed = true;
+        if (notifyErrors) {
+            GB.toast(context, message, Toast.LENGTH_LONG, GB.ERROR, e);
+        } else {
+            LOG.error(message, e);
         }
     }
 
@@ -688,7 +712,65 @@ public class FitImporter {
 
             sampleProvider.addSamples(samples);
         } catch (final Exception e) {
-            GB.toast(context, "Error saving samples", Toast.LENGTH_LONG, GB.ERROR, e);
+            onPersistFailed("Error saving samples", e);
+        }
+    }
+
+    /**
+     * The monitoring data of one timestamp, reduced from its records while parsing, so that the
+     * records themselves do not need to be kept until they are persisted.
+     */
+    private static class MonitoringSample {
+        private int heartRate = ActivitySample.NOT_MEASURED;
+        private int intensity = ActivitySample.NOT_MEASURED;
+        private int minutesModerate = 0;
+        private int minutesVigorous = 0;
+
+        // the cumulative values of each record, in order, since they are summed per activity type
+        private int activityCount = 0;
+        private int[] activityTypes = new int[1];
+        private long[] steps = new long[1];
+        private long[] distances = new long[1];
+        private int[] calories = new int[1];
+
+        private void add(final FitMonitoring record) {
+            final int hr = record.getHeartRatePrimitive();
+            if (hr != RecordData.INVALID_INT) {
+                heartRate = hr;
+            }
+
+            final Integer recordIntensity = record.getComputedIntensity();
+            if (recordIntensity != null) {
+                intensity = recordIntensity;
+            }
+
+            final int recordMinutesModerate = record.getModerateActivityMinutesPrimitive();
+            if (recordMinutesModerate != RecordData.INVALID_INT) {
+                minutesModerate += recordMinutesModerate;
+            }
+
+            final int recordMinutesVigorous = record.getVigorousActivityMinutesPrimitive();
+            if (recordMinutesVigorous != RecordData.INVALID_INT) {
+                minutesVigorous += recordMinutesVigorous;
+            }
+
+            final long recordSteps = record.getCyclesPrimitive();
+            final long recordDistance = record.getDistancePrimitive();
+            final int recordCalories = record.getActiveCaloriesPrimitive();
+            if (recordSteps == RecordData.INVALID_LONG && recordDistance == RecordData.INVALID_LONG && recordCalories == RecordData.INVALID_INT) {
+                return;
+            }
+            if (activityCount == activityTypes.length) {
+                activityTypes = Arrays.copyOf(activityTypes, activityCount * 2);
+                steps = Arrays.copyOf(steps, activityCount * 2);
+                distances = Arrays.copyOf(distances, activityCount * 2);
+                calories = Arrays.copyOf(calories, activityCount * 2);
+            }
+            activityTypes[activityCount] = record.getComputedActivityType().orElse(ActivitySample.NOT_MEASURED);
+            steps[activityCount] = recordSteps;
+            distances[activityCount] = recordDistance;
+            calories[activityCount] = recordCalories;
+            activityCount++;
         }
     }
 }
@@ -10,15 +10,23 @@ import java.util.Date;
 import java.util.List;
 
 import nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.GarminByteBufferReader;
+import nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.fit.baseTypes.BaseType;
 import nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.messages.MessageWriter;
 import nodomain.freeyourgadget.gadgetbridge.util.ArrayUtils;
 import nodomain.freeyourgadget.gadgetbridge.util.GBToStringBuilder;
 
+import static nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.fit.baseTypes.BaseType.FLOAT32;
+import static nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.fit.baseTypes.BaseType.FLOAT64;
 import static nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.fit.baseTypes.BaseType.STRING;
 
 import org.apache.commons.lang3.StringUtils;
 
 public class RecordData {
+    /**
+     * Returned by the primitive field accessors if the field is missing or invalid.
+     */
+    public static final int INVALID_INT = Integer.MIN_VALUE;
+    public static final long INVALID_LONG = Long.MIN_VALUE;
 
     private final RecordDefinition recordDefinition;
     private final RecordHeader recordHeader;
@@ -103,18 +111,11 @@ public class RecordData {
     }
 
     public void setFieldByNumber(int number, Object... value) {
-        boolean found = false;
-        for (FieldData fieldData :
-                fieldDataList) {
-            if (fieldData.getNumber() == number) {
-                fieldData.encode(value);
-                found = true;
-                break;
-            }
-        }
-        if (!found) {
+        final int index = recordDefinition.getFieldIndex(number);
+        if (index < 0) {
             throw new IllegalArgumentException("Unknown field number " + number);
         }
+        fieldDataList.get(index).encode(value);
     }
 
     public void setFieldByName(String name, Object... value) {
@@ -133,13 +134,38 @@ public class RecordData {
     }
 
     public Object getFieldByNumber(int number) {
-        for (FieldData fieldData :
-                fieldDataList) {
-            if (fieldData.getNumber() == number) {
-                return fieldData.decode();
-            }
+        final int index = recordDefinition.getFieldIndex(number);
+        if (index < 0) {
+            return null;
         }
-        return null;
+        return fieldDataList.get(index).decode();
+    }
+
+    /**
+     * Decode a single-valued integer field without boxing it.
+     *
+     * @return the value, or {@link #INVALID_INT} if the field is missing, invalid or not an integer
+     */
+    public int getIntField(int number) {
+        final long value = getLongField(number);
+        if (value == INVALID_LONG) {
+            return INVALID_INT;
+        }
+        return (int) value;
+    }
+
+    /**
+     * Decode a single-valued integer field without boxing it. Specialized field types (timestamps,
+     * enums, ...) are returned as their raw value.
+     *
+     * @return the value, or {@link #INVALID_LONG} if the field is missing, invalid or not an integer
+     */
+    public long getLongField(int number) {
+        final int index = recordDefinition.getFieldIndex(number);
+        if (index < 0) {
+            return INVALID_LONG;
+        }
+        return fieldDataList.get(index).decodeLong();
     }
 
     public Object getFieldByName(String name) {
@@ -288,6 +314,21 @@ public class RecordData {
             return fieldDefinition.decode(valueHolder);
         }
 
+        private long decodeLong() {
+            final BaseType baseType = fieldDefinition.getBaseType();
+            if (size != baseSize || STRING.equals(baseType) || FLOAT32.equals(baseType) || FLOAT64.equals(baseType)) {
+                return INVALID_LONG;
+            }
+            final long raw = baseType.decodeRaw(valueHolder, position, INVALID_LONG);
+            if (raw == INVALID_LONG) {
+                return INVALID_LONG;
+            }
+            if (fieldDefinition.getScale() != 1) {
+                return (long) ((double) raw / fieldDefinition.getScale()) - fieldDefinition.getOffset();
+            }
+            return raw - fieldDefinition.getOffset();
+        }
+
         public String toString() {
             return "(" + fieldDefinition.getBaseType().name() + "/" + size + ")";
         }
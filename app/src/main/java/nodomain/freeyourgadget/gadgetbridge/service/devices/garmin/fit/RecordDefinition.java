@@ -5,7 +5,9 @@ import androidx.annotation.Nullable;
 
 import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.GarminByteBufferReader;
 import nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.fit.baseTypes.BaseType;
@@ -17,6 +19,7 @@ public class RecordDefinition {
     private final java.nio.ByteOrder byteOrder;
     private List<FieldDefinition> fieldDefinitions;
     private List<DevFieldDefinition> devFieldDefinitions;
+    private int[] fieldIndexByNumber;
 
     public RecordDefinition(RecordHeader recordHeader, ByteOrder byteOrder, GlobalFITMessage globalFITMessage, List<FieldDefinition> fieldDefinitions, List<DevFieldDefinition> devFieldDefinitions) {
         this.recordHeader = recordHeader;
@@ -73,6 +76,7 @@ public class RecordDefinition {
 
     public void setDevFieldDefinitions(List<DevFieldDefinition> devFieldDefinitions) {
         this.devFieldDefinitions = devFieldDefinitions;
+        this.fieldIndexByNumber = null;
     }
 
     public RecordHeader getRecordHeader() {
@@ -86,6 +90,44 @@ public class RecordDefinition {
 
     public void setFieldDefinitions(List<FieldDefinition> fieldDefinitions) {
         this.fieldDefinitions = fieldDefinitions;
+        this.fieldIndexByNumber = null;
+    }
+
+    /**
+     * Position of the field with the given number in the field list of records using this
+     * definition (regular fields first, then developer fields), or -1 if it is not present.
+     * The table is computed once per definition, so record lookups do not need to scan.
+     */
+    public int getFieldIndex(int number) {
+        if (fieldIndexByNumber == null) {
+            fieldIndexByNumber = buildFieldIndex();
+        }
+        if (number < 0 || number >= fieldIndexByNumber.length) {
+            return -1;
+        }
+        return fieldIndexByNumber[number];
+    }
+
+    private int[] buildFieldIndex() {
+        // field numbers are a single byte
+        final int[] index = new int[256];
+        Arrays.fill(index, -1);
+        int i = 0;
+        if (fieldDefinitions != null) {
+            for (FieldDefinition fieldDefinition : fieldDefinitions) {
+                if (index[fieldDefinition.getNumber()] == -1)
+                    index[fieldDefinition.getNumber()] = i;
+                i++;
+            }
+        }
+        if (devFieldDefinitions != null) {
+            for (DevFieldDefinition devFieldDefinition : devFieldDefinitions) {
+                if (index[devFieldDefinition.getFieldDefinitionNumber()] == -1)
+                    index[devFieldDefinition.getFieldDefinitionNumber()] = i;
+                i++;
+            }
+        }
+        return index;
     }
 
     public void generateOutgoingPayload(MessageWriter writer) {
@@ -109,15 +151,26 @@ public class RecordDefinition {
                 " Global Message Number: " + globalFITMessage.name();
     }
 
-    public void populateDevFields(RecordData recordData) {
+    /**
+     * Key of a field description in the index passed to {@link #populateDevFields(Map)}.
+     */
+    public static int devFieldKey(int developerDataIndex, int fieldDefinitionNumber) {
+        return (developerDataIndex << 8) | fieldDefinitionNumber;
+    }
+
+    /**
+     * Resolve the developer fields of this definition from the field descriptions seen so far,
+     * indexed by {@link #devFieldKey(int, int)}.
+     */
+    public void populateDevFields(Map<Integer, RecordData> fieldDescriptions) {
         for (DevFieldDefinition devFieldDef : getDevFieldDefinitions()) {
+            final RecordData recordData = fieldDescriptions.get(devFieldKey(devFieldDef.getDeveloperDataIndex(), devFieldDef.getFieldDefinitionNumber()));
+            if (recordData == null)
+                continue;
             try {
-                if (devFieldDef.getFieldDefinitionNumber() == (int) recordData.getFieldByName("field_definition_number") &&
-                        devFieldDef.getDeveloperDataIndex() == (int) recordData.getFieldByName("developer_data_index")) {
-                    BaseType baseType = BaseType.fromIdentifier((int) recordData.getFieldByName("fit_base_type_id"));
-                    devFieldDef.setBaseType(baseType);
-                    devFieldDef.setName((String) recordData.getFieldByName("field_name"));
-                }
+                BaseType baseType = BaseType.fromIdentifier((int) recordData.getFieldByName("fit_base_type_id"));
+                devFieldDef.setBaseType(baseType);
+                devFieldDef.setName((String) recordData.getFieldByName("field_name"));
             } catch (Exception e) {
                 //ignore
             }
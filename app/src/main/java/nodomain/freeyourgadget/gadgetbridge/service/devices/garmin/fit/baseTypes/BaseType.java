@@ -90,6 +90,10 @@ public enum BaseType {
         return raw;
     }
 
+    public long decodeRaw(ByteBuffer byteBuffer, int position, long invalidValue) {
+        return baseTypeInterface.decodeRaw(byteBuffer, position, invalidValue);
+    }
+
     public void encode(ByteBuffer byteBuffer, Object o, double scale, int offset) {
         baseTypeInterface.encode(byteBuffer, o, scale, offset);
     }
@@ -37,6 +37,14 @@ public class BaseTypeByte implements BaseTypeInterface {
         return (b / scale) - offset;
     }
 
+    @Override
+    public long decodeRaw(final ByteBuffer byteBuffer, final int position, final long invalidValue) {
+        int b = unsigned ? Byte.toUnsignedInt(byteBuffer.get(position)) : byteBuffer.get(position);
+        if (b == invalid)
+            return invalidValue;
+        return b;
+    }
+
     @Override
     public void encode(ByteBuffer byteBuffer, Object o, double scale, int offset) {
         if (null == o) {
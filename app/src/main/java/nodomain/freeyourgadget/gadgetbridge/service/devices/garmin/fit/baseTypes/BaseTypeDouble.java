@@ -29,6 +29,12 @@ public class BaseTypeDouble implements BaseTypeInterface {
         return (d / scale) - offset;
     }
 
+    @Override
+    public long decodeRaw(final ByteBuffer byteBuffer, final int position, final long invalidValue) {
+        // floating point fields have no integer value
+        return invalidValue;
+    }
+
     @Override
     public void encode(ByteBuffer byteBuffer, Object o, double scale, int offset) {
         if (null == o) {
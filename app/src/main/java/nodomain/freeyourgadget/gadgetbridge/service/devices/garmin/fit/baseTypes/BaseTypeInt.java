@@ -35,6 +35,14 @@ public class BaseTypeInt implements BaseTypeInterface {
         return (i / scale) - offset;
     }
 
+    @Override
+    public long decodeRaw(final ByteBuffer byteBuffer, final int position, final long invalidValue) {
+        long i = unsigned ? Integer.toUnsignedLong(byteBuffer.getInt(position)) : byteBuffer.getInt(position);
+        if (i == invalid)
+            return invalidValue;
+        return i;
+    }
+
     @Override
     public void encode(ByteBuffer byteBuffer, Object o, double scale, int offset) {
         if (null == o) {
@@ -7,6 +7,15 @@ public interface BaseTypeInterface {
 
     Object decode(ByteBuffer byteBuffer, double scale, int offset);
 
+    /**
+     * Decode the unscaled integer value at an absolute position of the buffer, without boxing it
+     * and without moving the buffer position.
+     *
+     * @return the decoded value, or invalidValue if the field is marked as invalid or is not an
+     * integer
+     */
+    long decodeRaw(ByteBuffer byteBuffer, int position, long invalidValue);
+
     void encode(ByteBuffer byteBuffer, Object o, double scale, int offset);
 
     void invalidate(ByteBuffer byteBuffer);
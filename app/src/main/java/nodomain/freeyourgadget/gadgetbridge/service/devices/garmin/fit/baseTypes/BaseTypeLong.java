@@ -37,6 +37,14 @@ public class BaseTypeLong implements BaseTypeInterface {
         return new BigDecimal(i).divide(BigDecimal.valueOf(scale)).subtract(BigDecimal.valueOf(offset)).toBigInteger().longValue();
     }
 
+    @Override
+    public long decodeRaw(final ByteBuffer byteBuffer, final int position, final long invalidValue) {
+        long l = byteBuffer.getLong(position);
+        if (l == invalid)
+            return invalidValue;
+        return l;
+    }
+
     @Override
     public void encode(ByteBuffer byteBuffer, Object o, double scale, int offset) {
         if (null == o) {
@@ -35,6 +35,14 @@ public class BaseTypeShort implements BaseTypeInterface {
         return (s / scale) - offset;
     }
 
+    @Override
+    public long decodeRaw(final ByteBuffer byteBuffer, final int position, final long invalidValue) {
+        int s = unsigned ? Short.toUnsignedInt(byteBuffer.getShort(position)) : byteBuffer.getShort(position);
+        if (s == invalid)
+            return invalidValue;
+        return s;
+    }
+
     @Override
     public void encode(ByteBuffer byteBuffer, Object o, double scale, int offset) {
         if (null == o) {
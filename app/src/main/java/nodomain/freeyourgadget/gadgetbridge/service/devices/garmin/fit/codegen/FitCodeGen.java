@@ -206,6 +206,15 @@ public class FitCodeGen {
                 sb.append("        return (").append(fieldTypeName).append(") getFieldByNumber(").append(primitive.getNumber()).append(");\n");
             }
             sb.append("    }\n");
+
+            if (hasPrimitiveGetter(primitive, fieldType)) {
+                // Non-boxing variant for hot paths, returns RecordData.INVALID_INT / INVALID_LONG if not set
+                final boolean isLong = fieldType == Long.class;
+                sb.append("\n");
+                sb.append("    public ").append(isLong ? "long" : "int").append(method(" get", primitive)).append("Primitive() {\n");
+                sb.append("        return ").append(isLong ? "getLongField(" : "getIntField(").append(primitive.getNumber()).append(");\n");
+                sb.append("    }\n");
+            }
         }
 
         //sb.append("\n");
@@ -315,6 +324,16 @@ public class FitCodeGen {
         throw new RuntimeException("Unknown base type " + primitive.getBaseType());
     }
 
+    public boolean hasPrimitiveGetter(final GlobalFITMessage.FieldDefinitionPrimitive primitive, final Class<?> fieldType) {
+        if (primitive.getType() != null || primitive.getScale() != 1) {
+            return false;
+        }
+        if (primitive.getSize() != primitive.getBaseType().getSize()) {
+            return false;
+        }
+        return fieldType == Integer.class || fieldType == Long.class;
+    }
+
     public String toCamelCase(final String str) {
         final StringBuilder sb = new StringBuilder(str.toLowerCase());
 
@@ -25,31 +25,55 @@ public class FitActivity extends RecordData {
         return (Long) getFieldByNumber(0);
     }
 
+    public long getTotalTimerTimePrimitive() {
+        return getLongField(0);
+    }
+
     @Nullable
     public Integer getNumSessions() {
         return (Integer) getFieldByNumber(1);
     }
 
+    public int getNumSessionsPrimitive() {
+        return getIntField(1);
+    }
+
     @Nullable
     public Integer getType() {
         return (Integer) getFieldByNumber(2);
     }
 
+    public int getTypePrimitive() {
+        return getIntField(2);
+    }
+
     @Nullable
     public Integer getEvent() {
         return (Integer) getFieldByNumber(3);
     }
 
+    public int getEventPrimitive() {
+        return getIntField(3);
+    }
+
     @Nullable
     public Integer getEventType() {
         return (Integer) getFieldByNumber(4);
     }
 
+    public int getEventTypePrimitive() {
+        return getIntField(4);
+    }
+
     @Nullable
     public Long getLocalTimestamp() {
         return (Long) getFieldByNumber(5);
     }
 
+    public long getLocalTimestampPrimitive() {
+        return getLongField(5);
+    }
+
     @Nullable
     public Long getTimestamp() {
         return (Long) getFieldByNumber(253);
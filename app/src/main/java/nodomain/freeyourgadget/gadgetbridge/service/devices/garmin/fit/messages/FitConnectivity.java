@@ -25,6 +25,10 @@ public class FitConnectivity extends RecordData {
         return (Integer) getFieldByNumber(0);
     }
 
+    public int getBluetoothEnabledPrimitive() {
+        return getIntField(0);
+    }
+
     @Nullable
     public String getName() {
         return (String) getFieldByNumber(3);
@@ -35,33 +39,61 @@ public class FitConnectivity extends RecordData {
         return (Integer) getFieldByNumber(4);
     }
 
+    public int getLiveTrackingEnabledPrimitive() {
+        return getIntField(4);
+    }
+
     @Nullable
     public Integer getWeatherConditionsEnabled() {
         return (Integer) getFieldByNumber(5);
     }
 
+    public int getWeatherConditionsEnabledPrimitive() {
+        return getIntField(5);
+    }
+
     @Nullable
     public Integer getWeatherAlertsEnabled() {
         return (Integer) getFieldByNumber(6);
     }
 
+    public int getWeatherAlertsEnabledPrimitive() {
+        return getIntField(6);
+    }
+
     @Nullable
     public Integer getAutoActivityUploadEnabled() {
         return (Integer) getFieldByNumber(7);
     }
 
+    public int getAutoActivityUploadEnabledPrimitive() {
+        return getIntField(7);
+    }
+
     @Nullable
     public Integer getCourseDownloadEnabled() {
         return (Integer) getFieldByNumber(8);
     }
 
+    public int getCourseDownloadEnabledPrimitive() {
+        return getIntField(8);
+    }
+
     @Nullable
     public Integer getWorkoutDownloadEnabled() {
         return (Integer) getFieldByNumber(9);
     }
 
+    public int getWorkoutDownloadEnabledPrimitive() {
+        return getIntField(9);
+    }
+
     @Nullable
     public Integer getGpsEphemerisDownloadEnabled() {
         return (Integer) getFieldByNumber(10);
     }
+
+    public int getGpsEphemerisDownloadEnabledPrimitive() {
+        return getIntField(10);
+    }
 }
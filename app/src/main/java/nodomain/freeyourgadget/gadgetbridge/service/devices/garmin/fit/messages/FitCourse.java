@@ -25,6 +25,10 @@ public class FitCourse extends RecordData {
         return (Integer) getFieldByNumber(4);
     }
 
+    public int getSportPrimitive() {
+        return getIntField(4);
+    }
+
     @Nullable
     public String getName() {
         return (String) getFieldByNumber(5);
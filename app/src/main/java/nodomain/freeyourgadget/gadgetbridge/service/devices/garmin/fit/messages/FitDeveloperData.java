@@ -29,4 +29,8 @@ public class FitDeveloperData extends RecordData {
     public Integer getDeveloperDataIndex() {
         return (Integer) getFieldByNumber(3);
     }
+
+    public int getDeveloperDataIndexPrimitive() {
+        return getIntField(3);
+    }
 }
@@ -25,21 +25,37 @@ public class FitDeviceInfo extends RecordData {
         return (Integer) getFieldByNumber(2);
     }
 
+    public int getManufacturerPrimitive() {
+        return getIntField(2);
+    }
+
     @Nullable
     public Long getSerialNumber() {
         return (Long) getFieldByNumber(3);
     }
 
+    public long getSerialNumberPrimitive() {
+        return getLongField(3);
+    }
+
     @Nullable
     public Integer getProduct() {
         return (Integer) getFieldByNumber(4);
     }
 
+    public int getProductPrimitive() {
+        return getIntField(4);
+    }
+
     @Nullable
     public Integer getSoftwareVersion() {
         return (Integer) getFieldByNumber(5);
     }
 
+    public int getSoftwareVersionPrimitive() {
+        return getIntField(5);
+    }
+
     @Nullable
     public Long getTimestamp() {
         return (Long) getFieldByNumber(253);
@@ -25,78 +25,142 @@ public class FitDeviceSettings extends RecordData {
         return (Integer) getFieldByNumber(0);
     }
 
+    public int getActiveTimeZonePrimitive() {
+        return getIntField(0);
+    }
+
     @Nullable
     public Long getUtcOffset() {
         return (Long) getFieldByNumber(1);
     }
 
+    public long getUtcOffsetPrimitive() {
+        return getLongField(1);
+    }
+
     @Nullable
     public Long getTimeOffset() {
         return (Long) getFieldByNumber(2);
     }
 
+    public long getTimeOffsetPrimitive() {
+        return getLongField(2);
+    }
+
     @Nullable
     public Integer getTimeMode() {
         return (Integer) getFieldByNumber(4);
     }
 
+    public int getTimeModePrimitive() {
+        return getIntField(4);
+    }
+
     @Nullable
     public Integer getTimeZoneOffset() {
         return (Integer) getFieldByNumber(5);
     }
 
+    public int getTimeZoneOffsetPrimitive() {
+        return getIntField(5);
+    }
+
     @Nullable
     public Integer getBacklightMode() {
         return (Integer) getFieldByNumber(12);
     }
 
+    public int getBacklightModePrimitive() {
+        return getIntField(12);
+    }
+
     @Nullable
     public Integer getActivityTrackerEnabled() {
         return (Integer) getFieldByNumber(36);
     }
 
+    public int getActivityTrackerEnabledPrimitive() {
+        return getIntField(36);
+    }
+
     @Nullable
     public Integer getMoveAlertEnabled() {
         return (Integer) getFieldByNumber(46);
     }
 
+    public int getMoveAlertEnabledPrimitive() {
+        return getIntField(46);
+    }
+
     @Nullable
     public Integer getDateMode() {
         return (Integer) getFieldByNumber(47);
     }
 
+    public int getDateModePrimitive() {
+        return getIntField(47);
+    }
+
     @Nullable
     public Integer getDisplayOrientation() {
         return (Integer) getFieldByNumber(55);
     }
 
+    public int getDisplayOrientationPrimitive() {
+        return getIntField(55);
+    }
+
     @Nullable
     public Integer getMountingSide() {
         return (Integer) getFieldByNumber(56);
     }
 
+    public int getMountingSidePrimitive() {
+        return getIntField(56);
+    }
+
     @Nullable
     public Integer getDefaultPage() {
         return (Integer) getFieldByNumber(57);
     }
 
+    public int getDefaultPagePrimitive() {
+        return getIntField(57);
+    }
+
     @Nullable
     public Integer getAutosyncMinSteps() {
         return (Integer) getFieldByNumber(58);
     }
 
+    public int getAutosyncMinStepsPrimitive() {
+        return getIntField(58);
+    }
+
     @Nullable
     public Integer getAutosyncMinTime() {
         return (Integer) getFieldByNumber(59);
     }
 
+    public int getAutosyncMinTimePrimitive() {
+        return getIntField(59);
+    }
+
     @Nullable
     public Integer getBleAutoUploadEnabled() {
         return (Integer) getFieldByNumber(86);
     }
 
+    public int getBleAutoUploadEnabledPrimitive() {
+        return getIntField(86);
+    }
+
     @Nullable
     public Long getAutoActivityDetect() {
         return (Long) getFieldByNumber(90);
     }
+
+    public long getAutoActivityDetectPrimitive() {
+        return getLongField(90);
+    }
 }
@@ -25,21 +25,37 @@ public class FitEvent extends RecordData {
         return (Integer) getFieldByNumber(0);
     }
 
+    public int getEventPrimitive() {
+        return getIntField(0);
+    }
+
     @Nullable
     public Integer getEventType() {
         return (Integer) getFieldByNumber(1);
     }
 
+    public int getEventTypePrimitive() {
+        return getIntField(1);
+    }
+
     @Nullable
     public Long getData() {
         return (Long) getFieldByNumber(3);
     }
 
+    public long getDataPrimitive() {
+        return getLongField(3);
+    }
+
     @Nullable
     public Integer getEventGroup() {
         return (Integer) getFieldByNumber(4);
     }
 
+    public int getEventGroupPrimitive() {
+        return getIntField(4);
+    }
+
     @Nullable
     public Long getTimestamp() {
         return (Long) getFieldByNumber(253);
@@ -25,16 +25,28 @@ public class FitFieldDescription extends RecordData {
         return (Integer) getFieldByNumber(0);
     }
 
+    public int getDeveloperDataIndexPrimitive() {
+        return getIntField(0);
+    }
+
     @Nullable
     public Integer getFieldDefinitionNumber() {
         return (Integer) getFieldByNumber(1);
     }
 
+    public int getFieldDefinitionNumberPrimitive() {
+        return getIntField(1);
+    }
+
     @Nullable
     public Integer getFitBaseTypeId() {
         return (Integer) getFieldByNumber(2);
     }
 
+    public int getFitBaseTypeIdPrimitive() {
+        return getIntField(2);
+    }
+
     @Nullable
     public String getFieldName() {
         return (String) getFieldByNumber(3);
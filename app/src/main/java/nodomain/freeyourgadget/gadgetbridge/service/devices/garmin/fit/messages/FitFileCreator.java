@@ -25,8 +25,16 @@ public class FitFileCreator extends RecordData {
         return (Integer) getFieldByNumber(0);
     }
 
+    public int getSoftwareVersionPrimitive() {
+        return getIntField(0);
+    }
+
     @Nullable
     public Integer getHardwareVersion() {
         return (Integer) getFieldByNumber(1);
     }
+
+    public int getHardwareVersionPrimitive() {
+        return getIntField(1);
+    }
 }
@@ -31,16 +31,28 @@ public class FitFileId extends RecordData {
         return (Integer) getFieldByNumber(1);
     }
 
+    public int getManufacturerPrimitive() {
+        return getIntField(1);
+    }
+
     @Nullable
     public Integer getProduct() {
         return (Integer) getFieldByNumber(2);
     }
 
+    public int getProductPrimitive() {
+        return getIntField(2);
+    }
+
     @Nullable
     public Long getSerialNumber() {
         return (Long) getFieldByNumber(3);
     }
 
+    public long getSerialNumberPrimitive() {
+        return getLongField(3);
+    }
+
     @Nullable
     public Long getTimeCreated() {
         return (Long) getFieldByNumber(4);
@@ -51,11 +63,19 @@ public class FitFileId extends RecordData {
         return (Integer) getFieldByNumber(5);
     }
 
+    public int getNumberPrimitive() {
+        return getIntField(5);
+    }
+
     @Nullable
     public Integer getManufacturerPartner() {
         return (Integer) getFieldByNumber(6);
     }
 
+    public int getManufacturerPartnerPrimitive() {
+        return getIntField(6);
+    }
+
     @Nullable
     public String getProductName() {
         return (String) getFieldByNumber(8);
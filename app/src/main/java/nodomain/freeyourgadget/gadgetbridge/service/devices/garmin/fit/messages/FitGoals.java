@@ -32,6 +32,10 @@ public class FitGoals extends RecordData {
         return (Long) getFieldByNumber(7);
     }
 
+    public long getTargetValuePrimitive() {
+        return getLongField(7);
+    }
+
     @Nullable
     public Source getSource() {
         return (Source) getFieldByNumber(11);
@@ -25,8 +25,16 @@ public class FitGpsMetadata extends RecordData {
         return (Long) getFieldByNumber(3);
     }
 
+    public long getEnhancedAltitudePrimitive() {
+        return getLongField(3);
+    }
+
     @Nullable
     public Long getEnhancedSpeed() {
         return (Long) getFieldByNumber(4);
     }
+
+    public long getEnhancedSpeedPrimitive() {
+        return getLongField(4);
+    }
 }
@@ -25,16 +25,28 @@ public class FitLap extends RecordData {
         return (Integer) getFieldByNumber(0);
     }
 
+    public int getEventPrimitive() {
+        return getIntField(0);
+    }
+
     @Nullable
     public Integer getEventType() {
         return (Integer) getFieldByNumber(1);
     }
 
+    public int getEventTypePrimitive() {
+        return getIntField(1);
+    }
+
     @Nullable
     public Long getStartTime() {
         return (Long) getFieldByNumber(2);
     }
 
+    public long getStartTimePrimitive() {
+        return getLongField(2);
+    }
+
     @Nullable
     public Double getStartLat() {
         return (Double) getFieldByNumber(3);
@@ -75,81 +87,145 @@ public class FitLap extends RecordData {
         return (Long) getFieldByNumber(10);
     }
 
+    public long getTotalCyclesPrimitive() {
+        return getLongField(10);
+    }
+
     @Nullable
     public Integer getTotalCalores() {
         return (Integer) getFieldByNumber(11);
     }
 
+    public int getTotalCaloresPrimitive() {
+        return getIntField(11);
+    }
+
     @Nullable
     public Integer getAvgHeartRate() {
         return (Integer) getFieldByNumber(15);
     }
 
+    public int getAvgHeartRatePrimitive() {
+        return getIntField(15);
+    }
+
     @Nullable
     public Integer getMaxHeartRate() {
         return (Integer) getFieldByNumber(16);
     }
 
+    public int getMaxHeartRatePrimitive() {
+        return getIntField(16);
+    }
+
     @Nullable
     public Integer getAvgCadence() {
         return (Integer) getFieldByNumber(17);
     }
 
+    public int getAvgCadencePrimitive() {
+        return getIntField(17);
+    }
+
     @Nullable
     public Integer getTotalAscent() {
         return (Integer) getFieldByNumber(21);
     }
 
+    public int getTotalAscentPrimitive() {
+        return getIntField(21);
+    }
+
     @Nullable
     public Integer getTotalDescent() {
         return (Integer) getFieldByNumber(22);
     }
 
+    public int getTotalDescentPrimitive() {
+        return getIntField(22);
+    }
+
     @Nullable
     public Integer getLapTrigger() {
         return (Integer) getFieldByNumber(24);
     }
 
+    public int getLapTriggerPrimitive() {
+        return getIntField(24);
+    }
+
     @Nullable
     public Integer getSport() {
         return (Integer) getFieldByNumber(25);
     }
 
+    public int getSportPrimitive() {
+        return getIntField(25);
+    }
+
     @Nullable
     public Integer getNumLengths() {
         return (Integer) getFieldByNumber(32);
     }
 
+    public int getNumLengthsPrimitive() {
+        return getIntField(32);
+    }
+
     @Nullable
     public Integer getFirstLengthIndex() {
         return (Integer) getFieldByNumber(35);
     }
 
+    public int getFirstLengthIndexPrimitive() {
+        return getIntField(35);
+    }
+
     @Nullable
     public Integer getAvgStrokeDistance() {
         return (Integer) getFieldByNumber(37);
     }
 
+    public int getAvgStrokeDistancePrimitive() {
+        return getIntField(37);
+    }
+
     @Nullable
     public Integer getSwimStyle() {
         return (Integer) getFieldByNumber(38);
     }
 
+    public int getSwimStylePrimitive() {
+        return getIntField(38);
+    }
+
     @Nullable
     public Integer getSubSport() {
         return (Integer) getFieldByNumber(39);
     }
 
+    public int getSubSportPrimitive() {
+        return getIntField(39);
+    }
+
     @Nullable
     public Integer getNumActiveLengths() {
         return (Integer) getFieldByNumber(40);
     }
 
+    public int getNumActiveLengthsPrimitive() {
+        return getIntField(40);
+    }
+
     @Nullable
     public Integer getAvgSwolf() {
         return (Integer) getFieldByNumber(73);
     }
 
+    public int getAvgSwolfPrimitive() {
+        return getIntField(73);
+    }
+
     @Nullable
     public Double getEnhancedAvgSpeed() {
         return (Double) getFieldByNumber(110);
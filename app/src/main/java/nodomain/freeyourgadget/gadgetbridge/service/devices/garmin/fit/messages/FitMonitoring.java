@@ -28,56 +28,100 @@ public class FitMonitoring extends RecordData {
         return (Long) getFieldByNumber(2);
     }
 
+    public long getDistancePrimitive() {
+        return getLongField(2);
+    }
+
     @Nullable
     public Long getCycles() {
         return (Long) getFieldByNumber(3);
     }
 
+    public long getCyclesPrimitive() {
+        return getLongField(3);
+    }
+
     @Nullable
     public Long getActiveTime() {
         return (Long) getFieldByNumber(4);
     }
 
+    public long getActiveTimePrimitive() {
+        return getLongField(4);
+    }
+
     @Nullable
     public Integer getActivityType() {
         return (Integer) getFieldByNumber(5);
     }
 
+    public int getActivityTypePrimitive() {
+        return getIntField(5);
+    }
+
     @Nullable
     public Integer getActiveCalories() {
         return (Integer) getFieldByNumber(19);
     }
 
+    public int getActiveCaloriesPrimitive() {
+        return getIntField(19);
+    }
+
     @Nullable
     public Integer getDurationMin() {
         return (Integer) getFieldByNumber(29);
     }
 
+    public int getDurationMinPrimitive() {
+        return getIntField(29);
+    }
+
     @Nullable
     public Integer getCurrentActivityTypeIntensity() {
         return (Integer) getFieldByNumber(24);
     }
 
+    public int getCurrentActivityTypeIntensityPrimitive() {
+        return getIntField(24);
+    }
+
     @Nullable
     public Integer getTimestamp16() {
         return (Integer) getFieldByNumber(26);
     }
 
+    public int getTimestamp16Primitive() {
+        return getIntField(26);
+    }
+
     @Nullable
     public Integer getHeartRate() {
         return (Integer) getFieldByNumber(27);
     }
 
+    public int getHeartRatePrimitive() {
+        return getIntField(27);
+    }
+
     @Nullable
     public Integer getModerateActivityMinutes() {
         return (Integer) getFieldByNumber(33);
     }
 
+    public int getModerateActivityMinutesPrimitive() {
+        return getIntField(33);
+    }
+
     @Nullable
     public Integer getVigorousActivityMinutes() {
         return (Integer) getFieldByNumber(34);
     }
 
+    public int getVigorousActivityMinutesPrimitive() {
+        return getIntField(34);
+    }
+
     @Nullable
     public Long getTimestamp() {
         return (Long) getFieldByNumber(253);
@@ -86,9 +130,9 @@ public class FitMonitoring extends RecordData {
     // manual changes below
 
     public Long computeTimestamp(final Long lastMonitoringTimestamp) {
-        final Integer timestamp16 = getTimestamp16();
+        final int timestamp16 = getTimestamp16Primitive();
 
-        if (timestamp16 != null && lastMonitoringTimestamp != null) {
+        if (timestamp16 != INVALID_INT && lastMonitoringTimestamp != null) {
             final int referenceGarminTs = GarminTimeUtils.unixTimeToGarminTimestamp(lastMonitoringTimestamp.intValue());
             return (long) (lastMonitoringTimestamp.intValue() + ((timestamp16 - (referenceGarminTs & 0xffff)) & 0xffff));
         }
@@ -97,13 +141,13 @@ public class FitMonitoring extends RecordData {
     }
 
     public Optional<Integer> getComputedActivityType() {
-        final Integer activityType = getActivityType();
-        if (activityType != null) {
+        final int activityType = getActivityTypePrimitive();
+        if (activityType != INVALID_INT) {
             return Optional.of(activityType);
         }
 
-        final Integer currentActivityTypeIntensity = getCurrentActivityTypeIntensity();
-        if (currentActivityTypeIntensity != null) {
+        final int currentActivityTypeIntensity = getCurrentActivityTypeIntensityPrimitive();
+        if (currentActivityTypeIntensity != INVALID_INT) {
             return Optional.of(currentActivityTypeIntensity & 0x1F);
         }
 
@@ -111,8 +155,8 @@ public class FitMonitoring extends RecordData {
     }
 
     public Integer getComputedIntensity() {
-        final Integer currentActivityTypeIntensity = getCurrentActivityTypeIntensity();
-        if (currentActivityTypeIntensity != null) {
+        final int currentActivityTypeIntensity = getCurrentActivityTypeIntensityPrimitive();
+        if (currentActivityTypeIntensity != INVALID_INT) {
             return (currentActivityTypeIntensity >> 5) & 0x7;
         }
 
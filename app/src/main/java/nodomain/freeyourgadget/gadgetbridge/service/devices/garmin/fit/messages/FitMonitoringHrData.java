@@ -25,11 +25,19 @@ public class FitMonitoringHrData extends RecordData {
         return (Integer) getFieldByNumber(0);
     }
 
+    public int getRestingHeartRatePrimitive() {
+        return getIntField(0);
+    }
+
     @Nullable
     public Integer getCurrentDayRestingHeartRate() {
         return (Integer) getFieldByNumber(1);
     }
 
+    public int getCurrentDayRestingHeartRatePrimitive() {
+        return getIntField(1);
+    }
+
     @Nullable
     public Long getTimestamp() {
         return (Long) getFieldByNumber(253);
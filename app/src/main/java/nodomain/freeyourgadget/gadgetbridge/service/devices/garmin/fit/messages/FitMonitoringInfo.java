@@ -25,6 +25,10 @@ public class FitMonitoringInfo extends RecordData {
         return (Long) getFieldByNumber(0);
     }
 
+    public long getLocalTimestampPrimitive() {
+        return getLongField(0);
+    }
+
     @Nullable
     public Number[] getActivityType() {
         final Object[] objectsArray = (Object[]) getFieldByNumber(1);
@@ -66,6 +70,10 @@ public class FitMonitoringInfo extends RecordData {
         return (Integer) getFieldByNumber(5);
     }
 
+    public int getRestingMetabolicRatePrimitive() {
+        return getIntField(5);
+    }
+
     @Nullable
     public Long getTimestamp() {
         return (Long) getFieldByNumber(253);
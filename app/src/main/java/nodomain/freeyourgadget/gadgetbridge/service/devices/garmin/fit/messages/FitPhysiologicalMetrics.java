@@ -35,11 +35,19 @@ public class FitPhysiologicalMetrics extends RecordData {
         return (Integer) getFieldByNumber(9);
     }
 
+    public int getRecoveryTimePrimitive() {
+        return getIntField(9);
+    }
+
     @Nullable
     public Integer getLactateThresholdHeartRate() {
         return (Integer) getFieldByNumber(14);
     }
 
+    public int getLactateThresholdHeartRatePrimitive() {
+        return getIntField(14);
+    }
+
     @Nullable
     public Float getAnaerobicEffect() {
         return (Float) getFieldByNumber(20);
@@ -45,11 +45,19 @@ public class FitRecord extends RecordData {
         return (Integer) getFieldByNumber(3);
     }
 
+    public int getHeartRatePrimitive() {
+        return getIntField(3);
+    }
+
     @Nullable
     public Integer getCadence() {
         return (Integer) getFieldByNumber(4);
     }
 
+    public int getCadencePrimitive() {
+        return getIntField(4);
+    }
+
     @Nullable
     public Double getDistance() {
         return (Double) getFieldByNumber(5);
@@ -65,11 +73,19 @@ public class FitRecord extends RecordData {
         return (Integer) getFieldByNumber(7);
     }
 
+    public int getPowerPrimitive() {
+        return getIntField(7);
+    }
+
     @Nullable
     public Long getAccumulatedPower() {
         return (Long) getFieldByNumber(29);
     }
 
+    public long getAccumulatedPowerPrimitive() {
+        return getLongField(29);
+    }
+
     @Nullable
     public Float getOscillation() {
         return (Float) getFieldByNumber(39);
@@ -80,6 +96,10 @@ public class FitRecord extends RecordData {
         return (Integer) getFieldByNumber(42);
     }
 
+    public int getActivityPrimitive() {
+        return getIntField(42);
+    }
+
     @Nullable
     public Float getFractionalCadence() {
         return (Float) getFieldByNumber(53);
@@ -110,16 +130,28 @@ public class FitRecord extends RecordData {
         return (Integer) getFieldByNumber(108);
     }
 
+    public int getEnhancedRespirationRatePrimitive() {
+        return getIntField(108);
+    }
+
     @Nullable
     public Integer getWristHeartRate() {
         return (Integer) getFieldByNumber(136);
     }
 
+    public int getWristHeartRatePrimitive() {
+        return getIntField(136);
+    }
+
     @Nullable
     public Integer getBodyBattery() {
         return (Integer) getFieldByNumber(143);
     }
 
+    public int getBodyBatteryPrimitive() {
+        return getIntField(143);
+    }
+
     @Nullable
     public Long getTimestamp() {
         return (Long) getFieldByNumber(253);
@@ -25,16 +25,28 @@ public class FitSession extends RecordData {
         return (Integer) getFieldByNumber(0);
     }
 
+    public int getEventPrimitive() {
+        return getIntField(0);
+    }
+
     @Nullable
     public Integer getEventType() {
         return (Integer) getFieldByNumber(1);
     }
 
+    public int getEventTypePrimitive() {
+        return getIntField(1);
+    }
+
     @Nullable
     public Long getStartTime() {
         return (Long) getFieldByNumber(2);
     }
 
+    public long getStartTimePrimitive() {
+        return getLongField(2);
+    }
+
     @Nullable
     public Double getStartLatitude() {
         return (Double) getFieldByNumber(3);
@@ -50,76 +62,136 @@ public class FitSession extends RecordData {
         return (Integer) getFieldByNumber(5);
     }
 
+    public int getSportPrimitive() {
+        return getIntField(5);
+    }
+
     @Nullable
     public Integer getSubSport() {
         return (Integer) getFieldByNumber(6);
     }
 
+    public int getSubSportPrimitive() {
+        return getIntField(6);
+    }
+
     @Nullable
     public Long getTotalElapsedTime() {
         return (Long) getFieldByNumber(7);
     }
 
+    public long getTotalElapsedTimePrimitive() {
+        return getLongField(7);
+    }
+
     @Nullable
     public Long getTotalTimerTime() {
         return (Long) getFieldByNumber(8);
     }
 
+    public long getTotalTimerTimePrimitive() {
+        return getLongField(8);
+    }
+
     @Nullable
     public Long getTotalDistance() {
         return (Long) getFieldByNumber(9);
     }
 
+    public long getTotalDistancePrimitive() {
+        return getLongField(9);
+    }
+
     @Nullable
     public Long getTotalCycles() {
         return (Long) getFieldByNumber(10);
     }
 
+    public long getTotalCyclesPrimitive() {
+        return getLongField(10);
+    }
+
     @Nullable
     public Integer getTotalCalories() {
         return (Integer) getFieldByNumber(11);
     }
 
+    public int getTotalCaloriesPrimitive() {
+        return getIntField(11);
+    }
+
     @Nullable
     public Integer getAverageHeartRate() {
         return (Integer) getFieldByNumber(16);
     }
 
+    public int getAverageHeartRatePrimitive() {
+        return getIntField(16);
+    }
+
     @Nullable
     public Integer getMaxHeartRate() {
         return (Integer) getFieldByNumber(17);
     }
 
+    public int getMaxHeartRatePrimitive() {
+        return getIntField(17);
+    }
+
     @Nullable
     public Integer getAvgCadence() {
         return (Integer) getFieldByNumber(18);
     }
 
+    public int getAvgCadencePrimitive() {
+        return getIntField(18);
+    }
+
     @Nullable
     public Integer getMaxCadence() {
         return (Integer) getFieldByNumber(19);
     }
 
+    public int getMaxCadencePrimitive() {
+        return getIntField(19);
+    }
+
     @Nullable
     public Integer getAvgPower() {
         return (Integer) getFieldByNumber(20);
     }
 
+    public int getAvgPowerPrimitive() {
+        return getIntField(20);
+    }
+
     @Nullable
     public Integer getMaxPower() {
         return (Integer) getFieldByNumber(21);
     }
 
+    public int getMaxPowerPrimitive() {
+        return getIntField(21);
+    }
+
     @Nullable
     public Integer getTotalAscent() {
         return (Integer) getFieldByNumber(22);
     }
 
+    public int getTotalAscentPrimitive() {
+        return getIntField(22);
+    }
+
     @Nullable
     public Integer getTotalDescent() {
         return (Integer) getFieldByNumber(23);
     }
 
+    public int getTotalDescentPrimitive() {
+        return getIntField(23);
+    }
+
     @Nullable
     public Float getTotalTrainingEffect() {
         return (Float) getFieldByNumber(24);
@@ -130,11 +202,19 @@ public class FitSession extends RecordData {
         return (Integer) getFieldByNumber(25);
     }
 
+    public int getFirstLapIndexPrimitive() {
+        return getIntField(25);
+    }
+
     @Nullable
     public Integer getNumLaps() {
         return (Integer) getFieldByNumber(26);
     }
 
+    public int getNumLapsPrimitive() {
+        return getIntField(26);
+    }
+
     @Nullable
     public Double getNecLatitude() {
         return (Double) getFieldByNumber(29);
@@ -160,11 +240,19 @@ public class FitSession extends RecordData {
         return (Integer) getFieldByNumber(33);
     }
 
+    public int getNumLengthsPrimitive() {
+        return getIntField(33);
+    }
+
     @Nullable
     public Integer getNormalizedPower() {
         return (Integer) getFieldByNumber(34);
     }
 
+    public int getNormalizedPowerPrimitive() {
+        return getIntField(34);
+    }
+
     @Nullable
     public Float getTrainingStressScore() {
         return (Float) getFieldByNumber(35);
@@ -180,6 +268,10 @@ public class FitSession extends RecordData {
         return (Integer) getFieldByNumber(37);
     }
 
+    public int getLeftRightBalancePrimitive() {
+        return getIntField(37);
+    }
+
     @Nullable
     public Double getEndLatitude() {
         return (Double) getFieldByNumber(38);
@@ -200,16 +292,28 @@ public class FitSession extends RecordData {
         return (Integer) getFieldByNumber(45);
     }
 
+    public int getThresholdPowerPrimitive() {
+        return getIntField(45);
+    }
+
     @Nullable
     public Integer getNumActiveLengths() {
         return (Integer) getFieldByNumber(47);
     }
 
+    public int getNumActiveLengthsPrimitive() {
+        return getIntField(47);
+    }
+
     @Nullable
     public Long getTotalWork() {
         return (Long) getFieldByNumber(48);
     }
 
+    public long getTotalWorkPrimitive() {
+        return getLongField(48);
+    }
+
     @Nullable
     public Float getAvgSwimCadence() {
         return (Float) getFieldByNumber(79);
@@ -220,6 +324,10 @@ public class FitSession extends RecordData {
         return (Integer) getFieldByNumber(80);
     }
 
+    public int getAvgSwolfPrimitive() {
+        return getIntField(80);
+    }
+
     @Nullable
     public Float getAvgVerticalOscillation() {
         return (Float) getFieldByNumber(89);
@@ -270,11 +378,19 @@ public class FitSession extends RecordData {
         return (Integer) getFieldByNumber(107);
     }
 
+    public int getFrontShiftsPrimitive() {
+        return getIntField(107);
+    }
+
     @Nullable
     public Integer getRearShifts() {
         return (Integer) getFieldByNumber(108);
     }
 
+    public int getRearShiftsPrimitive() {
+        return getIntField(108);
+    }
+
     @Nullable
     public String getSportProfileName() {
         return (String) getFieldByNumber(110);
@@ -285,21 +401,37 @@ public class FitSession extends RecordData {
         return (Long) getFieldByNumber(112);
     }
 
+    public long getStandTimePrimitive() {
+        return getLongField(112);
+    }
+
     @Nullable
     public Integer getStandCount() {
         return (Integer) getFieldByNumber(113);
     }
 
+    public int getStandCountPrimitive() {
+        return getIntField(113);
+    }
+
     @Nullable
     public Integer getAvgLeftPco() {
         return (Integer) getFieldByNumber(114);
     }
 
+    public int getAvgLeftPcoPrimitive() {
+        return getIntField(114);
+    }
+
     @Nullable
     public Integer getAvgRightPco() {
         return (Integer) getFieldByNumber(115);
     }
 
+    public int getAvgRightPcoPrimitive() {
+        return getIntField(115);
+    }
+
     @Nullable
     public Number[] getAvgLeftPowerPhase() {
         final Object[] objectsArray = (Object[]) getFieldByNumber(116);
@@ -446,6 +578,10 @@ public class FitSession extends RecordData {
         return (Integer) getFieldByNumber(178);
     }
 
+    public int getEstimatedSweatLossPrimitive() {
+        return getIntField(178);
+    }
+
     @Nullable
     public Float getEnhancedMinRespirationRate() {
         return (Float) getFieldByNumber(180);
@@ -456,31 +592,55 @@ public class FitSession extends RecordData {
         return (Integer) getFieldByNumber(188);
     }
 
+    public int getPrimaryBenefitPrimitive() {
+        return getIntField(188);
+    }
+
     @Nullable
     public Integer getAvgSpo2() {
         return (Integer) getFieldByNumber(194);
     }
 
+    public int getAvgSpo2Primitive() {
+        return getIntField(194);
+    }
+
     @Nullable
     public Integer getAvgStress() {
         return (Integer) getFieldByNumber(195);
     }
 
+    public int getAvgStressPrimitive() {
+        return getIntField(195);
+    }
+
     @Nullable
     public Integer getRestingCalories() {
         return (Integer) getFieldByNumber(196);
     }
 
+    public int getRestingCaloriesPrimitive() {
+        return getIntField(196);
+    }
+
     @Nullable
     public Integer getHrvSdrr() {
         return (Integer) getFieldByNumber(197);
     }
 
+    public int getHrvSdrrPrimitive() {
+        return getIntField(197);
+    }
+
     @Nullable
     public Integer getHrvRmssd() {
         return (Integer) getFieldByNumber(198);
     }
 
+    public int getHrvRmssdPrimitive() {
+        return getIntField(198);
+    }
+
     @Nullable
     public Long getTimestamp() {
         return (Long) getFieldByNumber(253);
@@ -30,6 +30,10 @@ public class FitSet extends RecordData {
         return (Integer) getFieldByNumber(3);
     }
 
+    public int getRepetitionsPrimitive() {
+        return getIntField(3);
+    }
+
     @Nullable
     public Float getWeight() {
         return (Float) getFieldByNumber(4);
@@ -40,6 +44,10 @@ public class FitSet extends RecordData {
         return (Integer) getFieldByNumber(5);
     }
 
+    public int getSetTypePrimitive() {
+        return getIntField(5);
+    }
+
     @Nullable
     public Long getStartTime() {
         return (Long) getFieldByNumber(6);
@@ -50,11 +58,19 @@ public class FitSet extends RecordData {
         return (Integer) getFieldByNumber(7);
     }
 
+    public int getCategoryPrimitive() {
+        return getIntField(7);
+    }
+
     @Nullable
     public Integer getMessageIndex() {
         return (Integer) getFieldByNumber(10);
     }
 
+    public int getMessageIndexPrimitive() {
+        return getIntField(10);
+    }
+
     @Nullable
     public Long getTimestamp() {
         return (Long) getFieldByNumber(254);
@@ -25,6 +25,10 @@ public class FitSkinTempOvernight extends RecordData {
         return (Long) getFieldByNumber(0);
     }
 
+    public long getLocalTimestampPrimitive() {
+        return getLongField(0);
+    }
+
     @Nullable
     public Float getAverageDeviation() {
         return (Float) getFieldByNumber(1);
@@ -40,6 +44,10 @@ public class FitSkinTempOvernight extends RecordData {
         return (Integer) getFieldByNumber(3);
     }
 
+    public int getUnk3Primitive() {
+        return getIntField(3);
+    }
+
     @Nullable
     public Long getTimestamp() {
         return (Long) getFieldByNumber(253);
@@ -25,21 +25,37 @@ public class FitSleepDataInfo extends RecordData {
         return (Integer) getFieldByNumber(0);
     }
 
+    public int getUnk0Primitive() {
+        return getIntField(0);
+    }
+
     @Nullable
     public Integer getSampleLength() {
         return (Integer) getFieldByNumber(1);
     }
 
+    public int getSampleLengthPrimitive() {
+        return getIntField(1);
+    }
+
     @Nullable
     public Long getLocalTimestamp() {
         return (Long) getFieldByNumber(2);
     }
 
+    public long getLocalTimestampPrimitive() {
+        return getLongField(2);
+    }
+
     @Nullable
     public Integer getUnk3() {
         return (Integer) getFieldByNumber(3);
     }
 
+    public int getUnk3Primitive() {
+        return getIntField(3);
+    }
+
     @Nullable
     public String getVersion() {
         return (String) getFieldByNumber(4);
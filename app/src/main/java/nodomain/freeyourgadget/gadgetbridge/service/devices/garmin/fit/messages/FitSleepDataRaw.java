@@ -24,4 +24,8 @@ public class FitSleepDataRaw extends RecordData {
     public Integer getBytes() {
         return (Integer) getFieldByNumber(0);
     }
+
+    public int getBytesPrimitive() {
+        return getIntField(0);
+    }
 }
@@ -25,76 +25,136 @@ public class FitSleepStats extends RecordData {
         return (Integer) getFieldByNumber(0);
     }
 
+    public int getCombinedAwakeScorePrimitive() {
+        return getIntField(0);
+    }
+
     @Nullable
     public Integer getAwakeTimeScore() {
         return (Integer) getFieldByNumber(1);
     }
 
+    public int getAwakeTimeScorePrimitive() {
+        return getIntField(1);
+    }
+
     @Nullable
     public Integer getAwakeningsCountScore() {
         return (Integer) getFieldByNumber(2);
     }
 
+    public int getAwakeningsCountScorePrimitive() {
+        return getIntField(2);
+    }
+
     @Nullable
     public Integer getDeepSleepScore() {
         return (Integer) getFieldByNumber(3);
     }
 
+    public int getDeepSleepScorePrimitive() {
+        return getIntField(3);
+    }
+
     @Nullable
     public Integer getSleepDurationScore() {
         return (Integer) getFieldByNumber(4);
     }
 
+    public int getSleepDurationScorePrimitive() {
+        return getIntField(4);
+    }
+
     @Nullable
     public Integer getLightSleepScore() {
         return (Integer) getFieldByNumber(5);
     }
 
+    public int getLightSleepScorePrimitive() {
+        return getIntField(5);
+    }
+
     @Nullable
     public Integer getOverallSleepScore() {
         return (Integer) getFieldByNumber(6);
     }
 
+    public int getOverallSleepScorePrimitive() {
+        return getIntField(6);
+    }
+
     @Nullable
     public Integer getSleepQualityScore() {
         return (Integer) getFieldByNumber(7);
     }
 
+    public int getSleepQualityScorePrimitive() {
+        return getIntField(7);
+    }
+
     @Nullable
     public Integer getSleepRecoveryScore() {
         return (Integer) getFieldByNumber(8);
     }
 
+    public int getSleepRecoveryScorePrimitive() {
+        return getIntField(8);
+    }
+
     @Nullable
     public Integer getRemSleepScore() {
         return (Integer) getFieldByNumber(9);
     }
 
+    public int getRemSleepScorePrimitive() {
+        return getIntField(9);
+    }
+
     @Nullable
     public Integer getSleepRestlessnessScore() {
         return (Integer) getFieldByNumber(10);
     }
 
+    public int getSleepRestlessnessScorePrimitive() {
+        return getIntField(10);
+    }
+
     @Nullable
     public Integer getAwakeningsCount() {
         return (Integer) getFieldByNumber(11);
     }
 
+    public int getAwakeningsCountPrimitive() {
+        return getIntField(11);
+    }
+
     @Nullable
     public Integer getUnk12() {
         return (Integer) getFieldByNumber(12);
     }
 
+    public int getUnk12Primitive() {
+        return getIntField(12);
+    }
+
     @Nullable
     public Integer getUnk13() {
         return (Integer) getFieldByNumber(13);
     }
 
+    public int getUnk13Primitive() {
+        return getIntField(13);
+    }
+
     @Nullable
     public Integer getInterruptionsScore() {
         return (Integer) getFieldByNumber(14);
     }
 
+    public int getInterruptionsScorePrimitive() {
+        return getIntField(14);
+    }
+
     @Nullable
     public Float getAverageStressDuringSleep() {
         return (Float) getFieldByNumber(15);
@@ -104,4 +164,8 @@ public class FitSleepStats extends RecordData {
     public Integer getUnk16() {
         return (Integer) getFieldByNumber(16);
     }
+
+    public int getUnk16Primitive() {
+        return getIntField(16);
+    }
 }
@@ -25,16 +25,28 @@ public class FitSpo2 extends RecordData {
         return (Integer) getFieldByNumber(0);
     }
 
+    public int getReadingSpo2Primitive() {
+        return getIntField(0);
+    }
+
     @Nullable
     public Integer getReadingConfidence() {
         return (Integer) getFieldByNumber(1);
     }
 
+    public int getReadingConfidencePrimitive() {
+        return getIntField(1);
+    }
+
     @Nullable
     public Integer getMode() {
         return (Integer) getFieldByNumber(2);
     }
 
+    public int getModePrimitive() {
+        return getIntField(2);
+    }
+
     @Nullable
     public Long getTimestamp() {
         return (Long) getFieldByNumber(253);
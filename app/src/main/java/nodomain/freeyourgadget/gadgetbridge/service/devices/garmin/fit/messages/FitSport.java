@@ -25,11 +25,19 @@ public class FitSport extends RecordData {
         return (Integer) getFieldByNumber(0);
     }
 
+    public int getSportPrimitive() {
+        return getIntField(0);
+    }
+
     @Nullable
     public Integer getSubSport() {
         return (Integer) getFieldByNumber(1);
     }
 
+    public int getSubSportPrimitive() {
+        return getIntField(1);
+    }
+
     @Nullable
     public String getName() {
         return (String) getFieldByNumber(3);
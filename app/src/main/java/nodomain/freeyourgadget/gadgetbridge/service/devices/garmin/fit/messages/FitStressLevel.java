@@ -41,6 +41,10 @@ public class FitStressLevel extends RecordData {
         return (Integer) getFieldByNumber(0);
     }
 
+    public int getStressLevelValuePrimitive() {
+        return getIntField(0);
+    }
+
     @Nullable
     public Long getStressLevelTime() {
         return (Long) getFieldByNumber(1);
@@ -51,6 +55,10 @@ public class FitStressLevel extends RecordData {
         return (Integer) getFieldByNumber(3);
     }
 
+    public int getBodyEnergyPrimitive() {
+        return getIntField(3);
+    }
+
     // manual changes below
 
     @Override
@@ -25,11 +25,19 @@ public class FitTimeInZone extends RecordData {
         return (Integer) getFieldByNumber(0);
     }
 
+    public int getReferenceMessagePrimitive() {
+        return getIntField(0);
+    }
+
     @Nullable
     public Integer getReferenceIndex() {
         return (Integer) getFieldByNumber(1);
     }
 
+    public int getReferenceIndexPrimitive() {
+        return getIntField(1);
+    }
+
     @Nullable
     public Double[] getTimeInZone() {
         final Object[] objectsArray = (Object[]) getFieldByNumber(2);
@@ -59,21 +67,37 @@ public class FitTimeInZone extends RecordData {
         return (Integer) getFieldByNumber(10);
     }
 
+    public int getHrCalcTypePrimitive() {
+        return getIntField(10);
+    }
+
     @Nullable
     public Integer getMaxHeartRate() {
         return (Integer) getFieldByNumber(11);
     }
 
+    public int getMaxHeartRatePrimitive() {
+        return getIntField(11);
+    }
+
     @Nullable
     public Integer getRestingHeartRate() {
         return (Integer) getFieldByNumber(12);
     }
 
+    public int getRestingHeartRatePrimitive() {
+        return getIntField(12);
+    }
+
     @Nullable
     public Integer getThresholdHeartRate() {
         return (Integer) getFieldByNumber(13);
     }
 
+    public int getThresholdHeartRatePrimitive() {
+        return getIntField(13);
+    }
+
     @Nullable
     public Long getTimestamp() {
         return (Long) getFieldByNumber(253);
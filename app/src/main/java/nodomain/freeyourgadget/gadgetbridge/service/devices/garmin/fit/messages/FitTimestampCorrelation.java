@@ -25,6 +25,10 @@ public class FitTimestampCorrelation extends RecordData {
         return (Long) getFieldByNumber(3);
     }
 
+    public long getLocalTimestampPrimitive() {
+        return getLongField(3);
+    }
+
     @Nullable
     public Long getTimestamp() {
         return (Long) getFieldByNumber(253);
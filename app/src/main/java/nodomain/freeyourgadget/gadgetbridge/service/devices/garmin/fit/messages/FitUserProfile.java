@@ -32,16 +32,28 @@ public class FitUserProfile extends RecordData {
         return (Integer) getFieldByNumber(1);
     }
 
+    public int getGenderPrimitive() {
+        return getIntField(1);
+    }
+
     @Nullable
     public Integer getAge() {
         return (Integer) getFieldByNumber(2);
     }
 
+    public int getAgePrimitive() {
+        return getIntField(2);
+    }
+
     @Nullable
     public Integer getHeight() {
         return (Integer) getFieldByNumber(3);
     }
 
+    public int getHeightPrimitive() {
+        return getIntField(3);
+    }
+
     @Nullable
     public Float getWeight() {
         return (Float) getFieldByNumber(4);
@@ -67,21 +79,37 @@ public class FitUserProfile extends RecordData {
         return (Integer) getFieldByNumber(8);
     }
 
+    public int getRestingHeartRatePrimitive() {
+        return getIntField(8);
+    }
+
     @Nullable
     public Integer getDefaultMaxBikingHeartRate() {
         return (Integer) getFieldByNumber(10);
     }
 
+    public int getDefaultMaxBikingHeartRatePrimitive() {
+        return getIntField(10);
+    }
+
     @Nullable
     public Integer getDefaultMaxHeartRate() {
         return (Integer) getFieldByNumber(11);
     }
 
+    public int getDefaultMaxHeartRatePrimitive() {
+        return getIntField(11);
+    }
+
     @Nullable
     public Integer getHrSetting() {
         return (Integer) getFieldByNumber(12);
     }
 
+    public int getHrSettingPrimitive() {
+        return getIntField(12);
+    }
+
     @Nullable
     public Type getSpeedSetting() {
         return (Type) getFieldByNumber(13);
@@ -97,16 +125,28 @@ public class FitUserProfile extends RecordData {
         return (Integer) getFieldByNumber(16);
     }
 
+    public int getPowerSettingPrimitive() {
+        return getIntField(16);
+    }
+
     @Nullable
     public Integer getActivityClass() {
         return (Integer) getFieldByNumber(17);
     }
 
+    public int getActivityClassPrimitive() {
+        return getIntField(17);
+    }
+
     @Nullable
     public Integer getPositionSetting() {
         return (Integer) getFieldByNumber(18);
     }
 
+    public int getPositionSettingPrimitive() {
+        return getIntField(18);
+    }
+
     @Nullable
     public Type getTemperatureSetting() {
         return (Type) getFieldByNumber(21);
@@ -117,11 +157,19 @@ public class FitUserProfile extends RecordData {
         return (Long) getFieldByNumber(28);
     }
 
+    public long getWakeTimePrimitive() {
+        return getLongField(28);
+    }
+
     @Nullable
     public Long getSleepTime() {
         return (Long) getFieldByNumber(29);
     }
 
+    public long getSleepTimePrimitive() {
+        return getLongField(29);
+    }
+
     @Nullable
     public Type getHeightSetting() {
         return (Type) getFieldByNumber(30);
@@ -132,8 +180,16 @@ public class FitUserProfile extends RecordData {
         return (Integer) getFieldByNumber(31);
     }
 
+    public int getUserRunningStepLengthPrimitive() {
+        return getIntField(31);
+    }
+
     @Nullable
     public Integer getUserWalkingStepLength() {
         return (Integer) getFieldByNumber(32);
     }
+
+    public int getUserWalkingStepLengthPrimitive() {
+        return getIntField(32);
+    }
 }
@@ -25,8 +25,16 @@ public class FitWatchfaceSettings extends RecordData {
         return (Integer) getFieldByNumber(0);
     }
 
+    public int getModePrimitive() {
+        return getIntField(0);
+    }
+
     @Nullable
     public Integer getLayout() {
         return (Integer) getFieldByNumber(1);
     }
+
+    public int getLayoutPrimitive() {
+        return getIntField(1);
+    }
 }
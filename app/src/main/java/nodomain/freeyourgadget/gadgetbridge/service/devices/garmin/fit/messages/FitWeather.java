@@ -29,6 +29,10 @@ public class FitWeather extends RecordData {
         return (Integer) getFieldByNumber(0);
     }
 
+    public int getWeatherReportPrimitive() {
+        return getIntField(0);
+    }
+
     @Nullable
     public Integer getTemperature() {
         return (Integer) getFieldByNumber(1);
@@ -44,6 +48,10 @@ public class FitWeather extends RecordData {
         return (Integer) getFieldByNumber(3);
     }
 
+    public int getWindDirectionPrimitive() {
+        return getIntField(3);
+    }
+
     @Nullable
     public Float getWindSpeed() {
         return (Float) getFieldByNumber(4);
@@ -54,6 +62,10 @@ public class FitWeather extends RecordData {
         return (Integer) getFieldByNumber(5);
     }
 
+    public int getPrecipitationProbabilityPrimitive() {
+        return getIntField(5);
+    }
+
     @Nullable
     public Integer getTemperatureFeelsLike() {
         return (Integer) getFieldByNumber(6);
@@ -64,6 +76,10 @@ public class FitWeather extends RecordData {
         return (Integer) getFieldByNumber(7);
     }
 
+    public int getRelativeHumidityPrimitive() {
+        return getIntField(7);
+    }
+
     @Nullable
     public String getLocation() {
         return (String) getFieldByNumber(8);
@@ -79,11 +95,19 @@ public class FitWeather extends RecordData {
         return (Long) getFieldByNumber(10);
     }
 
+    public long getObservedLocationLatPrimitive() {
+        return getLongField(10);
+    }
+
     @Nullable
     public Long getObservedLocationLong() {
         return (Long) getFieldByNumber(11);
     }
 
+    public long getObservedLocationLongPrimitive() {
+        return getLongField(11);
+    }
+
     @Nullable
     public DayOfWeek getDayOfWeek() {
         return (DayOfWeek) getFieldByNumber(12);
@@ -25,16 +25,28 @@ public class FitWorkout extends RecordData {
         return (Integer) getFieldByNumber(4);
     }
 
+    public int getSportPrimitive() {
+        return getIntField(4);
+    }
+
     @Nullable
     public Long getCapabilities() {
         return (Long) getFieldByNumber(5);
     }
 
+    public long getCapabilitiesPrimitive() {
+        return getLongField(5);
+    }
+
     @Nullable
     public Integer getNumValidSteps() {
         return (Integer) getFieldByNumber(6);
     }
 
+    public int getNumValidStepsPrimitive() {
+        return getIntField(6);
+    }
+
     @Nullable
     public String getName() {
         return (String) getFieldByNumber(8);
@@ -45,6 +57,10 @@ public class FitWorkout extends RecordData {
         return (Integer) getFieldByNumber(11);
     }
 
+    public int getSubSportPrimitive() {
+        return getIntField(11);
+    }
+
     @Nullable
     public String getNotes() {
         return (String) getFieldByNumber(17);
@@ -25,23 +25,43 @@ public class FitZonesTarget extends RecordData {
         return (Integer) getFieldByNumber(3);
     }
 
+    public int getFunctionalThresholdPowerPrimitive() {
+        return getIntField(3);
+    }
+
     @Nullable
     public Integer getMaxHeartRate() {
         return (Integer) getFieldByNumber(1);
     }
 
+    public int getMaxHeartRatePrimitive() {
+        return getIntField(1);
+    }
+
     @Nullable
     public Integer getThresholdHeartRate() {
         return (Integer) getFieldByNumber(2);
     }
 
+    public int getThresholdHeartRatePrimitive() {
+        return getIntField(2);
+    }
+
     @Nullable
     public Integer getHrCalcType() {
         return (Integer) getFieldByNumber(5);
     }
 
+    public int getHrCalcTypePrimitive() {
+        return getIntField(5);
+    }
+
     @Nullable
     public Integer getPwrCalcType() {
         return (Integer) getFieldByNumber(7);
     }
+
+    public int getPwrCalcTypePrimitive() {
+        return getIntField(7);
+    }
 }
@@ -628,8 +628,9 @@ class HPlusHandlerThread extends GBDeviceIoThread {
         Long userId = DBHelper.getUser(dbHandler.getDaoSession()).getId();
         Long deviceId = DBHelper.getDevice(getDevice(), dbHandler.getDaoSession()).getId();
         HPlusHealthActivitySample sample = new HPlusHealthActivitySample(
+                deviceId,                       // Device id
                 timestamp,                      // ts
-                deviceId, userId,               // User id
+                userId,                         // User id
                 null,            // Raw Data
                 ActivityKind.UNKNOWN.getCode(),
                 0,                              // Intensity
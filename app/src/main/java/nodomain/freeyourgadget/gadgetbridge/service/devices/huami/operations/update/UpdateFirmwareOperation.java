@@ -241,14 +241,18 @@ public class UpdateFirmwareOperation extends AbstractHuamiOperation {
             TransactionBuilder builder = performInitialized("send firmware packet");
             builder.write(fwCControlChar, getFirmwareStartCommand());
 
-            for (int i = 0; i < packets; i++) {
-                byte[] fwChunk = Arrays.copyOfRange(fwbytes, i * packetLength, i * packetLength + packetLength);
+            // A sync command follows each packet whose index is a multiple of 100, except the first
+            // one. The packets in between are pipelined, split exactly as they were sent one by one.
+            for (int i = 0; i < packets; ) {
+                final int end = Math.min(packets, (i / 100 + 1) * 100 + 1);
+                byte[] fwChunks = Arrays.copyOfRange(fwbytes, i * packetLength, end * packetLength);
 
-                builder.write(fwCDataChar, fwChunk);
-                firmwareProgress += packetLength;
+                builder.writePipelined(fwCDataChar, fwChunks, packetLength);
+                firmwareProgress = end * packetLength;
+                i = end;
 
                 int progressPercent = (int) ((((float) firmwareProgress) / len) * 100);
-                if ((i > 0) && (i % 100 == 0)) {
+                if ((end - 1 > 0) && ((end - 1) % 100 == 0)) {
                     builder.write(fwCControlChar, new byte[]{HuamiService.COMMAND_FIRMWARE_UPDATE_SYNC});
                     builder.add(new SetProgressAction(getContext().getString(R.string.updatefirmwareoperation_update_in_progress), true, progressPercent, getContext()));
                 }
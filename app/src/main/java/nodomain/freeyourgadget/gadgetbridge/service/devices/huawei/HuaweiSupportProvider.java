@@ -1660,8 +1660,8 @@ public class HuaweiSupportProvider {
             HuaweiSampleProvider sampleProvider = new HuaweiSampleProvider(gbDevice, db.getDaoSession());
 
             HuaweiActivitySample activitySample = new HuaweiActivitySample(
-                    timestamp_start,
                     deviceId,
+                    timestamp_start,
                     userId,
                     timestamp_end,
                     source,
@@ -1688,8 +1688,8 @@ public class HuaweiSupportProvider {
             HuaweiSampleProvider sampleProvider = new HuaweiSampleProvider(gbDevice, db.getDaoSession());
 
             HuaweiActivitySample activitySample = new HuaweiActivitySample(
-                    timestamp,
                     deviceId,
+                    timestamp,
                     userId,
                     timestamp + 60,
                     FitnessData.MessageData.stepId,
@@ -866,8 +866,8 @@ public class LefunDeviceSupport extends AbstractBTLEDeviceSupport {
             // when I need to combine sample data instead of replacing
             LefunActivitySample sample = getActivitySample(session, timestamp);
             if (sample == null) {
-                sample = new LefunActivitySample(timestamp,
-                        DBHelper.getDevice(getDevice(), session).getId());
+                sample = new LefunActivitySample(DBHelper.getDevice(getDevice(), session).getId(),
+                        timestamp);
                 sample.setUserId(DBHelper.getUser(session).getId());
                 sample.setRawKind(LefunConstants.DB_ACTIVITY_KIND_ACTIVITY);
             }
@@ -900,8 +900,8 @@ public class LefunDeviceSupport extends AbstractBTLEDeviceSupport {
             if (ppgType == LefunConstants.PPG_TYPE_HEART_RATE) {
                 LefunActivitySample sample = getActivitySample(session, timestamp);
                 if (sample == null) {
-                    sample = new LefunActivitySample(timestamp,
-                            DBHelper.getDevice(getDevice(), session).getId());
+                    sample = new LefunActivitySample(DBHelper.getDevice(getDevice(), session).getId(),
+                            timestamp);
                     sample.setUserId(DBHelper.getUser(session).getId());
                     sample.setRawKind(LefunConstants.DB_ACTIVITY_KIND_HEART_RATE);
                 }
@@ -966,8 +966,8 @@ public class LefunDeviceSupport extends AbstractBTLEDeviceSupport {
 
             LefunActivitySample sample = getActivitySample(session, timestamp);
             if (sample == null) {
-                sample = new LefunActivitySample(timestamp,
-                        DBHelper.getDevice(getDevice(), session).getId());
+                sample = new LefunActivitySample(DBHelper.getDevice(getDevice(), session).getId(),
+                        timestamp);
                 sample.setUserId(DBHelper.getUser(session).getId());
             }
 
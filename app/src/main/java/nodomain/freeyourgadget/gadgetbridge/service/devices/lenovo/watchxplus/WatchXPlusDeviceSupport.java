@@ -1838,8 +1838,9 @@ public class WatchXPlusDeviceSupport extends AbstractBTLEDeviceSupport {
         Long deviceId = DBHelper.getDevice(getDevice(), dbHandler.getDaoSession()).getId();
 
         return new WatchXPlusActivitySample(
+                deviceId,                       // Device id
                 timestamp,                      // ts
-                deviceId, userId,               // User id
+                userId,                         // User id
                 null,            // Raw Data
                 ActivityKind.UNKNOWN.getCode(),      // rawKind
                 ActivitySample.NOT_MEASURED,      // rawIntensity
@@ -147,8 +147,8 @@ public class MiCompositionScaleDeviceSupport extends AbstractBTLEDeviceSupport {
             final Long deviceId = DBHelper.getDevice(getDevice(), db.getDaoSession()).getId();
 
             provider.addSample(new MiScaleWeightSample(
-                    date.getTime(),
                     deviceId,
+                    date.getTime(),
                     userId,
                     weightKg
             ));
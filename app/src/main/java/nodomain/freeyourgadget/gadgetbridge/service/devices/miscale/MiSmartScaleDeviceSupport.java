@@ -251,8 +251,8 @@ public class MiSmartScaleDeviceSupport extends AbstractBTLEDeviceSupport {
                     continue;
 
                 samples.add(new MiScaleWeightSample(
-                    measurement.getTimestamp().getTime(),
                     deviceId,
+                    measurement.getTimestamp().getTime(),
                     userId,
                     measurement.getWeightKg()
                 ));
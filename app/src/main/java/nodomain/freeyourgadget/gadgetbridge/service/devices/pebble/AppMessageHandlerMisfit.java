@@ -99,7 +99,7 @@ class AppMessageHandlerMisfit extends AppMessageHandler {
                         Long deviceId = DBHelper.getDevice(getDevice(), db.getDaoSession()).getId();
                         for (int i = 0; i < samples; i++) {
                             short sample = buf.getShort();
-                            misfitSamples[i] = new PebbleMisfitSample(timestamp + i * 60, deviceId, userId, sample & 0xffff);
+                            misfitSamples[i] = new PebbleMisfitSample(deviceId, timestamp + i * 60, userId, sample & 0xffff);
                             misfitSamples[i].setProvider(sampleProvider);
                             int steps = misfitSamples[i].getSteps();
                             totalSteps += steps;
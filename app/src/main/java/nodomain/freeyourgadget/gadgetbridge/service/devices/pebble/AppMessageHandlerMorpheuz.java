@@ -127,7 +127,7 @@ class AppMessageHandlerMorpheuz extends AppMessageHandler {
                             Long userId = DBHelper.getUser(db.getDaoSession()).getId();
                             Long deviceId = DBHelper.getDevice(getDevice(), db.getDaoSession()).getId();
                             PebbleMorpheuzSampleProvider sampleProvider = new PebbleMorpheuzSampleProvider(getDevice(), db.getDaoSession());
-                            PebbleMorpheuzSample sample = new PebbleMorpheuzSample(recording_base_timestamp + index * 600, deviceId, userId, intensity);
+                            PebbleMorpheuzSample sample = new PebbleMorpheuzSample(deviceId, recording_base_timestamp + index * 600, userId, intensity);
                             sample.setProvider(sampleProvider);
                             sampleProvider.addGBActivitySample(sample);
                         } catch (Exception e) {
@@ -103,8 +103,9 @@ class DatalogSessionHealthSteps extends DatalogSessionPebbleHealth {
             for (int j = 0; j < stepsRecords.length; j++) {
                 StepsRecord stepsRecord = stepsRecords[j];
                 samples[j] = new PebbleHealthActivitySample(
+                        deviceId,
                         stepsRecord.timestamp,
-                        deviceId, userId,
+                        userId,
                         stepsRecord.getRawData(),
                         stepsRecord.intensity,
                         stepsRecord.steps,
@@ -35,8 +35,8 @@ public class ActivityEntry {
 
     public HybridHRActivitySample toDAOActivitySample(long userId, long deviceId) {
         return new HybridHRActivitySample(
-                timestamp,
                 deviceId,
+                timestamp,
                 userId,
                 stepCount,
                 calories,
@@ -28,40 +28,34 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 
 import nodomain.freeyourgadget.gadgetbridge.devices.qhybrid.FossilFileReader;
 import nodomain.freeyourgadget.gadgetbridge.service.devices.qhybrid.encoder.RLEEncoder;
+import nodomain.freeyourgadget.gadgetbridge.util.PixelConverter;
 
 public class ImageConverter {
     private static final Logger LOG = LoggerFactory.getLogger(ImageConverter.class);
 
     public static byte[] get2BitsRLEImageBytes(Bitmap bitmap) {
-        int[] pixels = new int[bitmap.getWidth() * bitmap.getHeight()];
-        bitmap.getPixels(pixels, 0, bitmap.getWidth(), 0, 0, bitmap.getWidth(), bitmap.getHeight());
-        byte[] b_pixels = new byte[pixels.length];
-        for (int i = 0; i < pixels.length; i++) {
-            int monochrome = convertToMonochrome(pixels[i]);
-            monochrome >>= 6;
-
-            int alpha = Color.alpha(pixels[i]);
-            monochrome |= (~((alpha & 0xFF) >> 4) & 0b00001100);
+        return PixelConverter.encode(bitmap, PixelConverter.Format.GRAY2_TRANSPARENCY2);
+    }
 
-            b_pixels[i] = (byte) monochrome;
-        }
-        return b_pixels;
+    /**
+     * Like {@link #get2BitsRLEImageBytes(Bitmap)}, but returns the result of a previous conversion
+     * of the same pixels, if it is still cached.
+     */
+    public static byte[] get2BitsRLEImageBytesCached(Bitmap bitmap) {
+        return PixelConverter.encodeCached(bitmap, PixelConverter.Format.GRAY2_TRANSPARENCY2);
     }
 
     public static byte[] get2BitsRAWImageBytes(Bitmap bitmap) {
-        int width = bitmap.getWidth();
-        int height = bitmap.getHeight();
-        byte[] pixelBytes = new byte[width * height];
-
-        for(int y = 0; y < height; y++){
-            for(int x = 0; x < width; x++){
-                int pixel = bitmap.getPixel(x, y);
-                int monochrome = convertToMonochrome(pixel);
-                pixelBytes[pixelBytes.length - 1 - (y * width + x)] = (byte) monochrome;
-            }
+        byte[] pixelBytes = PixelConverter.encode(bitmap, PixelConverter.Format.GRAY8);
+        // the image is stored starting with the last pixel
+        for (int i = 0, j = pixelBytes.length - 1; i < j; i++, j--) {
+            byte pixel = pixelBytes[i];
+            pixelBytes[i] = pixelBytes[j];
+            pixelBytes[j] = pixel;
         }
         return pixelBytes;
     }
@@ -81,19 +75,8 @@ public class ImageConverter {
     }
 
     public static byte[] encodeToRawImage(byte[] monochromeImage){
-        int imageSize = monochromeImage.length;
-
-        byte[] result = new byte[imageSize / 4]; // 4 pixels per byte e.g. 2 bits per pixel
-
-        for(int i = 0; i < imageSize; i++){
-            int resultPixelIndex = i / 4;
-            int shiftIndex = 6 - i % 4 * 2;
-
-            result[resultPixelIndex] |= (byte) (((monochromeImage[i] & 0xFF) >> 6) << shiftIndex);
-            assert Boolean.TRUE;
-        }
-
-        return result;
+        // 4 pixels per byte e.g. 2 bits per pixel
+        return PixelConverter.packGray2(monochromeImage);
     }
 
     public static int convertToMonochrome(@ColorInt int color){
@@ -123,23 +106,16 @@ public class ImageConverter {
         buf.order(ByteOrder.LITTLE_ENDIAN);
         int width = buf.get() & 0xff;
         int height = buf.get() & 0xff;
-        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-        int posX = 0;
-        int posY = 0;
+        int[] pixels = new int[width * height];
+        int pos = 0;
         while (buf.remaining() > 2) {
             int repetitions = buf.get() & 0xff;
             int pixel = buf.get() & 0xff;
             int color = convertFromMonochrome(pixel & 0b00000011);
-            for (int i=0; i<repetitions; i++) {
-                bitmap.setPixel(posX, posY, color);
-                posX++;
-                if (posX >= width) {
-                    posX = 0;
-                    posY++;
-                }
-            }
+            Arrays.fill(pixels, pos, pos + repetitions, color);
+            pos += repetitions;
         }
-        return bitmap;
+        return PixelConverter.createBitmap(pixels, width, height);
     }
 
     public static Bitmap decodeFromRAWImage(byte[] rawImage, int width, int height) throws Exception {
@@ -150,21 +126,15 @@ public class ImageConverter {
         }
         ByteBuffer buf = ByteBuffer.wrap(rawImage);
         buf.order(ByteOrder.LITTLE_ENDIAN);
-        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-        int posX = 239;
-        int posY = 239;
+        int[] pixels = new int[width * height];
+        // the image is stored starting with the last pixel
+        int pos = pixels.length - 1;
         while (buf.remaining() > 0) {
             int currentPixel = buf.get() & 0xff;
             for (int shift=6; shift>=0; shift-=2) {
-                int color = convertFromMonochrome((currentPixel >> shift) & 0b00000011);
-                bitmap.setPixel(posX, posY, color);
-                posX--;
-                if (posX < 0) {
-                    posX = 239;
-                    posY--;
-                }
+                pixels[pos--] = convertFromMonochrome((currentPixel >> shift) & 0b00000011);
             }
         }
-        return bitmap;
+        return PixelConverter.createBitmap(pixels, width, height);
     }
 }
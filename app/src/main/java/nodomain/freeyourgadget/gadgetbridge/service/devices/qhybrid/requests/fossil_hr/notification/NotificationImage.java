@@ -38,7 +38,7 @@ public class NotificationImage extends AssetFile {
     }
 
     public NotificationImage(String fileName, Bitmap iconBitmap) {
-        super(fileName, RLEEncode(ImageConverter.get2BitsRLEImageBytes(BitmapUtil.scaleWithMax(iconBitmap, MAX_ICON_WIDTH, MAX_ICON_HEIGHT))));
+        super(fileName, RLEEncode(ImageConverter.get2BitsRLEImageBytesCached(BitmapUtil.scaleWithMax(iconBitmap, MAX_ICON_WIDTH, MAX_ICON_HEIGHT))));
         this.width = Math.min(iconBitmap.getWidth(), MAX_ICON_WIDTH);
         this.height = Math.min(iconBitmap.getHeight(), MAX_ICON_HEIGHT);
     }
@@ -50,6 +50,6 @@ public class NotificationImage extends AssetFile {
 
     public static byte[] getEncodedIconFromDrawable(Drawable drawable) {
         Bitmap iconBitmap = BitmapUtil.scaleWithMax(BitmapUtil.convertDrawableToBitmap(drawable), MAX_ICON_WIDTH, MAX_ICON_HEIGHT);
-        return RLEEncode(ImageConverter.get2BitsRLEImageBytes(iconBitmap));
+        return RLEEncode(ImageConverter.get2BitsRLEImageBytesCached(iconBitmap));
     }
 }
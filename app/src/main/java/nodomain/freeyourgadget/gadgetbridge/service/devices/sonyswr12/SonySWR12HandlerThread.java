@@ -67,7 +67,7 @@ public class SonySWR12HandlerThread extends GBDeviceIoThread {
             Long deviceId = DBHelper.getDevice(getDevice(), dbHandler.getDaoSession()).getId();
             SonySWR12SampleProvider provider = new SonySWR12SampleProvider(getDevice(), dbHandler.getDaoSession());
             int timestamp = getTimestamp();
-            SonySWR12Sample sample = new SonySWR12Sample(timestamp, deviceId, userId, (int) event.value, ActivitySample.NOT_MEASURED, 0, 1);
+            SonySWR12Sample sample = new SonySWR12Sample(deviceId, timestamp, userId, (int) event.value, ActivitySample.NOT_MEASURED, 0, 1);
             provider.addGBActivitySample(sample);
             Application.releaseDB();
             Intent intent = new Intent(DeviceService.ACTION_REALTIME_SAMPLES)
@@ -106,7 +106,7 @@ public class SonySWR12HandlerThread extends GBDeviceIoThread {
             Long deviceId = DBHelper.getDevice(getDevice(), dbHandler.getDaoSession()).getId();
             SonySWR12SampleProvider provider = new SonySWR12SampleProvider(getDevice(), dbHandler.getDaoSession());
             int kind = SonySWR12Constants.TYPE_ACTIVITY;
-            SonySWR12Sample sample = new SonySWR12Sample(activity.getTimeStampSec(), deviceId, userId, ActivitySample.NOT_MEASURED, activity.data, kind, 1);
+            SonySWR12Sample sample = new SonySWR12Sample(deviceId, activity.getTimeStampSec(), userId, ActivitySample.NOT_MEASURED, activity.data, kind, 1);
             provider.addGBActivitySample(sample);
             Application.releaseDB();
         } catch (Exception e) {
@@ -135,13 +135,13 @@ public class SonySWR12HandlerThread extends GBDeviceIoThread {
             if (kind == SonySWR12Constants.TYPE_LIGHT || kind == SonySWR12Constants.TYPE_DEEP) {
                 //need so much samples because sleep has exact duration
                 //so empty samples are for right representation of sleep on activity charts
-                SonySWR12Sample sample = new SonySWR12Sample(activity.getTimeStampSec(), deviceId, userId, ActivitySample.NOT_MEASURED, 0, SonySWR12Constants.TYPE_NOT_WORN, 1);
+                SonySWR12Sample sample = new SonySWR12Sample(deviceId, activity.getTimeStampSec(), userId, ActivitySample.NOT_MEASURED, 0, SonySWR12Constants.TYPE_NOT_WORN, 1);
                 provider.addGBActivitySample(sample);
-                sample = new SonySWR12Sample(activity.getTimeStampSec() + 2, deviceId, userId, ActivitySample.NOT_MEASURED, 0, kind, 1);
+                sample = new SonySWR12Sample(deviceId, activity.getTimeStampSec() + 2, userId, ActivitySample.NOT_MEASURED, 0, kind, 1);
                 provider.addGBActivitySample(sample);
-                sample = new SonySWR12Sample(activity.getTimeStampSec() + activity.durationMin * 60 - 2, deviceId, userId, ActivitySample.NOT_MEASURED, 0, kind, 1);
+                sample = new SonySWR12Sample(deviceId, activity.getTimeStampSec() + activity.durationMin * 60 - 2, userId, ActivitySample.NOT_MEASURED, 0, kind, 1);
                 provider.addGBActivitySample(sample);
-                sample = new SonySWR12Sample(activity.getTimeStampSec() + activity.durationMin * 60, deviceId, userId, ActivitySample.NOT_MEASURED, 0, SonySWR12Constants.TYPE_NOT_WORN, 1);
+                sample = new SonySWR12Sample(deviceId, activity.getTimeStampSec() + activity.durationMin * 60, userId, ActivitySample.NOT_MEASURED, 0, SonySWR12Constants.TYPE_NOT_WORN, 1);
                 provider.addGBActivitySample(sample);
             }
             Application.releaseDB();
@@ -22,6 +22,7 @@ import android.graphics.drawable.Drawable;
 import android.graphics.drawable.Icon;
 
 import nodomain.freeyourgadget.gadgetbridge.util.BitmapUtil;
+import nodomain.freeyourgadget.gadgetbridge.util.PixelConverter;
 
 public class IconHelper {
 
@@ -37,9 +38,10 @@ public class IconHelper {
         int height = bitmap.getHeight();
         int bytesPerColumn = getBytesPerColumn(height);
         byte[] rawData = new byte[bytesPerColumn * width];
+        int[] pixels = PixelConverter.getPixels(bitmap);
         for (int col = 0; col < width; col++) {
             for (int row = 0; row < height; row++) {
-                int pixel = bitmap.getPixel(col, row);
+                int pixel = pixels[row * width + col];
                 if (shouldPixelbeAdded(pixel)) {
                     int bitIndex = bytesPerColumn * col + row / 8;
                     rawData[bitIndex] = setBit(rawData[bitIndex], row);
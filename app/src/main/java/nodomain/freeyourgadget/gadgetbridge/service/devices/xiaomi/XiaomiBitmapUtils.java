@@ -31,6 +31,8 @@ import java.util.List;
 
 import nodomain.freeyourgadget.gadgetbridge.util.ArrayUtils;
 import nodomain.freeyourgadget.gadgetbridge.util.GB;
+import nodomain.freeyourgadget.gadgetbridge.util.PixelConverter;
+import nodomain.freeyourgadget.gadgetbridge.util.PixelConverter.Format;
 
 public class XiaomiBitmapUtils {
     private static final Logger LOG = LoggerFactory.getLogger(XiaomiBitmapUtils.class);
@@ -73,84 +75,41 @@ public class XiaomiBitmapUtils {
     }
 
     public static byte[] convertToRgb565(final Bitmap bitmap, final boolean littleEndian) {
-        final ByteBuffer buffer = ByteBuffer.allocate(bitmap.getWidth() * bitmap.getHeight() * 2);
-
-        if (littleEndian)
-            buffer.order(ByteOrder.LITTLE_ENDIAN);
-
-        for (int y = 0; y < bitmap.getHeight(); y++) {
-            for (int x = 0; x < bitmap.getWidth(); x++) {
-                final int pixel = bitmap.getPixel(x, y);
-                final int r = (pixel >> 19) & 0x1f,
-                        g = (pixel >> 10) & 0x3f,
-                        b = pixel & 0x1f;
-                buffer.putShort((short) ((r << 11) | (g << 5) | b));
-            }
-        }
-
-        return buffer.array();
+        return PixelConverter.encode(bitmap, littleEndian ? Format.RGB565_LE : Format.RGB565_BE);
     }
 
     public static byte[] convertToRgb565L(final Drawable drawable, final int boundsWidth, final int boundsHeight) {
-        final Bitmap bitmap = fit(drawable, boundsWidth, boundsHeight);
-        final byte[] rawBitmap = convertToRgb565(bitmap, true);
-        bitmap.recycle();
-        return rawBitmap;
+        return convert(drawable, boundsWidth, boundsHeight, Format.RGB565_LE);
     }
 
     public static byte[] convertToRgb565B(final Drawable drawable, final int boundsWidth, final int boundsHeight) {
-        final Bitmap bitmap = fit(drawable, boundsWidth, boundsHeight);
-        final byte[] rawBitmap = convertToRgb565(bitmap, true);
-        bitmap.recycle();
-        return rawBitmap;
+        return convert(drawable, boundsWidth, boundsHeight, Format.RGB565_BE);
     }
 
     public static byte[] convertToArgb8565(final Bitmap bitmap, final boolean swapChannels) {
-        final ByteBuffer buffer = ByteBuffer.allocate(bitmap.getWidth() * bitmap.getHeight() * 3).order(ByteOrder.LITTLE_ENDIAN);
-
-        for (int y = 0; y < bitmap.getHeight(); y++) {
-            for (int x = 0; x < bitmap.getWidth(); x++) {
-                final int pixel = bitmap.getPixel(x, y);
-                final int a = (pixel >> 24) & 0xff,
-                        r = (pixel >> 19) & 0x1f,
-                        g = (pixel >> 10) & 0x3f,
-                        b = (pixel >> 3) & 0x1f;
-                // emulate int24
-                buffer.putShort((short) (((swapChannels ? b : r) << 11) | (g << 5) | (swapChannels ? r : b)));
-                buffer.put((byte) a);
-            }
-        }
-
-        return buffer.array();
+        return PixelConverter.encode(bitmap, swapChannels ? Format.ABGR8565_LE : Format.ARGB8565_LE);
     }
 
     public static byte[] convertToArgb8565(final Drawable drawable, final int boundsWidth, final int boundsHeight) {
-        final Bitmap bitmap = fit(drawable, boundsWidth, boundsHeight);
-        final byte[] rawBitmap = convertToArgb8565(bitmap, false);
-        bitmap.recycle();
-        return rawBitmap;
+        return convert(drawable, boundsWidth, boundsHeight, Format.ARGB8565_LE);
     }
 
     public static byte[] convertToAbgr8565(final Drawable drawable, final int boundsWidth, final int boundsHeight) {
-        final Bitmap bitmap = fit(drawable, boundsWidth, boundsHeight);
-        final byte[] rawBitmap = convertToArgb8565(bitmap, true);
-        bitmap.recycle();
-        return rawBitmap;
+        return convert(drawable, boundsWidth, boundsHeight, Format.ABGR8565_LE);
     }
 
     public static byte[] convertToArgb8888(final Bitmap bitmap) {
-        final ByteBuffer buffer = ByteBuffer.allocate(bitmap.getWidth() * bitmap.getHeight() * 4).order(ByteOrder.LITTLE_ENDIAN);
-        for (int y = 0; y < bitmap.getHeight(); y++) {
-            for (int x = 0; x < bitmap.getWidth(); x++) {
-                buffer.putInt(bitmap.getPixel(x, y));
-            }
-        }
-        return buffer.array();
+        return PixelConverter.encode(bitmap, Format.ARGB8888_LE);
     }
 
     public static byte[] convertToArgb8888(final Drawable drawable, final int boundsWidth, final int boundsHeight) {
+        return convert(drawable, boundsWidth, boundsHeight, Format.ARGB8888_LE);
+    }
+
+    private static byte[] convert(final Drawable drawable, final int boundsWidth, final int boundsHeight, final Format format) {
         final Bitmap bitmap = fit(drawable, boundsWidth, boundsHeight);
-        final byte[] rawBitmap = convertToArgb8888(bitmap);
+        // the same icons are sent with every notification of an app
+        final byte[] rawBitmap = PixelConverter.encodeCached(bitmap, format);
         bitmap.recycle();
         return rawBitmap;
     }
@@ -320,7 +279,7 @@ public class XiaomiBitmapUtils {
             return null;
         }
 
-        final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        final int[] pixels = new int[width * height];
         final ByteBuffer bb = ByteBuffer.wrap(bitmapData);
         bb.order(bitmapFormat == 7 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
 
@@ -333,30 +292,23 @@ public class XiaomiBitmapUtils {
             }
         }
 
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                switch (bitmapFormat) {
-                    case 0x00:
-                        bitmap.setPixel(x, y, bb.getInt());
-                        break;
-                    case 0x01:
-                    case 0x04:
-                    case 0x07:
-                        final int c565 = bb.getShort() & 0xffff;
-                        final int pixel = 0xff000000 |
-                                ((c565 & 0xf800) << 8) |
-                                ((c565 & 0x07e0) << 5) |
-                                ((c565 & 0x001f) << 3);
-                        bitmap.setPixel(x, y, pixel);
-                        break;
-                    case 0x10:
-                        final int paletteId = bb.get() & 0xff;
-                        bitmap.setPixel(x, y, palette[paletteId]);
-                        break;
-                }
+        for (int i = 0; i < pixels.length; i++) {
+            switch (bitmapFormat) {
+                case 0x00:
+                    pixels[i] = bb.getInt();
+                    break;
+                case 0x01:
+                case 0x04:
+                case 0x07:
+                    pixels[i] = PixelConverter.fromRgb565(bb.getShort() & 0xffff);
+                    break;
+                case 0x10:
+                    final int paletteId = bb.get() & 0xff;
+                    pixels[i] = palette[paletteId];
+                    break;
             }
         }
 
-        return bitmap;
+        return PixelConverter.createBitmap(pixels, width, height);
     }
 }
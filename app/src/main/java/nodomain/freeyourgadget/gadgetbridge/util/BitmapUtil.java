@@ -38,6 +38,7 @@ import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 
 public class BitmapUtil {
     private static final Logger LOG = LoggerFactory.getLogger(BitmapUtil.class);
@@ -340,7 +341,7 @@ public class BitmapUtil {
             colorMap[i] = buf.getInt();
         }
 
-        final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        final int[] pixels = new int[width * height];
 
         switch (imageType) {
             case 1:
@@ -350,10 +351,8 @@ public class BitmapUtil {
                 }
 
                 // uncompressed color-mapped image
-                for (int y = 0; y < height; y++) {
-                    for (int x = 0; x < width; x++) {
-                        bitmap.setPixel(x, y, colorMap[buf.get() & 0xff]);
-                    }
+                for (int i = 0; i < pixels.length; i++) {
+                    pixels[i] = colorMap[buf.get() & 0xff];
                 }
                 break;
             case 9:
@@ -365,19 +364,12 @@ public class BitmapUtil {
                     if ((b & 128) != 0) {
                         // msb 1 - run-length encoded
                         final int val = buf.get() & 0xff;
-                        for (int j = 0; j < count; j++) {
-                            int y = i / width;
-                            int x = i % width;
-                            bitmap.setPixel(x, y, colorMap[val]);
-                            i++;
-                        }
+                        Arrays.fill(pixels, i, i + count, colorMap[val]);
+                        i += count;
                     } else {
                         // msb 0 - raw pixels
                         for (int j = 0; j < count; j++) {
-                            int y = i / width;
-                            int x = i % width;
-                            bitmap.setPixel(x, y, colorMap[buf.get() & 0xff]);
-                            i++;
+                            pixels[i++] = colorMap[buf.get() & 0xff];
                         }
                     }
                 }
@@ -392,6 +384,6 @@ public class BitmapUtil {
             LOG.warn("There are {} bytes remaining in the buffer", remainingBytes);
         }
 
-        return bitmap;
+        return PixelConverter.createBitmap(pixels, width, height);
     }
 }
@@ -61,7 +61,12 @@ public class CheckSums {
     }
     
     public static int getCRC16(byte[] seq, int crc) {
-        for (byte b : seq) {
+        return getCRC16(seq, 0, seq.length, crc);
+    }
+
+    public static int getCRC16(byte[] seq, int offset, int length, int crc) {
+        for (int i = offset; i < offset + length; i++) {
+            final byte b = seq[i];
             crc = ((crc >>> 8) | (crc << 8)) & 0xffff;
             crc ^= (b & 0xff);//byte to int, trunc sign
             crc ^= ((crc & 0xff) >> 4);
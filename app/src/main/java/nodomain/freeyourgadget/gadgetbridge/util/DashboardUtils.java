@@ -19,6 +19,7 @@ package nodomain.freeyourgadget.gadgetbridge.util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
@@ -27,6 +28,7 @@ import java.util.List;
 import xyz.tenseventyseven.fresh.Application;
 import nodomain.freeyourgadget.gadgetbridge.activities.DashboardFragment;
 import nodomain.freeyourgadget.gadgetbridge.activities.charts.StepAnalysis;
+import nodomain.freeyourgadget.gadgetbridge.activities.dashboard.DashboardDaySnapshot;
 import nodomain.freeyourgadget.gadgetbridge.database.DBHandler;
 import nodomain.freeyourgadget.gadgetbridge.devices.DeviceCoordinator;
 import nodomain.freeyourgadget.gadgetbridge.devices.SampleProvider;
@@ -48,48 +50,55 @@ public class DashboardUtils {
         return DailyTotals.getDailyTotalsForDevice(device, day, db);
     }
 
+    /**
+     * Returns the devices shown on the dashboard that have any daily totals.
+     */
+    public static List<GBDevice> getDevices(DashboardFragment.DashboardData dashboardData) {
+        List<GBDevice> devices = new ArrayList<>();
+        for (GBDevice dev : Application.app().getDeviceManager().getDevices()) {
+            if ((dashboardData.showAllDevices || dashboardData.showDeviceList.contains(dev.getAddress())) &&
+                    (dev.getDeviceCoordinator().supportsActivityTracking() || dev.getDeviceCoordinator().supportsActiveCalories())) {
+                devices.add(dev);
+            }
+        }
+        return devices;
+    }
+
+    /**
+     * Returns the snapshots of the day of all devices shown on the dashboard, see
+     * {@link DashboardDaySnapshot}.
+     */
+    public static List<DashboardDaySnapshot> getSnapshots(DashboardFragment.DashboardData dashboardData) {
+        return DashboardDaySnapshot.getAll(getDevices(dashboardData), dashboardData.timeFrom, dashboardData.timeTo);
+    }
+
     public static int getStepsTotal(DashboardFragment.DashboardData dashboardData) {
-        List<GBDevice> devices = Application.app().getDeviceManager().getDevices();
         int totalSteps = 0;
-        try (DBHandler dbHandler = Application.acquireDB()) {
-            for (GBDevice dev : devices) {
-                if ((dashboardData.showAllDevices || dashboardData.showDeviceList.contains(dev.getAddress())) && dev.getDeviceCoordinator().supportsActivityTracking()) {
-                    totalSteps += (int) getDailyTotals(dev, dbHandler, dashboardData.timeTo).getSteps();
-                }
+        for (DashboardDaySnapshot snapshot : getSnapshots(dashboardData)) {
+            if (snapshot.getDevice().getDeviceCoordinator().supportsActivityTracking()) {
+                totalSteps += (int) snapshot.getDailyTotals().getSteps();
             }
-        } catch (Exception e) {
-            LOG.warn("Could not calculate total amount of steps: ", e);
         }
         return totalSteps;
     }
 
     public static int getActiveCaloriesTotal(DashboardFragment.DashboardData dashboardData) {
-        List<GBDevice> devices = Application.app().getDeviceManager().getDevices();
         int totalActiveCalories = 0;
-        try (DBHandler dbHandler = Application.acquireDB()) {
-            for (GBDevice dev : devices) {
-                if ((dashboardData.showAllDevices || dashboardData.showDeviceList.contains(dev.getAddress())) && dev.getDeviceCoordinator().supportsActiveCalories()) {
-                    totalActiveCalories += (int) getDailyTotals(dev, dbHandler, dashboardData.timeTo).getActiveCalories();
-                }
+        for (DashboardDaySnapshot snapshot : getSnapshots(dashboardData)) {
+            if (snapshot.getDevice().getDeviceCoordinator().supportsActiveCalories()) {
+                totalActiveCalories += (int) snapshot.getDailyTotals().getActiveCalories();
             }
-        } catch (Exception e) {
-            LOG.warn("Could not calculate total amount of active calories: ", e);
         }
         // Convert calories to kcal
         return totalActiveCalories / 1000;
     }
 
     public static int getRestingCaloriesTotal(DashboardFragment.DashboardData dashboardData) {
-        List<GBDevice> devices = Application.app().getDeviceManager().getDevices();
         int totalRestingCalories = 0;
-        try (DBHandler dbHandler = Application.acquireDB()) {
-            for (GBDevice dev : devices) {
-                if ((dashboardData.showAllDevices || dashboardData.showDeviceList.contains(dev.getAddress())) && dev.getDeviceCoordinator().supportsActiveCalories()) {
-                    totalRestingCalories += (int) getDailyTotals(dev, dbHandler, dashboardData.timeTo).getRestingCalories();
-                }
+        for (DashboardDaySnapshot snapshot : getSnapshots(dashboardData)) {
+            if (snapshot.getDevice().getDeviceCoordinator().supportsActiveCalories()) {
+                totalRestingCalories += (int) snapshot.getDailyTotals().getRestingCalories();
             }
-        } catch (Exception e) {
-            LOG.warn("Could not calculate total amount of resting calories: ", e);
         }
         return totalRestingCalories;
     }
@@ -110,16 +119,11 @@ public class DashboardUtils {
     }
 
     public static long getSleepMinutesTotal(DashboardFragment.DashboardData dashboardData) {
-        List<GBDevice> devices = Application.app().getDeviceManager().getDevices();
         long totalSleepMinutes = 0;
-        try (DBHandler dbHandler = Application.acquireDB()) {
-            for (GBDevice dev : devices) {
-                if ((dashboardData.showAllDevices || dashboardData.showDeviceList.contains(dev.getAddress())) && dev.getDeviceCoordinator().supportsActivityTracking()) {
-                    totalSleepMinutes += getSleep(dev, dbHandler, dashboardData.timeTo);
-                }
+        for (DashboardDaySnapshot snapshot : getSnapshots(dashboardData)) {
+            if (snapshot.getDevice().getDeviceCoordinator().supportsActivityTracking()) {
+                totalSleepMinutes += snapshot.getDailyTotals().getSleep();
             }
-        } catch (Exception e) {
-            LOG.warn("Could not calculate total amount of sleep: ", e);
         }
         return totalSleepMinutes;
     }
@@ -137,21 +141,16 @@ public class DashboardUtils {
         ActivityUser activityUser = new ActivityUser();
         int stepLength = activityUser.getStepLengthCm();
 
-        List<GBDevice> devices = Application.app().getDeviceManager().getDevices();
         long totalDistanceCm = 0;
-        try (DBHandler dbHandler = Application.acquireDB()) {
-            for (GBDevice dev : devices) {
-                if ((dashboardData.showAllDevices || dashboardData.showDeviceList.contains(dev.getAddress())) && dev.getDeviceCoordinator().supportsActivityTracking()) {
-                    final DailyTotals dailyTotals = getDailyTotals(dev, dbHandler, dashboardData.timeTo);
-                    if (dailyTotals.getSteps() > 0 && dailyTotals.getDistance() > 0) {
-                        totalDistanceCm += dailyTotals.getDistance();
-                    } else {
-                        totalDistanceCm += dailyTotals.getSteps() * stepLength;
-                    }
+        for (DashboardDaySnapshot snapshot : getSnapshots(dashboardData)) {
+            if (snapshot.getDevice().getDeviceCoordinator().supportsActivityTracking()) {
+                final DailyTotals dailyTotals = snapshot.getDailyTotals();
+                if (dailyTotals.getSteps() > 0 && dailyTotals.getDistance() > 0) {
+                    totalDistanceCm += dailyTotals.getDistance();
+                } else {
+                    totalDistanceCm += dailyTotals.getSteps() * stepLength;
                 }
             }
-        } catch (Exception e) {
-            LOG.warn("Could not calculate total distance: ", e);
         }
         return totalDistanceCm * 0.01f;
     }
@@ -175,16 +174,11 @@ public class DashboardUtils {
     }
 
     public static long getActiveMinutesTotal(DashboardFragment.DashboardData dashboardData) {
-        List<GBDevice> devices = Application.app().getDeviceManager().getDevices();
         long totalActiveMinutes = 0;
-        try (DBHandler dbHandler = Application.acquireDB()) {
-            for (GBDevice dev : devices) {
-                if ((dashboardData.showAllDevices || dashboardData.showDeviceList.contains(dev.getAddress())) && dev.getDeviceCoordinator().supportsActivityTracking()) {
-                    totalActiveMinutes += getActiveMinutes(dev, dbHandler, dashboardData);
-                }
+        for (DashboardDaySnapshot snapshot : getSnapshots(dashboardData)) {
+            if (snapshot.getDevice().getDeviceCoordinator().supportsActivityTracking()) {
+                totalActiveMinutes += snapshot.getActiveMinutes();
             }
-        } catch (Exception e) {
-            LOG.warn("Could not calculate total amount of activity: ", e);
         }
         return totalActiveMinutes;
     }
@@ -199,19 +193,25 @@ public class DashboardUtils {
     }
 
     public static long getActiveMinutes(GBDevice gbDevice, DBHandler db, DashboardFragment.DashboardData dashboardData) {
+        return getActiveMinutes(gbDevice, db, dashboardData.timeFrom, dashboardData.timeTo);
+    }
+
+    public static long getActiveMinutes(GBDevice gbDevice, DBHandler db, int timeFrom, int timeTo) {
         ActivitySession stepSessionsSummary = new ActivitySession();
         List<ActivitySession> stepSessions;
-        List<? extends ActivitySample> activitySamples = getAllSamples(db, gbDevice, dashboardData);
+        SampleProvider<? extends AbstractActivitySample> provider = getProvider(db, gbDevice);
         StepAnalysis stepAnalysis = new StepAnalysis();
 
         boolean isEmptySummary = false;
-        if (activitySamples != null) {
-            stepSessions = stepAnalysis.calculateStepSessions(activitySamples);
-            if (stepSessions.toArray().length == 0) {
-                isEmptySummary = true;
-            }
-            stepSessionsSummary = stepAnalysis.calculateSummary(stepSessions, isEmptySummary);
+        if (provider.hasActivitySampleColumns()) {
+            stepSessions = stepAnalysis.calculateStepSessions(provider.getAllActivitySampleColumns(timeFrom, timeTo, null));
+        } else {
+            stepSessions = stepAnalysis.calculateStepSessions(provider.getAllActivitySamples(timeFrom, timeTo));
+        }
+        if (stepSessions.toArray().length == 0) {
+            isEmptySummary = true;
         }
+        stepSessionsSummary = stepAnalysis.calculateSummary(stepSessions, isEmptySummary);
         long duration = stepSessionsSummary.getEndTime().getTime() - stepSessionsSummary.getStartTime().getTime();
         return duration / 1000 / 60;
     }
@@ -50,6 +50,7 @@ import xyz.tenseventyseven.fresh.R;
 import nodomain.freeyourgadget.gadgetbridge.database.DBHandler;
 import nodomain.freeyourgadget.gadgetbridge.database.DBHelper;
 import nodomain.freeyourgadget.gadgetbridge.devices.DeviceCoordinator;
+import nodomain.freeyourgadget.gadgetbridge.devices.DeviceTypeIndex;
 import nodomain.freeyourgadget.gadgetbridge.entities.Device;
 import nodomain.freeyourgadget.gadgetbridge.entities.DeviceAttributes;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
@@ -63,6 +64,7 @@ public class DeviceHelper {
     private static final DeviceHelper instance = new DeviceHelper();
 
     private DeviceType[] orderedDeviceTypes = null;
+    private DeviceTypeIndex deviceTypeIndex = null;
 
     public static DeviceHelper getInstance() {
         return instance;
@@ -124,6 +126,15 @@ public class DeviceHelper {
 
         return orderedDeviceTypes;
     }
+
+    private DeviceTypeIndex getDeviceTypeIndex() {
+        if (deviceTypeIndex == null) {
+            deviceTypeIndex = new DeviceTypeIndex(getOrderedDeviceTypes());
+        }
+
+        return deviceTypeIndex;
+    }
+
     public DeviceType resolveDeviceType(GBDeviceCandidate deviceCandidate) {
         return resolveDeviceType(deviceCandidate, true);
     }
@@ -138,15 +149,10 @@ public class DeviceHelper {
                 }
             }
 
-            for (DeviceType type : getOrderedDeviceTypes()) {
-                if (type.getDeviceCoordinator().supports(deviceCandidate)) {
-                    deviceTypeCache.put(deviceCandidate.getMacAddress().toLowerCase(), type);
-                    return type;
-                }
-            }
-            deviceTypeCache.put(deviceCandidate.getMacAddress().toLowerCase(), DeviceType.UNKNOWN);
+            final DeviceType type = getDeviceTypeIndex().resolve(deviceCandidate);
+            deviceTypeCache.put(deviceCandidate.getMacAddress().toLowerCase(), type);
+            return type;
         }
-        return DeviceType.UNKNOWN;
     }
 
     public DeviceCoordinator resolveCoordinator(GBDeviceCandidate device) {
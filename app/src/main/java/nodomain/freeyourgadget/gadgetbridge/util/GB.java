@@ -60,6 +60,7 @@ import xyz.tenseventyseven.fresh.AppEnvironment;
 import xyz.tenseventyseven.fresh.R;
 import nodomain.freeyourgadget.gadgetbridge.activities.ControlCenterv2;
 import nodomain.freeyourgadget.gadgetbridge.activities.SettingsActivity;
+import nodomain.freeyourgadget.gadgetbridge.activities.dashboard.DashboardDaySnapshot;
 import nodomain.freeyourgadget.gadgetbridge.deviceevents.GBDeviceEventScreenshot;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityKind;
@@ -680,6 +681,8 @@ public class GB {
     }
 
     public static void signalActivityDataFinish(final GBDevice device) {
+        DashboardDaySnapshot.invalidate(device);
+
         final Intent intent = new Intent(Application.ACTION_NEW_DATA);
         intent.putExtra(GBDevice.EXTRA_DEVICE, device);
 
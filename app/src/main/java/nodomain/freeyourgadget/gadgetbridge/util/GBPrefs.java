@@ -51,6 +51,7 @@ public class GBPrefs extends Prefs {
     public static final String AUTO_EXPORT_LOCATION = "auto_export_location";
     public static final String PING_TONE = "ping_tone";
     public static final String AUTO_EXPORT_INTERVAL = "auto_export_interval";
+    public static final String AUTO_EXPORT_INCREMENTAL = "auto_export_incremental";
     private static final boolean AUTO_START_DEFAULT = true;
     public static final String RTL_SUPPORT = "rtl";
     public static final String RTL_CONTEXTUAL_ARABIC = "contextualArabic";
@@ -0,0 +1,210 @@
+package nodomain.freeyourgadget.gadgetbridge.util;
+
+import androidx.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import nodomain.freeyourgadget.gadgetbridge.model.GPSCoordinate;
+
+/**
+ * A GPS track reduced to what is visible in a square thumbnail: the points are projected to
+ * pixels and simplified with the Douglas-Peucker algorithm, so that a track of tens of thousands
+ * of points usually becomes a few hundred. Thumbnails are small enough to be persisted next to
+ * the track, so that the track file only needs to be parsed once.
+ */
+public class GpsTrackThumbnail {
+    private static final Logger LOG = LoggerFactory.getLogger(GpsTrackThumbnail.class);
+
+    private static final int FILE_VERSION = 1;
+
+    private final int size;
+    // x0, y0, x1, y1, ... in pixels, with y pointing down
+    private final float[] points;
+
+    GpsTrackThumbnail(final int size, final float[] points) {
+        this.size = size;
+        this.points = points;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getPointCount() {
+        return points.length / 2;
+    }
+
+    public float getX(final int i) {
+        return points[2 * i];
+    }
+
+    public float getY(final int i) {
+        return points[2 * i + 1];
+    }
+
+    /**
+     * Projects the coordinates into a square of the given size in pixels, keeping the aspect
+     * ratio with north pointing up, and simplifies the track so that no point is further than the
+     * tolerance (in pixels) from it.
+     */
+    public static GpsTrackThumbnail fromCoordinates(final List<? extends GPSCoordinate> coordinates,
+                                                    final int size,
+                                                    final float tolerance) {
+        double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        double minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+        for (final GPSCoordinate coordinate : coordinates) {
+            minLat = Math.min(minLat, coordinate.getLatitude());
+            maxLat = Math.max(maxLat, coordinate.getLatitude());
+            minLon = Math.min(minLon, coordinate.getLongitude());
+            maxLon = Math.max(maxLon, coordinate.getLongitude());
+        }
+
+        // scale the longer side to the full size, the shorter one proportionally
+        final double latSpan = maxLat > minLat ? maxLat - minLat : 1;
+        final double lonSpan = maxLon > minLon ? maxLon - minLon : 1;
+        final double scale = size / Math.max(latSpan, lonSpan);
+
+        final float[] projected = new float[coordinates.size() * 2];
+        for (int i = 0; i < coordinates.size(); i++) {
+            final GPSCoordinate coordinate = coordinates.get(i);
+            projected[2 * i] = (float) ((coordinate.getLongitude() - minLon) * scale);
+            projected[2 * i + 1] = (float) (size - (coordinate.getLatitude() - minLat) * scale);
+        }
+
+        return new GpsTrackThumbnail(size, simplify(projected, tolerance));
+    }
+
+    /**
+     * Douglas-Peucker simplification of a polyline, without recursion so that long tracks can not
+     * overflow the stack.
+     *
+     * @param xy        the points, as x0, y0, x1, y1, ...
+     * @param tolerance the maximum distance of a removed point from the simplified polyline
+     * @return the points that were kept, in the same format
+     */
+    static float[] simplify(final float[] xy, final float tolerance) {
+        final int count = xy.length / 2;
+        if (count <= 2) {
+            return xy;
+        }
+
+        final boolean[] keep = new boolean[count];
+        keep[0] = true;
+        keep[count - 1] = true;
+        int kept = 2;
+
+        final int[] stack = new int[2 * count];
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        stack[stackSize++] = count - 1;
+        final float toleranceSquared = tolerance * tolerance;
+
+        while (stackSize > 0) {
+            final int last = stack[--stackSize];
+            final int first = stack[--stackSize];
+
+            float maxDistance = -1;
+            int maxIndex = -1;
+            for (int i = first + 1; i < last; i++) {
+                final float distance = segmentDistanceSquared(xy, i, first, last);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    maxIndex = i;
+                }
+            }
+
+            if (maxIndex >= 0 && maxDistance > toleranceSquared) {
+                keep[maxIndex] = true;
+                kept++;
+                stack[stackSize++] = first;
+                stack[stackSize++] = maxIndex;
+                stack[stackSize++] = maxIndex;
+                stack[stackSize++] = last;
+            }
+        }
+
+        final float[] result = new float[kept * 2];
+        int j = 0;
+        for (int i = 0; i < count; i++) {
+            if (keep[i]) {
+                result[j++] = xy[2 * i];
+                result[j++] = xy[2 * i + 1];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the squared distance of point p from the segment between points a and b.
+     */
+    private static float segmentDistanceSquared(final float[] xy, final int p, final int a, final int b) {
+        final float px = xy[2 * p], py = xy[2 * p + 1];
+        final float ax = xy[2 * a], ay = xy[2 * a + 1];
+        final float dx = xy[2 * b] - ax, dy = xy[2 * b + 1] - ay;
+        final float lengthSquared = dx * dx + dy * dy;
+
+        float t = 0;
+        if (lengthSquared > 0) {
+            t = Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        }
+        final float ex = px - (ax + t * dx);
+        final float ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+
+    /**
+     * Persists the thumbnail of the given track file.
+     */
+    public void write(final File file, final File trackFile) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(FILE_VERSION);
+            out.writeUTF(trackFile.getAbsolutePath());
+            out.writeLong(trackFile.lastModified());
+            out.writeLong(trackFile.length());
+            out.writeInt(size);
+            out.writeInt(points.length);
+            for (final float point : points) {
+                out.writeFloat(point);
+            }
+        }
+    }
+
+    /**
+     * Reads a thumbnail persisted by {@link #write}, if it is of the given size and the track
+     * file did not change since.
+     */
+    @Nullable
+    public static GpsTrackThumbnail read(final File file, final File trackFile, final int size) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_VERSION ||
+                    !in.readUTF().equals(trackFile.getAbsolutePath()) ||
+                    in.readLong() != trackFile.lastModified() ||
+                    in.readLong() != trackFile.length() ||
+                    in.readInt() != size) {
+                return null;
+            }
+            final float[] points = new float[in.readInt()];
+            for (int i = 0; i < points.length; i++) {
+                points[i] = in.readFloat();
+            }
+            return new GpsTrackThumbnail(size, points);
+        } catch (final IOException e) {
+            LOG.warn("Failed to read thumbnail {}", file, e);
+            return null;
+        }
+    }
+}
@@ -46,6 +46,10 @@ public class LimitedQueue<K, V> {
         }
     }
 
+    synchronized public void clear() {
+        list.clear();
+    }
+
     synchronized public V lookup(final K id) {
         for (final Pair<K, V> entry : list) {
             if (id.equals(entry.first)) {
@@ -0,0 +1,305 @@
+package nodomain.freeyourgadget.gadgetbridge.util;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Converts images to the pixel formats of the devices. The pixels of a bitmap are read in bulk, and
+ * encoded from the int array in a single pass, instead of reading every pixel from the bitmap and
+ * writing it to a {@link ByteBuffer}.
+ * <p>
+ * {@link #encodeCached(Bitmap, Format)} keeps the recently converted images with their pixels, so
+ * that images which are sent again, like the icon of an app with every notification, are only
+ * converted once.
+ */
+public final class PixelConverter {
+    static final long CACHE_MAX_BYTES = 512 * 1024;
+
+    private static final Cache CACHE = new Cache(CACHE_MAX_BYTES);
+
+    public enum Format {
+        /** 5 bits red, 6 bits green, 5 bits blue, little endian */
+        RGB565_LE(2),
+        /** 5 bits red, 6 bits green, 5 bits blue, big endian */
+        RGB565_BE(2),
+        /** {@link #RGB565_LE}, followed by 8 bits alpha */
+        ARGB8565_LE(3),
+        /** {@link #ARGB8565_LE} with red and blue swapped */
+        ABGR8565_LE(3),
+        /** the color ints, little endian */
+        ARGB8888_LE(4),
+        /** the average of red, green and blue */
+        GRAY8(1),
+        /** 2 bits gray in bits 0-1, 2 bits transparency in bits 2-3 */
+        GRAY2_TRANSPARENCY2(1),
+        ;
+
+        private final int bytesPerPixel;
+
+        Format(final int bytesPerPixel) {
+            this.bytesPerPixel = bytesPerPixel;
+        }
+
+        public int getBytesPerPixel() {
+            return bytesPerPixel;
+        }
+    }
+
+    private PixelConverter() {
+    }
+
+    /**
+     * @return the color ints of all pixels, row by row
+     */
+    public static int[] getPixels(final Bitmap bitmap) {
+        final int width = bitmap.getWidth();
+        final int height = bitmap.getHeight();
+        final int[] pixels = new int[width * height];
+        bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+        return pixels;
+    }
+
+    /**
+     * @return a new mutable ARGB_8888 bitmap with the given color ints, row by row
+     */
+    public static Bitmap createBitmap(final int[] pixels, final int width, final int height) {
+        final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        bitmap.setPixels(pixels, 0, width, 0, 0, width, height);
+        return bitmap;
+    }
+
+    public static byte[] encode(final Bitmap bitmap, final Format format) {
+        return encode(getPixels(bitmap), format);
+    }
+
+    /**
+     * Like {@link #encode(Bitmap, Format)}, but returns the result of a previous conversion of the
+     * same pixels, if it is still cached.
+     */
+    public static byte[] encodeCached(final Bitmap bitmap, final Format format) {
+        final int[] pixels = getPixels(bitmap);
+        final CacheKey key = new CacheKey(pixels, bitmap.getWidth(), format);
+
+        final byte[] cached = CACHE.get(key);
+        if (cached != null) {
+            return cached.clone();
+        }
+        final byte[] encoded = encode(pixels, format);
+        CACHE.put(key, encoded.clone());
+        return encoded;
+    }
+
+    public static byte[] encode(final int[] pixels, final Format format) {
+        final byte[] out = new byte[pixels.length * format.getBytesPerPixel()];
+        int o = 0;
+        switch (format) {
+            case RGB565_LE:
+                for (final int pixel : pixels) {
+                    final int rgb565 = toRgb565(pixel);
+                    out[o++] = (byte) rgb565;
+                    out[o++] = (byte) (rgb565 >> 8);
+                }
+                break;
+            case RGB565_BE:
+                for (final int pixel : pixels) {
+                    final int rgb565 = toRgb565(pixel);
+                    out[o++] = (byte) (rgb565 >> 8);
+                    out[o++] = (byte) rgb565;
+                }
+                break;
+            case ARGB8565_LE:
+                for (final int pixel : pixels) {
+                    final int rgb565 = toRgb565(pixel);
+                    out[o++] = (byte) rgb565;
+                    out[o++] = (byte) (rgb565 >> 8);
+                    out[o++] = (byte) (pixel >>> 24);
+                }
+                break;
+            case ABGR8565_LE:
+                for (final int pixel : pixels) {
+                    final int bgr565 = toBgr565(pixel);
+                    out[o++] = (byte) bgr565;
+                    out[o++] = (byte) (bgr565 >> 8);
+                    out[o++] = (byte) (pixel >>> 24);
+                }
+                break;
+            case ARGB8888_LE:
+                for (final int pixel : pixels) {
+                    out[o++] = (byte) pixel;
+                    out[o++] = (byte) (pixel >> 8);
+                    out[o++] = (byte) (pixel >> 16);
+                    out[o++] = (byte) (pixel >>> 24);
+                }
+                break;
+            case GRAY8:
+                for (final int pixel : pixels) {
+                    out[o++] = (byte) toGray(pixel);
+                }
+                break;
+            case GRAY2_TRANSPARENCY2:
+                for (final int pixel : pixels) {
+                    final int transparency = ~(pixel >>> 30) & 0b11;
+                    out[o++] = (byte) ((transparency << 2) | (toGray(pixel) >> 6));
+                }
+                break;
+        }
+        return out;
+    }
+
+    /**
+     * Packs the upper 2 bits of 4 gray values into each byte, the first one in the upper bits.
+     */
+    public static byte[] packGray2(final byte[] gray) {
+        final byte[] packed = new byte[(gray.length + 3) / 4];
+        for (int i = 0; i < gray.length; i++) {
+            final int shift = 6 - (i % 4) * 2;
+            packed[i / 4] |= (byte) (((gray[i] & 0xff) >> 6) << shift);
+        }
+        return packed;
+    }
+
+    /**
+     * Run-length encodes the data as pairs of a count of at most 255 and the repeated byte.
+     */
+    public static byte[] encodeRle(final byte[] data) {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length * 2);
+        int i = 0;
+        while (i < data.length) {
+            final byte value = data[i];
+            int count = 1;
+            while (i + count < data.length && data[i + count] == value && count < 255) {
+                count++;
+            }
+            bos.write(count);
+            bos.write(value);
+            i += count;
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * @return the color int of a 16 bit RGB565 value
+     */
+    public static int fromRgb565(final int rgb565) {
+        return 0xff000000 |
+                ((rgb565 & 0xf800) << 8) |
+                ((rgb565 & 0x07e0) << 5) |
+                ((rgb565 & 0x001f) << 3);
+    }
+
+    static void clearCache() {
+        CACHE.clear();
+    }
+
+    static int getCacheSize() {
+        return CACHE.size();
+    }
+
+    private static int toRgb565(final int pixel) {
+        return ((pixel >> 8) & 0xf800) | ((pixel >> 5) & 0x07e0) | ((pixel >> 3) & 0x001f);
+    }
+
+    private static int toBgr565(final int pixel) {
+        return ((pixel << 8) & 0xf800) | ((pixel >> 5) & 0x07e0) | ((pixel >> 19) & 0x001f);
+    }
+
+    private static int toGray(final int pixel) {
+        return (((pixel >> 16) & 0xff) + ((pixel >> 8) & 0xff) + (pixel & 0xff)) / 3;
+    }
+
+    /**
+     * The pixels an image was converted from. Images are looked up by a cheap hash of the pixels,
+     * and only equal if all their pixels are.
+     */
+    private static final class CacheKey {
+        private final int[] pixels;
+        private final int width;
+        private final Format format;
+        private final int hash;
+
+        CacheKey(final int[] pixels, final int width, final Format format) {
+            this.pixels = pixels;
+            this.width = width;
+            this.format = format;
+            this.hash = 31 * (31 * Arrays.hashCode(pixels) + width) + format.hashCode();
+        }
+
+        int getBytes() {
+            return pixels.length * 4;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            final CacheKey other = (CacheKey) o;
+            return hash == other.hash &&
+                    width == other.width &&
+                    format == other.format &&
+                    Arrays.equals(pixels, other.pixels);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Converted images by the pixels they were converted from, taking at most a given number of
+     * bytes for both. The least recently used ones are removed first.
+     */
+    private static class Cache {
+        private final long maxBytes;
+        private final LinkedHashMap<CacheKey, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long totalBytes = 0;
+
+        Cache(final long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        @Nullable
+        synchronized byte[] get(final CacheKey key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(final CacheKey key, final byte[] value) {
+            if (key.getBytes() + value.length > maxBytes) {
+                return;
+            }
+            final byte[] previous = entries.put(key, value);
+            if (previous != null) {
+                totalBytes -= key.getBytes() + previous.length;
+            }
+            totalBytes += key.getBytes() + value.length;
+
+            final Iterator<Map.Entry<CacheKey, byte[]>> it = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                final Map.Entry<CacheKey, byte[]> entry = it.next();
+                it.remove();
+                totalBytes -= entry.getKey().getBytes() + entry.getValue().length;
+            }
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            totalBytes = 0;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
@@ -24,6 +24,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
 
 /**
  * A map of bounds for ranges. Returns the value closest to the key, in upper or lower bound mode.
@@ -31,6 +35,7 @@ import java.util.List;
 public class RangeMap<K extends Comparable<K>, V> {
     private final List<Pair<K, V>> list = new ArrayList<>();
     private boolean isSorted = false;
+    private final Mode mode;
     private final Comparator<K> comparator;
 
     public RangeMap() {
@@ -38,6 +43,7 @@ public class RangeMap<K extends Comparable<K>, V> {
     }
 
     public RangeMap(final Mode mode) {
+        this.mode = mode;
         switch (mode) {
             case LOWER_BOUND:
                 comparator = (k1, k2) -> k1.compareTo(k2);
@@ -57,18 +63,80 @@ public class RangeMap<K extends Comparable<K>, V> {
 
     @Nullable
     public V get(final K key) {
+        ensureSorted();
+
+        final int index = indexOf(key);
+        return index >= 0 ? list.get(index).second : null;
+    }
+
+    /**
+     * Looks up the value for each of the items, in a single merge pass over the items and the
+     * ranges, and passes the items that have one to the consumer. This is much faster than a
+     * {@link #get} for each item, as long as the items are sorted by ascending key. Unsorted items
+     * still get the correct values, but each one out of order costs a binary search.
+     */
+    public <T> void overlay(final List<T> items,
+                            final Function<T, K> keyFunction,
+                            final BiConsumer<T, V> consumer) {
+        overlay(items.size(), i -> keyFunction.apply(items.get(i)), (value, i) -> consumer.accept(items.get(i), value));
+    }
+
+    /**
+     * Same as {@link #overlay(List, Function, BiConsumer)}, for items that are accessed by index.
+     */
+    public void overlay(final int size,
+                        final IntFunction<K> keyFunction,
+                        final ObjIntConsumer<V> consumer) {
+        ensureSorted();
+        if (list.isEmpty() || size == 0) {
+            return;
+        }
+
+        // In upper bound mode the ranges are sorted by descending key, so walk the items backwards
+        final boolean reverse = mode == Mode.UPPER_BOUND;
+        int index = -1;
+        for (int i = 0; i < size; i++) {
+            final int item = reverse ? size - 1 - i : i;
+            final K key = keyFunction.apply(item);
+
+            if (index >= 0 && comparator.compare(key, list.get(index).first) < 0) {
+                // out of order
+                index = indexOf(key);
+            } else {
+                while (index + 1 < list.size() && comparator.compare(key, list.get(index + 1).first) >= 0) {
+                    index++;
+                }
+            }
+
+            if (index >= 0) {
+                consumer.accept(list.get(index).second, item);
+            }
+        }
+    }
+
+    private void ensureSorted() {
         if (!isSorted) {
+            // The sort is stable, so the last value put for a key wins
             Collections.sort(list, (a, b) -> comparator.compare(a.first, b.first));
             isSorted = true;
         }
+    }
 
-        for (int i = list.size() - 1; i >= 0; i--) {
-            if (comparator.compare(key, list.get(i).first) >= 0) {
-                return list.get(i).second;
+    /**
+     * Returns the index of the last range whose bound is not after the key, or -1 if none.
+     */
+    private int indexOf(final K key) {
+        int low = 0;
+        int high = list.size();
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (comparator.compare(key, list.get(mid).first) >= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
             }
         }
-
-        return null;
+        return low - 1;
     }
 
     public boolean isEmpty() {
@@ -20,20 +20,26 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.net.Uri;
 
+import androidx.annotation.Nullable;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -44,6 +50,7 @@ import nodomain.freeyourgadget.gadgetbridge.database.DBHandler;
 import nodomain.freeyourgadget.gadgetbridge.database.DBHelper;
 import nodomain.freeyourgadget.gadgetbridge.entities.Device;
 import nodomain.freeyourgadget.gadgetbridge.util.FileUtils;
+import nodomain.freeyourgadget.gadgetbridge.util.GB;
 
 public class ZipBackupExportJob extends AbstractZipBackupJob {
     private static final Logger LOG = LoggerFactory.getLogger(ZipBackupExportJob.class);
@@ -52,6 +59,9 @@ public class ZipBackupExportJob extends AbstractZipBackupJob {
 
     private final byte[] copyBuffer = new byte[8192];
 
+    // SHA-256 of every exported entry, computed while writing it
+    private final Map<String, String> checksums = new LinkedHashMap<>();
+
     public ZipBackupExportJob(final Context context, final ZipBackupCallback callback, final Uri uri) {
         super(context, callback);
         this.mUri = uri;
@@ -77,20 +87,29 @@ public class ZipBackupExportJob extends AbstractZipBackupJob {
             if (isAborted()) return;
 
             // External files
-            updateProgress(25, R.string.backup_restore_exporting_files);
+            updateProgress(50, R.string.backup_restore_exporting_files);
 
             final File externalFilesDir = FileUtils.getExternalFilesDir();
             LOG.debug("Exporting external files from {}", externalFilesDir);
 
             final List<String> allExternalFiles = getAllRelativeFiles(externalFilesDir);
-            LOG.debug("Got {} files to export", allExternalFiles.size());
+            long totalBytes = 0;
+            for (final String child : allExternalFiles) {
+                totalBytes += new File(externalFilesDir, child).length();
+            }
+            LOG.debug("Got {} files to export, {} bytes", allExternalFiles.size(), totalBytes);
 
+            long exportedBytes = 0;
             for (int i = 0; i < allExternalFiles.size() && !isAborted(); i++) {
                 final String child = allExternalFiles.get(i);
-                exportSingleExternalFile(zipOut, externalFilesDir, child);
-
-                final int progress = (int) Math.min(99, 50 + 49 * (i / (float) allExternalFiles.size()));
-                updateProgress(progress, R.string.backup_restore_exporting_files_i_of_n, i + 1, allExternalFiles.size());
+                final int fileNumber = i + 1;
+                final long fileOffset = exportedBytes;
+                final long allFilesBytes = totalBytes;
+                exportedBytes += exportSingleExternalFile(zipOut, externalFilesDir, child, written -> {
+                    // 50% to 99%, by bytes, since a few large files usually dominate
+                    final int progress = (int) Math.min(99, 50 + 49 * ((fileOffset + written) / (double) Math.max(1, allFilesBytes)));
+                    updateProgress(progress, R.string.backup_restore_exporting_files_i_of_n, fileNumber, allExternalFiles.size());
+                });
             }
 
             // Metadata
@@ -117,7 +136,7 @@ public class ZipBackupExportJob extends AbstractZipBackupJob {
         }
     }
 
-    private static void exportPreferences(final ZipOutputStream zipOut) throws IOException {
+    private void exportPreferences(final ZipOutputStream zipOut) throws IOException {
         LOG.debug("Exporting global preferences");
 
         final SharedPreferences globalPreferences = Application.getPrefs().getPreferences();
@@ -137,33 +156,79 @@ public class ZipBackupExportJob extends AbstractZipBackupJob {
         }
     }
 
-    private static void exportPreferences(final ZipOutputStream zipOut,
-                                          final SharedPreferences sharedPreferences,
-                                          final String zipEntryName) throws IOException {
+    private void exportPreferences(final ZipOutputStream zipOut,
+                                   final SharedPreferences sharedPreferences,
+                                   final String zipEntryName) throws IOException {
         LOG.debug("Exporting preferences to {}", zipEntryName);
 
         final JsonBackupPreferences jsonBackupPreferences = JsonBackupPreferences.exportFrom(sharedPreferences);
         final String preferencesJson = jsonBackupPreferences.toJson();
 
-        final ZipEntry zipEntry = new ZipEntry(zipEntryName);
-        zipOut.putNextEntry(zipEntry);
-        zipOut.write(preferencesJson.getBytes(StandardCharsets.UTF_8));
+        writeEntry(zipOut, zipEntryName, new ByteArrayInputStream(preferencesJson.getBytes(StandardCharsets.UTF_8)), null);
     }
 
-    private static void exportDatabase(final ZipOutputStream zipOut, final Context context) throws IOException {
+    /**
+     * Streams the database file into the zip. The database stays closed while it is written, so
+     * that the backup is consistent, but it is never fully loaded into memory.
+     */
+    private void exportDatabase(final ZipOutputStream zipOut, final Context context) throws IOException {
         LOG.debug("Exporting database");
 
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
         try (DBHandler dbHandler = Application.acquireDB()) {
             final DBHelper helper = new DBHelper(context);
-            helper.exportDB(dbHandler, baos);
+            helper.exportDB(dbHandler, dbFile -> {
+                final long totalBytes = Math.max(1, dbFile.length());
+                LOG.debug("Database size: {} bytes", totalBytes);
+                try (InputStream in = new FileInputStream(dbFile)) {
+                    writeEntry(zipOut, DATABASE_FILENAME, in, written -> {
+                        // 10% to 50%
+                        final int progress = (int) (10 + 40 * (written / (double) totalBytes));
+                        updateProgress(progress, R.string.backup_restore_exporting_database);
+                    });
+                }
+            });
         } catch (final Exception e) {
             throw new IOException("Failed to export database", e);
         }
+    }
 
-        final ZipEntry zipEntry = new ZipEntry(DATABASE_FILENAME);
-        zipOut.putNextEntry(zipEntry);
-        zipOut.write(baos.toByteArray());
+    /**
+     * Writes a zip entry from the input stream, computing its checksum on the way.
+     *
+     * @return the number of bytes written
+     */
+    private long writeEntry(final ZipOutputStream zipOut,
+                            final String zipEntryName,
+                            final InputStream in,
+                            @Nullable final ProgressListener progressListener) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 not available", e);
+        }
+
+        zipOut.putNextEntry(new ZipEntry(zipEntryName));
+
+        long written = 0;
+        int read;
+        while ((read = in.read(copyBuffer)) > 0 && !isAborted()) {
+            zipOut.write(copyBuffer, 0, read);
+            digest.update(copyBuffer, 0, read);
+            written += read;
+            if (progressListener != null) {
+                progressListener.onProgress(written);
+            }
+        }
+
+        zipOut.closeEntry();
+        checksums.put(zipEntryName, GB.hexdump(digest.digest()));
+
+        return written;
+    }
+
+    private interface ProgressListener {
+        void onProgress(long writtenBytes);
     }
 
     /**
@@ -207,9 +272,10 @@ public class ZipBackupExportJob extends AbstractZipBackupJob {
         }
     }
 
-    private void exportSingleExternalFile(final ZipOutputStream zipOut,
+    private long exportSingleExternalFile(final ZipOutputStream zipOut,
                                           final File externalFilesDir,
-                                          final String relativePath) throws IOException {
+                                          final String relativePath,
+                                          final ProgressListener progressListener) throws IOException {
         final File file = new File(externalFilesDir, relativePath);
         if (!file.isFile()) {
             throw new IOException("Not a file: " + file);
@@ -217,20 +283,14 @@ public class ZipBackupExportJob extends AbstractZipBackupJob {
 
         LOG.trace("Exporting file: {}", relativePath);
 
-        final ZipEntry zipEntry = new ZipEntry(EXTERNAL_FILES_FOLDER + "/" + relativePath);
-        zipOut.putNextEntry(zipEntry);
-
         try (final InputStream in = new FileInputStream(new File(externalFilesDir, relativePath))) {
-            int read;
-            while ((read = in.read(copyBuffer)) > 0) {
-                zipOut.write(copyBuffer, 0, read);
-            }
+            return writeEntry(zipOut, EXTERNAL_FILES_FOLDER + "/" + relativePath, in, progressListener);
         } catch (final Exception e) {
             throw new IOException("Failed to write " + relativePath, e);
         }
     }
 
-    private static void addMetadata(final ZipOutputStream zipOut) throws IOException {
+    private void addMetadata(final ZipOutputStream zipOut) throws IOException {
         LOG.debug("Adding metadata");
 
         final ZipBackupMetadata metadata = new ZipBackupMetadata(
@@ -238,7 +298,8 @@ public class ZipBackupExportJob extends AbstractZipBackupJob {
                 BuildConfig.VERSION_NAME,
                 BuildConfig.VERSION_CODE,
                 VERSION,
-                new Date()
+                new Date(),
+                checksums
         );
         final String metadataJson = GSON.toJson(metadata);
 
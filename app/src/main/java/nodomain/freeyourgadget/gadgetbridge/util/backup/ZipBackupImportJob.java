@@ -30,10 +30,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -44,6 +47,7 @@ import nodomain.freeyourgadget.gadgetbridge.database.DBHandler;
 import nodomain.freeyourgadget.gadgetbridge.database.DBHelper;
 import nodomain.freeyourgadget.gadgetbridge.entities.Device;
 import nodomain.freeyourgadget.gadgetbridge.util.FileUtils;
+import nodomain.freeyourgadget.gadgetbridge.util.GB;
 
 public class ZipBackupImportJob extends AbstractZipBackupJob {
     private static final Logger LOG = LoggerFactory.getLogger(ZipBackupImportJob.class);
@@ -220,7 +224,7 @@ public class ZipBackupImportJob extends AbstractZipBackupJob {
         return new ZipFile(tmpFile);
     }
 
-    private static void validateBackupFile(final ZipFile zipFile) throws IOException {
+    private void validateBackupFile(final ZipFile zipFile) throws IOException {
         final ZipEntry metadataEntry = zipFile.getEntry(METADATA_FILENAME);
         if (metadataEntry == null) {
             throw new IOException("Zip file has no metadata");
@@ -239,5 +243,32 @@ public class ZipBackupImportJob extends AbstractZipBackupJob {
         if (databaseEntry == null) {
             throw new IOException("Zip file has no database");
         }
+
+        // Verify the database before it replaces the current one, if the backup has a checksum
+        final Map<String, String> checksums = zipBackupMetadata.getChecksums();
+        if (checksums != null && checksums.containsKey(DATABASE_FILENAME)) {
+            final String actualChecksum = computeChecksum(zipFile, databaseEntry);
+            if (!actualChecksum.equalsIgnoreCase(checksums.get(DATABASE_FILENAME))) {
+                throw new IOException("Database checksum mismatch");
+            }
+        }
+    }
+
+    private String computeChecksum(final ZipFile zipFile, final ZipEntry zipEntry) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 not available", e);
+        }
+
+        try (InputStream inputStream = zipFile.getInputStream(zipEntry)) {
+            int read;
+            while ((read = inputStream.read(copyBuffer)) != -1) {
+                digest.update(copyBuffer, 0, read);
+            }
+        }
+
+        return GB.hexdump(digest.digest());
     }
 }
@@ -16,7 +16,10 @@
     along with this program.  If not, see <https://www.gnu.org/licenses/>. */
 package nodomain.freeyourgadget.gadgetbridge.util.backup;
 
+import androidx.annotation.Nullable;
+
 import java.util.Date;
+import java.util.Map;
 
 public class ZipBackupMetadata {
     private final String appId;
@@ -26,16 +29,22 @@ public class ZipBackupMetadata {
     private final int backupVersion;
     private final Date backupDate;
 
+    // SHA-256 of the zip entries, by name. Not present in backups of older versions.
+    @Nullable
+    private final Map<String, String> checksums;
+
     public ZipBackupMetadata(final String appId,
                              final String appVersionName,
                              final int appVersionCode,
                              final int backupVersion,
-                             final Date backupDate) {
+                             final Date backupDate,
+                             @Nullable final Map<String, String> checksums) {
         this.appId = appId;
         this.appVersionName = appVersionName;
         this.appVersionCode = appVersionCode;
         this.backupVersion = backupVersion;
         this.backupDate = backupDate;
+        this.checksums = checksums;
     }
 
     public String getAppId() {
@@ -57,4 +66,9 @@ public class ZipBackupMetadata {
     public Date getBackupDate() {
         return backupDate;
     }
+
+    @Nullable
+    public Map<String, String> getChecksums() {
+        return checksums;
+    }
 }
@@ -41,6 +41,7 @@ import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Build.VERSION;
+import android.os.SystemClock;
 import android.preference.PreferenceManager;
 import android.provider.ContactsContract.PhoneLookup;
 import android.util.Log;
@@ -64,11 +65,13 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import nodomain.freeyourgadget.gadgetbridge.activities.ControlCenterv2;
 import nodomain.freeyourgadget.gadgetbridge.activities.devicesettings.DeviceSettingsPreferenceConst;
 import nodomain.freeyourgadget.gadgetbridge.database.DBHandler;
 import nodomain.freeyourgadget.gadgetbridge.database.DBHelper;
+import nodomain.freeyourgadget.gadgetbridge.database.DBLockStatistics;
 import nodomain.freeyourgadget.gadgetbridge.database.DBOpenHelper;
 import nodomain.freeyourgadget.gadgetbridge.database.PeriodicExporter;
 import nodomain.freeyourgadget.gadgetbridge.devices.DeviceManager;
@@ -77,10 +80,12 @@ import nodomain.freeyourgadget.gadgetbridge.entities.DaoMaster;
 import nodomain.freeyourgadget.gadgetbridge.entities.DaoSession;
 import nodomain.freeyourgadget.gadgetbridge.entities.Device;
 import nodomain.freeyourgadget.gadgetbridge.externalevents.BluetoothStateChangeReceiver;
+import nodomain.freeyourgadget.gadgetbridge.externalevents.NotificationFilterIndex;
 import nodomain.freeyourgadget.gadgetbridge.externalevents.opentracks.OpenTracksContentObserver;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDeviceService;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityUser;
+import nodomain.freeyourgadget.gadgetbridge.model.DailyTotalsWorker;
 import nodomain.freeyourgadget.gadgetbridge.model.DeviceService;
 import nodomain.freeyourgadget.gadgetbridge.model.DeviceType;
 import nodomain.freeyourgadget.gadgetbridge.model.Weather;
@@ -124,6 +129,14 @@ public class Application extends android.app.Application {
 
     private static Application context;
     private static final Lock dbLock = new ReentrantLock();
+    /**
+     * Shared by all readers, and only taken exclusively while the database is closed.
+     */
+    private static final ReentrantReadWriteLock dbReaderLock = new ReentrantReadWriteLock();
+    private static final long DB_LOCK_TIMEOUT_MILLIS = 30000;
+    private static final long DB_LOCK_SLOW_WAIT_MILLIS = 500;
+    private static final DBLockStatistics dbWriterLockStatistics = new DBLockStatistics("writer");
+    private static final DBLockStatistics dbReaderLockStatistics = new DBLockStatistics("reader");
     private static DeviceService deviceService;
     private static SharedPreferences sharedPrefs;
     private static final String PREFS_VERSION = "shared_preferences_version";
@@ -260,6 +273,8 @@ public class Application extends android.app.Application {
         loadPerDeviceAppsNotifBlackList();
 
         PeriodicExporter.enablePeriodicExport(context);
+        // Persist the totals of the days that finished, or were never persisted, since the last start
+        DailyTotalsWorker.schedule(context);
 
         if (isRunningMarshmallowOrLater()) {
             notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
@@ -382,19 +397,25 @@ public class Application extends android.app.Application {
      * <p>
      * Callers must not hold a reference to the returned instance because it
      * will be invalidated at some point.
+     * <p>
+     * Callers that only read should use #acquireDbReadOnly() instead, so that
+     * they do not need to wait for writers.
      *
      * @return the DBHandler
      * @throws AppException
      * @see #releaseDB()
      */
     public static DBHandler acquireDB() throws AppException {
+        final long start = SystemClock.elapsedRealtime();
         try {
-            if (dbLock.tryLock(30, TimeUnit.SECONDS)) {
+            if (dbLock.tryLock(DB_LOCK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                recordDbLockWait(dbWriterLockStatistics, start, true);
                 return lockHandler;
             }
         } catch (InterruptedException ex) {
             Log.i(TAG, "Interrupted while waiting for DB lock");
         }
+        recordDbLockWait(dbWriterLockStatistics, start, false);
         throw new AppException("Unable to access the database.");
     }
 
@@ -408,6 +429,98 @@ public class Application extends android.app.Application {
         dbLock.unlock();
     }
 
+    /**
+     * Returns a DBHandler for reading only, or throws GBException when that was
+     * not successful. The database uses write-ahead logging, so any number of
+     * readers can access it concurrently to each other and to the writer, each
+     * using one of the pooled connections. Readers only wait while the database
+     * is closed, eg. for an import.
+     * <p>
+     * The handler must be closed from the same thread that acquired it. The
+     * same restrictions as for #acquireDB() apply, and additionally:
+     * <ul>
+     *     <li>callers must not write to the database, not even to caches -
+     *     all writes must use #acquireDB()</li>
+     *     <li>callers must not acquire the writer lock while holding this one</li>
+     *     <li>the returned session does not cache entities, so loading the
+     *     same row twice returns two different instances</li>
+     * </ul>
+     *
+     * @return the read-only DBHandler
+     * @throws AppException
+     * @see #releaseDbReadOnly()
+     */
+    public static DBHandler acquireDbReadOnly() throws AppException {
+        final long start = SystemClock.elapsedRealtime();
+        try {
+            if (dbReaderLock.readLock().tryLock(DB_LOCK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                recordDbLockWait(dbReaderLockStatistics, start, true);
+                return lockHandler.getReadOnlyHandler();
+            }
+        } catch (InterruptedException ex) {
+            Log.i(TAG, "Interrupted while waiting for DB reader lock");
+        }
+        recordDbLockWait(dbReaderLockStatistics, start, false);
+        throw new AppException("Unable to access the database.");
+    }
+
+    /**
+     * Releases the database reader lock.
+     *
+     * @throws IllegalMonitorStateException if the current thread is not owning the lock
+     * @see #acquireDbReadOnly()
+     */
+    public static void releaseDbReadOnly() {
+        dbReaderLock.readLock().unlock();
+    }
+
+    /**
+     * Waits for all readers to finish, and keeps new ones out until #admitDbReaders()
+     * is called from the same thread. Called before closing the database.
+     */
+    static void lockOutDbReaders() {
+        if (dbReaderLock.getReadHoldCount() > 0) {
+            throw new IllegalStateException("Can not close the database while reading from it");
+        }
+        try {
+            if (dbReaderLock.writeLock().tryLock(DB_LOCK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException ex) {
+            Log.i(TAG, "Interrupted while waiting for DB readers");
+        }
+        throw new IllegalStateException("Timed out waiting for database readers to finish");
+    }
+
+    /**
+     * Allows readers to access the database again, if they were locked out by the current thread.
+     */
+    static void admitDbReaders() {
+        while (dbReaderLock.isWriteLockedByCurrentThread()) {
+            dbReaderLock.writeLock().unlock();
+        }
+    }
+
+    private static void recordDbLockWait(final DBLockStatistics statistics, final long start, final boolean acquired) {
+        final long waitMillis = SystemClock.elapsedRealtime() - start;
+        if (acquired) {
+            statistics.recordAcquired(waitMillis);
+        } else {
+            statistics.recordTimeout(waitMillis);
+        }
+        if (waitMillis >= DB_LOCK_SLOW_WAIT_MILLIS) {
+            Log.w(TAG, "Waited " + waitMillis + "ms for DB lock on " + Thread.currentThread().getName() + " - " + statistics);
+        }
+    }
+
+    public static DBLockStatistics getDbWriterLockStatistics() {
+        return dbWriterLockStatistics;
+    }
+
+    public static DBLockStatistics getDbReaderLockStatistics() {
+        return dbReaderLockStatistics;
+    }
+
     public static boolean isRunningMarshmallowOrLater() {
         return VERSION.SDK_INT >= Build.VERSION_CODES.M;
     }
@@ -723,6 +836,9 @@ public class Application extends android.app.Application {
         }
         boolean result = deleteOldActivityDatabase(context);
         result &= getContext().deleteDatabase(DATABASE_NAME);
+        NotificationFilterIndex.invalidate();
+        // the db is not reopened, so readers fail just like writers instead of waiting for it
+        admitDbReaders();
         return result;
     }
 
@@ -19,6 +19,7 @@ package xyz.tenseventyseven.fresh;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
+import de.greenrobot.dao.identityscope.IdentityScopeType;
 import nodomain.freeyourgadget.gadgetbridge.database.DBHandler;
 import nodomain.freeyourgadget.gadgetbridge.entities.DaoMaster;
 import nodomain.freeyourgadget.gadgetbridge.entities.DaoSession;
@@ -30,7 +31,9 @@ public class LockHandler implements DBHandler {
 
     private DaoMaster daoMaster = null;
     private DaoSession session = null;
+    private DaoSession readOnlySession = null;
     private SQLiteOpenHelper helper = null;
+    private final ReadOnlyHandler readOnlyHandler = new ReadOnlyHandler();
 
     public LockHandler() {
     }
@@ -52,6 +55,18 @@ public class LockHandler implements DBHandler {
         if (session == null) {
             throw new RuntimeException("Unable to create database session");
         }
+        // Readers run concurrently with the writer, so they must not see entities cached (and
+        // possibly modified) by the writer's session, nor cache possibly outdated ones themselves
+        readOnlySession = daoMaster.newSession(IdentityScopeType.None);
+
+        Application.admitDbReaders();
+    }
+
+    /**
+     * Returns the handler given out by Application#acquireDbReadOnly().
+     */
+    DBHandler getReadOnlyHandler() {
+        return readOnlyHandler;
     }
 
     @Override
@@ -89,9 +104,12 @@ public class LockHandler implements DBHandler {
         if (session == null) {
             throw new IllegalStateException("session must not be null");
         }
+        // Readers are only admitted again once the database was re-opened, see #init()
+        Application.lockOutDbReaders();
         session.clear();
         session.getDatabase().close();
         session = null;
+        readOnlySession = null;
         helper = null;
         daoMaster = null;
     }
@@ -113,4 +131,46 @@ public class LockHandler implements DBHandler {
         ensureValid();
         return daoMaster.getDatabase();
     }
+
+    /**
+     * The handler for read-only access, which shares the database (and its connection pool) of
+     * the writer, but has a separate session. Its lifecycle is bound to the writer's handler.
+     */
+    private class ReadOnlyHandler implements DBHandler {
+        @Override
+        public void closeDb() {
+            throw new UnsupportedOperationException("Read-only handlers can not close the database");
+        }
+
+        @Override
+        public void openDb() {
+            throw new UnsupportedOperationException("Read-only handlers can not open the database");
+        }
+
+        @Override
+        public SQLiteOpenHelper getHelper() {
+            return LockHandler.this.getHelper();
+        }
+
+        @Override
+        public void close() {
+            Application.releaseDbReadOnly();
+        }
+
+        @Override
+        public SQLiteDatabase getDatabase() {
+            return LockHandler.this.getDatabase();
+        }
+
+        @Override
+        public DaoMaster getDaoMaster() {
+            return LockHandler.this.getDaoMaster();
+        }
+
+        @Override
+        public DaoSession getDaoSession() {
+            ensureValid();
+            return readOnlySession;
+        }
+    }
 }
@@ -0,0 +1,270 @@
+package nodomain.freeyourgadget.gadgetbridge.activities.charts;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import nodomain.freeyourgadget.gadgetbridge.activities.charts.SleepAnalysis.SleepSession;
+import nodomain.freeyourgadget.gadgetbridge.entities.AbstractActivitySample;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivityAmount;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivityAmounts;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivityKind;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySample;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySampleSequence;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySession;
+import nodomain.freeyourgadget.gadgetbridge.test.TestBase;
+
+public class CombinedAnalysisTest extends TestBase {
+    private static final ActivityKind[] KINDS = {
+            ActivityKind.ACTIVITY,
+            ActivityKind.WALKING,
+            ActivityKind.RUNNING,
+            ActivityKind.LIGHT_SLEEP,
+            ActivityKind.DEEP_SLEEP,
+            ActivityKind.REM_SLEEP,
+            ActivityKind.AWAKE_SLEEP,
+            ActivityKind.NOT_WORN,
+            ActivityKind.UNKNOWN,
+    };
+
+    @Test
+    public void testEmpty() {
+        final CombinedAnalysis analysis = new CombinedAnalysis();
+        assertEquals(0, analysis.size());
+        assertEquals(0, analysis.getActivityAmounts().getAmounts().size());
+        assertEquals(0, analysis.getSpeedStats().size());
+        assertEquals(0, analysis.getSleepSessions().size());
+        assertEquals(0, analysis.getStepSessions().size());
+        assertEquals(0, analysis.getStepSummary(analysis.getStepSessions(), true).getTotalDaySteps());
+    }
+
+    @Test
+    public void testSameAsIndividualAnalyses() {
+        for (int seed = 0; seed < 20; seed++) {
+            final List<ActivitySample> samples = generateSamples(new Random(seed), 3000);
+
+            final CombinedAnalysis analysis = new CombinedAnalysis().addAll(ActivitySampleSequence.of(samples));
+            assertEquals(samples.size(), analysis.size());
+            assertSameResults(samples, analysis);
+        }
+    }
+
+    @Test
+    public void testIncremental() {
+        final List<ActivitySample> samples = generateSamples(new Random(42), 2000);
+        final ActivitySampleSequence sequence = ActivitySampleSequence.of(samples);
+        final CombinedAnalysis analysis = new CombinedAnalysis();
+        for (int i = 0; i < samples.size(); i++) {
+            analysis.add(sequence, i);
+            if (i % 97 == 0 || i == samples.size() - 1) {
+                assertSameResults(samples.subList(0, i + 1), analysis);
+            }
+        }
+    }
+
+    @Test
+    public void testAppendedSamples() {
+        final List<ActivitySample> samples = generateSamples(new Random(7), 2000);
+        final List<ActivitySample> received = new ArrayList<>(samples.subList(0, 1200));
+        final CombinedAnalysis analysis = new CombinedAnalysis().addAll(ActivitySampleSequence.of(received));
+        assertSameResults(received, analysis);
+
+        received.addAll(samples.subList(1200, samples.size()));
+        analysis.addAll(ActivitySampleSequence.of(received), analysis.size());
+        assertEquals(samples.size(), analysis.size());
+        assertSameResults(samples, analysis);
+    }
+
+    private static void assertSameResults(final List<ActivitySample> samples, final CombinedAnalysis analysis) {
+        final ActivityAnalysis activityAnalysis = new ActivityAnalysis();
+        assertAmountsEqual(activityAnalysis.calculateActivityAmounts(samples), analysis.getActivityAmounts());
+        assertEquals(activityAnalysis.stats, analysis.getSpeedStats());
+
+        assertSleepSessionsEqual(new SleepAnalysis().calculateSleepSessions(samples), analysis.getSleepSessions());
+
+        final StepAnalysis stepAnalysis = new StepAnalysis();
+        final List<ActivitySession> stepSessions = stepAnalysis.calculateStepSessions(samples);
+        assertStepSessionsEqual(stepSessions, analysis.getStepSessions());
+        assertStepSessionsEqual(
+                Collections.singletonList(stepAnalysis.calculateSummary(stepSessions, false)),
+                Collections.singletonList(analysis.getStepSummary(analysis.getStepSessions(), false))
+        );
+    }
+
+    private static void assertAmountsEqual(final ActivityAmounts expected, final ActivityAmounts actual) {
+        assertEquals(expected.getAmounts().size(), actual.getAmounts().size());
+        for (int i = 0; i < expected.getAmounts().size(); i++) {
+            final ActivityAmount e = expected.getAmounts().get(i);
+            final ActivityAmount a = actual.getAmounts().get(i);
+            assertEquals(e.getActivityKind(), a.getActivityKind());
+            assertEquals(e.getTotalSeconds(), a.getTotalSeconds());
+            assertEquals(e.getTotalSteps(), a.getTotalSteps());
+            assertEquals(e.getTotalDistance(), a.getTotalDistance());
+            assertEquals(e.getTotalActiveCalories(), a.getTotalActiveCalories());
+            assertEquals(e.getPercent(), a.getPercent());
+            assertEquals(e.getStartDate(), a.getStartDate());
+            assertEquals(e.getEndDate(), a.getEndDate());
+        }
+    }
+
+    private static void assertSleepSessionsEqual(final List<SleepSession> expected, final List<SleepSession> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            final SleepSession e = expected.get(i);
+            final SleepSession a = actual.get(i);
+            assertEquals(e.getSleepStart(), a.getSleepStart());
+            assertEquals(e.getSleepEnd(), a.getSleepEnd());
+            assertEquals(e.getLightSleepDuration(), a.getLightSleepDuration());
+            assertEquals(e.getDeepSleepDuration(), a.getDeepSleepDuration());
+            assertEquals(e.getRemSleepDuration(), a.getRemSleepDuration());
+            assertEquals(e.getAwakeSleepDuration(), a.getAwakeSleepDuration());
+        }
+    }
+
+    private static void assertStepSessionsEqual(final List<ActivitySession> expected, final List<ActivitySession> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            final ActivitySession e = expected.get(i);
+            final ActivitySession a = actual.get(i);
+            assertEquals(e.getStartTime(), a.getStartTime());
+            assertEquals(e.getEndTime(), a.getEndTime());
+            assertEquals(e.getActiveSteps(), a.getActiveSteps());
+            assertEquals(e.getHeartRateAverage(), a.getHeartRateAverage());
+            assertEquals(e.getIntensity(), a.getIntensity(), 0);
+            assertEquals(e.getDistance(), a.getDistance(), 0);
+            assertEquals(e.getActivityKind(), a.getActivityKind());
+            assertEquals(e.getSessionType(), a.getSessionType());
+            assertEquals(e.getSessionCount(), a.getSessionCount());
+            assertEquals(e.getTotalDaySteps(), a.getTotalDaySteps());
+        }
+    }
+
+    /**
+     * Generates minute samples in runs of the same kind, with occasional gaps and trailing
+     * samples at the end, like a chart would query them.
+     */
+    private static List<ActivitySample> generateSamples(final Random random, final int count) {
+        final List<ActivitySample> samples = new ArrayList<>(count);
+        int timestamp = 1700000000;
+        ActivityKind kind = ActivityKind.ACTIVITY;
+        int rawKind = 0;
+        for (int i = 0; i < count; i++) {
+            if (random.nextInt(30) == 0) {
+                rawKind = random.nextInt(KINDS.length);
+                kind = KINDS[rawKind];
+            }
+            timestamp += random.nextInt(50) == 0 ? 60 * (1 + random.nextInt(60)) : 60;
+
+            final TestSample sample = new TestSample();
+            sample.timestamp = timestamp;
+            sample.rawKind = rawKind;
+            sample.kind = kind;
+            sample.intensity = random.nextFloat();
+            sample.steps = kind == ActivityKind.WALKING || kind == ActivityKind.RUNNING || random.nextInt(4) == 0
+                    ? random.nextInt(150) - 1
+                    : 0;
+            sample.distanceCm = random.nextBoolean() ? random.nextInt(10000) - 1 : ActivitySample.NOT_MEASURED;
+            sample.activeCalories = random.nextInt(100) - 1;
+            sample.heartRate = random.nextInt(5) == 0 ? 255 : random.nextInt(200) - 1;
+            samples.add(sample);
+        }
+
+        for (int i = 0; i < 2; i++) {
+            final TestTrailingSample trailing = new TestTrailingSample();
+            trailing.setTimestamp(timestamp += 60);
+            samples.add(trailing);
+        }
+        return samples;
+    }
+
+    private static class TestSample extends AbstractActivitySample {
+        private int timestamp;
+        private int rawKind;
+        private ActivityKind kind;
+        private float intensity;
+        private int steps;
+        private int distanceCm;
+        private int activeCalories;
+        private int heartRate;
+
+        @Override
+        public int getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public void setTimestamp(final int timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public int getRawKind() {
+            return rawKind;
+        }
+
+        @Override
+        public ActivityKind getKind() {
+            return kind;
+        }
+
+        @Override
+        public float getIntensity() {
+            return intensity;
+        }
+
+        @Override
+        public int getSteps() {
+            return steps;
+        }
+
+        @Override
+        public int getDistanceCm() {
+            return distanceCm;
+        }
+
+        @Override
+        public int getActiveCalories() {
+            return activeCalories;
+        }
+
+        @Override
+        public int getHeartRate() {
+            return heartRate;
+        }
+
+        @Override
+        public void setUserId(final long userId) {
+        }
+
+        @Override
+        public long getUserId() {
+            return 0;
+        }
+
+        @Override
+        public void setDeviceId(final long deviceId) {
+        }
+
+        @Override
+        public long getDeviceId() {
+            return 0;
+        }
+    }
+
+    private static class TestTrailingSample extends TrailingActivitySample {
+        @Override
+        public ActivityKind getKind() {
+            return ActivityKind.NOT_MEASURED;
+        }
+
+        @Override
+        public float getIntensity() {
+            return 0;
+        }
+    }
+}
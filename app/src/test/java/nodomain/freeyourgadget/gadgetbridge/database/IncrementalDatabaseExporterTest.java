@@ -0,0 +1,137 @@
+package nodomain.freeyourgadget.gadgetbridge.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import nodomain.freeyourgadget.gadgetbridge.devices.miband.MiBandSampleProvider;
+import nodomain.freeyourgadget.gadgetbridge.entities.Device;
+import nodomain.freeyourgadget.gadgetbridge.entities.MiBandActivitySample;
+import nodomain.freeyourgadget.gadgetbridge.entities.MiBandActivitySampleDao;
+import nodomain.freeyourgadget.gadgetbridge.entities.User;
+import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
+import nodomain.freeyourgadget.gadgetbridge.test.TestBase;
+
+public class IncrementalDatabaseExporterTest extends TestBase {
+    private static final String SAMPLE_INSERT = "INSERT OR REPLACE INTO \"" + MiBandActivitySampleDao.TABLENAME + "\"";
+
+    @Test
+    public void testSnapshotAndChunks() throws Exception {
+        final GBDevice gbDevice = createDummyGDevice("00:00:00:00:20");
+        final MiBandSampleProvider sampleProvider = new MiBandSampleProvider(gbDevice, daoSession);
+        final User user = DBHelper.getUser(daoSession);
+        final Device device = DBHelper.getDevice(gbDevice, daoSession);
+        final SQLiteDatabase db = dbHandler.getDatabase();
+
+        sampleProvider.addGBActivitySample(createSample(sampleProvider, 100, 1000, user, device));
+        sampleProvider.addGBActivitySample(createSample(sampleProvider, 160, 1030, user, device));
+
+        final ByteArrayOutputStream export = new ByteArrayOutputStream();
+        IncrementalDatabaseExporter.writeChunk(db, export, true);
+        final String snapshot = decompress(export.toByteArray());
+        assertTrue(snapshot.contains("CREATE TABLE"));
+        assertTrue(snapshot.contains("PRAGMA user_version = " + db.getVersion()));
+        assertEquals(2, count(snapshot, SAMPLE_INSERT));
+        assertFalse(snapshot.contains(IncrementalDatabaseExporter.CHANGE_LOG_TABLE));
+        assertTrue(IncrementalDatabaseExporter.isTracking(db));
+
+        // nothing new
+        IncrementalDatabaseExporter.writeChunk(db, export, false);
+        String chunk = decompress(export.toByteArray()).substring(snapshot.length());
+        assertEquals(0, count(chunk, SAMPLE_INSERT));
+        assertFalse(chunk.contains("CREATE TABLE"));
+        // small tables are always exported completely
+        assertTrue(chunk.contains("DELETE FROM \"DEVICE\""));
+
+        // a new sample and a replaced one
+        sampleProvider.addGBActivitySample(createSample(sampleProvider, 220, 2000, user, device));
+        sampleProvider.addGBActivitySample(createSample(sampleProvider, 100, 1500, user, device));
+        int exportedLength = decompress(export.toByteArray()).length();
+        IncrementalDatabaseExporter.writeChunk(db, export, false);
+        chunk = decompress(export.toByteArray()).substring(exportedLength);
+        assertEquals(2, count(chunk, SAMPLE_INSERT));
+
+        // a sample older than the exported ones, and a deleted one
+        sampleProvider.addGBActivitySample(createSample(sampleProvider, 40, 500, user, device));
+        db.execSQL("DELETE FROM " + MiBandActivitySampleDao.TABLENAME + " WHERE TIMESTAMP = 160");
+        exportedLength = decompress(export.toByteArray()).length();
+        IncrementalDatabaseExporter.writeChunk(db, export, false);
+        chunk = decompress(export.toByteArray()).substring(exportedLength);
+        assertEquals(1, count(chunk, SAMPLE_INSERT));
+        assertEquals(1, count(chunk, "DELETE FROM \"" + MiBandActivitySampleDao.TABLENAME + "\" WHERE"));
+
+        // replaying the snapshot and all chunks restores all samples
+        final SQLiteDatabase restored = SQLiteDatabase.create(null);
+        for (final String statement : decompress(export.toByteArray()).split(";\n")) {
+            if (statement.isEmpty() || statement.equals("BEGIN TRANSACTION") || statement.equals("COMMIT")) {
+                continue;
+            }
+            restored.execSQL(statement);
+        }
+        assertEquals(3, DatabaseUtils.queryNumEntries(restored, MiBandActivitySampleDao.TABLENAME));
+        assertEquals(1500, DatabaseUtils.longForQuery(restored,
+                "SELECT STEPS FROM " + MiBandActivitySampleDao.TABLENAME + " WHERE TIMESTAMP = 100", null));
+        assertEquals(500, DatabaseUtils.longForQuery(restored,
+                "SELECT STEPS FROM " + MiBandActivitySampleDao.TABLENAME + " WHERE TIMESTAMP = 40", null));
+        assertEquals(0, DatabaseUtils.longForQuery(restored,
+                "SELECT COUNT(*) FROM " + MiBandActivitySampleDao.TABLENAME + " WHERE TIMESTAMP = 160", null));
+        restored.close();
+    }
+
+    @Test
+    public void testStopTracking() throws Exception {
+        final SQLiteDatabase db = dbHandler.getDatabase();
+        IncrementalDatabaseExporter.writeChunk(db, new ByteArrayOutputStream(), true);
+        assertTrue(IncrementalDatabaseExporter.isTracking(db));
+
+        IncrementalDatabaseExporter.stopTracking(db);
+        assertFalse(IncrementalDatabaseExporter.isTracking(db));
+        assertEquals(0, DatabaseUtils.longForQuery(db,
+                "SELECT COUNT(*) FROM sqlite_master WHERE name LIKE 'EXPORT\\_CHANGE\\_%' ESCAPE '\\'", null));
+    }
+
+    private MiBandActivitySample createSample(final MiBandSampleProvider sampleProvider, final int timestamp, final int steps, final User user, final Device device) {
+        final MiBandActivitySample sample = sampleProvider.createActivitySample();
+        sample.setProvider(sampleProvider);
+        sample.setRawKind(MiBandSampleProvider.TYPE_ACTIVITY);
+        sample.setTimestamp(timestamp);
+        sample.setRawIntensity(10);
+        sample.setHeartRate(70);
+        sample.setSteps(steps);
+        sample.setUserId(user.getId());
+        sample.setDeviceId(device.getId());
+        return sample;
+    }
+
+    private static String decompress(final byte[] bytes) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            final byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toString(StandardCharsets.UTF_8.name());
+    }
+
+    private static int count(final String text, final String needle) {
+        int count = 0;
+        for (int i = text.indexOf(needle); i >= 0; i = text.indexOf(needle, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
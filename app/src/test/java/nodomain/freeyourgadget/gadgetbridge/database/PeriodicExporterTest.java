@@ -0,0 +1,82 @@
+package nodomain.freeyourgadget.gadgetbridge.database;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+
+import nodomain.freeyourgadget.gadgetbridge.test.TestBase;
+import nodomain.freeyourgadget.gadgetbridge.util.GBPrefs;
+import xyz.tenseventyseven.fresh.Application;
+
+public class PeriodicExporterTest extends TestBase {
+    @After
+    public void resetExport() {
+        setExportPrefs(false, false);
+        app.setAutoExportScheduledTimestamp(0);
+        IncrementalDatabaseExporter.stopTracking(dbHandler.getDatabase());
+        IncrementalDatabaseExporter.reset(app);
+    }
+
+    @Test
+    public void testRestartWithScheduledExportKeepsTracking() throws Exception {
+        final SQLiteDatabase db = dbHandler.getDatabase();
+        setExportPrefs(true, true);
+        startIncrementalExport(db);
+
+        // the export was scheduled before, so it is not scheduled again on restart
+        app.setAutoExportScheduledTimestamp(System.currentTimeMillis() + 3600 * 1000);
+        PeriodicExporter.enablePeriodicExport(app);
+
+        assertTrue(IncrementalDatabaseExporter.isTracking(db));
+        assertTrue(getStateFile().exists());
+    }
+
+    @Test
+    public void testRestartWithExportDisabledStopsTracking() throws Exception {
+        final SQLiteDatabase db = dbHandler.getDatabase();
+        setExportPrefs(false, true);
+        startIncrementalExport(db);
+
+        PeriodicExporter.enablePeriodicExport(app);
+
+        assertFalse(IncrementalDatabaseExporter.isTracking(db));
+        assertFalse(getStateFile().exists());
+    }
+
+    @Test
+    public void testRestartWithFullExportStopsTracking() throws Exception {
+        final SQLiteDatabase db = dbHandler.getDatabase();
+        setExportPrefs(true, false);
+        startIncrementalExport(db);
+
+        app.setAutoExportScheduledTimestamp(System.currentTimeMillis() + 3600 * 1000);
+        PeriodicExporter.enablePeriodicExport(app);
+
+        assertFalse(IncrementalDatabaseExporter.isTracking(db));
+        assertFalse(getStateFile().exists());
+    }
+
+    private void startIncrementalExport(final SQLiteDatabase db) throws Exception {
+        IncrementalDatabaseExporter.startTracking(db);
+        assertTrue(getStateFile().createNewFile());
+        assertTrue(IncrementalDatabaseExporter.isTracking(db));
+    }
+
+    private File getStateFile() {
+        return new File(app.getFilesDir(), IncrementalDatabaseExporter.STATE_FILENAME);
+    }
+
+    private static void setExportPrefs(final boolean enabled, final boolean incremental) {
+        Application.getPrefs().getPreferences()
+                .edit()
+                .putBoolean(GBPrefs.AUTO_EXPORT_ENABLED, enabled)
+                .putBoolean(GBPrefs.AUTO_EXPORT_INCREMENTAL, incremental)
+                .commit();
+    }
+}
@@ -2,21 +2,53 @@ package nodomain.freeyourgadget.gadgetbridge.database;
 
 import org.junit.Test;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
+import nodomain.freeyourgadget.gadgetbridge.activities.charts.ActivityAnalysis;
+import nodomain.freeyourgadget.gadgetbridge.activities.charts.SleepAnalysis;
+import nodomain.freeyourgadget.gadgetbridge.activities.charts.StepAnalysis;
 import nodomain.freeyourgadget.gadgetbridge.devices.SampleProvider;
+import nodomain.freeyourgadget.gadgetbridge.devices.garmin.GarminActivitySampleProvider;
+import nodomain.freeyourgadget.gadgetbridge.devices.huami.HuamiConst;
+import nodomain.freeyourgadget.gadgetbridge.devices.huami.HuamiExtendedSampleProvider;
 import nodomain.freeyourgadget.gadgetbridge.devices.huawei.HuaweiSampleProvider;
+import nodomain.freeyourgadget.gadgetbridge.devices.miband.MiBand2SampleProvider;
 import nodomain.freeyourgadget.gadgetbridge.devices.miband.MiBandSampleProvider;
+import nodomain.freeyourgadget.gadgetbridge.devices.xiaomi.XiaomiSampleProvider;
 import nodomain.freeyourgadget.gadgetbridge.entities.AbstractActivitySample;
 import nodomain.freeyourgadget.gadgetbridge.entities.Device;
+import nodomain.freeyourgadget.gadgetbridge.entities.GarminActivitySample;
+import nodomain.freeyourgadget.gadgetbridge.entities.GarminEventSample;
+import nodomain.freeyourgadget.gadgetbridge.entities.GarminSleepStageSample;
+import nodomain.freeyourgadget.gadgetbridge.entities.HuamiExtendedActivitySample;
 import nodomain.freeyourgadget.gadgetbridge.entities.HuaweiActivitySample;
+import nodomain.freeyourgadget.gadgetbridge.entities.HuaweiWorkoutDataSample;
+import nodomain.freeyourgadget.gadgetbridge.entities.HuaweiWorkoutSummarySample;
 import nodomain.freeyourgadget.gadgetbridge.entities.MiBandActivitySample;
 import nodomain.freeyourgadget.gadgetbridge.entities.User;
+import nodomain.freeyourgadget.gadgetbridge.entities.XiaomiActivitySample;
+import nodomain.freeyourgadget.gadgetbridge.entities.XiaomiSleepStageSample;
+import nodomain.freeyourgadget.gadgetbridge.entities.XiaomiSleepTimeSample;
 import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivityAmount;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivityAmounts;
 import nodomain.freeyourgadget.gadgetbridge.model.ActivityKind;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySample;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySampleColumns;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySampleSequence;
+import nodomain.freeyourgadget.gadgetbridge.model.ActivitySession;
+import nodomain.freeyourgadget.gadgetbridge.model.DailySteps;
 import nodomain.freeyourgadget.gadgetbridge.test.TestBase;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
@@ -213,4 +245,316 @@ public class SampleProviderTest extends TestBase {
         samples = sampleProvider.getAllActivitySamplesHighRes(100, 200);
         assertEquals(4, samples.size()); // No combining takes place for the high res
     }
+
+    @Test
+    public void testHighResWorkoutSamples() {
+        HuaweiSampleProvider sampleProvider = new HuaweiSampleProvider(dummyGBDevice, daoSession);
+        User user = DBHelper.getUser(daoSession);
+        Device device = DBHelper.getDevice(dummyGBDevice, daoSession);
+
+        HuaweiActivitySample activitySample = createSample(sampleProvider, MiBandSampleProvider.TYPE_ACTIVITY, 100, 10, 70, 1000, user, device);
+        activitySample.setOtherTimestamp(160);
+        sampleProvider.addGBActivitySample(activitySample);
+
+        HuaweiWorkoutSummarySample workout = new HuaweiWorkoutSummarySample();
+        workout.setDeviceId(device.getId());
+        workout.setUserId(user.getId());
+        workout.setStartTimestamp(120);
+        workout.setEndTimestamp(140);
+        daoSession.getHuaweiWorkoutSummarySampleDao().insert(workout);
+        for (int timestamp : new int[] {120, 130, 140}) {
+            HuaweiWorkoutDataSample dataSample = new HuaweiWorkoutDataSample();
+            dataSample.setWorkoutId(workout.getWorkoutId());
+            dataSample.setTimestamp(timestamp);
+            dataSample.setHeartRate((byte) (timestamp - 10));
+            daoSession.getHuaweiWorkoutDataSampleDao().insert(dataSample);
+        }
+
+        // the workout samples are merged into the activity samples by timestamp
+        List<HuaweiActivitySample> samples = sampleProvider.getAllActivitySamplesHighRes(100, 200);
+        assertEquals(4, samples.size());
+        assertEquals(100, samples.get(0).getTimestamp());
+        int[] timestamps = {120, 130, 140};
+        int[] otherTimestamps = {129, 139, 144};
+        for (int i = 0; i < timestamps.length; i++) {
+            HuaweiActivitySample sample = samples.get(i + 1);
+            assertEquals(-1, sample.getDeviceId());
+            assertEquals(timestamps[i], sample.getTimestamp());
+            assertEquals(otherTimestamps[i], sample.getOtherTimestamp());
+            assertEquals(timestamps[i] - 10, sample.getHeartRate());
+        }
+    }
+
+    @Test
+    public void testDailySteps() {
+        MiBandSampleProvider sampleProvider = new MiBandSampleProvider(dummyGBDevice, daoSession);
+        User user = DBHelper.getUser(daoSession);
+        Device device = DBHelper.getDevice(dummyGBDevice, daoSession);
+
+        // Sao Paulo had daylight saving time until 2019, changing the clocks at midnight
+        final int from = (int) ZonedDateTime.parse("2018-10-28T00:00:00Z").toEpochSecond();
+        final int to = (int) ZonedDateTime.parse("2019-04-07T00:00:00Z").toEpochSecond();
+        final List<MiBandActivitySample> samples = new ArrayList<>();
+        for (int ts = from; ts < to; ts += 20 * 60) {
+            // including samples with no or unknown steps
+            samples.add(createSample(sampleProvider, MiBandSampleProvider.TYPE_ACTIVITY, ts, 10, 70, (ts / 1200) % 7 - 1, user, device));
+        }
+        sampleProvider.addGBActivitySamples(samples.toArray(new MiBandActivitySample[0]));
+
+        for (final String zoneId : new String[]{"UTC", "Europe/Berlin", "America/Sao_Paulo", "Asia/Kolkata"}) {
+            final ZoneId zone = ZoneId.of(zoneId);
+            final Map<LocalDate, Long> expected = new TreeMap<>();
+            final DailySteps bucketed = new DailySteps(zone);
+            for (final MiBandActivitySample sample : samples) {
+                if (sample.getSteps() > 0) {
+                    final LocalDate day = Instant.ofEpochSecond(sample.getTimestamp()).atZone(zone).toLocalDate();
+                    expected.merge(day, (long) sample.getSteps(), Long::sum);
+                }
+                bucketed.addSample(sample.getTimestamp(), sample.getSteps());
+            }
+
+            assertEquals(zoneId, expected, toMap(sampleProvider.getDailySteps(from, to, zone)));
+            assertEquals(zoneId, expected, toMap(bucketed));
+        }
+
+        assertTrue(sampleProvider.getDailySteps(0, from - 1, ZoneId.of("UTC")).isEmpty());
+    }
+
+    /** Start of a minute some time in the past, so that no gaps are filled up to now. */
+    private static final int COLUMNS_FROM = 1699999980;
+    private static final int COLUMNS_TO = COLUMNS_FROM + 6 * 3600;
+
+    @Test
+    public void testGarminColumnsMatchSamples() {
+        GarminActivitySampleProvider sampleProvider = new GarminActivitySampleProvider(dummyGBDevice, daoSession);
+        User user = DBHelper.getUser(daoSession);
+        Device device = DBHelper.getDevice(dummyGBDevice, daoSession);
+
+        List<GarminActivitySample> samples = new ArrayList<>();
+        int steps = 0;
+        for (int ts = COLUMNS_FROM + 600; ts < COLUMNS_TO - 600; ts += 60) {
+            if ((ts / 60) % 17 < 3) {
+                continue; // leave some gaps to be filled
+            }
+            steps += (ts / 60) % 5 == 0 ? 0 : 40;
+            GarminActivitySample sample = createSample(sampleProvider, ActivityKind.ACTIVITY.getCode(), ts, (ts / 60) % 100, 60 + (ts / 60) % 30, steps, user, device);
+            sample.setDistanceCm(steps * 70);
+            sample.setActiveCalories((ts / 60) % 4);
+            samples.add(sample);
+        }
+        sampleProvider.addGBActivitySamples(samples.toArray(new GarminActivitySample[0]));
+
+        // one night, with a start and a stop event and stages in between
+        int sleepStart = COLUMNS_FROM + 3 * 3600;
+        addGarminSleepEvent(device, user, sleepStart, 0);
+        int[] stages = {2, 3, 4, 1, 2};
+        for (int i = 0; i < stages.length; i++) {
+            GarminSleepStageSample stage = new GarminSleepStageSample();
+            stage.setDeviceId(device.getId());
+            stage.setUserId(user.getId());
+            stage.setTimestamp((sleepStart + (i + 1) * 900) * 1000L);
+            stage.setStage(stages[i]);
+            daoSession.getGarminSleepStageSampleDao().insert(stage);
+        }
+        addGarminSleepEvent(device, user, sleepStart + stages.length * 900, 1);
+
+        assertColumnsMatchSamples(sampleProvider, COLUMNS_FROM, COLUMNS_TO);
+        assertColumnsMatchSamples(sampleProvider, sleepStart + 1000, COLUMNS_TO);
+    }
+
+    private void addGarminSleepEvent(Device device, User user, int timestamp, int eventType) {
+        GarminEventSample event = new GarminEventSample();
+        event.setDeviceId(device.getId());
+        event.setUserId(user.getId());
+        event.setTimestamp(timestamp * 1000L);
+        event.setEvent(74);
+        event.setEventType(eventType);
+        daoSession.getGarminEventSampleDao().insert(event);
+    }
+
+    @Test
+    public void testXiaomiColumnsMatchSamples() {
+        XiaomiSampleProvider sampleProvider = new XiaomiSampleProvider(dummyGBDevice, daoSession);
+        User user = DBHelper.getUser(daoSession);
+        Device device = DBHelper.getDevice(dummyGBDevice, daoSession);
+
+        List<XiaomiActivitySample> samples = new ArrayList<>();
+        for (int ts = COLUMNS_FROM; ts < COLUMNS_TO; ts += 60) {
+            samples.add(createSample(sampleProvider, ActivityKind.ACTIVITY.getCode(), ts, (ts / 60) % 100, 70, (ts / 60) % 9, user, device));
+        }
+        sampleProvider.addGBActivitySamples(samples.toArray(new XiaomiActivitySample[0]));
+
+        // one night before the range, which ends in it, and one within it
+        addXiaomiSleepTime(device, user, COLUMNS_FROM - 3600, COLUMNS_FROM + 1800);
+        int sleepStart = COLUMNS_FROM + 3 * 3600;
+        addXiaomiSleepTime(device, user, sleepStart, sleepStart + 2 * 3600);
+        int[] stages = {3, 2, 4, 0, 3};
+        for (int i = 0; i < stages.length; i++) {
+            XiaomiSleepStageSample stage = new XiaomiSleepStageSample();
+            stage.setDeviceId(device.getId());
+            stage.setUserId(user.getId());
+            stage.setTimestamp((sleepStart + i * 1200) * 1000L);
+            stage.setStage(stages[i]);
+            daoSession.getXiaomiSleepStageSampleDao().insert(stage);
+        }
+
+        assertColumnsMatchSamples(sampleProvider, COLUMNS_FROM, COLUMNS_TO);
+        assertColumnsMatchSamples(sampleProvider, sleepStart + 1500, COLUMNS_TO);
+    }
+
+    private void addXiaomiSleepTime(Device device, User user, int timestamp, int wakeupTime) {
+        XiaomiSleepTimeSample sleepTime = new XiaomiSleepTimeSample();
+        sleepTime.setDeviceId(device.getId());
+        sleepTime.setUserId(user.getId());
+        sleepTime.setTimestamp(timestamp * 1000L);
+        sleepTime.setWakeupTime(wakeupTime * 1000L);
+        daoSession.getXiaomiSleepTimeSampleDao().insert(sleepTime);
+    }
+
+    @Test
+    public void testMiBand2ColumnsMatchSamples() {
+        MiBand2SampleProvider sampleProvider = new MiBand2SampleProvider(dummyGBDevice, daoSession);
+        User user = DBHelper.getUser(daoSession);
+        Device device = DBHelper.getDevice(dummyGBDevice, daoSession);
+
+        // kinds to be carried forward, including one before the range
+        int[] kinds = {HuamiConst.TYPE_LIGHT_SLEEP, HuamiConst.TYPE_NO_CHANGE, HuamiConst.TYPE_IGNORE, HuamiConst.TYPE_DEEP_SLEEP | 0x70,
+                HuamiConst.TYPE_NO_CHANGE, HuamiConst.TYPE_ACTIVITY, HuamiConst.TYPE_UNSET, HuamiConst.TYPE_IGNORE};
+        List<MiBandActivitySample> samples = new ArrayList<>();
+        for (int ts = COLUMNS_FROM - 600; ts < COLUMNS_TO; ts += 60) {
+            samples.add(createSample(sampleProvider, kinds[(ts / 600) % kinds.length], ts, (ts / 60) % 100, 70, (ts / 60) % 9, user, device));
+        }
+        sampleProvider.addGBActivitySamples(samples.toArray(new MiBandActivitySample[0]));
+
+        assertColumnsMatchSamples(sampleProvider, COLUMNS_FROM, COLUMNS_TO);
+    }
+
+    @Test
+    public void testHuamiExtendedColumnsMatchSamples() {
+        HuamiExtendedSampleProvider sampleProvider = new HuamiExtendedSampleProvider(dummyGBDevice, daoSession);
+        User user = DBHelper.getUser(daoSession);
+        Device device = DBHelper.getDevice(dummyGBDevice, daoSession);
+
+        List<HuamiExtendedActivitySample> samples = new ArrayList<>();
+        for (int ts = COLUMNS_FROM; ts < COLUMNS_TO; ts += 60) {
+            int minute = ts / 60;
+            boolean asleep = minute % 120 < 60;
+            HuamiExtendedActivitySample sample = createSample(sampleProvider, asleep ? HuamiExtendedSampleProvider.TYPE_SLEEP : 1, ts, minute % 100, 70, asleep ? 0 : minute % 9, user, device);
+            if (asleep) {
+                // deep and REM values with the high bit set, around the thresholds
+                sample.setSleep(minute % 50);
+                sample.setDeepSleep(128 + 30 + minute % 20);
+                sample.setRemSleep((minute % 3 == 0 ? 128 : 0) + 45 + minute % 20);
+            }
+            samples.add(sample);
+        }
+        sampleProvider.addGBActivitySamples(samples.toArray(new HuamiExtendedActivitySample[0]));
+
+        assertColumnsMatchSamples(sampleProvider, COLUMNS_FROM, COLUMNS_TO);
+    }
+
+    @Test
+    public void testHuaweiColumnsMatchSamples() {
+        HuaweiSampleProvider sampleProvider = new HuaweiSampleProvider(dummyGBDevice, daoSession);
+        User user = DBHelper.getUser(daoSession);
+        Device device = DBHelper.getDevice(dummyGBDevice, daoSession);
+
+        List<HuaweiActivitySample> samples = new ArrayList<>();
+        for (int ts = COLUMNS_FROM + 300; ts < COLUMNS_TO; ts += 200) {
+            int rawKind = (ts / 3600) % 3 == 0 ? 0x07 : (ts / 3600) % 3 == 1 ? 0x06 : 1;
+            HuaweiActivitySample sample = createSample(sampleProvider, rawKind, ts, (ts / 60) % 100, (ts / 60) % 4 == 0 ? -1 : 70, (ts / 60) % 7, user, device);
+            sample.setOtherTimestamp(ts + ((ts / 200) % 2 == 0 ? 120 : 300));
+            sample.setCalories((ts / 60) % 5);
+            sample.setDistance((ts / 60) % 3 == 0 ? -1 : 12);
+            sample.setSpo(-1);
+            samples.add(sample);
+        }
+        sampleProvider.addGBActivitySamples(samples.toArray(new HuaweiActivitySample[0]));
+
+        assertColumnsMatchSamples(sampleProvider, COLUMNS_FROM, COLUMNS_TO);
+        assertColumnsMatchSamples(sampleProvider, COLUMNS_FROM + 7, COLUMNS_TO - 100);
+    }
+
+    /**
+     * Checks that the provider reads the columns itself, and that they and the analyses of them
+     * are the same as for the samples.
+     */
+    private void assertColumnsMatchSamples(SampleProvider<?> sampleProvider, int from, int to) {
+        assertTrue(sampleProvider.hasActivitySampleColumns());
+
+        List<? extends ActivitySample> samples = sampleProvider.getAllActivitySamples(from, to);
+        ActivitySampleColumns columns = sampleProvider.getAllActivitySampleColumns(from, to, null);
+        assertFalse(samples.isEmpty());
+
+        assertEquals(samples.size(), columns.size());
+        for (int i = 0; i < samples.size(); i++) {
+            ActivitySample sample = samples.get(i);
+            String message = "sample " + i + " at " + sample.getTimestamp();
+            assertEquals(message, sample.getTimestamp(), columns.getTimestamp(i));
+            assertEquals(message, sample.getRawKind(), columns.getRawKind(i));
+            assertEquals(message, sample.getKind(), columns.getKind(i));
+            assertEquals(message, sample.getIntensity(), columns.getIntensity(i), 0f);
+            assertEquals(message, sample.getSteps(), columns.getSteps(i));
+            assertEquals(message, sample.getDistanceCm(), columns.getDistanceCm(i));
+            assertEquals(message, sample.getActiveCalories(), columns.getActiveCalories(i));
+            assertEquals(message, sample.getHeartRate(), columns.getHeartRate(i));
+        }
+
+        assertAnalysesEqual(ActivitySampleSequence.of(samples), columns);
+    }
+
+    private static void assertAnalysesEqual(ActivitySampleSequence expected, ActivitySampleSequence actual) {
+        ActivityAmounts expectedAmounts = new ActivityAnalysis().calculateActivityAmounts(expected);
+        ActivityAmounts actualAmounts = new ActivityAnalysis().calculateActivityAmounts(actual);
+        assertEquals(expectedAmounts.getAmounts().size(), actualAmounts.getAmounts().size());
+        for (int i = 0; i < expectedAmounts.getAmounts().size(); i++) {
+            ActivityAmount expectedAmount = expectedAmounts.getAmounts().get(i);
+            ActivityAmount actualAmount = actualAmounts.getAmounts().get(i);
+            assertEquals(expectedAmount.getActivityKind(), actualAmount.getActivityKind());
+            assertEquals(expectedAmount.getTotalSeconds(), actualAmount.getTotalSeconds());
+            assertEquals(expectedAmount.getTotalSteps(), actualAmount.getTotalSteps());
+            assertEquals(expectedAmount.getTotalDistance(), actualAmount.getTotalDistance());
+            assertEquals(expectedAmount.getTotalActiveCalories(), actualAmount.getTotalActiveCalories());
+            assertEquals(expectedAmount.getStartDate(), actualAmount.getStartDate());
+            assertEquals(expectedAmount.getEndDate(), actualAmount.getEndDate());
+        }
+
+        List<ActivitySession> expectedSessions = new StepAnalysis().calculateStepSessions(expected);
+        List<ActivitySession> actualSessions = new StepAnalysis().calculateStepSessions(actual);
+        assertEquals(expectedSessions.size(), actualSessions.size());
+        for (int i = 0; i < expectedSessions.size(); i++) {
+            ActivitySession expectedSession = expectedSessions.get(i);
+            ActivitySession actualSession = actualSessions.get(i);
+            assertEquals(expectedSession.getStartTime(), actualSession.getStartTime());
+            assertEquals(expectedSession.getEndTime(), actualSession.getEndTime());
+            assertEquals(expectedSession.getActiveSteps(), actualSession.getActiveSteps());
+            assertEquals(expectedSession.getHeartRateAverage(), actualSession.getHeartRateAverage());
+            assertEquals(expectedSession.getActivityKind(), actualSession.getActivityKind());
+            assertEquals(expectedSession.getIntensity(), actualSession.getIntensity(), 0f);
+            assertEquals(expectedSession.getDistance(), actualSession.getDistance(), 0f);
+        }
+
+        List<SleepAnalysis.SleepSession> expectedSleep = new SleepAnalysis().calculateSleepSessions(expected);
+        List<SleepAnalysis.SleepSession> actualSleep = new SleepAnalysis().calculateSleepSessions(actual);
+        assertEquals(expectedSleep.size(), actualSleep.size());
+        for (int i = 0; i < expectedSleep.size(); i++) {
+            assertEquals(expectedSleep.get(i).getSleepStart(), actualSleep.get(i).getSleepStart());
+            assertEquals(expectedSleep.get(i).getSleepEnd(), actualSleep.get(i).getSleepEnd());
+            assertEquals(expectedSleep.get(i).getLightSleepDuration(), actualSleep.get(i).getLightSleepDuration());
+            assertEquals(expectedSleep.get(i).getDeepSleepDuration(), actualSleep.get(i).getDeepSleepDuration());
+            assertEquals(expectedSleep.get(i).getRemSleepDuration(), actualSleep.get(i).getRemSleepDuration());
+            assertEquals(expectedSleep.get(i).getAwakeSleepDuration(), actualSleep.get(i).getAwakeSleepDuration());
+        }
+    }
+
+    private static Map<LocalDate, Long> toMap(final DailySteps dailySteps) {
+        final Map<LocalDate, Long> map = new TreeMap<>();
+        for (int i = 0; i < dailySteps.size(); i++) {
+            if (i > 0) {
+                assertTrue(dailySteps.getEpochDay(i - 1) < dailySteps.getEpochDay(i));
+            }
+            map.put(dailySteps.getDate(i), dailySteps.getSteps(i));
+        }
+        return map;
+    }
 }
@@ -0,0 +1,165 @@
+package nodomain.freeyourgadget.gadgetbridge.database;
+
+import static org.junit.Assert.assertEquals;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import nodomain.freeyourgadget.gadgetbridge.database.schema.GadgetbridgeUpdate_98;
+import nodomain.freeyourgadget.gadgetbridge.entities.MiBandActivitySampleDao;
+import nodomain.freeyourgadget.gadgetbridge.test.TestBase;
+
+public class SampleTableLayoutTest extends TestBase {
+    private static final Logger LOG = LoggerFactory.getLogger(SampleTableLayoutTest.class);
+
+    private static final int SAMPLE_INTERVAL = 10 * 60;
+    private static final int YEAR = 365 * 24 * 60 * 60;
+    private static final int START = 1600000000;
+    private static final int END = START + 2 * YEAR;
+    // two devices used all the time, one retired after a year
+    private static final int[][] DEVICES = {{1, START, END}, {2, START, END}, {3, START, START + YEAR}};
+
+    private static final String RANGE_QUERY = "SELECT * FROM %s WHERE DEVICE_ID = ? AND TIMESTAMP >= ? AND TIMESTAMP <= ?";
+    private static final String LATEST_QUERY = "SELECT * FROM %s WHERE TIMESTAMP <= ? AND DEVICE_ID = ? ORDER BY TIMESTAMP DESC LIMIT 1";
+
+    @Test
+    public void testMigration() {
+        final SQLiteDatabase db = dbHandler.getDatabase();
+        final String table = MiBandActivitySampleDao.TABLENAME;
+        DBHelper.dropTable(table, db);
+        db.execSQL("CREATE TABLE \"" + table + "\" (\"TIMESTAMP\" INTEGER NOT NULL ,\"DEVICE_ID\" INTEGER NOT NULL ," +
+                "\"USER_ID\" INTEGER NOT NULL ,\"RAW_INTENSITY\" INTEGER NOT NULL ,\"STEPS\" INTEGER NOT NULL ," +
+                "\"RAW_KIND\" INTEGER NOT NULL ,\"HEART_RATE\" INTEGER NOT NULL ," +
+                "PRIMARY KEY (\"TIMESTAMP\" ,\"DEVICE_ID\" ) ON CONFLICT REPLACE) WITHOUT ROWID;");
+        db.execSQL("INSERT INTO " + table + " VALUES (100, 1, 1, 10, 100, 1, 60), (100, 2, 1, 20, 200, 1, 70), (160, 1, 1, 30, 300, 1, 80)");
+
+        new GadgetbridgeUpdate_98().upgradeSchema(db);
+        assertEquals(Arrays.asList("DEVICE_ID", "TIMESTAMP"), DBHelper.getPrimaryKeyColumns(table, db));
+        assertEquals(3, DatabaseUtils.queryNumEntries(db, table));
+        assertEquals(200, DatabaseUtils.longForQuery(db, "SELECT STEPS FROM " + table + " WHERE DEVICE_ID = 2 AND TIMESTAMP = 100", null));
+
+        // nothing to do the second time
+        new GadgetbridgeUpdate_98().upgradeSchema(db);
+        assertEquals(3, DatabaseUtils.queryNumEntries(db, table));
+    }
+
+    @Test
+    public void testLayoutsReturnSameSamples() {
+        final SQLiteDatabase db = createDatabase(6 * 60 * 60);
+
+        for (final String[] args : createRangeQueries()) {
+            assertEquals(querySamples(db, RANGE_QUERY, "BY_TIME", args), querySamples(db, RANGE_QUERY, "BY_DEVICE", args));
+        }
+        for (final String[] args : createLatestQueries()) {
+            assertEquals(querySamples(db, LATEST_QUERY, "BY_TIME", args), querySamples(db, LATEST_QUERY, "BY_DEVICE", args));
+        }
+        db.close();
+    }
+
+    /**
+     * Compares the latency of the sample provider queries on a database with several devices
+     * and two years of samples, with the samples ordered by time or by device and time. Only
+     * logs the timings, run it manually.
+     */
+    @Ignore("Benchmark")
+    @Test
+    public void testQueryCost() {
+        final SQLiteDatabase db = createDatabase(SAMPLE_INTERVAL);
+        final List<String[]> rangeQueries = createRangeQueries();
+        final List<String[]> latestQueries = createLatestQueries();
+
+        final long[] byTime = new long[2];
+        final long[] byDevice = new long[2];
+        for (int round = 0; round < 4; round++) {
+            // the first round warms up
+            final int weight = round > 0 ? 1 : 0;
+            byTime[0] += weight * runQueries(db, RANGE_QUERY, "BY_TIME", rangeQueries);
+            byDevice[0] += weight * runQueries(db, RANGE_QUERY, "BY_DEVICE", rangeQueries);
+            byTime[1] += weight * runQueries(db, LATEST_QUERY, "BY_TIME", latestQueries);
+            byDevice[1] += weight * runQueries(db, LATEST_QUERY, "BY_DEVICE", latestQueries);
+        }
+
+        LOG.info("Samples of a day take {} µs ordered by device, {} µs ordered by time",
+                byDevice[0] / 3 / rangeQueries.size() / 1000, byTime[0] / 3 / rangeQueries.size() / 1000);
+        // ordered by time, the latest sample of the retired device is only found after scanning
+        // a year of samples of the other devices
+        LOG.info("The latest sample takes {} µs ordered by device, {} µs ordered by time",
+                byDevice[1] / 3 / latestQueries.size() / 1000, byTime[1] / 3 / latestQueries.size() / 1000);
+        db.close();
+    }
+
+    /**
+     * Creates the samples of all devices in both layouts.
+     */
+    private static SQLiteDatabase createDatabase(final int sampleInterval) {
+        final SQLiteDatabase db = SQLiteDatabase.create(null);
+        createSampleTable(db, "BY_TIME", "\"TIMESTAMP\", \"DEVICE_ID\"");
+        createSampleTable(db, "BY_DEVICE", "\"DEVICE_ID\", \"TIMESTAMP\"");
+        for (final int[] device : DEVICES) {
+            for (final String table : new String[]{"BY_TIME", "BY_DEVICE"}) {
+                db.execSQL("WITH RECURSIVE T(TIMESTAMP) AS (SELECT " + device[1] + " UNION ALL SELECT TIMESTAMP + " + sampleInterval +
+                        " FROM T WHERE TIMESTAMP + " + sampleInterval + " < " + device[2] + ") " +
+                        "INSERT INTO " + table + " SELECT " + device[0] + ", TIMESTAMP, 1, TIMESTAMP % 1000, 60 + TIMESTAMP % 40 FROM T");
+            }
+        }
+        return db;
+    }
+
+    private static List<String[]> createRangeQueries() {
+        final Random random = new Random(0);
+        final List<String[]> queries = new ArrayList<>();
+        for (final int[] device : DEVICES) {
+            for (int i = 0; i < 20; i++) {
+                final int from = device[1] + random.nextInt(device[2] - device[1] - 24 * 60 * 60);
+                queries.add(new String[]{String.valueOf(device[0]), String.valueOf(from), String.valueOf(from + 24 * 60 * 60)});
+            }
+        }
+        return queries;
+    }
+
+    private static List<String[]> createLatestQueries() {
+        final List<String[]> queries = new ArrayList<>();
+        for (final int[] device : DEVICES) {
+            queries.add(new String[]{String.valueOf(END), String.valueOf(device[0])});
+        }
+        return queries;
+    }
+
+    private static void createSampleTable(final SQLiteDatabase db, final String table, final String primaryKey) {
+        db.execSQL("CREATE TABLE " + table + " (\"DEVICE_ID\" INTEGER NOT NULL, \"TIMESTAMP\" INTEGER NOT NULL, " +
+                "\"USER_ID\" INTEGER NOT NULL, \"STEPS\" INTEGER NOT NULL, \"HEART_RATE\" INTEGER NOT NULL, " +
+                "PRIMARY KEY (" + primaryKey + ") ON CONFLICT REPLACE) WITHOUT ROWID");
+    }
+
+    private static long runQueries(final SQLiteDatabase db,
+                                   final String query,
+                                   final String table,
+                                   final List<String[]> queries) {
+        final long start = System.nanoTime();
+        for (final String[] args : queries) {
+            querySamples(db, query, table, args);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static List<Long> querySamples(final SQLiteDatabase db, final String query, final String table, final String[] args) {
+        final List<Long> timestamps = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery(String.format(query, table), args)) {
+            while (cursor.moveToNext()) {
+                timestamps.add(cursor.getLong(1));
+            }
+        }
+        return timestamps;
+    }
+}
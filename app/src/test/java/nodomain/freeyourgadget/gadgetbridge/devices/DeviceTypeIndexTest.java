@@ -0,0 +1,169 @@
+package nodomain.freeyourgadget.gadgetbridge.devices;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.bluetooth.BluetoothDevice;
+import android.os.ParcelUuid;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import nodomain.freeyourgadget.gadgetbridge.impl.GBDeviceCandidate;
+import nodomain.freeyourgadget.gadgetbridge.model.DeviceType;
+import nodomain.freeyourgadget.gadgetbridge.test.TestBase;
+
+public class DeviceTypeIndexTest extends TestBase {
+    private static final Logger LOG = LoggerFactory.getLogger(DeviceTypeIndexTest.class);
+
+    @Test
+    public void testLiteralPrefixes() {
+        assertEquals(Arrays.asList("Amazfit GTS"), prefixes("Amazfit GTS", Pattern.CASE_INSENSITIVE));
+        assertEquals(Arrays.asList("HPLUS"), prefixes("HPLUS.*", 0));
+        assertEquals(Arrays.asList("MIBCS", "MIBFS"), prefixes("MIBCS|MIBFS", Pattern.CASE_INSENSITIVE));
+        assertEquals(Arrays.asList("Forerunner 965", "UAT-4315"), prefixes("^Forerunner 965|UAT-4315$", 0));
+        assertEquals(Arrays.asList("Instinct 2X Sol"), prefixes("^Instinct 2X Sol(ar)?$", 0));
+        assertEquals(Arrays.asList("Redmi Band Pro "), prefixes("^Redmi Band Pro [A-Z0-9]{4}$", 0));
+        assertEquals(Arrays.asList("Galaxy Buds Live ("), prefixes("Galaxy Buds Live \\(.*", 0));
+        assertEquals(Arrays.asList("vívoactive"), prefixes("^vívoactive *3$", 0));
+        assertEquals(Arrays.asList("TECLAST_H", "H"), prefixes("TECLAST_H[13]0.*|H[13]-[ABCDEF0123456789]{4}", 0));
+        assertEquals(Arrays.asList("Band A", "Band B"), prefixes("^(Band A|Band B)$", 0));
+        assertEquals(Arrays.asList("OPPO Enco Air2"), prefixes("OPPO Enco Air2", Pattern.LITERAL));
+
+        // matches can start with anything
+        assertNull(prefixes(".*WF-C500.*", 0));
+        assertNull(prefixes("^(Galaxy )?Buds2 Pro.*", 0));
+        assertNull(prefixes("Y808|.*HR3", 0));
+        assertNull(prefixes("(?i)nut.*", 0));
+        assertNull(prefixes("\\QQ8\\E.*", 0));
+        assertNull(prefixes("Q8.*", Pattern.COMMENTS));
+    }
+
+    @Test
+    public void testResolvesLikeAllCoordinators() {
+        final DeviceType[] types = getOrderedDeviceTypes();
+        final DeviceTypeIndex index = new DeviceTypeIndex(types);
+
+        int resolved = 0;
+        for (final GBDeviceCandidate candidate : createCandidates(types)) {
+            final DeviceType expected = resolveLinearly(types, candidate);
+            assertEquals(candidate.getName(), expected, index.resolve(candidate));
+            if (expected != DeviceType.UNKNOWN) {
+                resolved++;
+            }
+        }
+        assertTrue(resolved > types.length / 2);
+    }
+
+    /**
+     * Compares the cost of resolving a candidate with the index to asking all coordinators. Only
+     * logs the timings, run it manually.
+     */
+    @Ignore("Benchmark")
+    @Test
+    public void testResolutionCost() {
+        final DeviceType[] types = getOrderedDeviceTypes();
+        final DeviceTypeIndex index = new DeviceTypeIndex(types);
+        final List<GBDeviceCandidate> candidates = createCandidates(types);
+
+        long linearNanos = 0;
+        long indexNanos = 0;
+        for (int round = 0; round < 6; round++) {
+            long start = System.nanoTime();
+            for (final GBDeviceCandidate candidate : candidates) {
+                resolveLinearly(types, candidate);
+            }
+            final long linear = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (final GBDeviceCandidate candidate : candidates) {
+                index.resolve(candidate);
+            }
+            final long indexed = System.nanoTime() - start;
+
+            // the first round warms up
+            if (round > 0) {
+                linearNanos += linear;
+                indexNanos += indexed;
+            }
+        }
+
+        final int resolutions = 5 * candidates.size();
+        LOG.info("Resolving a candidate takes {} ns with the index, {} ns asking all coordinators",
+                indexNanos / resolutions, linearNanos / resolutions);
+    }
+
+    private static List<String> prefixes(final String regex, final int flags) {
+        return DeviceTypeIndex.getLiteralPrefixes(Pattern.compile(regex, flags));
+    }
+
+    private static DeviceType[] getOrderedDeviceTypes() {
+        final DeviceType[] types = DeviceType.values();
+        Arrays.sort(types, Comparator.comparingInt(type -> type.getDeviceCoordinator().getOrderPriority()));
+        return types;
+    }
+
+    private static DeviceType resolveLinearly(final DeviceType[] types, final GBDeviceCandidate candidate) {
+        for (final DeviceType type : types) {
+            if (type.getDeviceCoordinator().supports(candidate)) {
+                return type;
+            }
+        }
+        return DeviceType.UNKNOWN;
+    }
+
+    /**
+     * Creates candidates named like the devices of all coordinators, and some that are not.
+     */
+    private static List<GBDeviceCandidate> createCandidates(final DeviceType[] types) {
+        final List<String> names = new ArrayList<>(Arrays.asList(
+                "Galaxy Buds2 Pro", "Buds2 Pro", "SG2", "SPORT", "SPORTAGE", "UM25C", "IMP-2027",
+                "WATCH 9", "Watch XPlus", "Roidmi C BLE", "Steel HR", "Bangle.js 1a2b", "", "Unknown"
+        ));
+        for (final DeviceType type : types) {
+            if (!(type.getDeviceCoordinator() instanceof AbstractDeviceCoordinator)) {
+                continue;
+            }
+            final Pattern pattern = ((AbstractDeviceCoordinator) type.getDeviceCoordinator()).getSupportedDeviceName();
+            final List<String> prefixes = pattern != null ? DeviceTypeIndex.getLiteralPrefixes(pattern) : null;
+            if (prefixes == null) {
+                continue;
+            }
+            for (final String prefix : prefixes) {
+                names.add(prefix);
+                names.add(prefix + " 1A2B");
+                names.add(prefix.toUpperCase(Locale.ROOT));
+                names.add(prefix.substring(0, prefix.length() - 1));
+            }
+        }
+
+        final List<GBDeviceCandidate> candidates = new ArrayList<>();
+        for (final String name : names) {
+            candidates.add(createCandidate(name));
+        }
+        candidates.add(createCandidate("Q Explorist", ParcelUuid.fromString("3dda0001-957f-7d4a-34a6-74696673696d")));
+        candidates.add(createCandidate("", ParcelUuid.fromString("00003082-0000-1000-8000-00805f9b34fb")));
+        return candidates;
+    }
+
+    private static GBDeviceCandidate createCandidate(final String name, final ParcelUuid... serviceUuids) {
+        final BluetoothDevice device = mock(BluetoothDevice.class);
+        when(device.getName()).thenReturn(name);
+        when(device.getAddress()).thenReturn("00:11:22:33:44:55");
+        final GBDeviceCandidate candidate = new GBDeviceCandidate(device, (short) -60, serviceUuids);
+        candidate.refreshNameIfUnknown();
+        return candidate;
+    }
+}
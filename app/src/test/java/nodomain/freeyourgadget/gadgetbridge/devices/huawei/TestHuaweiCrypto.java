@@ -20,6 +20,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.Random;
 
 public class TestHuaweiCrypto {
 
@@ -74,4 +75,46 @@ public class TestHuaweiCrypto {
             Assert.fail("Difference in byte counts is suspiciously high, check the randomness of the nonce.");
         }
     }
+
+    @Test
+    public void testPacketCipher() throws HuaweiCrypto.CryptoException {
+        // The cached cipher must give the same results as the one-off functions, also when the
+        // key changes and when the same IV is used again
+        Random random = new Random(0);
+        byte[] key1 = new byte[16];
+        byte[] key2 = new byte[16];
+        byte[] iv = new byte[16];
+        random.nextBytes(key1);
+        random.nextBytes(key2);
+        random.nextBytes(iv);
+
+        HuaweiCrypto.PacketCipher cipher = new HuaweiCrypto.PacketCipher();
+        for (boolean useGCM : new boolean[] {false, true}) {
+            for (byte[] key : new byte[][] {key1, key2, key1}) {
+                for (int length : new int[] {1, 16, 100, 1000}) {
+                    byte[] message = new byte[length];
+                    random.nextBytes(message);
+
+                    byte[] encrypted = cipher.encrypt(useGCM, message, key, iv);
+                    Assert.assertArrayEquals(HuaweiCrypto.encrypt(useGCM, message, key, iv), encrypted);
+
+                    synchronized (cipher) {
+                        int decryptedLength = cipher.decrypt(useGCM, encrypted, key, iv);
+                        Assert.assertArrayEquals(message, Arrays.copyOf(cipher.getBuffer(), decryptedLength));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test(expected = HuaweiCrypto.CryptoException.class)
+    public void testPacketCipherTagMismatch() throws HuaweiCrypto.CryptoException {
+        byte[] key = new byte[16];
+        byte[] iv = new byte[16];
+        HuaweiCrypto.PacketCipher cipher = new HuaweiCrypto.PacketCipher();
+
+        byte[] encrypted = cipher.encrypt(true, new byte[] {0x01, 0x02, 0x03}, key, iv);
+        encrypted[0] ^= 0x01;
+        cipher.decrypt(true, encrypted, key, iv);
+    }
 }
@@ -266,4 +266,35 @@ public class TestHuaweiPacket {
         Assert.assertArrayEquals(expected2, output.get(1));
         Assert.assertArrayEquals(expected3, output.get(2));
     }
+
+    @Test
+    public void testEncryptedPacketRoundTrip() throws HuaweiPacket.CryptoException, HuaweiPacket.ParseException {
+        // Serializes and parses several encrypted packets the size of a typical slice, as the
+        // cipher contexts are reused between packets
+        byte[] value = new byte[200];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = (byte) i;
+        }
+        HuaweiTLV tlv = new HuaweiTLV()
+                .put(0x01, value)
+                .put(0x02, 0x05060708);
+
+        for (int i = 0; i < 20; i++) {
+            HuaweiPacket packet = new HuaweiPacket(paramsProviderEncrypt);
+            packet.isSliced = false;
+            packet.isEncrypted = true;
+            packet.serviceId = 0x7f;
+            packet.commandId = 0x7f;
+            packet.setTlv(tlv);
+
+            List<byte[]> output = packet.serialize();
+            Assert.assertEquals(1, output.size());
+
+            HuaweiPacket parsed = new HuaweiPacket(paramsProviderEncrypt).parse(output.get(0));
+
+            Assert.assertTrue(parsed.complete);
+            Assert.assertTrue(parsed.isEncrypted);
+            Assert.assertEquals(tlv, parsed.getTlv());
+        }
+    }
 }
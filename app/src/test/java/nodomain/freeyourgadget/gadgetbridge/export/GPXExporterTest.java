@@ -1,5 +1,7 @@
 package nodomain.freeyourgadget.gadgetbridge.export;
 
+import static org.junit.Assert.assertEquals;
+
 import com.google.gson.internal.bind.util.ISO8601Utils;
 
 import org.junit.Test;
@@ -10,11 +12,17 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.text.ParseException;
 import java.text.ParsePosition;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.xml.XMLConstants;
 import javax.xml.parsers.ParserConfigurationException;
@@ -63,6 +71,80 @@ public class GPXExporterTest extends TestBase {
         validateGpxFile(tempFile);
     }
 
+    @Test
+    public void shouldExportHeartRateOfClosestEarlierPoint() throws IOException, GPXTrackEmptyException, SAXException {
+        final GPXExporter gpxExporter = new GPXExporter();
+        gpxExporter.setCreator("Gadgetbridge Test");
+        final ActivityTrack track = createTestTrack(createHeartRateTestPoints());
+
+        final File tempFile = File.createTempFile("gpx-exporter-test-track", ".gpx");
+        tempFile.deleteOnExit();
+
+        gpxExporter.performExport(track, tempFile);
+        validateGpxFile(tempFile);
+        assertEquals(Arrays.asList(100, 100, 120, 120, 120), readHeartRates(tempFile));
+    }
+
+    @Test
+    public void shouldExportFromIterator() throws IOException, GPXTrackEmptyException, SAXException {
+        final GPXExporter gpxExporter = new GPXExporter();
+        gpxExporter.setCreator("Gadgetbridge Test");
+
+        final File tempFile = File.createTempFile("gpx-exporter-test-track", ".gpx");
+        tempFile.deleteOnExit();
+
+        gpxExporter.performExport("Test Track", null, createHeartRateTestPoints().iterator(), tempFile);
+        validateGpxFile(tempFile);
+        assertEquals(Arrays.asList(100, 100, 120, 120, 120), readHeartRates(tempFile));
+    }
+
+    @Test(expected = GPXTrackEmptyException.class)
+    public void shouldFailOnIteratorWithoutLocations() throws IOException, GPXTrackEmptyException {
+        final ActivityPoint point = new ActivityPoint(new Date(1546300800000L));
+        point.setHeartRate(100);
+
+        final File tempFile = File.createTempFile("gpx-exporter-test-track", ".gpx");
+        tempFile.deleteOnExit();
+
+        new GPXExporter().performExport(null, null, Collections.singletonList(point).iterator(), tempFile);
+    }
+
+    /**
+     * Points with and without heart rate. Only earlier points no more than 2 minutes apart are
+     * used for the ones without heart rate, including points without a location.
+     */
+    private List<ActivityPoint> createHeartRateTestPoints() {
+        final long start = 1546300800000L;
+        final List<ActivityPoint> points = new ArrayList<>();
+        points.add(createPoint(start, 100, true));
+        points.add(createPoint(start + 1000, 0, true)); // 100
+        points.add(createPoint(start + 1000, 110, false)); // same time, not used for the previous point
+        points.add(createPoint(start + 10000, 120, true));
+        points.add(createPoint(start + 20000, 0, true)); // 120
+        points.add(createPoint(start + 129000, 0, true)); // 120, 119s later
+        points.add(createPoint(start + 130000, 0, true)); // too late
+        return points;
+    }
+
+    private ActivityPoint createPoint(final long time, final int heartRate, final boolean withLocation) {
+        final ActivityPoint point = new ActivityPoint(new Date(time));
+        if (withLocation) {
+            point.setLocation(new GPSCoordinate(-68.73127 + time % 100000 / 1e7, 43.101062, 40));
+        }
+        point.setHeartRate(heartRate);
+        return point;
+    }
+
+    private List<Integer> readHeartRates(final File file) throws IOException {
+        final String gpx = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        final List<Integer> heartRates = new ArrayList<>();
+        final Matcher matcher = Pattern.compile("hr>(\\d+)</").matcher(gpx);
+        while (matcher.find()) {
+            heartRates.add(Integer.parseInt(matcher.group(1)));
+        }
+        return heartRates;
+    }
+
     private ActivityTrack createTestTrack(List<ActivityPoint> points) {
         final User user = new User();
         user.setName("Test User");
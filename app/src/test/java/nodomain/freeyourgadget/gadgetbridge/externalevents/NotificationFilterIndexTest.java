@@ -0,0 +1,129 @@
+package nodomain.freeyourgadget.gadgetbridge.externalevents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import nodomain.freeyourgadget.gadgetbridge.activities.NotificationFilterActivity;
+import nodomain.freeyourgadget.gadgetbridge.entities.NotificationFilter;
+import nodomain.freeyourgadget.gadgetbridge.entities.NotificationFilterEntry;
+import nodomain.freeyourgadget.gadgetbridge.test.TestBase;
+
+public class NotificationFilterIndexTest extends TestBase {
+
+    @Override
+    public void tearDown() throws Exception {
+        NotificationFilterIndex.invalidate();
+        super.tearDown();
+    }
+
+    @Test
+    public void testRebuild() {
+        final long filterId = daoSession.getNotificationFilterDao().insert(createFilter(
+                "com.example.chat",
+                NotificationFilterActivity.NOTIFICATION_FILTER_MODE_BLACKLIST,
+                NotificationFilterActivity.NOTIFICATION_FILTER_SUBMODE_ANY
+        ));
+        daoSession.getNotificationFilterDao().insert(createFilter(
+                "com.example.none",
+                NotificationFilterActivity.NOTIFICATION_FILTER_MODE_NONE,
+                NotificationFilterActivity.NOTIFICATION_FILTER_SUBMODE_ANY
+        ));
+        daoSession.getNotificationFilterEntryDao().insert(createEntry(filterId, "spam"));
+
+        NotificationFilterIndex.rebuild(daoSession);
+        final NotificationFilterIndex index = NotificationFilterIndex.get();
+        assertEquals(1, index.size());
+        assertNull(index.getFilter("com.example.none"));
+        assertNull(index.getFilter("com.example.other"));
+
+        final NotificationFilterIndex.Filter filter = index.getFilter("com.Example.Chat");
+        assertNotNull(filter);
+        assertFalse(filter.shouldContinue("Buy spam now"));
+        assertTrue(filter.shouldContinue("Hello"));
+
+        // the index only changes when it is rebuilt
+        daoSession.getNotificationFilterEntryDao().insert(createEntry(filterId, "Hello"));
+        assertTrue(NotificationFilterIndex.get().getFilter("com.example.chat").shouldContinue("Hello"));
+        NotificationFilterIndex.rebuild(daoSession);
+        assertFalse(NotificationFilterIndex.get().getFilter("com.example.chat").shouldContinue("Hello"));
+    }
+
+    @Test
+    public void testEmptyWords() {
+        final NotificationFilter notificationFilter = createFilter(
+                "com.example.chat",
+                NotificationFilterActivity.NOTIFICATION_FILTER_MODE_WHITELIST,
+                NotificationFilterActivity.NOTIFICATION_FILTER_SUBMODE_ALL
+        );
+        assertTrue(new NotificationFilterIndex.Filter(notificationFilter, Collections.emptyList()).shouldContinue("text"));
+        assertTrue(new NotificationFilterIndex.Filter(notificationFilter, Collections.singletonList("")).shouldContinue("text"));
+
+        notificationFilter.setNotificationFilterSubMode(NotificationFilterActivity.NOTIFICATION_FILTER_SUBMODE_ANY);
+        assertFalse(new NotificationFilterIndex.Filter(notificationFilter, Collections.emptyList()).shouldContinue("text"));
+        assertTrue(new NotificationFilterIndex.Filter(notificationFilter, Collections.singletonList("")).shouldContinue("text"));
+    }
+
+    /**
+     * The filters find the same words as searching for each word in the text.
+     */
+    @Test
+    public void testMatchesLikeContains() {
+        final Random random = new Random(0);
+        final List<String> vocabulary = Arrays.asList("a", "ab", "abc", "bc", "c", "Hello", "hell", "world", "wor", "ld", "ä", "😀");
+        final NotificationFilter notificationFilter = createFilter(
+                "com.example.chat",
+                NotificationFilterActivity.NOTIFICATION_FILTER_MODE_BLACKLIST,
+                NotificationFilterActivity.NOTIFICATION_FILTER_SUBMODE_ANY
+        );
+
+        for (int i = 0; i < 500; i++) {
+            final List<String> words = new ArrayList<>();
+            final int wordCount = 1 + random.nextInt(4);
+            for (int j = 0; j < wordCount; j++) {
+                words.add(vocabulary.get(random.nextInt(vocabulary.size())));
+            }
+            final StringBuilder text = new StringBuilder();
+            final int textLength = random.nextInt(6);
+            for (int j = 0; j < textLength; j++) {
+                text.append(vocabulary.get(random.nextInt(vocabulary.size()))).append(random.nextBoolean() ? " " : "");
+            }
+            final String body = text.toString();
+            final NotificationFilterIndex.Filter filter = new NotificationFilterIndex.Filter(notificationFilter, words);
+
+            final boolean containsAny = StringUtils.containsAny(body, words.toArray(new CharSequence[0]));
+            boolean containsAll = true;
+            for (final String word : words) {
+                containsAll &= body.contains(word);
+            }
+            assertEquals(body + " " + words, containsAny, filter.containsAny(body));
+            assertEquals(body + " " + words, containsAll, filter.containsAll(body));
+        }
+    }
+
+    private static NotificationFilter createFilter(final String appIdentifier, final int mode, final int subMode) {
+        final NotificationFilter notificationFilter = new NotificationFilter();
+        notificationFilter.setAppIdentifier(appIdentifier);
+        notificationFilter.setNotificationFilterMode(mode);
+        notificationFilter.setNotificationFilterSubMode(subMode);
+        return notificationFilter;
+    }
+
+    private static NotificationFilterEntry createEntry(final long filterId, final String word) {
+        final NotificationFilterEntry entry = new NotificationFilterEntry();
+        entry.setNotificationFilterId(filterId);
+        entry.setNotificationFilterContent(word);
+        return entry;
+    }
+}
@@ -0,0 +1,102 @@
+package nodomain.freeyourgadget.gadgetbridge.externalevents.notifications;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import org.junit.Test;
+
+import java.io.File;
+
+import nodomain.freeyourgadget.gadgetbridge.test.TestBase;
+
+public class NotificationPictureStoreTest extends TestBase {
+    private File directory;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        directory = new File(getContext().getCacheDir(), "notification-pictures");
+        directory.mkdirs();
+    }
+
+    @Test
+    public void testSamePictureIsStoredOnce() {
+        final NotificationPictureStore store = new NotificationPictureStore(directory, 1024 * 1024);
+        store.clear();
+
+        final String path1 = store.add(1, createPicture(100, 50, Color.RED), 480);
+        final String path2 = store.add(2, createPicture(100, 50, Color.RED), 480);
+        final String path3 = store.add(3, createPicture(100, 50, Color.BLUE), 480);
+        assertNotNull(path1);
+        assertEquals(path1, path2);
+        assertNotEquals(path1, path3);
+        assertEquals(2, countFiles());
+
+        // still shown by the second notification
+        store.remove(1);
+        assertTrue(new File(path1).exists());
+        store.remove(2);
+        assertFalse(new File(path1).exists());
+        assertTrue(new File(path3).exists());
+        assertEquals(new File(path3).length(), store.getTotalBytes());
+
+        store.clear();
+        assertEquals(0, countFiles());
+        assertEquals(0, store.getTotalBytes());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedPicturesAreEvicted() {
+        final NotificationPictureStore probe = new NotificationPictureStore(directory, Long.MAX_VALUE);
+        probe.clear();
+        final long pictureBytes = new File(probe.add(0, createPicture(100, 50, Color.BLACK), 480)).length();
+        probe.clear();
+
+        // room for two pictures
+        final NotificationPictureStore store = new NotificationPictureStore(directory, 2 * pictureBytes + pictureBytes / 2);
+        final String red = store.add(1, createPicture(100, 50, Color.RED), 480);
+        final String green = store.add(2, createPicture(100, 50, Color.GREEN), 480);
+        // uses the red picture again
+        assertEquals(red, store.add(3, createPicture(100, 50, Color.RED), 480));
+        final String blue = store.add(4, createPicture(100, 50, Color.BLUE), 480);
+
+        assertTrue(new File(red).exists());
+        assertFalse(new File(green).exists());
+        assertTrue(new File(blue).exists());
+        assertEquals(2, countFiles());
+        assertTrue(store.getTotalBytes() <= 2 * pictureBytes + pictureBytes / 2);
+
+        // nothing left to delete
+        store.remove(2);
+        assertEquals(2, countFiles());
+    }
+
+    @Test
+    public void testScaleToWidth() {
+        final Bitmap wide = createPicture(1000, 500, Color.RED);
+        final Bitmap scaled = NotificationPictureStore.scaleToWidth(wide, 400);
+        assertEquals(400, scaled.getWidth());
+        assertEquals(200, scaled.getHeight());
+
+        final Bitmap narrow = createPicture(300, 500, Color.RED);
+        assertSame(narrow, NotificationPictureStore.scaleToWidth(narrow, 400));
+    }
+
+    private int countFiles() {
+        final String[] files = directory.list();
+        return files != null ? files.length : 0;
+    }
+
+    private static Bitmap createPicture(final int width, final int height, final int color) {
+        final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(color);
+        return bitmap;
+    }
+}
@@ -0,0 +1,176 @@
+package nodomain.freeyourgadget.gadgetbridge.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import nodomain.freeyourgadget.gadgetbridge.database.DBHelper;
+import nodomain.freeyourgadget.gadgetbridge.devices.miband.MiBandSampleProvider;
+import nodomain.freeyourgadget.gadgetbridge.entities.DailyTotalsCache;
+import nodomain.freeyourgadget.gadgetbridge.entities.DailyTotalsCacheDao;
+import nodomain.freeyourgadget.gadgetbridge.entities.Device;
+import nodomain.freeyourgadget.gadgetbridge.entities.MiBandActivitySample;
+import nodomain.freeyourgadget.gadgetbridge.entities.User;
+import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
+import nodomain.freeyourgadget.gadgetbridge.test.TestBase;
+
+public class DailyTotalsTest extends TestBase {
+    private static final int DAY = 24 * 60 * 60;
+    private static final int HOUR = 60 * 60;
+    // 2024-03-10 00:00 UTC
+    private static final int DAY_START = 1710028800;
+
+    private TimeZone defaultTimeZone;
+    private GBDevice gbDevice;
+    private MiBandSampleProvider sampleProvider;
+    private User user;
+    private Device device;
+
+    @Before
+    public void setUpDevice() {
+        defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+
+        gbDevice = new GBDevice("00:00:00:00:30", "Mi Band", null, null, DeviceType.MIBAND);
+        sampleProvider = new MiBandSampleProvider(gbDevice, daoSession);
+        user = DBHelper.getUser(daoSession);
+        device = DBHelper.getDevice(gbDevice, daoSession);
+    }
+
+    @After
+    public void restoreTimeZone() {
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @Test
+    public void testUpdateAndReadAreConsistent() {
+        addSamples(DAY_START + 10 * HOUR, 60, MiBandSampleProvider.TYPE_ACTIVITY, 10);
+        addSamples(DAY_START + 23 * HOUR, 60, MiBandSampleProvider.TYPE_LIGHT_SLEEP, 0);
+
+        // nothing persisted yet, the totals are computed from the samples
+        final List<Integer> days = DailyTotals.getDaysWithoutTotals(daoSession, gbDevice);
+        assertEquals(DAY_START, (int) days.get(0));
+        assertEquals(DAY_START + DAY, (int) days.get(1));
+        assertNull(getPersistedTotals(DAY_START));
+        final DailyTotals computed = getTotals(DAY_START);
+        final DailyTotals computedNextDay = getTotals(DAY_START + DAY);
+        assertEquals(600, computed.getSteps());
+
+        DailyTotals.update(daoSession, gbDevice, DAY_START);
+        DailyTotals.update(daoSession, gbDevice, DAY_START + DAY);
+
+        assertNotNull(getPersistedTotals(DAY_START));
+        assertNotNull(getPersistedTotals(DAY_START + DAY));
+        assertFalse(DailyTotals.getDaysWithoutTotals(daoSession, gbDevice).contains(DAY_START));
+        assertFalse(DailyTotals.getDaysWithoutTotals(daoSession, gbDevice).contains(DAY_START + DAY));
+        assertTotalsEqual(computed, getTotals(DAY_START));
+        assertTotalsEqual(computedNextDay, getTotals(DAY_START + DAY));
+
+        // new samples invalidate the persisted totals, which are then computed again
+        addSamples(DAY_START + 11 * HOUR, 10, MiBandSampleProvider.TYPE_ACTIVITY, 10);
+        assertNull(getPersistedTotals(DAY_START));
+        assertTrue(DailyTotals.getDaysWithoutTotals(daoSession, gbDevice).contains(DAY_START));
+        assertEquals(700, getTotals(DAY_START).getSteps());
+
+        DailyTotals.update(daoSession, gbDevice, DAY_START);
+        assertNotNull(getPersistedTotals(DAY_START));
+        assertEquals(700, getTotals(DAY_START).getSteps());
+    }
+
+    @Test
+    public void testSleepWindowDayRange() {
+        addSamples(DAY_START + 23 * HOUR, 60, MiBandSampleProvider.TYPE_LIGHT_SLEEP, 0);
+
+        // the sleep before midnight belongs to the following day
+        assertEquals(0, getTotals(DAY_START).getLightSleep());
+        assertTrue(getTotals(DAY_START + DAY).getLightSleep() > 0);
+
+        // in the sleep window of the following day
+        updateDays(DAY_START - DAY, DAY_START + 2 * DAY);
+        addSamples(DAY_START + 20 * HOUR, 1, MiBandSampleProvider.TYPE_LIGHT_SLEEP, 0);
+        assertPersistedDays(true, false, false, true);
+
+        // before the sleep window of the following day
+        updateDays(DAY_START - DAY, DAY_START + 2 * DAY);
+        addSamples(DAY_START + 12 * HOUR - 60, 1, MiBandSampleProvider.TYPE_ACTIVITY, 10);
+        assertPersistedDays(true, false, true, true);
+
+        // the start of the sleep window of the following day
+        updateDays(DAY_START - DAY, DAY_START + 2 * DAY);
+        addSamples(DAY_START + 12 * HOUR, 1, MiBandSampleProvider.TYPE_ACTIVITY, 10);
+        assertPersistedDays(true, false, false, true);
+
+        // samples over several days
+        updateDays(DAY_START - DAY, DAY_START + 2 * DAY);
+        addSamples(DAY_START - HOUR, 120, MiBandSampleProvider.TYPE_ACTIVITY, 10);
+        assertPersistedDays(false, false, true, true);
+    }
+
+    private void updateDays(final int firstDayStart, final int lastDayStart) {
+        for (int dayStart = firstDayStart; dayStart <= lastDayStart; dayStart += DAY) {
+            DailyTotals.update(daoSession, gbDevice, dayStart);
+        }
+    }
+
+    /**
+     * Asserts which of the days from the one before {@link #DAY_START} to two days after it have
+     * persisted totals.
+     */
+    private void assertPersistedDays(final boolean... persisted) {
+        for (int i = 0; i < persisted.length; i++) {
+            final int dayStart = DAY_START + (i - 1) * DAY;
+            assertEquals("day " + dayStart, persisted[i], getPersistedTotals(dayStart) != null);
+        }
+    }
+
+    private void addSamples(final int timestamp, final int count, final int rawKind, final int steps) {
+        final MiBandActivitySample[] samples = new MiBandActivitySample[count];
+        for (int i = 0; i < count; i++) {
+            final MiBandActivitySample sample = sampleProvider.createActivitySample();
+            sample.setProvider(sampleProvider);
+            sample.setRawKind(rawKind);
+            sample.setTimestamp(timestamp + i * 60);
+            sample.setRawIntensity(10);
+            sample.setHeartRate(70);
+            sample.setSteps(steps);
+            sample.setUserId(user.getId());
+            sample.setDeviceId(device.getId());
+            samples[i] = sample;
+        }
+        sampleProvider.addGBActivitySamples(samples);
+    }
+
+    private DailyTotals getTotals(final int dayStart) {
+        final Calendar day = Calendar.getInstance();
+        day.setTimeInMillis(dayStart * 1000L);
+        return DailyTotals.getDailyTotalsForDevice(gbDevice, day, dbHandler);
+    }
+
+    private DailyTotalsCache getPersistedTotals(final int dayStart) {
+        return daoSession.getDailyTotalsCacheDao().queryBuilder()
+                .where(
+                        DailyTotalsCacheDao.Properties.DeviceId.eq(device.getId()),
+                        DailyTotalsCacheDao.Properties.DayStart.eq(dayStart)
+                ).unique();
+    }
+
+    private static void assertTotalsEqual(final DailyTotals expected, final DailyTotals actual) {
+        assertEquals(expected.getSteps(), actual.getSteps());
+        assertEquals(expected.getDistance(), actual.getDistance());
+        assertEquals(expected.getActiveCalories(), actual.getActiveCalories());
+        assertEquals(expected.getLightSleep(), actual.getLightSleep());
+        assertEquals(expected.getDeepSleep(), actual.getDeepSleep());
+        assertEquals(expected.getRemSleep(), actual.getRemSleep());
+        assertEquals(expected.getAwakeSleep(), actual.getAwakeSleep());
+    }
+}
@@ -0,0 +1,105 @@
+package nodomain.freeyourgadget.gadgetbridge.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+public class StepStreaksTest {
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 15);
+    private static final int GOAL = 1000;
+
+    @Test
+    public void testNoData() {
+        final StepStreaks streaks = StepStreaks.calculate(new DailySteps(ZoneOffset.UTC), GOAL, TODAY);
+        assertEquals(0, streaks.getCurrent().getDays());
+        assertNull(streaks.getCurrent().getStart());
+        assertEquals(0, streaks.getLongest().getDays());
+        assertEquals(0, streaks.getTotalSteps());
+        assertEquals(0, streaks.getStepDays());
+        assertNull(streaks.getFirstStepDay());
+    }
+
+    @Test
+    public void testStreaks() {
+        // days before today and their steps
+        final StepStreaks streaks = calculate(
+                20, 1500,
+                19, 2000,
+                18, 500, // ends the streak
+                17, 1000,
+                16, 1000,
+                // no data on the 15th day
+                14, 3000,
+                13, 3000,
+                12, 1000,
+                11, 100,
+                3, 1000,
+                2, 1200,
+                1, 1100,
+                0, 200 // today does not end the current streak
+        );
+
+        assertEquals(3, streaks.getCurrent().getDays());
+        assertEquals(3300, streaks.getCurrent().getSteps());
+        assertEquals(TODAY.minusDays(3), streaks.getCurrent().getStart());
+
+        // the most recent of the longest streaks, the other one started 14 days ago
+        assertEquals(3, streaks.getLongest().getDays());
+        assertEquals(TODAY.minusDays(3), streaks.getLongest().getStart());
+
+        assertEquals(13, streaks.getStepDays());
+        assertEquals(10, streaks.getGoalDays());
+        assertEquals(16600, streaks.getTotalSteps());
+        assertEquals(TODAY.minusDays(20), streaks.getFirstStepDay());
+    }
+
+    @Test
+    public void testCurrentStreak() {
+        assertEquals(2, calculate(1, 1000, 0, 1000).getCurrent().getDays());
+        assertEquals(1, calculate(1, 1000, 0, 10).getCurrent().getDays());
+        assertEquals(1, calculate(1, 1000).getCurrent().getDays());
+        assertEquals(0, calculate(2, 1000).getCurrent().getDays());
+        assertEquals(0, calculate(2, 1000, 1, 10).getCurrent().getDays());
+        assertEquals(1, calculate(2, 1000).getLongest().getDays());
+    }
+
+    @Test
+    public void testLongestStreak() {
+        final StepStreaks streaks = calculate(10, 2000, 9, 2000, 8, 2000, 5, 5000, 4, 5000, 1, 10);
+        assertEquals(0, streaks.getCurrent().getDays());
+        assertEquals(3, streaks.getLongest().getDays());
+        assertEquals(6000, streaks.getLongest().getSteps());
+        assertEquals(TODAY.minusDays(10), streaks.getLongest().getStart());
+    }
+
+    @Test
+    public void testFutureDays() {
+        final StepStreaks streaks = calculate(0, 1000, -1, 1000);
+        assertEquals(1, streaks.getCurrent().getDays());
+        assertEquals(1000, streaks.getTotalSteps());
+    }
+
+    @Test
+    public void testNoGoal() {
+        // days without steps never reach the goal
+        final DailySteps days = dailySteps(3, 10, 1, 10, 0, 10);
+        assertEquals(2, StepStreaks.calculate(days, 0, TODAY).getCurrent().getDays());
+        assertEquals(3, StepStreaks.calculate(days, 0, TODAY).getGoalDays());
+    }
+
+    private static StepStreaks calculate(final int... daysAgoAndSteps) {
+        return StepStreaks.calculate(dailySteps(daysAgoAndSteps), GOAL, TODAY);
+    }
+
+    private static DailySteps dailySteps(final int... daysAgoAndSteps) {
+        final DailySteps days = new DailySteps(ZoneOffset.UTC);
+        for (int i = 0; i < daysAgoAndSteps.length; i += 2) {
+            days.addDay(TODAY.minusDays(daysAgoAndSteps[i]).toEpochDay(), daysAgoAndSteps[i + 1]);
+        }
+        return days;
+    }
+}
@@ -1,18 +1,57 @@
 package nodomain.freeyourgadget.gadgetbridge.service.btle;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCharacteristic;
+
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import nodomain.freeyourgadget.gadgetbridge.impl.GBDevice;
+import nodomain.freeyourgadget.gadgetbridge.model.DeviceType;
+import nodomain.freeyourgadget.gadgetbridge.service.btle.actions.PipelinedWriteAction;
 import nodomain.freeyourgadget.gadgetbridge.test.TestBase;
 
 public class BtLEQueueTest extends TestBase {
+    private static final UUID CHARACTERISTIC_UUID = UUID.fromString("00000016-0000-3512-2118-0009af100700");
+
+    private BtLEQueue queue;
+    private ExecutorService stack;
+    private BluetoothGattCharacteristic characteristic;
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
 
     @Override
     public void setUp() throws Exception {
         super.setUp();
+        final GBDevice gbDevice = new GBDevice("00:00:00:00:40", "Test", null, null, DeviceType.TEST);
+        queue = new BtLEQueue(null, gbDevice, null, null, getContext(), Collections.emptySet());
+        // calls back from another thread, like the Bluetooth stack
+        stack = Executors.newSingleThreadExecutor();
+        characteristic = new BluetoothGattCharacteristic(
+                CHARACTERISTIC_UUID,
+                BluetoothGattCharacteristic.PROPERTY_WRITE_NO_RESPONSE,
+                BluetoothGattCharacteristic.PERMISSION_WRITE
+        );
     }
 
     @Override
     public void tearDown() throws Exception {
+        stack.shutdownNow();
+        queue.dispose();
         super.tearDown();
     }
 
@@ -20,4 +59,141 @@ public class BtLEQueueTest extends TestBase {
     public void testIsConnected() throws Exception {
         // TODO
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPipelinedWrite() throws Exception {
+        final byte[] data = createData(1000);
+        final BluetoothGatt gatt = createGatt(0, 1);
+        final PipelinedWriteAction action = new PipelinedWriteAction(characteristic, data, 0);
+        characteristic.setWriteType(BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT);
+
+        assertTrue(action.run(gatt));
+        assertTrue(queue.runPipelinedWrite(action, gatt));
+
+        // packets of the default MTU
+        assertEquals(50, action.getPacketCount());
+        assertArrayEquals(data, written.toByteArray());
+        assertEquals(1, maxInFlight.get());
+        assertEquals(0, queue.getWriteCredits().getInFlight());
+        // restored for the following actions
+        assertEquals(BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT, characteristic.getWriteType());
+    }
+
+    @Test
+    public void testPipelinedWriteRetriesBusyStack() throws Exception {
+        final byte[] data = createData(100);
+        final BluetoothGatt gatt = createGatt(3, 1);
+        final PipelinedWriteAction action = new PipelinedWriteAction(characteristic, data, 8);
+
+        assertTrue(action.run(gatt));
+        assertTrue(queue.runPipelinedWrite(action, gatt));
+
+        // the packets the stack did not accept returned their credits
+        assertEquals(13, action.getPacketCount());
+        assertArrayEquals(data, written.toByteArray());
+        assertEquals(1, maxInFlight.get());
+        assertEquals(0, queue.getWriteCredits().getInFlight());
+    }
+
+    @Test
+    public void testPipelinedWriteDoesNotGainCredits() throws Exception {
+        final byte[] data = createData(200);
+        // each packet is reported twice, which must not let more packets in flight
+        final BluetoothGatt gatt = createGatt(0, 2);
+        final PipelinedWriteAction action = new PipelinedWriteAction(characteristic, data, 0);
+
+        // not reported while there is no pipelined write
+        assertFalse(queue.handlePipelinedWriteResult(characteristic, BluetoothGatt.GATT_SUCCESS));
+
+        assertTrue(action.run(gatt));
+        assertTrue(queue.runPipelinedWrite(action, gatt));
+
+        assertArrayEquals(data, written.toByteArray());
+        assertEquals(1, maxInFlight.get());
+        assertEquals(0, queue.getWriteCredits().getInFlight());
+    }
+
+    @Test
+    public void testPipelinedWriteAbort() throws Exception {
+        final byte[] data = createData(200);
+        // the stack never reports the packets
+        final BluetoothGatt gatt = createGatt(0, 0);
+        final PipelinedWriteAction action = new PipelinedWriteAction(characteristic, data, 0);
+
+        stack.execute(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (final InterruptedException ignored) {
+            }
+            queue.abortCurrentTransaction();
+        });
+
+        final long start = System.currentTimeMillis();
+        assertTrue(action.run(gatt));
+        assertFalse(queue.runPipelinedWrite(action, gatt));
+
+        // woken up by the abort, not by the credit timeout
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertEquals(1, action.getPacketCount());
+        // aborting does not return the credit of the packet that was not reported
+        assertEquals(1, queue.getWriteCredits().getInFlight());
+    }
+
+    @Test
+    public void testWriteCredits() throws Exception {
+        final WriteCredits credits = new WriteCredits(2);
+        assertFalse(credits.release());
+
+        assertTrue(credits.acquire(0));
+        assertTrue(credits.acquire(0));
+        assertFalse(credits.acquire(10));
+        assertEquals(2, credits.getInFlight());
+
+        assertTrue(credits.release());
+        assertTrue(credits.acquire(0));
+        assertFalse(credits.awaitAll(10));
+
+        assertTrue(credits.release());
+        assertTrue(credits.release());
+        assertFalse(credits.release());
+        assertTrue(credits.awaitAll(0));
+        assertEquals(0, credits.getInFlight());
+
+        credits.abort();
+        assertFalse(credits.acquire(1000));
+        credits.reset();
+        assertTrue(credits.acquire(0));
+    }
+
+    /**
+     * @param busyWrites number of writes the stack does not accept before the first packet
+     * @param callbacks  number of write callbacks for each packet
+     */
+    private BluetoothGatt createGatt(final int busyWrites, final int callbacks) {
+        final BluetoothGatt gatt = mock(BluetoothGatt.class);
+        final AtomicInteger busy = new AtomicInteger(busyWrites);
+        when(gatt.writeCharacteristic(any(BluetoothGattCharacteristic.class))).thenAnswer(invocation -> {
+            final int inFlight = queue.getWriteCredits().getInFlight();
+            maxInFlight.accumulateAndGet(inFlight, Math::max);
+            if (busy.getAndDecrement() > 0) {
+                return false;
+            }
+            final BluetoothGattCharacteristic c = invocation.getArgument(0);
+            written.write(c.getValue());
+            assertEquals(BluetoothGattCharacteristic.WRITE_TYPE_NO_RESPONSE, c.getWriteType());
+            for (int i = 0; i < callbacks; i++) {
+                stack.execute(() -> queue.handlePipelinedWriteResult(c, BluetoothGatt.GATT_SUCCESS));
+            }
+            return true;
+        });
+        return gatt;
+    }
+
+    private static byte[] createData(final int length) {
+        final byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+}
@@ -0,0 +1,79 @@
+package nodomain.freeyourgadget.gadgetbridge.service.devices.banglejs;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class BangleJSLineFramerTest {
+    private final BangleJSLineFramer framer = new BangleJSLineFramer();
+    private final List<String> lines = new ArrayList<>();
+
+    @Test
+    public void testLinesInOnePacket() {
+        receive("{\"t\":\"info\"}\r\n\r\nfoo\r\nbar");
+        assertEquals(Arrays.asList("{\"t\":\"info\"}", "", "foo"), lines);
+
+        receive("\r\n");
+        assertEquals(Arrays.asList("{\"t\":\"info\"}", "", "foo", "bar"), lines);
+    }
+
+    @Test
+    public void testLineEndings() {
+        receive("unix\nwindows\r\n\n");
+        assertEquals(Arrays.asList("unix", "windows", ""), lines);
+    }
+
+    @Test
+    public void testLineSpanningPackets() {
+        final StringBuilder expected = new StringBuilder("{\"t\":\"file\",\"c\":\"");
+        for (int i = 0; i < 10000; i++) {
+            expected.append((char) ('a' + i % 26));
+        }
+        expected.append("\"}");
+        final String data = expected + "\r\nnext\r\n";
+
+        // in packets of the default MTU
+        for (int i = 0; i < data.length(); i += 20) {
+            receive(data.substring(i, Math.min(i + 20, data.length())));
+        }
+        assertEquals(Arrays.asList(expected.toString(), "next"), lines);
+    }
+
+    @Test
+    public void testLineEndingInNextPacket() {
+        receive("foo\r");
+        assertEquals(Collections.emptyList(), lines);
+        receive("\n");
+        assertEquals(Collections.singletonList("foo"), lines);
+    }
+
+    @Test
+    public void testReset() {
+        receive("incomplete");
+        framer.reset();
+        receive("line\r\n");
+        assertEquals(Collections.singletonList("line"), lines);
+    }
+
+    @Test
+    public void testOffset() {
+        final byte[] bytes = "xxfoo\nbaryy".getBytes(StandardCharsets.ISO_8859_1);
+        framer.receive(bytes, 2, 7, this::onLine);
+        framer.receive("\n".getBytes(StandardCharsets.ISO_8859_1), this::onLine);
+        assertEquals(Arrays.asList("foo", "bar"), lines);
+    }
+
+    private void receive(final String packet) {
+        framer.receive(packet.getBytes(StandardCharsets.ISO_8859_1), this::onLine);
+    }
+
+    private void onLine(final byte[] buffer, final int offset, final int length) {
+        lines.add(new String(buffer, offset, length, StandardCharsets.ISO_8859_1));
+    }
+}
@@ -3,9 +3,15 @@ package nodomain.freeyourgadget.gadgetbridge.service.devices.garmin;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.fit.FieldDefinition;
@@ -15,6 +21,8 @@ import nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.fit.RecordDat
 import nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.fit.RecordDefinition;
 import nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.fit.RecordHeader;
 import nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.fit.baseTypes.BaseType;
+import nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.fit.messages.FitRecord;
+import nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.fit.messages.FitRecordDataFactory;
 import nodomain.freeyourgadget.gadgetbridge.test.TestBase;
 import nodomain.freeyourgadget.gadgetbridge.util.GB;
 
@@ -371,4 +379,95 @@ public class GarminSupportTest extends TestBase {
         FitFile fitFile = FitFile.parseIncoming(fileContents);
         Assert.assertEquals(expectedOutput, fitFile.toString());
     }
+
+    @Test
+    public void TestFitFilePrimitiveFieldAccess() {
+        byte[] fileContents = GB.hexStringToByteArray("0e206806a20000002e464954bed040000100000401028400010002028403048c00000f042329000006a540000100cf0201100d030102000101020305080d1522375990e97962db0040000100ce05000102010102020102031107080a0700000001646f7567686e7574735f6561726e656400646f7567686e7574730060000100140403010204010205048606028401000100008c580000c738b98001008f5a00032c808e400200905c0005a9388a1003d39e");
+
+        FitFile fitFile = FitFile.parseIncoming(fileContents);
+        List<RecordData> records = fitFile.getRecordsByGlobalMessage(GlobalFITMessage.RECORD);
+        Assert.assertEquals(3, records.size());
+        for (RecordData record : records) {
+            FitRecord fitRecord = (FitRecord) record;
+            Assert.assertEquals((int) fitRecord.getHeartRate(), fitRecord.getHeartRatePrimitive());
+            Assert.assertEquals((int) fitRecord.getCadence(), fitRecord.getCadencePrimitive());
+            Assert.assertEquals(RecordData.INVALID_INT, fitRecord.getPowerPrimitive());
+            Assert.assertNull(fitRecord.getPower());
+        }
+    }
+
+    @Test
+    public void TestFitFileStreamingFromFile() throws IOException {
+        final RecordHeader recordHeader = new RecordHeader((byte) 0x05);
+        final RecordDefinition recordDefinition = new RecordDefinition(new RecordHeader((byte) 0x45), ByteOrder.BIG_ENDIAN, GlobalFITMessage.RECORD, GlobalFITMessage.RECORD.getFieldDefinitions(0, 1, 2, 5, 253), null);
+        final List<RecordData> records = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            final RecordData record = FitRecordDataFactory.create(recordDefinition, recordHeader);
+            record.setFieldByName("latitude", 48.0 + i / 100000d);
+            record.setFieldByName("longitude", 11.0 + i / 100000d);
+            record.setFieldByName("altitude", 500.0 + i % 100);
+            record.setFieldByName("distance", i * 2.5);
+            record.setFieldByName("timestamp", 1000000000L + i);
+            records.add(record);
+        }
+        final byte[] fileContents = new FitFile(records).getOutgoingMessage();
+
+        final File file = File.createTempFile("synthetic", ".fit");
+        file.deleteOnExit();
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(fileContents);
+        }
+
+        final FitFile materialized = FitFile.parseIncoming(fileContents);
+
+        final List<RecordData> streamed = new ArrayList<>();
+        FitFile.parseIncoming(file, streamed::add);
+
+        Assert.assertEquals(records.size(), streamed.size());
+        Assert.assertEquals(materialized.getRecords().toString(), streamed.toString());
+    }
+
+    @Test
+    public void TestFitFileManyDeveloperFieldRedefinitions() {
+        final int redefinitions = 4096;
+        final ByteBuffer data = ByteBuffer.allocate(64 + redefinitions * 64).order(ByteOrder.LITTLE_ENDIAN);
+
+        // local message 0: field description with developer_data_index, field_definition_number, fit_base_type_id, field_name
+        data.put((byte) 0x40).put((byte) 0).put((byte) 0).putShort((short) 206).put((byte) 4);
+        data.put((byte) 0).put((byte) 1).put((byte) 0x02);
+        data.put((byte) 1).put((byte) 1).put((byte) 0x02);
+        data.put((byte) 2).put((byte) 1).put((byte) 0x02);
+        data.put((byte) 3).put((byte) 16).put((byte) 0x07);
+
+        for (int i = 0; i < redefinitions; i++) {
+            // stay clear of field 253, which is always treated as the timestamp
+            final int developerDataIndex = i / 200;
+            final int fieldNumber = i % 200;
+
+            data.put((byte) 0x00).put((byte) developerDataIndex).put((byte) fieldNumber).put((byte) 0x02);
+            data.put(Arrays.copyOf(("field_" + i).getBytes(StandardCharsets.UTF_8), 16));
+
+            // local message 1: record with heart_rate and a single developer field, redefined every time
+            data.put((byte) 0x61).put((byte) 0).put((byte) 0).putShort((short) 20).put((byte) 1);
+            data.put((byte) 3).put((byte) 1).put((byte) 0x02);
+            data.put((byte) 1);
+            data.put((byte) fieldNumber).put((byte) 1).put((byte) developerDataIndex);
+
+            data.put((byte) 0x01).put((byte) 100).put((byte) (i % 200));
+        }
+
+        final int dataSize = data.position();
+        final ByteBuffer file = ByteBuffer.allocate(14 + dataSize + 2).order(ByteOrder.LITTLE_ENDIAN);
+        file.put((byte) 14).put((byte) 0x20).putShort((short) 2168).putInt(dataSize).putInt(FitFile.Header.MAGIC);
+        file.putShort((short) ChecksumCalculator.computeCrc(file.array(), 0, 12));
+        file.put(data.array(), 0, dataSize);
+        file.putShort((short) ChecksumCalculator.computeCrc(file.array(), 14, dataSize));
+
+        final FitFile fitFile = FitFile.parseIncoming(file.array());
+        final List<RecordData> records = fitFile.getRecordsByGlobalMessage(GlobalFITMessage.RECORD);
+        Assert.assertEquals(redefinitions, records.size());
+        for (int i = 0; i < redefinitions; i++) {
+            Assert.assertEquals(i % 200, records.get(i).getFieldByName("field_" + i));
+        }
+    }
 }
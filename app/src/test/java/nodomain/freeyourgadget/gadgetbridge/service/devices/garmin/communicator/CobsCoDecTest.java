@@ -3,6 +3,12 @@ package nodomain.freeyourgadget.gadgetbridge.service.devices.garmin.communicator
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import nodomain.freeyourgadget.gadgetbridge.util.GB;
 
 public class CobsCoDecTest {
@@ -110,4 +116,131 @@ public class CobsCoDecTest {
             Assert.assertArrayEquals(payload, decodedData);
         }
     }
+
+    @Test
+    public void testTrailingZeros() {
+        final byte[] payload = new byte[]{0x1c, 0, 0, 0, 0};
+        Assert.assertArrayEquals(GB.hexStringToByteArray("00021C0101010100"), cobsCoDec.encode(payload));
+        cobsCoDec.receivedBytes(cobsCoDec.encode(payload));
+        Assert.assertArrayEquals(payload, cobsCoDec.retrieveMessage());
+    }
+
+    @Test
+    public void testMultipleMessagesInOneNotification() {
+        final byte[] message1 = GB.hexStringToByteArray("2C00A0139600310F684C1BCA840508020B496E7374696E637420325308496E7374696E6374023253000004B8");
+        final byte[] message2 = new byte[]{0x2b, 0x00, (byte) 0x88, 0x13};
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(cobsCoDec.encode(message1), 0, cobsCoDec.encode(message1).length);
+        stream.write(cobsCoDec.encode(message2), 0, cobsCoDec.encode(message2).length);
+
+        cobsCoDec.receivedBytes(stream.toByteArray());
+        Assert.assertArrayEquals(message1, cobsCoDec.retrieveMessage());
+        Assert.assertArrayEquals(message2, cobsCoDec.retrieveMessage());
+        Assert.assertNull(cobsCoDec.retrieveMessage());
+    }
+
+    @Test
+    public void testMessagesWithoutSecondLeadingZero() {
+        // 00 <message 1> 00 <message 2> 00
+        cobsCoDec.receivedBytes(GB.hexStringToByteArray("000302010003040500"));
+        Assert.assertArrayEquals(new byte[]{2, 1}, cobsCoDec.retrieveMessage());
+        Assert.assertArrayEquals(new byte[]{4, 5}, cobsCoDec.retrieveMessage());
+        Assert.assertNull(cobsCoDec.retrieveMessage());
+    }
+
+    @Test
+    public void testGarbageBeforeMessage() {
+        cobsCoDec.receivedBytes(GB.hexStringToByteArray("1122330003020100"));
+        Assert.assertArrayEquals(new byte[]{2, 1}, cobsCoDec.retrieveMessage());
+        Assert.assertNull(cobsCoDec.retrieveMessage());
+    }
+
+    @Test
+    public void testMessageLargerThanInitialBuffer() {
+        final byte[] payload = new byte[50_000];
+        new Random(0).nextBytes(payload);
+        final byte[] encoded = cobsCoDec.encode(payload);
+        final List<byte[]> decoded = new ArrayList<>();
+        for (int i = 0; i < encoded.length; i += 244) {
+            cobsCoDec.receivedBytes(ByteBuffer.wrap(encoded, i, Math.min(244, encoded.length - i)), decoded::add);
+        }
+        Assert.assertEquals(1, decoded.size());
+        Assert.assertArrayEquals(payload, decoded.get(0));
+    }
+
+    @Test
+    public void testFuzzStream() {
+        final Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            final CobsCoDec decoder = new CobsCoDec();
+            final List<byte[]> payloads = new ArrayList<>();
+            final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            for (int i = 0; i < 100; i++) {
+                final byte[] payload = randomPayload(random);
+                payloads.add(payload);
+                final byte[] encoded = cobsCoDec.encode(payload);
+                stream.write(encoded, 0, encoded.length);
+            }
+
+            // split the stream at random points, like notifications of different sizes
+            final byte[] bytes = stream.toByteArray();
+            final List<byte[]> decoded = new ArrayList<>();
+            int offset = 0;
+            while (offset < bytes.length) {
+                final int length = Math.min(1 + random.nextInt(600), bytes.length - offset);
+                decoder.receivedBytes(ByteBuffer.wrap(bytes, offset, length), decoded::add);
+                offset += length;
+            }
+
+            Assert.assertEquals(payloads.size(), decoded.size());
+            for (int i = 0; i < payloads.size(); i++) {
+                Assert.assertArrayEquals(payloads.get(i), decoded.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testFuzzRandomBytes() {
+        // arbitrary input must not make the decoder throw
+        final Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            final byte[] bytes = new byte[random.nextInt(300)];
+            random.nextBytes(bytes);
+            for (int j = 0; j < bytes.length; j += 5) {
+                bytes[random.nextInt(bytes.length)] = 0;
+            }
+            cobsCoDec.receivedBytes(ByteBuffer.wrap(bytes), message -> Assert.assertTrue(message.length > 0));
+        }
+    }
+
+    @Test
+    public void testThroughput() {
+        final Random random = new Random(1);
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        int messages = 0;
+        while (stream.size() < 4_000_000) {
+            final byte[] encoded = cobsCoDec.encode(randomPayload(random));
+            stream.write(encoded, 0, encoded.length);
+            messages++;
+        }
+
+        final byte[] bytes = stream.toByteArray();
+        final int[] decoded = new int[1];
+        for (int offset = 0; offset < bytes.length; offset += 509) {
+            cobsCoDec.receivedBytes(ByteBuffer.wrap(bytes, offset, Math.min(509, bytes.length - offset)), message -> decoded[0]++);
+        }
+        Assert.assertEquals(messages, decoded[0]);
+    }
+
+    private static byte[] randomPayload(final Random random) {
+        final byte[] payload = new byte[1 + random.nextInt(random.nextBoolean() ? 64 : 4000)];
+        random.nextBytes(payload);
+        if (random.nextBoolean()) {
+            // GFDI messages contain many zeros
+            for (int i = 0; i < payload.length; i += 1 + random.nextInt(8)) {
+                payload[i] = 0;
+            }
+        }
+        return payload;
+    }
 }
@@ -0,0 +1,117 @@
+package nodomain.freeyourgadget.gadgetbridge.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import nodomain.freeyourgadget.gadgetbridge.model.GPSCoordinate;
+import nodomain.freeyourgadget.gadgetbridge.test.TestBase;
+
+public class GpsTrackThumbnailTest extends TestBase {
+    @Test
+    public void testStraightLine() {
+        final List<GPSCoordinate> coordinates = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            coordinates.add(new GPSCoordinate(8.0 + i * 0.0001, 47.0 + i * 0.00005, 400));
+        }
+
+        final GpsTrackThumbnail thumbnail = GpsTrackThumbnail.fromCoordinates(coordinates, 360, 0.5f);
+        assertEquals(2, thumbnail.getPointCount());
+        // longitude spans the full width, north is up
+        assertEquals(0, thumbnail.getX(0), 0.01);
+        assertEquals(360, thumbnail.getY(0), 0.01);
+        assertEquals(360, thumbnail.getX(1), 0.01);
+        assertEquals(180, thumbnail.getY(1), 0.01);
+    }
+
+    @Test
+    public void testSinglePoint() {
+        final List<GPSCoordinate> coordinates = new ArrayList<>();
+        coordinates.add(new GPSCoordinate(8.0, 47.0, 400));
+
+        final GpsTrackThumbnail thumbnail = GpsTrackThumbnail.fromCoordinates(coordinates, 360, 0.5f);
+        assertEquals(1, thumbnail.getPointCount());
+        assertFalse(Float.isNaN(thumbnail.getX(0)));
+        assertFalse(Float.isNaN(thumbnail.getY(0)));
+    }
+
+    @Test
+    public void testSimplifyWithinTolerance() {
+        final Random random = new Random(42);
+        final int count = 5000;
+        final float[] xy = new float[count * 2];
+        float x = 180, y = 180;
+        for (int i = 0; i < count; i++) {
+            x = Math.max(0, Math.min(360, x + random.nextFloat() - 0.5f));
+            y = Math.max(0, Math.min(360, y + random.nextFloat() - 0.5f));
+            xy[2 * i] = x;
+            xy[2 * i + 1] = y;
+        }
+
+        final float tolerance = 0.5f;
+        final float[] simplified = GpsTrackThumbnail.simplify(xy, tolerance);
+        assertTrue(simplified.length < xy.length);
+        assertEquals(xy[0], simplified[0], 0);
+        assertEquals(xy[xy.length - 1], simplified[simplified.length - 1], 0);
+
+        // every original point lies within the tolerance of the simplified polyline
+        for (int i = 0; i < count; i++) {
+            double minDistance = Double.MAX_VALUE;
+            for (int j = 0; j + 3 < simplified.length && minDistance > tolerance; j += 2) {
+                minDistance = Math.min(minDistance, distance(xy[2 * i], xy[2 * i + 1],
+                        simplified[j], simplified[j + 1], simplified[j + 2], simplified[j + 3]));
+            }
+            assertTrue("point " + i + " is " + minDistance + " away", minDistance <= tolerance + 1e-4);
+        }
+    }
+
+    @Test
+    public void testPersistence() throws Exception {
+        final List<GPSCoordinate> coordinates = new ArrayList<>();
+        final Random random = new Random(1);
+        for (int i = 0; i < 500; i++) {
+            coordinates.add(new GPSCoordinate(8.0 + random.nextDouble() / 100, 47.0 + random.nextDouble() / 100, 400));
+        }
+        final GpsTrackThumbnail thumbnail = GpsTrackThumbnail.fromCoordinates(coordinates, 360, 0.5f);
+
+        final File trackFile = File.createTempFile("track", ".gpx");
+        final File thumbnailFile = File.createTempFile("thumbnail", ".bin");
+        try {
+            thumbnail.write(thumbnailFile, trackFile);
+
+            final GpsTrackThumbnail read = GpsTrackThumbnail.read(thumbnailFile, trackFile, 360);
+            assertNotNull(read);
+            assertEquals(thumbnail.getPointCount(), read.getPointCount());
+            for (int i = 0; i < thumbnail.getPointCount(); i++) {
+                assertEquals(thumbnail.getX(i), read.getX(i), 0);
+                assertEquals(thumbnail.getY(i), read.getY(i), 0);
+            }
+
+            // other sizes need to be recomputed
+            assertNull(GpsTrackThumbnail.read(thumbnailFile, trackFile, 180));
+            // so do modified tracks
+            assertTrue(trackFile.setLastModified(trackFile.lastModified() - 10000));
+            assertNull(GpsTrackThumbnail.read(thumbnailFile, trackFile, 360));
+        } finally {
+            trackFile.delete();
+            thumbnailFile.delete();
+        }
+    }
+
+    private static double distance(final float px, final float py,
+                                   final float ax, final float ay,
+                                   final float bx, final float by) {
+        final double dx = bx - ax, dy = by - ay;
+        final double lengthSquared = dx * dx + dy * dy;
+        double t = 0;
+        if (lengthSquared > 0) {
+            t = Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        }
+        return Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+    }
+}
@@ -0,0 +1,86 @@
+package nodomain.freeyourgadget.gadgetbridge.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import nodomain.freeyourgadget.gadgetbridge.test.TestBase;
+
+public class LatencyHistogramTest extends TestBase {
+    @Test
+    public void testEmpty() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(0, histogram.getMean(), 0.0001);
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 7; i++) {
+            histogram.record(i);
+        }
+        assertEquals(7, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(7, histogram.getMax());
+        assertEquals(4, histogram.getValueAtPercentile(50));
+        assertEquals(7, histogram.getValueAtPercentile(100));
+        assertEquals(4, histogram.getMean(), 0.0001);
+    }
+
+    @Test
+    public void testBuckets() {
+        long previousUpperBound = -1;
+        for (long value = 0; value < 100_000; value++) {
+            final int index = LatencyHistogram.bucketIndex(value);
+            final long upperBound = LatencyHistogram.bucketUpperBound(index);
+            assertTrue(value <= upperBound);
+            // buckets are contiguous and at most 12.5% wide
+            assertTrue(upperBound >= previousUpperBound);
+            assertTrue(upperBound - value <= value / 8);
+            previousUpperBound = upperBound;
+        }
+
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMin());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_500, histogram.getMean(), 0.0001);
+
+        assertWithin(500_000, histogram.getValueAtPercentile(50));
+        assertWithin(900_000, histogram.getValueAtPercentile(90));
+        assertWithin(990_000, histogram.getValueAtPercentile(99));
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+        assertWithin(1000, histogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    public void testNegativeAndReset() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        histogram.record(42);
+        assertEquals(42, histogram.getMin());
+        assertEquals(42, histogram.getMax());
+    }
+
+    private static void assertWithin(final long expected, final long actual) {
+        assertTrue("expected " + expected + " but was " + actual, actual >= expected && actual - expected <= expected / 8);
+    }
+}
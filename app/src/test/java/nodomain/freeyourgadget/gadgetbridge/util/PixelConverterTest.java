@@ -0,0 +1,261 @@
+package nodomain.freeyourgadget.gadgetbridge.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import nodomain.freeyourgadget.gadgetbridge.service.devices.xiaomi.XiaomiBitmapUtils;
+import nodomain.freeyourgadget.gadgetbridge.test.TestBase;
+import nodomain.freeyourgadget.gadgetbridge.util.PixelConverter.Format;
+
+public class PixelConverterTest extends TestBase {
+    private static final Logger LOG = LoggerFactory.getLogger(PixelConverterTest.class);
+
+    @Override
+    public void tearDown() throws Exception {
+        PixelConverter.clearCache();
+        super.tearDown();
+    }
+
+    /**
+     * The formats are encoded like reading and converting every pixel of the bitmap by itself.
+     */
+    @Test
+    public void testEncodesLikePerPixel() {
+        final Bitmap bitmap = createRandomBitmap(37, 23, 0);
+
+        assertArrayEquals(encodeRgb565PerPixel(bitmap, true), PixelConverter.encode(bitmap, Format.RGB565_LE));
+        assertArrayEquals(encodeRgb565PerPixel(bitmap, false), PixelConverter.encode(bitmap, Format.RGB565_BE));
+        assertArrayEquals(encodeArgb8565PerPixel(bitmap, false), PixelConverter.encode(bitmap, Format.ARGB8565_LE));
+        assertArrayEquals(encodeArgb8565PerPixel(bitmap, true), PixelConverter.encode(bitmap, Format.ABGR8565_LE));
+        assertArrayEquals(encodeArgb8888PerPixel(bitmap), PixelConverter.encode(bitmap, Format.ARGB8888_LE));
+        assertArrayEquals(encodeGray8PerPixel(bitmap), PixelConverter.encode(bitmap, Format.GRAY8));
+        assertArrayEquals(encodeGray2PerPixel(bitmap), PixelConverter.encode(bitmap, Format.GRAY2_TRANSPARENCY2));
+    }
+
+    @Test
+    public void testRgb565() {
+        final int[] pixels = {Color.RED, Color.GREEN, Color.BLUE, Color.WHITE, 0xff808080};
+        assertArrayEquals(new byte[]{
+                0x00, (byte) 0xf8,
+                (byte) 0xe0, 0x07,
+                0x1f, 0x00,
+                (byte) 0xff, (byte) 0xff,
+                0x10, (byte) 0x84,
+        }, PixelConverter.encode(pixels, Format.RGB565_LE));
+
+        for (final int pixel : pixels) {
+            final byte[] encoded = PixelConverter.encode(new int[]{pixel}, Format.RGB565_BE);
+            final int rgb565 = ((encoded[0] & 0xff) << 8) | (encoded[1] & 0xff);
+            assertEquals(pixel & 0xfff8fcf8, PixelConverter.fromRgb565(rgb565));
+        }
+    }
+
+    /**
+     * The watchface images of Xiaomi devices are read with the same channels and byte order.
+     */
+    @Test
+    public void testRgb565DecodesLikeXiaomiWatchfaces() {
+        final Bitmap bitmap = createRandomBitmap(16, 8, 3);
+        final int[] expected = PixelConverter.getPixels(bitmap);
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = (expected[i] | 0xff000000) & 0xfff8fcf8;
+        }
+
+        final Bitmap littleEndian = XiaomiBitmapUtils.decodeWatchfaceImage(
+                PixelConverter.encode(bitmap, Format.RGB565_LE), 0x01, false, 16, 8);
+        assertArrayEquals(expected, PixelConverter.getPixels(littleEndian));
+        final Bitmap bigEndian = XiaomiBitmapUtils.decodeWatchfaceImage(
+                PixelConverter.encode(bitmap, Format.RGB565_BE), 0x07, false, 16, 8);
+        assertArrayEquals(expected, PixelConverter.getPixels(bigEndian));
+    }
+
+    @Test
+    public void testPackGray2() {
+        assertArrayEquals(new byte[0], PixelConverter.packGray2(new byte[0]));
+        assertArrayEquals(
+                new byte[]{(byte) 0b11100100, (byte) 0b11000000},
+                PixelConverter.packGray2(new byte[]{(byte) 0xff, (byte) 0x80, 0x40, 0x3f, (byte) 0xc0})
+        );
+    }
+
+    @Test
+    public void testEncodeRle() {
+        assertArrayEquals(new byte[0], PixelConverter.encodeRle(new byte[0]));
+        assertArrayEquals(new byte[]{1, 7}, PixelConverter.encodeRle(new byte[]{7}));
+        assertArrayEquals(new byte[]{2, 1, 1, 2, 3, 1}, PixelConverter.encodeRle(new byte[]{1, 1, 2, 1, 1, 1}));
+
+        // runs are split after 255 bytes
+        final byte[] run = new byte[300];
+        assertArrayEquals(new byte[]{(byte) 255, 0, 45, 0}, PixelConverter.encodeRle(run));
+    }
+
+    @Test
+    public void testCache() {
+        PixelConverter.clearCache();
+        final Bitmap icon = createRandomBitmap(24, 24, 1);
+
+        final byte[] first = PixelConverter.encodeCached(icon, Format.RGB565_LE);
+        assertArrayEquals(PixelConverter.encode(icon, Format.RGB565_LE), first);
+        assertEquals(1, PixelConverter.getCacheSize());
+
+        // changing the result does not change the cached one
+        first[0]++;
+        assertArrayEquals(PixelConverter.encode(icon, Format.RGB565_LE), PixelConverter.encodeCached(icon, Format.RGB565_LE));
+        assertArrayEquals(PixelConverter.encode(createRandomBitmap(24, 24, 1), Format.RGB565_LE),
+                PixelConverter.encodeCached(createRandomBitmap(24, 24, 1), Format.RGB565_LE));
+        assertEquals(1, PixelConverter.getCacheSize());
+
+        PixelConverter.encodeCached(icon, Format.GRAY8);
+        PixelConverter.encodeCached(createRandomBitmap(24, 24, 2), Format.RGB565_LE);
+        assertEquals(3, PixelConverter.getCacheSize());
+
+        // pixels with the same hash code are still different images
+        final int[] pixels1 = {0, 31};
+        final int[] pixels2 = {1, 0};
+        assertEquals(Arrays.hashCode(pixels1), Arrays.hashCode(pixels2));
+        PixelConverter.clearCache();
+        assertArrayEquals(PixelConverter.encode(pixels1, Format.ARGB8888_LE),
+                PixelConverter.encodeCached(PixelConverter.createBitmap(pixels1, 2, 1), Format.ARGB8888_LE));
+        assertArrayEquals(PixelConverter.encode(pixels2, Format.ARGB8888_LE),
+                PixelConverter.encodeCached(PixelConverter.createBitmap(pixels2, 2, 1), Format.ARGB8888_LE));
+        assertEquals(2, PixelConverter.getCacheSize());
+
+        // the oldest images are removed, the cache also holds the pixels they were encoded from
+        PixelConverter.clearCache();
+        final int iconBytes = 24 * 24 * (Format.ARGB8888_LE.getBytesPerPixel() + 4);
+        for (int seed = 10; seed < 10 + PixelConverter.CACHE_MAX_BYTES / iconBytes + 5; seed++) {
+            PixelConverter.encodeCached(createRandomBitmap(24, 24, seed), Format.ARGB8888_LE);
+        }
+        assertEquals(PixelConverter.CACHE_MAX_BYTES / iconBytes, PixelConverter.getCacheSize());
+    }
+
+    @Test
+    public void testCreateBitmap() {
+        final Bitmap bitmap = createRandomBitmap(13, 7, 3);
+        final Bitmap copy = PixelConverter.createBitmap(PixelConverter.getPixels(bitmap), 13, 7);
+        assertTrue(copy.isMutable());
+        for (int y = 0; y < 7; y++) {
+            for (int x = 0; x < 13; x++) {
+                assertEquals(bitmap.getPixel(x, y), copy.getPixel(x, y));
+            }
+        }
+    }
+
+    @Test
+    @Ignore("Benchmark")
+    public void testBenchmark() {
+        // the size of a Fossil Hybrid HR watchface
+        final Bitmap bitmap = createRandomBitmap(240, 240, 4);
+
+        long perPixel = Long.MAX_VALUE;
+        long bulk = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            final byte[] expected = encodeArgb8565PerPixel(bitmap, false);
+            perPixel = Math.min(perPixel, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            final byte[] actual = PixelConverter.encode(bitmap, Format.ARGB8565_LE);
+            bulk = Math.min(bulk, System.nanoTime() - start);
+
+            assertArrayEquals(expected, actual);
+        }
+
+        LOG.info("Converting 240x240 pixels to ARGB8565 takes {} µs reading every pixel, {} µs in bulk",
+                perPixel / 1000, bulk / 1000);
+    }
+
+    private static Bitmap createRandomBitmap(final int width, final int height, final long seed) {
+        final Random random = new Random(seed);
+        final int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            // runs of the same color, like in icons
+            pixels[i] = i > 0 && random.nextInt(4) != 0 ? pixels[i - 1] : random.nextInt();
+        }
+        return PixelConverter.createBitmap(pixels, width, height);
+    }
+
+    // the conversions as they were done before, reading every pixel from the bitmap
+
+    private static byte[] encodeRgb565PerPixel(final Bitmap bitmap, final boolean littleEndian) {
+        final ByteBuffer buffer = ByteBuffer.allocate(bitmap.getWidth() * bitmap.getHeight() * 2);
+        if (littleEndian)
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+        for (int y = 0; y < bitmap.getHeight(); y++) {
+            for (int x = 0; x < bitmap.getWidth(); x++) {
+                final int pixel = bitmap.getPixel(x, y);
+                final int r = (pixel >> 19) & 0x1f,
+                        g = (pixel >> 10) & 0x3f,
+                        // the upper bits of blue, the lower ones were taken before
+                        b = (pixel >> 3) & 0x1f;
+                buffer.putShort((short) ((r << 11) | (g << 5) | b));
+            }
+        }
+        return buffer.array();
+    }
+
+    private static byte[] encodeArgb8565PerPixel(final Bitmap bitmap, final boolean swapChannels) {
+        final ByteBuffer buffer = ByteBuffer.allocate(bitmap.getWidth() * bitmap.getHeight() * 3).order(ByteOrder.LITTLE_ENDIAN);
+        for (int y = 0; y < bitmap.getHeight(); y++) {
+            for (int x = 0; x < bitmap.getWidth(); x++) {
+                final int pixel = bitmap.getPixel(x, y);
+                final int a = (pixel >> 24) & 0xff,
+                        r = (pixel >> 19) & 0x1f,
+                        g = (pixel >> 10) & 0x3f,
+                        b = (pixel >> 3) & 0x1f;
+                buffer.putShort((short) (((swapChannels ? b : r) << 11) | (g << 5) | (swapChannels ? r : b)));
+                buffer.put((byte) a);
+            }
+        }
+        return buffer.array();
+    }
+
+    private static byte[] encodeArgb8888PerPixel(final Bitmap bitmap) {
+        final ByteBuffer buffer = ByteBuffer.allocate(bitmap.getWidth() * bitmap.getHeight() * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int y = 0; y < bitmap.getHeight(); y++) {
+            for (int x = 0; x < bitmap.getWidth(); x++) {
+                buffer.putInt(bitmap.getPixel(x, y));
+            }
+        }
+        return buffer.array();
+    }
+
+    private static byte[] encodeGray8PerPixel(final Bitmap bitmap) {
+        final byte[] pixelBytes = new byte[bitmap.getWidth() * bitmap.getHeight()];
+        for (int y = 0; y < bitmap.getHeight(); y++) {
+            for (int x = 0; x < bitmap.getWidth(); x++) {
+                final int pixel = bitmap.getPixel(x, y);
+                pixelBytes[y * bitmap.getWidth() + x] = (byte) ((Color.red(pixel) + Color.green(pixel) + Color.blue(pixel)) / 3);
+            }
+        }
+        return pixelBytes;
+    }
+
+    private static byte[] encodeGray2PerPixel(final Bitmap bitmap) {
+        final byte[] pixelBytes = new byte[bitmap.getWidth() * bitmap.getHeight()];
+        for (int y = 0; y < bitmap.getHeight(); y++) {
+            for (int x = 0; x < bitmap.getWidth(); x++) {
+                final int pixel = bitmap.getPixel(x, y);
+                int monochrome = (Color.red(pixel) + Color.green(pixel) + Color.blue(pixel)) / 3;
+                monochrome >>= 6;
+                monochrome |= (~((Color.alpha(pixel) & 0xFF) >> 4) & 0b00001100);
+                pixelBytes[y * bitmap.getWidth() + x] = (byte) monochrome;
+            }
+        }
+        return pixelBytes;
+    }
+}
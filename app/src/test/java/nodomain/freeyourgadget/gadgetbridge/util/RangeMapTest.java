@@ -4,6 +4,11 @@ import static org.junit.Assert.*;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
 import nodomain.freeyourgadget.gadgetbridge.test.TestBase;
 
 public class RangeMapTest extends TestBase {
@@ -48,4 +53,80 @@ public class RangeMapTest extends TestBase {
         assertEquals(30, map.get(15).intValue());
         assertEquals(20, map.get(10).intValue());
     }
+
+    @Test
+    public void testDuplicateKeys() {
+        final RangeMap<Integer, Integer> map = new RangeMap<>();
+        map.put(10, 1);
+        map.put(20, 2);
+        map.put(10, 3);
+        assertEquals(3, map.get(15).intValue());
+        assertEquals(2, map.get(20).intValue());
+    }
+
+    @Test
+    public void testOverlay() {
+        for (final RangeMap.Mode mode : RangeMap.Mode.values()) {
+            final Random random = new Random(mode.ordinal());
+            final RangeMap<Long, Integer> map = new RangeMap<>(mode);
+            for (int i = 0; i < 500; i++) {
+                map.put((long) random.nextInt(100_000), random.nextInt(10));
+            }
+
+            final List<Long> keys = new ArrayList<>();
+            for (long key = -100; key < 100_100; key += 7) {
+                keys.add(key);
+            }
+            assertOverlayEqualsGet(map, keys);
+
+            Collections.shuffle(keys, random);
+            assertOverlayEqualsGet(map, keys);
+        }
+    }
+
+    @Test
+    public void testOverlayEmpty() {
+        final RangeMap<Long, Integer> map = new RangeMap<>();
+        map.overlay(Collections.singletonList(1L), key -> key, (key, value) -> fail());
+
+        map.put(10L, 1);
+        map.overlay(Collections.<Long>emptyList(), key -> key, (key, value) -> fail());
+    }
+
+    @Test
+    public void testOverlayYearOfSleepStages() {
+        // A stage every 5 to 30 minutes during 8 hours of each night, and one sample per minute
+        final Random random = new Random(0);
+        final long start = 1704067200000L;
+        final RangeMap<Long, Integer> map = new RangeMap<>(RangeMap.Mode.UPPER_BOUND);
+        for (int day = 0; day < 365; day++) {
+            final long nightStart = start + day * 86_400_000L;
+            map.put(nightStart, -1);
+            for (long ts = nightStart; ts < nightStart + 8 * 3_600_000L; ts += (5 + random.nextInt(26)) * 60_000L) {
+                map.put(ts, random.nextInt(4));
+            }
+        }
+
+        final List<Long> keys = new ArrayList<>();
+        for (long ts = start; ts < start + 365 * 86_400_000L; ts += 60_000L) {
+            keys.add(ts);
+        }
+        assertOverlayEqualsGet(map, keys);
+    }
+
+    private static void assertOverlayEqualsGet(final RangeMap<Long, Integer> map, final List<Long> keys) {
+        final List<Long> overlaid = new ArrayList<>();
+        map.overlay(keys, key -> key, (key, value) -> {
+            assertEquals(map.get(key), value);
+            overlaid.add(key);
+        });
+
+        int expectedCount = 0;
+        for (final Long key : keys) {
+            if (map.get(key) != null) {
+                expectedCount++;
+            }
+        }
+        assertEquals(expectedCount, overlaid.size());
+    }
 }